@@ -23,45 +23,28 @@ SOFTWARE.
  */
 package co.edu.uniandes.csw.parcial1.adapters;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import javax.xml.bind.annotation.adapters.XmlAdapter;
 
 /**
  * Clase adaptador que formatea las fechas en formato serialiable utilizando la
  * convención: yyyy-MM-dd. Ej: 2018-02-12
+ * La conversión la hace {@link FechaIso}, que es estricta: una fecha
+ * inexistente como 2018-02-30 se rechaza en lugar de pasar al mes siguiente.
+ * Está registrado para todos los DTOs en el package-info de dtos, de modo que
+ * se usa tanto en XML como en JSON (MOXy).
  *
  * @author ISIS2603
  */
 public class DateAdapter extends XmlAdapter<String, Date> {
-    
-      private static final Logger LOGGER = Logger.getLogger(DateAdapter.class.getName());
-
-    /**
-     * Thread safe {@link DateFormat}.
-     */
-    private static final ThreadLocal<DateFormat> DATE_FORMAT_TL = new ThreadLocal<DateFormat>() {
-
-        @Override
-        protected DateFormat initialValue() {
-            return new SimpleDateFormat("yyyy-MM-dd");
-        }
-    };
 
     @Override
     public Date unmarshal(String v) throws Exception {
-        LOGGER.log(Level.INFO, "input date "+v);
-        return DATE_FORMAT_TL.get().parse(v);
+        return FechaIso.leer(v);
     }
 
     @Override
     public String marshal(Date v) throws Exception {
-        if (v == null) {
-            return null;
-        }
-        return DATE_FORMAT_TL.get().format(v);
+        return FechaIso.escribir(v);
     }
 }
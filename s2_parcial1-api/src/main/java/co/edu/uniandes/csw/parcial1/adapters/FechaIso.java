@@ -0,0 +1,231 @@
+package co.edu.uniandes.csw.parcial1.adapters;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+
+/**
+ * Convierte fechas de y hacia el formato ISO yyyy-MM-dd, en la zona horaria
+ * por defecto, como lo hacía el SimpleDateFormat de DateAdapter.
+ * Las fechas de los años 0000 a 9999 se leen y escriben a mano, sin
+ * formateadores ni objetos intermedios; las demás se delegan a java.time.
+ * La lectura es estricta: rechaza cualquier texto que no tenga exactamente
+ * el formato o que no sea una fecha del calendario, como 2019-02-29.
+ * Los textos de las fechas escritas recientemente se guardan en un caché
+ * pequeño, de modo que escribir una fecha repetida no asigna memoria.
+ * Es segura entre hilos. Al igual que java.time, usa el calendario
+ * gregoriano también antes de 1582.
+ * @author j.ramirez28
+ */
+public final class FechaIso {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Cantidad de fechas en el caché de textos. Debe ser potencia de dos.
+     */
+    public static final int TAMANO_CACHE = 512;
+    
+    private static final int LONGITUD = 10;
+    
+    private static final long MILIS_POR_DIA = 86_400_000L;
+    
+    /**
+     * Días entre el 0000-03-01 y el 1970-01-01.
+     */
+    private static final long DIAS_HASTA_EPOCH = 719_468L;
+    
+    private static final int DIAS_POR_CICLO = 146_097;
+    
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+    
+    private static final ZoneRules REGLAS_ZONA = ZONA.getRules();
+    
+    /**
+     * Desfase de la zona en milisegundos, si es fijo (como UTC); si no, el
+     * desfase se consulta para cada fecha.
+     */
+    private static final long DESFASE_FIJO = REGLAS_ZONA.isFixedOffset()
+            ? REGLAS_ZONA.getOffset( Instant.EPOCH ).getTotalSeconds() * 1000L : 0;
+    
+    /**
+     * Textos de las fechas escritas recientemente, en la posición de su día
+     * módulo TAMANO_CACHE. Las entradas son inmutables, de modo que un hilo
+     * que lee una entrada desactualizada sólo pierde el acierto.
+     */
+    private static final Entrada[] CACHE = new Entrada[ TAMANO_CACHE ];
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    private FechaIso( ) {
+        // Clase de utilidad
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Escribe una fecha en formato yyyy-MM-dd.
+     * @param fecha Fecha a escribir.
+     * @return El texto de la fecha, o null si la fecha es nula.
+     */
+    public static String escribir( Date fecha ) {
+        if ( fecha == null ) {
+            return null;
+        }
+        long dia = Math.floorDiv( fecha.getTime() + desfase( fecha.getTime() ), MILIS_POR_DIA );
+        int posicion = ( int ) dia & ( TAMANO_CACHE - 1 );
+        Entrada entrada = CACHE[ posicion ];
+        if ( entrada != null && entrada.dia == dia ) {
+            return entrada.texto;
+        }
+        String texto = escribirDia( dia );
+        CACHE[ posicion ] = new Entrada( dia, texto );
+        return texto;
+    }
+    
+    /**
+     * Lee una fecha en formato yyyy-MM-dd.
+     * @param texto Texto de la fecha.
+     * @return La fecha a la medianoche en la zona por defecto, o null si el
+     * texto es nulo.
+     * @throws DateTimeParseException Si el texto no tiene el formato o no es
+     * una fecha válida.
+     */
+    public static Date leer( CharSequence texto ) {
+        if ( texto == null ) {
+            return null;
+        }
+        if ( texto.length() != LONGITUD ) {
+            throw new DateTimeParseException( "La fecha debe tener el formato yyyy-MM-dd", texto, 0 );
+        }
+        int anio = leerNumero( texto, 0, 4 );
+        separador( texto, 4 );
+        int mes = leerNumero( texto, 5, 2 );
+        separador( texto, 7 );
+        int diaMes = leerNumero( texto, 8, 2 );
+        if ( mes < 1 || mes > 12 ) {
+            throw new DateTimeParseException( "El mes debe estar entre 01 y 12", texto, 5 );
+        }
+        if ( diaMes < 1 || diaMes > diasDelMes( anio, mes ) ) {
+            throw new DateTimeParseException( "El día no existe en el mes", texto, 8 );
+        }
+        long dia = diaEpoch( anio, mes, diaMes );
+        if ( REGLAS_ZONA.isFixedOffset() ) {
+            return new Date( dia * MILIS_POR_DIA - DESFASE_FIJO );
+        }
+        // La medianoche puede no existir en un cambio de horario
+        return Date.from( LocalDate.ofEpochDay( dia ).atStartOfDay( ZONA ).toInstant() );
+    }
+    
+    /**
+     * Desfase de la zona por defecto en un instante, en milisegundos.
+     */
+    private static long desfase( long milis ) {
+        if ( REGLAS_ZONA.isFixedOffset() ) {
+            return DESFASE_FIJO;
+        }
+        return REGLAS_ZONA.getOffset( Instant.ofEpochMilli( milis ) ).getTotalSeconds() * 1000L;
+    }
+    
+    /**
+     * Escribe la fecha de un día contado desde 1970-01-01, con el algoritmo
+     * de fechas civiles de H. Hinnant.
+     */
+    private static String escribirDia( long dia ) {
+        long desdeMarzo = dia + DIAS_HASTA_EPOCH;
+        long ciclo = Math.floorDiv( desdeMarzo, DIAS_POR_CICLO );
+        int diaCiclo = ( int ) ( desdeMarzo - ciclo * DIAS_POR_CICLO );
+        int anioCiclo = ( diaCiclo - diaCiclo / 1460 + diaCiclo / 36524 - diaCiclo / 146096 ) / 365;
+        int diaAnio = diaCiclo - ( 365 * anioCiclo + anioCiclo / 4 - anioCiclo / 100 );
+        int mesMarzo = ( 5 * diaAnio + 2 ) / 153;
+        int diaMes = diaAnio - ( 153 * mesMarzo + 2 ) / 5 + 1;
+        int mes = mesMarzo < 10 ? mesMarzo + 3 : mesMarzo - 9;
+        long anio = ciclo * 400 + anioCiclo + ( mes <= 2 ? 1 : 0 );
+        if ( anio < 0 || anio > 9999 ) {
+            return LocalDate.ofEpochDay( dia ).toString();
+        }
+        char[] texto = new char[ LONGITUD ];
+        escribirNumero( texto, 0, ( int ) anio, 4 );
+        texto[ 4 ] = '-';
+        escribirNumero( texto, 5, mes, 2 );
+        texto[ 7 ] = '-';
+        escribirNumero( texto, 8, diaMes, 2 );
+        return new String( texto );
+    }
+    
+    /**
+     * Día contado desde 1970-01-01 de una fecha válida.
+     */
+    private static long diaEpoch( int anio, int mes, int diaMes ) {
+        int anioMarzo = mes <= 2 ? anio - 1 : anio;
+        long ciclo = Math.floorDiv( anioMarzo, 400 );
+        int anioCiclo = ( int ) ( anioMarzo - ciclo * 400 );
+        int diaAnio = ( 153 * ( mes > 2 ? mes - 3 : mes + 9 ) + 2 ) / 5 + diaMes - 1;
+        int diaCiclo = anioCiclo * 365 + anioCiclo / 4 - anioCiclo / 100 + diaAnio;
+        return ciclo * DIAS_POR_CICLO + diaCiclo - DIAS_HASTA_EPOCH;
+    }
+    
+    private static int diasDelMes( int anio, int mes ) {
+        switch ( mes ) {
+            case 2:
+                boolean bisiesto = anio % 4 == 0 && ( anio % 100 != 0 || anio % 400 == 0 );
+                return bisiesto ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+    
+    private static int leerNumero( CharSequence texto, int inicio, int digitos ) {
+        int numero = 0;
+        for ( int i = inicio; i < inicio + digitos; i++ ) {
+            char c = texto.charAt( i );
+            if ( c < '0' || c > '9' ) {
+                throw new DateTimeParseException( "Se esperaba un dígito", texto, i );
+            }
+            numero = numero * 10 + ( c - '0' );
+        }
+        return numero;
+    }
+    
+    private static void separador( CharSequence texto, int posicion ) {
+        if ( texto.charAt( posicion ) != '-' ) {
+            throw new DateTimeParseException( "Se esperaba '-'", texto, posicion );
+        }
+    }
+    
+    private static void escribirNumero( char[] texto, int inicio, int numero, int digitos ) {
+        for ( int i = inicio + digitos - 1; i >= inicio; i-- ) {
+            texto[ i ] = ( char ) ( '0' + numero % 10 );
+            numero /= 10;
+        }
+    }
+    
+    /**
+     * Texto de una fecha en el caché.
+     */
+    private static final class Entrada {
+        
+        private final long dia;
+        
+        private final String texto;
+        
+        Entrada( long dia, String texto ) {
+            this.dia = dia;
+            this.texto = texto;
+        }
+    }
+}
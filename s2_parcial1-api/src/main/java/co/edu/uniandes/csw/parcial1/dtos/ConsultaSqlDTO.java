@@ -0,0 +1,118 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import co.edu.uniandes.csw.parcial1.persistence.EstadisticasSql;
+import java.io.Serializable;
+
+/**
+ * ConsultaSqlDTO Objeto de transferencia de datos con los agregados de una
+ * sentencia SQL enviada por la persistencia, para afinar las consultas.
+ *
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "sql": string,
+ *    "ejecuciones": long,
+ *    "filas": long,
+ *    "totalMs": number,
+ *    "promedioMs": number,
+ *    "maximoMs": number
+ * }
+ * </pre>
+ *
+ * @author j.ramirez28
+ */
+public class ConsultaSqlDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final double NANOS_POR_MILISEGUNDO = 1e6;
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private String sql;
+    private Long ejecuciones;
+    private Long filas;
+    private Double totalMs;
+    private Double promedioMs;
+    private Double maximoMs;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public ConsultaSqlDTO() {
+        // Constructor vacío por defecto para evitar conflictos.
+    }
+    
+    /**
+     * Constructor a partir de los agregados de una sentencia.
+     * @param agregado Agregados de la sentencia.
+     */
+    public ConsultaSqlDTO( EstadisticasSql.Agregado agregado ) {
+        this.sql = agregado.getSql();
+        this.ejecuciones = agregado.getEjecuciones();
+        this.filas = agregado.getFilas();
+        this.totalMs = agregado.getNanos() / NANOS_POR_MILISEGUNDO;
+        this.promedioMs = agregado.getEjecuciones() == 0 ? 0 : totalMs / agregado.getEjecuciones();
+        this.maximoMs = agregado.getMaximo() / NANOS_POR_MILISEGUNDO;
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+    
+    public String getSql() {
+        return sql;
+    }
+    
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+    
+    public Long getEjecuciones() {
+        return ejecuciones;
+    }
+    
+    public void setEjecuciones(Long ejecuciones) {
+        this.ejecuciones = ejecuciones;
+    }
+    
+    public Long getFilas() {
+        return filas;
+    }
+    
+    public void setFilas(Long filas) {
+        this.filas = filas;
+    }
+    
+    public Double getTotalMs() {
+        return totalMs;
+    }
+    
+    public void setTotalMs(Double totalMs) {
+        this.totalMs = totalMs;
+    }
+    
+    public Double getPromedioMs() {
+        return promedioMs;
+    }
+    
+    public void setPromedioMs(Double promedioMs) {
+        this.promedioMs = promedioMs;
+    }
+    
+    public Double getMaximoMs() {
+        return maximoMs;
+    }
+    
+    public void setMaximoMs(Double maximoMs) {
+        this.maximoMs = maximoMs;
+    }
+}
@@ -0,0 +1,68 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import java.io.Serializable;
+
+/**
+ * ConteoEspecialidadDTO Objeto de transferencia de datos con la cantidad de
+ * médicos de una especialidad.
+ * 
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "especialidad": string,
+ *    "cantidad": long
+ * }
+ * </pre>
+ * 
+ * @author j.ramirez28
+ */
+public class ConteoEspecialidadDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private String especialidad;
+    private Long cantidad;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public ConteoEspecialidadDTO() {
+        // Constructor vacío por defecto para evitar conflictos.
+    }
+    
+    /**
+     * Constructor con todos los atributos.
+     * @param especialidad Especialidad contada.
+     * @param cantidad Cantidad de médicos de la especialidad.
+     */
+    public ConteoEspecialidadDTO( String especialidad, Long cantidad ) {
+        this.especialidad = especialidad;
+        this.cantidad = cantidad;
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+
+    public String getEspecialidad() {
+        return especialidad;
+    }
+
+    public void setEspecialidad(String especialidad) {
+        this.especialidad = especialidad;
+    }
+
+    public Long getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Long cantidad) {
+        this.cantidad = cantidad;
+    }
+}
@@ -0,0 +1,68 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import java.io.Serializable;
+
+/**
+ * ErrorCargaDTO Objeto de transferencia de datos con el motivo por el que se
+ * rechazó un médico en una carga masiva.
+ * 
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "posicion": integer,
+ *    "mensaje": string
+ * }
+ * </pre>
+ * 
+ * @author j.ramirez28
+ */
+public class ErrorCargaDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private Integer posicion;
+    private String mensaje;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public ErrorCargaDTO() {
+        // Constructor vacío por defecto para evitar conflictos.
+    }
+    
+    /**
+     * Constructor con la posición del médico rechazado y el motivo.
+     * @param posicion Posición del médico en la carga.
+     * @param mensaje Motivo del rechazo.
+     */
+    public ErrorCargaDTO( Integer posicion, String mensaje ) {
+        this.posicion = posicion;
+        this.mensaje = mensaje;
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+
+    public Integer getPosicion() {
+        return posicion;
+    }
+
+    public void setPosicion(Integer posicion) {
+        this.posicion = posicion;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+}
@@ -0,0 +1,113 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import co.edu.uniandes.csw.parcial1.persistence.RegistroCache;
+import java.io.Serializable;
+
+/**
+ * EstadisticasCacheDTO Objeto de transferencia de datos con las estadísticas
+ * del cache de registros de médicos.
+ * 
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "capacidad": integer,
+ *    "tamano": integer,
+ *    "aciertos": long,
+ *    "fallos": long,
+ *    "invalidaciones": long,
+ *    "tasaAciertos": double
+ * }
+ * </pre>
+ * 
+ * @author j.ramirez28
+ */
+public class EstadisticasCacheDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private Integer capacidad;
+    private Integer tamano;
+    private Long aciertos;
+    private Long fallos;
+    private Long invalidaciones;
+    private Double tasaAciertos;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public EstadisticasCacheDTO() {
+        // Constructor vacío por defecto para evitar conflictos.
+    }
+    
+    /**
+     * Constructor a partir de las estadísticas del cache.
+     * @param estadisticas Estadísticas del cache de registros.
+     */
+    public EstadisticasCacheDTO( RegistroCache.Estadisticas estadisticas ) {
+        this.capacidad = estadisticas.getCapacidad();
+        this.tamano = estadisticas.getTamano();
+        this.aciertos = estadisticas.getAciertos();
+        this.fallos = estadisticas.getFallos();
+        this.invalidaciones = estadisticas.getInvalidaciones();
+        long consultas = aciertos + fallos;
+        this.tasaAciertos = consultas == 0 ? 0.0 : ( double ) aciertos / consultas;
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+
+    public Integer getCapacidad() {
+        return capacidad;
+    }
+
+    public void setCapacidad(Integer capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    public Integer getTamano() {
+        return tamano;
+    }
+
+    public void setTamano(Integer tamano) {
+        this.tamano = tamano;
+    }
+
+    public Long getAciertos() {
+        return aciertos;
+    }
+
+    public void setAciertos(Long aciertos) {
+        this.aciertos = aciertos;
+    }
+
+    public Long getFallos() {
+        return fallos;
+    }
+
+    public void setFallos(Long fallos) {
+        this.fallos = fallos;
+    }
+
+    public Long getInvalidaciones() {
+        return invalidaciones;
+    }
+
+    public void setInvalidaciones(Long invalidaciones) {
+        this.invalidaciones = invalidaciones;
+    }
+
+    public Double getTasaAciertos() {
+        return tasaAciertos;
+    }
+
+    public void setTasaAciertos(Double tasaAciertos) {
+        this.tasaAciertos = tasaAciertos;
+    }
+}
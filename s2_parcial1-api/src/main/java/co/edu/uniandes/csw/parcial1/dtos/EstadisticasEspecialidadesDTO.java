@@ -0,0 +1,98 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import co.edu.uniandes.csw.parcial1.ejb.ConteoEspecialidades;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EstadisticasEspecialidadesDTO Objeto de transferencia de datos con el
+ * total de médicos y la cantidad por especialidad, de mayor a menor. En una
+ * reconciliación incluye además la corrección aplicada a cada especialidad.
+ * 
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "total": long,
+ *    "especialidades": [{@link ConteoEspecialidadDTO}],
+ *    "ajustes": [{@link ConteoEspecialidadDTO}]
+ * }
+ * </pre>
+ * 
+ * @author j.ramirez28
+ */
+public class EstadisticasEspecialidadesDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private Long total;
+    private List< ConteoEspecialidadDTO > especialidades;
+    private List< ConteoEspecialidadDTO > ajustes;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public EstadisticasEspecialidadesDTO() {
+        this.especialidades = new ArrayList<>();
+        this.ajustes = new ArrayList<>();
+    }
+    
+    /**
+     * Constructor a partir del conteo de la lógica.
+     * @param resumen Conteo de médicos por especialidad.
+     */
+    public EstadisticasEspecialidadesDTO( ConteoEspecialidades.Resumen resumen ) {
+        this.total = resumen.getTotal();
+        this.especialidades = convertir( resumen.getPorEspecialidad() );
+        this.especialidades.sort( ( a, b ) -> Long.compare( b.getCantidad(), a.getCantidad() ) );
+        this.ajustes = convertir( resumen.getAjustes() );
+    }
+    
+    /**
+     * Convierte un mapa de especialidad a cantidad en una lista de DTOs.
+     * @param cantidades Mapa con la cantidad de cada especialidad.
+     * @return Lista de conteos, en el orden del mapa.
+     */
+    private static List< ConteoEspecialidadDTO > convertir( Map< String, Long > cantidades ) {
+        List< ConteoEspecialidadDTO > conteos = new ArrayList<>( cantidades.size() );
+        for ( Map.Entry< String, Long > cantidad : cantidades.entrySet() ) {
+            conteos.add( new ConteoEspecialidadDTO( cantidad.getKey(), cantidad.getValue() ) );
+        }
+        return conteos;
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public List< ConteoEspecialidadDTO > getEspecialidades() {
+        return especialidades;
+    }
+
+    public void setEspecialidades(List< ConteoEspecialidadDTO > especialidades) {
+        this.especialidades = especialidades;
+    }
+
+    public List< ConteoEspecialidadDTO > getAjustes() {
+        return ajustes;
+    }
+
+    public void setAjustes(List< ConteoEspecialidadDTO > ajustes) {
+        this.ajustes = ajustes;
+    }
+}
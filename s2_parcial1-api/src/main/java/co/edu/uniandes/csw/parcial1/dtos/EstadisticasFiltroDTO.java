@@ -0,0 +1,123 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import co.edu.uniandes.csw.parcial1.ejb.FiltroRegistros;
+import java.io.Serializable;
+
+/**
+ * EstadisticasFiltroDTO Objeto de transferencia de datos con las estadísticas
+ * del filtro de registros de médicos.
+ * 
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "bits": long,
+ *    "bytes": long,
+ *    "hashes": integer,
+ *    "registros": long,
+ *    "tasaFalsosPositivos": double,
+ *    "consultas": long,
+ *    "descartes": long
+ * }
+ * </pre>
+ * 
+ * @author j.ramirez28
+ */
+public class EstadisticasFiltroDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private Long bits;
+    private Long bytes;
+    private Integer hashes;
+    private Long registros;
+    private Double tasaFalsosPositivos;
+    private Long consultas;
+    private Long descartes;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public EstadisticasFiltroDTO() {
+        // Constructor vacío por defecto para evitar conflictos.
+    }
+    
+    /**
+     * Constructor a partir de las estadísticas del filtro.
+     * @param estadisticas Estadísticas del filtro de registros.
+     */
+    public EstadisticasFiltroDTO( FiltroRegistros.Estadisticas estadisticas ) {
+        this.bits = estadisticas.getBits();
+        this.bytes = estadisticas.getBytes();
+        this.hashes = estadisticas.getHashes();
+        this.registros = estadisticas.getRegistros();
+        this.tasaFalsosPositivos = estadisticas.getTasaFalsosPositivos();
+        this.consultas = estadisticas.getConsultas();
+        this.descartes = estadisticas.getDescartes();
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+
+    public Long getBits() {
+        return bits;
+    }
+
+    public void setBits(Long bits) {
+        this.bits = bits;
+    }
+
+    public Long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(Long bytes) {
+        this.bytes = bytes;
+    }
+
+    public Integer getHashes() {
+        return hashes;
+    }
+
+    public void setHashes(Integer hashes) {
+        this.hashes = hashes;
+    }
+
+    public Long getRegistros() {
+        return registros;
+    }
+
+    public void setRegistros(Long registros) {
+        this.registros = registros;
+    }
+
+    public Double getTasaFalsosPositivos() {
+        return tasaFalsosPositivos;
+    }
+
+    public void setTasaFalsosPositivos(Double tasaFalsosPositivos) {
+        this.tasaFalsosPositivos = tasaFalsosPositivos;
+    }
+
+    public Long getConsultas() {
+        return consultas;
+    }
+
+    public void setConsultas(Long consultas) {
+        this.consultas = consultas;
+    }
+
+    public Long getDescartes() {
+        return descartes;
+    }
+
+    public void setDescartes(Long descartes) {
+        this.descartes = descartes;
+    }
+}
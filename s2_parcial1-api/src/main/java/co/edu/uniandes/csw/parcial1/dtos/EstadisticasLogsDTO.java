@@ -0,0 +1,138 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import co.edu.uniandes.csw.parcial1.logging.ManejadorAsincrono;
+import java.io.Serializable;
+
+/**
+ * EstadisticasLogsDTO Objeto de transferencia de datos con el estado de los
+ * logs asíncronos de la aplicación.
+ *
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "asincrono": boolean,
+ *    "nivel": string,
+ *    "muestreo": integer,
+ *    "capacidad": integer,
+ *    "pendientes": integer,
+ *    "entregados": long,
+ *    "muestreados": long,
+ *    "descartados": long
+ * }
+ * </pre>
+ *
+ * @author j.ramirez28
+ */
+public class EstadisticasLogsDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private Boolean asincrono;
+    private String nivel;
+    private Integer muestreo;
+    private Integer capacidad;
+    private Integer pendientes;
+    private Long entregados;
+    private Long muestreados;
+    private Long descartados;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public EstadisticasLogsDTO() {
+        // Constructor vacío por defecto para evitar conflictos.
+    }
+    
+    /**
+     * Constructor a partir del handler asíncrono.
+     * @param nivel Nivel efectivo del logger raíz de la aplicación.
+     * @param manejador Handler asíncrono instalado, o null si los logs son
+     * sincrónicos.
+     */
+    public EstadisticasLogsDTO( String nivel, ManejadorAsincrono manejador ) {
+        this.asincrono = manejador != null;
+        this.nivel = nivel;
+        if ( manejador != null ) {
+            this.muestreo = manejador.getMuestreo();
+            this.capacidad = manejador.getCapacidad();
+            this.pendientes = manejador.getPendientes();
+            this.entregados = manejador.getEntregados();
+            this.muestreados = manejador.getMuestreados();
+            this.descartados = manejador.getDescartados();
+        }
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+    
+    public Boolean getAsincrono() {
+        return asincrono;
+    }
+    
+    public void setAsincrono(Boolean asincrono) {
+        this.asincrono = asincrono;
+    }
+    
+    public String getNivel() {
+        return nivel;
+    }
+    
+    public void setNivel(String nivel) {
+        this.nivel = nivel;
+    }
+    
+    public Integer getMuestreo() {
+        return muestreo;
+    }
+    
+    public void setMuestreo(Integer muestreo) {
+        this.muestreo = muestreo;
+    }
+    
+    public Integer getCapacidad() {
+        return capacidad;
+    }
+    
+    public void setCapacidad(Integer capacidad) {
+        this.capacidad = capacidad;
+    }
+    
+    public Integer getPendientes() {
+        return pendientes;
+    }
+    
+    public void setPendientes(Integer pendientes) {
+        this.pendientes = pendientes;
+    }
+    
+    public Long getEntregados() {
+        return entregados;
+    }
+    
+    public void setEntregados(Long entregados) {
+        this.entregados = entregados;
+    }
+    
+    public Long getMuestreados() {
+        return muestreados;
+    }
+    
+    public void setMuestreados(Long muestreados) {
+        this.muestreados = muestreados;
+    }
+    
+    public Long getDescartados() {
+        return descartados;
+    }
+    
+    public void setDescartados(Long descartados) {
+        this.descartados = descartados;
+    }
+}
@@ -1,9 +1,8 @@
 package co.edu.uniandes.csw.parcial1.dtos;
 
 import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
 import java.io.Serializable;
-import org.apache.commons.lang3.builder.ToStringBuilder;
-import org.apache.commons.lang3.builder.ToStringStyle;
 
 /**
  * MedicoDTO Objeto de transferencia de datos de medicos.
@@ -70,6 +69,18 @@ public class MedicoDTO implements Serializable {
         }
     }
     
+    /**
+     * Constructor a partir de la proyección de lectura de un médico.
+     * @param proyeccion La proyección del médico.
+     */
+    public MedicoDTO( MedicoProyeccion proyeccion ) {
+        this.id = proyeccion.getId();
+        this.nombre = proyeccion.getNombre();
+        this.apellido = proyeccion.getApellido();
+        this.registro = proyeccion.getRegistro();
+        this.especialidad = proyeccion.getEspecialidad();
+    }
+    
     //------------------------------------------------------------------------
     // GETTERS-SETTERS
     //------------------------------------------------------------------------
@@ -132,8 +143,17 @@ public class MedicoDTO implements Serializable {
         return medicoEntity;
     }
     
+    /**
+     * Representación compacta, en una línea y sin reflexión, para los logs.
+     * @return El médico como MedicoDTO[id=..., nombre=..., ...].
+     */
     @Override
     public String toString() {
-        return ToStringBuilder.reflectionToString( this, ToStringStyle.MULTI_LINE_STYLE );
+        return new StringBuilder( 96 ).append( "MedicoDTO[id=" ).append( id )
+                .append( ", nombre=" ).append( nombre )
+                .append( ", apellido=" ).append( apellido )
+                .append( ", registro=" ).append( registro )
+                .append( ", especialidad=" ).append( especialidad )
+                .append( ']' ).toString();
     }
 }
@@ -0,0 +1,74 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import java.io.Serializable;
+
+/**
+ * NivelLogDTO Objeto de transferencia de datos con el nivel de un logger.
+ *
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "logger": string,
+ *    "nivel": string
+ * }
+ * </pre>
+ * Por ejemplo:<br>
+ * <pre>
+ * {
+ *    "logger": "co.edu.uniandes.csw.parcial1.resources",
+ *    "nivel": "FINE"
+ * }
+ * </pre>
+ *
+ * @author j.ramirez28
+ */
+public class NivelLogDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private String logger;
+    private String nivel;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public NivelLogDTO() {
+        // Constructor vacío por defecto para evitar conflictos.
+    }
+    
+    /**
+     * Constructor con sus atributos.
+     * @param logger Nombre del logger.
+     * @param nivel Nombre del nivel.
+     */
+    public NivelLogDTO( String logger, String nivel ) {
+        this.logger = logger;
+        this.nivel = nivel;
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+    
+    public String getLogger() {
+        return logger;
+    }
+    
+    public void setLogger(String logger) {
+        this.logger = logger;
+    }
+    
+    public String getNivel() {
+        return nivel;
+    }
+    
+    public void setNivel(String nivel) {
+        this.nivel = nivel;
+    }
+}
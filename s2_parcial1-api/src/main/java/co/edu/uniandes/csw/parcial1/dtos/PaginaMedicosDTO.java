@@ -0,0 +1,72 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PaginaMedicosDTO Objeto de transferencia de datos con una página del
+ * listado de médicos.
+ * 
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "medicos": [{@link MedicoDTO}],
+ *    "siguiente": string
+ * }
+ * </pre>
+ * El atributo siguiente es un cursor opaco que se envía en el parámetro
+ * cursor para pedir la página siguiente; es nulo cuando no hay más médicos.
+ * 
+ * @author j.ramirez28
+ */
+public class PaginaMedicosDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private List< MedicoDTO > medicos;
+    private String siguiente;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public PaginaMedicosDTO() {
+        this.medicos = new ArrayList<>();
+    }
+    
+    /**
+     * Constructor con los médicos de la página y el cursor de la siguiente.
+     * @param medicos Médicos de la página.
+     * @param siguiente Cursor de la página siguiente, o null si no hay más.
+     */
+    public PaginaMedicosDTO( List< MedicoDTO > medicos, String siguiente ) {
+        this.medicos = medicos;
+        this.siguiente = siguiente;
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+
+    public List< MedicoDTO > getMedicos() {
+        return medicos;
+    }
+
+    public void setMedicos(List< MedicoDTO > medicos) {
+        this.medicos = medicos;
+    }
+
+    public String getSiguiente() {
+        return siguiente;
+    }
+
+    public void setSiguiente(String siguiente) {
+        this.siguiente = siguiente;
+    }
+}
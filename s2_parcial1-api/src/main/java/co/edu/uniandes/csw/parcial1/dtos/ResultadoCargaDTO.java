@@ -0,0 +1,76 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResultadoCargaDTO Objeto de transferencia de datos con el resultado de una
+ * carga masiva de médicos.
+ * 
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "creados": integer,
+ *    "rechazados": [{@link ErrorCargaDTO}]
+ * }
+ * </pre>
+ * 
+ * @author j.ramirez28
+ */
+public class ResultadoCargaDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private Integer creados;
+    private List< ErrorCargaDTO > rechazados;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public ResultadoCargaDTO() {
+        this.creados = 0;
+        this.rechazados = new ArrayList<>();
+    }
+    
+    /**
+     * Constructor a partir del total de médicos recibidos y el mapa de
+     * rechazados que retorna la lógica.
+     * @param total Cantidad de médicos recibidos.
+     * @param rechazados Mapa con la posición y el motivo de cada rechazo.
+     */
+    public ResultadoCargaDTO( int total, Map< Integer, String > rechazados ) {
+        this.creados = total - rechazados.size();
+        this.rechazados = new ArrayList<>( rechazados.size() );
+        for ( Map.Entry< Integer, String > rechazo : rechazados.entrySet() ) {
+            this.rechazados.add( new ErrorCargaDTO( rechazo.getKey(), rechazo.getValue() ) );
+        }
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+
+    public Integer getCreados() {
+        return creados;
+    }
+
+    public void setCreados(Integer creados) {
+        this.creados = creados;
+    }
+
+    public List< ErrorCargaDTO > getRechazados() {
+        return rechazados;
+    }
+
+    public void setRechazados(List< ErrorCargaDTO > rechazados) {
+        this.rechazados = rechazados;
+    }
+}
@@ -0,0 +1,120 @@
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ResultadoImportacionDTO Objeto de transferencia de datos con el resultado
+ * de la importación de un archivo de médicos. La posición de cada error es
+ * el número de línea (desde 1) en el que empieza el registro rechazado. Se
+ * reportan a lo sumo MAXIMO_ERRORES errores; rechazados cuenta todos.
+ * 
+ * Al serializarse como JSON esta clase implementa el siguiente modelo:<br>
+ * <pre>
+ * {
+ *    "leidos": integer,
+ *    "creados": integer,
+ *    "rechazados": integer,
+ *    "errores": [{@link ErrorCargaDTO}]
+ * }
+ * </pre>
+ * 
+ * @author j.ramirez28
+ */
+public class ResultadoImportacionDTO implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Cantidad máxima de errores que se reportan en detalle.
+     */
+    public static final int MAXIMO_ERRORES = 1000;
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private Integer leidos;
+    private Integer creados;
+    private Integer rechazados;
+    private List< ErrorCargaDTO > errores;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTORES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor por defecto.
+     */
+    public ResultadoImportacionDTO() {
+        this.leidos = 0;
+        this.creados = 0;
+        this.rechazados = 0;
+        this.errores = new ArrayList<>();
+    }
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Registra un médico creado.
+     */
+    public void registrarCreado( ) {
+        leidos++;
+        creados++;
+    }
+    
+    /**
+     * Registra un registro rechazado, detallándolo si aún no se llega a
+     * MAXIMO_ERRORES.
+     * @param linea Línea en la que empieza el registro.
+     * @param mensaje Motivo del rechazo.
+     */
+    public void registrarError( int linea, String mensaje ) {
+        leidos++;
+        rechazados++;
+        if ( errores.size() < MAXIMO_ERRORES ) {
+            errores.add( new ErrorCargaDTO( linea, mensaje ) );
+        }
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+
+    public Integer getLeidos() {
+        return leidos;
+    }
+
+    public void setLeidos(Integer leidos) {
+        this.leidos = leidos;
+    }
+
+    public Integer getCreados() {
+        return creados;
+    }
+
+    public void setCreados(Integer creados) {
+        this.creados = creados;
+    }
+
+    public Integer getRechazados() {
+        return rechazados;
+    }
+
+    public void setRechazados(Integer rechazados) {
+        this.rechazados = rechazados;
+    }
+
+    public List< ErrorCargaDTO > getErrores() {
+        return errores;
+    }
+
+    public void setErrores(List< ErrorCargaDTO > errores) {
+        this.errores = errores;
+    }
+}
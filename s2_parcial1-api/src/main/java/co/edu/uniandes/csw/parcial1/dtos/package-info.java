@@ -0,0 +1,12 @@
+/**
+ * Objetos de transferencia de datos de la API.
+ * Las fechas de todos los DTOs se convierten con {@link DateAdapter}, tanto
+ * en XML (JAXB) como en JSON (MOXy usa las mismas anotaciones), sin anotar
+ * cada atributo.
+ */
+@XmlJavaTypeAdapter( type = Date.class, value = DateAdapter.class )
+package co.edu.uniandes.csw.parcial1.dtos;
+
+import co.edu.uniandes.csw.parcial1.adapters.DateAdapter;
+import java.util.Date;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
@@ -0,0 +1,254 @@
+package co.edu.uniandes.csw.parcial1.filters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Interceptor que comprime las respuestas y descomprime las peticiones.
+ * Las respuestas de texto (JSON, NDJSON, CSV, XML) se comprimen con gzip o
+ * deflate, según el encabezado Accept-Encoding de la petición, cuando superan
+ * parcial1.compresion.umbral bytes (1024 por defecto), con nivel
+ * parcial1.compresion.nivel (6 por defecto). Las peticiones con
+ * Content-Encoding gzip o deflate se descomprimen mientras se leen, de modo
+ * que una importación masiva puede enviarse comprimida; si el cuerpo
+ * descomprimido supera parcial1.compresion.maximo bytes (100 MB por defecto)
+ * la lectura falla con 413.
+ * @author j.ramirez28
+ */
+@Provider
+@Priority( Priorities.ENTITY_CODER )
+public class CompresionInterceptor implements WriterInterceptor, ReaderInterceptor {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( CompresionInterceptor.class.getName() );
+    
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+    private static final String IDENTIDAD = "identity";
+    
+    /**
+     * Tamaño a partir del cual se comprime una respuesta, en bytes.
+     */
+    private static final int UMBRAL = Math.max( 0, Integer.getInteger( "parcial1.compresion.umbral", 1024 ) );
+    
+    /**
+     * Nivel de compresión, de 0 (sin compresión) a 9 (máxima).
+     */
+    private static final int NIVEL = Math.max( 0, Math.min( 9, Integer.getInteger( "parcial1.compresion.nivel", 6 ) ) );
+    
+    /**
+     * Tamaño máximo del cuerpo descomprimido de una petición, en bytes.
+     */
+    private static final long MAXIMO_DESCOMPRIMIDO = Math.max( 0, Long.getLong( "parcial1.compresion.maximo", 100L * 1024 * 1024 ) );
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Encabezados de la petición en curso.
+     */
+    @Context
+    private HttpHeaders encabezados;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Comprime la respuesta si su tipo es de texto, el cliente acepta gzip o
+     * deflate, y el cuerpo supera el umbral.
+     * @param contexto Contexto de la escritura.
+     * @throws IOException si falla la escritura.
+     */
+    @Override
+    public void aroundWriteTo( WriterInterceptorContext contexto ) throws IOException {
+        MultivaluedMap< String, Object > respuesta = contexto.getHeaders();
+        if ( !esComprimible( contexto.getMediaType() ) || respuesta.containsKey( HttpHeaders.CONTENT_ENCODING ) ) {
+            contexto.proceed();
+            return;
+        }
+        agregarVary( respuesta );
+        String codificacion = negociar( encabezados.getRequestHeader( HttpHeaders.ACCEPT_ENCODING ) );
+        if ( codificacion == null ) {
+            contexto.proceed();
+            return;
+        }
+        SalidaComprimida salida = new SalidaComprimida( contexto.getOutputStream(), GZIP.equals( codificacion ), NIVEL, UMBRAL,
+                ( ) -> marcarComprimida( respuesta, codificacion ) );
+        contexto.setOutputStream( salida );
+        try {
+            contexto.proceed();
+            salida.terminar();
+        } finally {
+            salida.liberar();
+        }
+    }
+    
+    /**
+     * Descomprime el cuerpo de la petición si viene con Content-Encoding gzip
+     * o deflate.
+     * @param contexto Contexto de la lectura.
+     * @return La entidad leída.
+     * @throws IOException si falla la lectura.
+     * @throws WebApplicationException 415 si la codificación no es soportada
+     * o 413 si el cuerpo descomprimido supera el máximo.
+     */
+    @Override
+    public Object aroundReadFrom( ReaderInterceptorContext contexto ) throws IOException {
+        String codificacion = contexto.getHeaders().getFirst( HttpHeaders.CONTENT_ENCODING );
+        if ( codificacion == null || IDENTIDAD.equalsIgnoreCase( codificacion.trim() ) ) {
+            return contexto.proceed();
+        }
+        String nombre = codificacion.trim().toLowerCase( Locale.ROOT );
+        InputStream entrada = contexto.getInputStream();
+        InputStream descomprimida;
+        if ( GZIP.equals( nombre ) || "x-gzip".equals( nombre ) ) {
+            descomprimida = new GZIPInputStream( entrada );
+        } else if ( DEFLATE.equals( nombre ) ) {
+            descomprimida = new InflaterInputStream( entrada );
+        } else {
+            throw new WebApplicationException( "La codificación \"" + codificacion + "\" no es soportada.", Response.Status.UNSUPPORTED_MEDIA_TYPE );
+        }
+        EntradaLimitada limitada = new EntradaLimitada( descomprimida, MAXIMO_DESCOMPRIMIDO );
+        contexto.setInputStream( limitada );
+        contexto.getHeaders().remove( HttpHeaders.CONTENT_ENCODING );
+        try {
+            return contexto.proceed();
+        } catch ( IOException | RuntimeException e ) {
+            // Los lectores de entidades pueden envolver la excepción del límite
+            if ( limitada.superoMaximo() ) {
+                throw limitada.excesoMaximo();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Indica si vale la pena comprimir un tipo de contenido.
+     * @param tipo Tipo de contenido de la respuesta.
+     * @return true si es texto.
+     */
+    private static boolean esComprimible( MediaType tipo ) {
+        if ( tipo == null ) {
+            return false;
+        }
+        String subtipo = tipo.getSubtype().toLowerCase( Locale.ROOT );
+        return "text".equalsIgnoreCase( tipo.getType() )
+                || ( "application".equalsIgnoreCase( tipo.getType() )
+                && ( subtipo.equals( "json" ) || subtipo.endsWith( "+json" ) || subtipo.equals( "x-ndjson" )
+                || subtipo.equals( "xml" ) || subtipo.endsWith( "+xml" ) ) );
+    }
+    
+    /**
+     * Escoge la codificación de la respuesta según el encabezado
+     * Accept-Encoding, prefiriendo gzip sobre deflate.
+     * @param aceptadas Valores del encabezado Accept-Encoding.
+     * @return "gzip", "deflate" o null si no se debe comprimir.
+     */
+    private static String negociar( List< String > aceptadas ) {
+        if ( aceptadas == null ) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double comodin = -1;
+        for ( String valor : aceptadas ) {
+            for ( String elemento : valor.split( "," ) ) {
+                String[] partes = elemento.split( ";" );
+                String nombre = partes[ 0 ].trim().toLowerCase( Locale.ROOT );
+                double calidad = calidad( partes );
+                if ( GZIP.equals( nombre ) || "x-gzip".equals( nombre ) ) {
+                    gzip = Math.max( gzip, calidad );
+                } else if ( DEFLATE.equals( nombre ) ) {
+                    deflate = Math.max( deflate, calidad );
+                } else if ( "*".equals( nombre ) ) {
+                    comodin = calidad;
+                }
+            }
+        }
+        // Las codificaciones no nombradas toman la calidad del comodín
+        gzip = gzip < 0 ? comodin : gzip;
+        deflate = deflate < 0 ? comodin : deflate;
+        if ( gzip > 0 && gzip >= deflate ) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+    
+    /**
+     * Lee el parámetro q de un elemento de Accept-Encoding.
+     * @param partes Nombre y parámetros del elemento.
+     * @return La calidad, 1 si no tiene, o 0 si no es válida.
+     */
+    private static double calidad( String[] partes ) {
+        for ( int i = 1; i < partes.length; i++ ) {
+            String parametro = partes[ i ].trim();
+            if ( parametro.startsWith( "q=" ) ) {
+                try {
+                    return Double.parseDouble( parametro.substring( 2 ) );
+                } catch ( NumberFormatException e ) {
+                    LOGGER.log( Level.FINE, "Calidad inválida en Accept-Encoding: {0}", parametro );
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+    
+    /**
+     * Indica a los caches que la respuesta depende de Accept-Encoding.
+     * @param respuesta Encabezados de la respuesta.
+     */
+    private static void agregarVary( MultivaluedMap< String, Object > respuesta ) {
+        List< Object > vary = respuesta.get( HttpHeaders.VARY );
+        if ( vary != null ) {
+            for ( Object valor : vary ) {
+                if ( String.valueOf( valor ).toLowerCase( Locale.ROOT ).contains( "accept-encoding" ) ) {
+                    return;
+                }
+            }
+        }
+        respuesta.add( HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING );
+    }
+    
+    /**
+     * Marca la respuesta como comprimida, antes de enviar sus encabezados. La
+     * longitud deja de ser válida, y la ETag pasa a ser débil porque los bytes
+     * ya no son los de la representación original.
+     * @param respuesta Encabezados de la respuesta.
+     * @param codificacion Codificación usada.
+     */
+    private static void marcarComprimida( MultivaluedMap< String, Object > respuesta, String codificacion ) {
+        respuesta.putSingle( HttpHeaders.CONTENT_ENCODING, codificacion );
+        respuesta.remove( HttpHeaders.CONTENT_LENGTH );
+        Object etiqueta = respuesta.getFirst( HttpHeaders.ETAG );
+        if ( etiqueta != null ) {
+            EntityTag fuerte = etiqueta instanceof EntityTag ? ( EntityTag ) etiqueta : EntityTag.valueOf( etiqueta.toString() );
+            respuesta.putSingle( HttpHeaders.ETAG, new EntityTag( fuerte.getValue(), true ) );
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package co.edu.uniandes.csw.parcial1.filters;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Flujo de entrada que cuenta los bytes leídos y falla con 413 cuando
+ * superan un máximo. Envuelve el cuerpo descomprimido de una petición, para
+ * que unos pocos kilobytes comprimidos no se expandan sin límite en memoria
+ * o en el disco del servidor.
+ * @author j.ramirez28
+ */
+class EntradaLimitada extends FilterInputStream {
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    private final long maximo;
+    private long leidos;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //------------------------------------------------------------------------
+    
+    /**
+     * @param entrada Flujo a limitar.
+     * @param maximo Cantidad máxima de bytes que se pueden leer.
+     */
+    EntradaLimitada( InputStream entrada, long maximo ) {
+        super( entrada );
+        this.maximo = maximo;
+    }
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public int read( ) throws IOException {
+        int leido = super.read( );
+        if ( leido >= 0 ) {
+            contar( 1 );
+        }
+        return leido;
+    }
+    
+    @Override
+    public int read( byte[] b, int desde, int cantidad ) throws IOException {
+        int leidosAhora = super.read( b, desde, cantidad );
+        if ( leidosAhora > 0 ) {
+            contar( leidosAhora );
+        }
+        return leidosAhora;
+    }
+    
+    @Override
+    public long skip( long cantidad ) throws IOException {
+        long saltados = super.skip( cantidad );
+        if ( saltados > 0 ) {
+            contar( saltados );
+        }
+        return saltados;
+    }
+    
+    @Override
+    public boolean markSupported( ) {
+        return false;
+    }
+    
+    /**
+     * Indica si la lectura se detuvo por superar el máximo.
+     * @return true si se superó.
+     */
+    boolean superoMaximo( ) {
+        return leidos > maximo;
+    }
+    
+    /**
+     * Crea la excepción con la que falla la lectura al superar el máximo.
+     * @return WebApplicationException con estado 413.
+     */
+    WebApplicationException excesoMaximo( ) {
+        return new WebApplicationException( "El cuerpo descomprimido de la petición supera " + maximo + " bytes.",
+                Response.Status.REQUEST_ENTITY_TOO_LARGE );
+    }
+    
+    private void contar( long cantidad ) {
+        leidos += cantidad;
+        if ( leidos > maximo ) {
+            throw excesoMaximo( );
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package co.edu.uniandes.csw.parcial1.filters;
+
+import co.edu.uniandes.csw.parcial1.metricas.RegistroMetricas;
+import co.edu.uniandes.csw.parcial1.persistence.EstadisticasSql;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Filtro que mide la latencia de cada petición y la registra en
+ * {@link RegistroMetricas} según el método del recurso y el código de la
+ * respuesta. Se ejecuta antes de buscar el recurso, para medir también las
+ * peticiones sin recurso (404), y con la menor prioridad, para envolver a los
+ * demás filtros. Si la respuesta tiene cuerpo, la medición termina después de
+ * escribirlo (incluida la compresión); si no, al salir del filtro de
+ * respuesta.
+ * También cuenta las sentencias SQL que la persistencia ejecuta en el hilo de
+ * la petición con {@link EstadisticasSql}. En las peticiones asíncronas se
+ * cuentan las del ejecutor de la lógica pero no las del escritor agrupado, y
+ * {@link SolicitudSqlFilter} desvincula la cuenta del hilo HTTP.
+ * @author j.ramirez28
+ */
+@Provider
+@PreMatching
+@Priority( MetricasFilter.PRIORIDAD )
+public class MetricasFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Prioridad menor que la de cualquier otro filtro o interceptor.
+     */
+    static final int PRIORIDAD = 1;
+    
+    private static final String INICIO = MetricasFilter.class.getName() + ".inicio";
+    private static final String PENDIENTE = MetricasFilter.class.getName() + ".pendiente";
+    private static final String SQL = MetricasFilter.class.getName() + ".sql";
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    @Inject
+    private RegistroMetricas registro;
+    
+    /**
+     * Método del recurso que atiende la petición en curso.
+     */
+    @Context
+    private ResourceInfo recurso;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public void filter( ContainerRequestContext peticion ) {
+        registro.iniciar();
+        peticion.setProperty( SQL, EstadisticasSql.iniciarSolicitud() );
+        peticion.setProperty( INICIO, System.nanoTime() );
+    }
+    
+    @Override
+    public void filter( ContainerRequestContext peticion, ContainerResponseContext respuesta ) {
+        Object inicio = peticion.getProperty( INICIO );
+        if ( inicio == null ) {
+            return;
+        }
+        peticion.removeProperty( INICIO );
+        EstadisticasSql.Solicitud sql = ( EstadisticasSql.Solicitud ) peticion.getProperty( SQL );
+        peticion.removeProperty( SQL );
+        Medicion medicion = new Medicion( ( Long ) inicio, recurso.getResourceMethod(), respuesta.getStatus(), sql );
+        if ( respuesta.hasEntity() ) {
+            peticion.setProperty( PENDIENTE, medicion );
+        } else {
+            medicion.terminar( registro );
+        }
+    }
+    
+    @Override
+    public void aroundWriteTo( WriterInterceptorContext contexto ) throws IOException {
+        try {
+            contexto.proceed();
+        } finally {
+            Object medicion = contexto.getProperty( PENDIENTE );
+            if ( medicion != null ) {
+                contexto.removeProperty( PENDIENTE );
+                ( ( Medicion ) medicion ).terminar( registro );
+            }
+        }
+    }
+    
+    /**
+     * Medición de una petición cuyo cuerpo aún no se ha escrito.
+     */
+    private static final class Medicion {
+        
+        private final long inicio;
+        private final Method metodo;
+        private final int estado;
+        private final EstadisticasSql.Solicitud sql;
+        
+        Medicion( long inicio, Method metodo, int estado, EstadisticasSql.Solicitud sql ) {
+            this.inicio = inicio;
+            this.metodo = metodo;
+            this.estado = estado;
+            this.sql = sql;
+        }
+        
+        void terminar( RegistroMetricas registro ) {
+            EstadisticasSql.terminarSolicitud( sql );
+            registro.terminar( metodo, estado, System.nanoTime() - inicio, sql );
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package co.edu.uniandes.csw.parcial1.filters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Flujo de salida que comprime con gzip o deflate sólo si el cuerpo supera un
+ * umbral de tamaño. Los primeros bytes se guardan en memoria hasta llegar al
+ * umbral: si el cuerpo termina antes se escribe tal cual; si lo supera se
+ * avisa al interceptor, para que marque la respuesta como comprimida antes
+ * de que se envíen los encabezados, y se continúa comprimiendo.
+ * Los Deflater se toman de un pool y se devuelven al terminar, para no crear
+ * uno (con su memoria nativa) por cada respuesta.
+ * @author j.ramirez28
+ */
+class SalidaComprimida extends OutputStream {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Cantidad máxima de Deflater guardados en cada pool.
+     */
+    private static final int TAMANO_POOL = 2 * Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * Encabezado gzip fijo: método deflate, sin banderas ni fecha, sistema
+     * desconocido.
+     */
+    private static final byte[] ENCABEZADO_GZIP = { 0x1f, ( byte ) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, ( byte ) 0xff };
+    
+    /**
+     * Pool de Deflater sin envoltura zlib, para gzip.
+     */
+    private static final BlockingQueue< Deflater > POOL_GZIP = new ArrayBlockingQueue<>( TAMANO_POOL );
+    
+    /**
+     * Pool de Deflater con envoltura zlib, para deflate.
+     */
+    private static final BlockingQueue< Deflater > POOL_DEFLATE = new ArrayBlockingQueue<>( TAMANO_POOL );
+    
+    /**
+     * Tamaño del buffer de salida del Deflater.
+     */
+    private static final int TAMANO_BUFFER = 8 * 1024;
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    private final OutputStream destino;
+    private final boolean gzip;
+    private final int nivel;
+    private final Runnable alComprimir;
+    
+    /**
+     * Bytes guardados mientras no se supera el umbral; null cuando ya se
+     * decidió comprimir o se terminó.
+     */
+    private byte[] pendiente;
+    private int cantidadPendiente;
+    
+    private Deflater deflater;
+    private byte[] buffer;
+    private CRC32 crc;
+    private boolean terminado;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //------------------------------------------------------------------------
+    
+    /**
+     * Crea el flujo.
+     * @param destino Flujo de la respuesta.
+     * @param gzip true para gzip, false para deflate (formato zlib).
+     * @param nivel Nivel de compresión, de 0 a 9.
+     * @param umbral Tamaño a partir del cual se comprime, en bytes.
+     * @param alComprimir Acción que se ejecuta una vez, antes de escribir el
+     * primer byte comprimido.
+     */
+    SalidaComprimida( OutputStream destino, boolean gzip, int nivel, int umbral, Runnable alComprimir ) {
+        this.destino = destino;
+        this.gzip = gzip;
+        this.nivel = nivel;
+        this.alComprimir = alComprimir;
+        this.pendiente = new byte[ Math.max( 1, umbral ) ];
+    }
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public void write( int b ) throws IOException {
+        write( new byte[]{ ( byte ) b }, 0, 1 );
+    }
+    
+    @Override
+    public void write( byte[] b, int inicio, int longitud ) throws IOException {
+        if ( terminado ) {
+            throw new IOException( "El flujo ya terminó" );
+        }
+        if ( pendiente != null ) {
+            if ( cantidadPendiente + longitud <= pendiente.length ) {
+                System.arraycopy( b, inicio, pendiente, cantidadPendiente, longitud );
+                cantidadPendiente += longitud;
+                return;
+            }
+            iniciarCompresion( );
+        }
+        comprimir( b, inicio, longitud );
+    }
+    
+    /**
+     * Envía lo comprimido hasta ahora. Mientras no se supere el umbral no hace
+     * nada, porque aún no se sabe si la respuesta irá comprimida.
+     */
+    @Override
+    public void flush( ) throws IOException {
+        if ( deflater != null && !terminado ) {
+            escribirComprimido( Deflater.SYNC_FLUSH );
+            destino.flush();
+        }
+    }
+    
+    /**
+     * Termina la respuesta y cierra el flujo de la respuesta.
+     */
+    @Override
+    public void close( ) throws IOException {
+        try {
+            terminar( );
+        } finally {
+            destino.close();
+        }
+    }
+    
+    /**
+     * Termina la respuesta sin cerrar el flujo de la respuesta: escribe tal
+     * cual los bytes guardados si no se superó el umbral, o termina la
+     * compresión (con el pie gzip) y devuelve el Deflater al pool.
+     * @throws IOException si falla la escritura.
+     */
+    void terminar( ) throws IOException {
+        if ( terminado ) {
+            return;
+        }
+        terminado = true;
+        if ( pendiente != null ) {
+            destino.write( pendiente, 0, cantidadPendiente );
+            pendiente = null;
+            return;
+        }
+        try {
+            deflater.finish();
+            while ( !deflater.finished() ) {
+                int cantidad = deflater.deflate( buffer, 0, buffer.length );
+                destino.write( buffer, 0, cantidad );
+            }
+            if ( gzip ) {
+                escribirEntero( ( int ) crc.getValue() );
+                escribirEntero( ( int ) deflater.getBytesRead() );
+            }
+        } finally {
+            liberar( );
+        }
+    }
+    
+    /**
+     * Devuelve el Deflater al pool si aún se tiene, aunque la respuesta no
+     * haya terminado bien.
+     */
+    void liberar( ) {
+        terminado = true;
+        pendiente = null;
+        if ( deflater != null ) {
+            deflater.reset();
+            if ( !( gzip ? POOL_GZIP : POOL_DEFLATE ).offer( deflater ) ) {
+                deflater.end();
+            }
+            deflater = null;
+        }
+    }
+    
+    /**
+     * Pasa a comprimir: avisa al interceptor, toma un Deflater del pool y
+     * comprime los bytes guardados.
+     * @throws IOException si falla la escritura.
+     */
+    private void iniciarCompresion( ) throws IOException {
+        alComprimir.run();
+        Deflater disponible = ( gzip ? POOL_GZIP : POOL_DEFLATE ).poll();
+        deflater = disponible != null ? disponible : new Deflater( nivel, gzip );
+        deflater.setLevel( nivel );
+        buffer = new byte[ TAMANO_BUFFER ];
+        if ( gzip ) {
+            crc = new CRC32( );
+            destino.write( ENCABEZADO_GZIP );
+        }
+        byte[] guardados = pendiente;
+        pendiente = null;
+        comprimir( guardados, 0, cantidadPendiente );
+    }
+    
+    /**
+     * Comprime un bloque de bytes y escribe lo que el Deflater entregue.
+     * @param b Bytes a comprimir.
+     * @param inicio Posición del primer byte.
+     * @param longitud Cantidad de bytes.
+     * @throws IOException si falla la escritura.
+     */
+    private void comprimir( byte[] b, int inicio, int longitud ) throws IOException {
+        if ( longitud == 0 ) {
+            return;
+        }
+        if ( gzip ) {
+            crc.update( b, inicio, longitud );
+        }
+        deflater.setInput( b, inicio, longitud );
+        while ( !deflater.needsInput() ) {
+            escribirComprimido( Deflater.NO_FLUSH );
+        }
+    }
+    
+    /**
+     * Escribe la salida disponible del Deflater con el modo de vaciado dado.
+     * @param modo Modo de vaciado del Deflater.
+     * @throws IOException si falla la escritura.
+     */
+    private void escribirComprimido( int modo ) throws IOException {
+        int cantidad;
+        do {
+            cantidad = deflater.deflate( buffer, 0, buffer.length, modo );
+            destino.write( buffer, 0, cantidad );
+        } while ( cantidad == buffer.length );
+    }
+    
+    /**
+     * Escribe un entero de 32 bits en orden little-endian, como lo pide el
+     * pie de gzip.
+     * @param valor Valor a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    private void escribirEntero( int valor ) throws IOException {
+        destino.write( valor & 0xff );
+        destino.write( ( valor >>> 8 ) & 0xff );
+        destino.write( ( valor >>> 16 ) & 0xff );
+        destino.write( ( valor >>> 24 ) & 0xff );
+    }
+}
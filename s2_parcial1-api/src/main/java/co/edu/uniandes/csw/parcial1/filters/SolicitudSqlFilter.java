@@ -0,0 +1,48 @@
+package co.edu.uniandes.csw.parcial1.filters;
+
+import co.edu.uniandes.csw.parcial1.persistence.EstadisticasSql;
+import java.io.IOException;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+
+/**
+ * Filtro de servlet que deja de contar sentencias SQL en el hilo HTTP cuando
+ * termina su parte de la petición. {@link MetricasFilter} vincula la cuenta al
+ * hilo que recibe la petición, pero en las peticiones asíncronas la respuesta
+ * se filtra y se escribe en otro hilo, donde no puede desvincularla; sin este
+ * filtro el hilo HTTP seguiría contando en esa cuenta hasta su próxima
+ * petición.
+ * @author j.ramirez28
+ */
+@WebFilter( urlPatterns = "/api/*", asyncSupported = true )
+public class SolicitudSqlFilter implements Filter {
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public void init( FilterConfig configuracion ) {
+        // Nada que configurar
+    }
+    
+    @Override
+    public void doFilter( ServletRequest peticion, ServletResponse respuesta, FilterChain cadena )
+            throws IOException, ServletException {
+        try {
+            cadena.doFilter( peticion, respuesta );
+        } finally {
+            EstadisticasSql.vincularSolicitud( null );
+        }
+    }
+    
+    @Override
+    public void destroy( ) {
+        // Nada que liberar
+    }
+}
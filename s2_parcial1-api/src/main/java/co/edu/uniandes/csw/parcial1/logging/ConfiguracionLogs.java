@@ -0,0 +1,96 @@
+package co.edu.uniandes.csw.parcial1.logging;
+
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Instala, al desplegar la aplicación, un {@link ManejadorAsincrono} en el
+ * logger raíz de la aplicación, de modo que los logs de todas sus clases se
+ * escriban desde un hilo propio con los handlers del servidor. Se configura
+ * con las propiedades del sistema:
+ * <ul>
+ * <li>parcial1.log.asincrono: false para dejar los logs sincrónicos
+ * (true por defecto).</li>
+ * <li>parcial1.log.capacidad: registros en espera (8192 por defecto).</li>
+ * <li>parcial1.log.muestreo: se entrega uno de cada N registros de nivel
+ * menor a WARNING (1 por defecto, todos).</li>
+ * </ul>
+ * @author j.ramirez28
+ */
+@WebListener
+public class ConfiguracionLogs implements ServletContextListener {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Nombre del logger raíz de la aplicación; los loggers de todas sus clases
+     * descienden de él.
+     */
+    public static final String ESPACIO = "co.edu.uniandes.csw.parcial1";
+    
+    private static final Logger LOGGER = Logger.getLogger( ConfiguracionLogs.class.getName() );
+    
+    /**
+     * Referencia fuerte al logger raíz de la aplicación: LogManager guarda
+     * los loggers con referencias débiles y perdería su configuración.
+     */
+    private static final Logger APLICACION = Logger.getLogger( ESPACIO );
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    @Resource( lookup = "java:comp/DefaultManagedThreadFactory" )
+    private ManagedThreadFactory fabricaHilos;
+    
+    private ManejadorAsincrono manejador;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public void contextInitialized( ServletContextEvent evento ) {
+        if ( !Boolean.parseBoolean( System.getProperty( "parcial1.log.asincrono", "true" ) ) ) {
+            return;
+        }
+        int capacidad = Integer.getInteger( "parcial1.log.capacidad", 8192 );
+        int muestreo = Integer.getInteger( "parcial1.log.muestreo", 1 );
+        manejador = new ManejadorAsincrono( Logger.getLogger( "" ), capacidad, muestreo, fabricaHilos );
+        APLICACION.addHandler( manejador );
+        APLICACION.setUseParentHandlers( false );
+        LOGGER.log( Level.INFO, "Logs asíncronos con capacidad {0} y muestreo 1/{1}", new Object[]{ capacidad, manejador.getMuestreo() } );
+    }
+    
+    @Override
+    public void contextDestroyed( ServletContextEvent evento ) {
+        if ( manejador == null ) {
+            return;
+        }
+        APLICACION.setUseParentHandlers( true );
+        APLICACION.removeHandler( manejador );
+        manejador.close();
+        manejador = null;
+    }
+    
+    /**
+     * Retorna el handler asíncrono instalado.
+     * @return El handler, o null si los logs son sincrónicos.
+     */
+    public static ManejadorAsincrono getManejador( ) {
+        for ( Handler handler : APLICACION.getHandlers() ) {
+            if ( handler instanceof ManejadorAsincrono ) {
+                return ( ManejadorAsincrono ) handler;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,209 @@
+package co.edu.uniandes.csw.parcial1.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Handler de java.util.logging que entrega los registros a los handlers de
+ * otro logger desde un hilo propio, para que el hilo de la petición no espere
+ * la escritura del log.
+ * En el hilo de la petición sólo se aplica el muestreo, se formatea el mensaje
+ * con sus parámetros (para que no cambie si los objetos cambian después) y se
+ * encola el registro. La clase de origen se toma del nombre del logger en
+ * lugar de recorrer la pila.
+ * La cola está acotada: si está llena, los registros de nivel WARNING o mayor
+ * se entregan en el mismo hilo y los demás se descartan y se cuentan.
+ * Con muestreo N sólo se entrega uno de cada N registros de nivel menor a
+ * WARNING; los de nivel WARNING o mayor se entregan siempre.
+ * @author j.ramirez28
+ */
+public class ManejadorAsincrono extends Handler {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Tiempo máximo que se espera al hilo de entrega al cerrar, en segundos.
+     */
+    private static final long ESPERA_CIERRE = 5;
+    
+    /**
+     * Formateador que sólo se usa para aplicar los parámetros al mensaje.
+     */
+    private static final SimpleFormatter MENSAJES = new SimpleFormatter( );
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    private final Logger destino;
+    private final BlockingQueue< LogRecord > cola;
+    private final Thread hilo;
+    private final AtomicLong contador = new AtomicLong( );
+    private final LongAdder entregados = new LongAdder( );
+    private final LongAdder muestreados = new LongAdder( );
+    private final LongAdder descartados = new LongAdder( );
+    
+    private volatile int muestreo;
+    private volatile boolean cerrado;
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //------------------------------------------------------------------------
+    
+    /**
+     * Crea el handler e inicia su hilo de entrega.
+     * @param destino Logger a cuyos handlers se entregan los registros.
+     * @param capacidad Cantidad máxima de registros en espera.
+     * @param muestreo Se entrega uno de cada muestreo registros de nivel menor
+     * a WARNING; 1 para entregarlos todos.
+     * @param fabrica Fábrica del hilo de entrega.
+     */
+    public ManejadorAsincrono( Logger destino, int capacidad, int muestreo, ThreadFactory fabrica ) {
+        this.destino = destino;
+        this.cola = new ArrayBlockingQueue<>( Math.max( 1, capacidad ) );
+        setMuestreo( muestreo );
+        this.hilo = fabrica.newThread( this::ejecutar );
+        hilo.setName( "parcial1-log" );
+        hilo.setDaemon( true );
+        hilo.start();
+    }
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public void publish( LogRecord registro ) {
+        if ( cerrado || !isLoggable( registro ) ) {
+            return;
+        }
+        boolean importante = registro.getLevel().intValue() >= Level.WARNING.intValue();
+        int n = muestreo;
+        if ( !importante && n > 1 && contador.getAndIncrement() % n != 0 ) {
+            muestreados.increment();
+            return;
+        }
+        if ( registro.getParameters() != null ) {
+            registro.setMessage( MENSAJES.formatMessage( registro ) );
+            registro.setParameters( null );
+        }
+        registro.setSourceClassName( registro.getLoggerName() );
+        registro.setSourceMethodName( null );
+        if ( cola.offer( registro ) ) {
+            return;
+        }
+        if ( importante ) {
+            entregar( registro );
+        } else {
+            descartados.increment();
+        }
+    }
+    
+    @Override
+    public void flush( ) {
+        List< LogRecord > pendientes = new ArrayList<>( );
+        cola.drainTo( pendientes );
+        for ( LogRecord registro : pendientes ) {
+            entregar( registro );
+        }
+        for ( Handler handler : destino.getHandlers() ) {
+            handler.flush();
+        }
+    }
+    
+    /**
+     * Detiene el hilo de entrega y entrega los registros pendientes.
+     */
+    @Override
+    public void close( ) {
+        cerrado = true;
+        hilo.interrupt();
+        try {
+            hilo.join( TimeUnit.SECONDS.toMillis( ESPERA_CIERRE ) );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        flush( );
+    }
+    
+    /**
+     * Ciclo del hilo de entrega: toma los registros de la cola en orden y los
+     * entrega hasta que se cierra el handler.
+     */
+    private void ejecutar( ) {
+        List< LogRecord > lote = new ArrayList<>( );
+        while ( !cerrado ) {
+            try {
+                lote.add( cola.take() );
+            } catch ( InterruptedException e ) {
+                break;
+            }
+            cola.drainTo( lote );
+            for ( LogRecord registro : lote ) {
+                entregar( registro );
+            }
+            lote.clear();
+        }
+    }
+    
+    /**
+     * Entrega un registro a los handlers del logger de destino.
+     * @param registro Registro a entregar.
+     */
+    private void entregar( LogRecord registro ) {
+        for ( Handler handler : destino.getHandlers() ) {
+            try {
+                handler.publish( registro );
+            } catch ( RuntimeException e ) {
+                reportError( "Error al entregar un registro", e, ErrorManager.WRITE_FAILURE );
+            }
+        }
+        entregados.increment();
+    }
+    
+    //------------------------------------------------------------------------
+    // GETTERS-SETTERS
+    //------------------------------------------------------------------------
+    
+    public int getMuestreo( ) {
+        return muestreo;
+    }
+    
+    public void setMuestreo( int muestreo ) {
+        this.muestreo = Math.max( 1, muestreo );
+    }
+    
+    public int getCapacidad( ) {
+        return cola.size() + cola.remainingCapacity();
+    }
+    
+    public int getPendientes( ) {
+        return cola.size();
+    }
+    
+    public long getEntregados( ) {
+        return entregados.sum();
+    }
+    
+    public long getMuestreados( ) {
+        return muestreados.sum();
+    }
+    
+    public long getDescartados( ) {
+        return descartados.sum();
+    }
+}
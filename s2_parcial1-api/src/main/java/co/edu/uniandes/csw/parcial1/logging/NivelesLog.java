@@ -0,0 +1,89 @@
+package co.edu.uniandes.csw.parcial1.logging;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Cambio en caliente del nivel de los loggers de la aplicación. Sólo se
+ * permiten el logger raíz de la aplicación ({@link ConfiguracionLogs#ESPACIO})
+ * y sus descendientes.
+ * @author j.ramirez28
+ */
+@ApplicationScoped
+public class NivelesLog {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( NivelesLog.class.getName() );
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Loggers cuyo nivel se cambió. Se guardan para que LogManager, que los
+     * referencia débilmente, no los libere y pierda el nivel.
+     */
+    private final Map< String, Logger > configurados = new ConcurrentHashMap<>( );
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Retorna el nivel efectivo de un logger: el suyo o, si no tiene, el del
+     * ancestro más cercano que lo tenga.
+     * @param nombre Nombre del logger.
+     * @return Nombre del nivel efectivo.
+     * @throws IllegalArgumentException si el logger no es de la aplicación.
+     */
+    public String getNivel( String nombre ) {
+        for ( Logger logger = Logger.getLogger( validar( nombre ) ); logger != null; logger = logger.getParent() ) {
+            if ( logger.getLevel() != null ) {
+                return logger.getLevel().getName();
+            }
+        }
+        return Level.INFO.getName();
+    }
+    
+    /**
+     * Cambia el nivel de un logger.
+     * @param nombre Nombre del logger.
+     * @param nivel Nombre del nivel (SEVERE, WARNING, INFO, FINE, ...), o
+     * null para que herede el de su ancestro.
+     * @return Nombre del nivel efectivo luego del cambio.
+     * @throws IllegalArgumentException si el logger no es de la aplicación o
+     * el nivel no existe.
+     */
+    public String setNivel( String nombre, String nivel ) {
+        Level nuevo = nivel == null ? null : Level.parse( nivel.trim().toUpperCase( Locale.ROOT ) );
+        Logger logger = Logger.getLogger( validar( nombre ) );
+        logger.setLevel( nuevo );
+        if ( nuevo == null ) {
+            configurados.remove( nombre );
+        } else {
+            configurados.put( nombre, logger );
+        }
+        LOGGER.log( Level.INFO, "Nivel del logger {0} cambiado a {1}", new Object[]{ nombre, nuevo } );
+        return getNivel( nombre );
+    }
+    
+    /**
+     * Verifica que el logger sea de la aplicación.
+     * @param nombre Nombre del logger.
+     * @return El mismo nombre.
+     * @throws IllegalArgumentException si no es de la aplicación.
+     */
+    private static String validar( String nombre ) {
+        if ( nombre == null || !( nombre.equals( ConfiguracionLogs.ESPACIO ) || nombre.startsWith( ConfiguracionLogs.ESPACIO + "." ) ) ) {
+            throw new IllegalArgumentException( "El logger debe ser " + ConfiguracionLogs.ESPACIO + " o uno de sus descendientes." );
+        }
+        return nombre;
+    }
+}
@@ -0,0 +1,146 @@
+package co.edu.uniandes.csw.parcial1.metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin candados, con cubetas log-lineales al estilo
+ * de HdrHistogram: cada potencia de 2 se divide en SUBCUBETAS cubetas
+ * iguales, de modo que el error relativo de un valor es a lo sumo
+ * 1 / SUBCUBETAS (alrededor del 3%) en todo el rango, de 1 ns a unos 18
+ * minutos. Registrar un valor es un cálculo de bits y un incremento atómico.
+ * @author j.ramirez28
+ */
+public class HistogramaLatencia {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final int BITS_SUBCUBETA = 5;
+    
+    /**
+     * Cantidad de cubetas en que se divide cada potencia de 2.
+     */
+    public static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    
+    /**
+     * Mayor latencia que se distingue, en nanosegundos; las mayores se
+     * cuentan en la última cubeta.
+     */
+    public static final long MAXIMO = ( 1L << 40 ) - 1;
+    
+    private static final int CUBETAS = indice( MAXIMO ) + 1;
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    private final AtomicLongArray cuentas = new AtomicLongArray( CUBETAS );
+    private final LongAdder suma = new LongAdder( );
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Registra una latencia.
+     * @param nanos Latencia en nanosegundos.
+     */
+    public void registrar( long nanos ) {
+        long valor = Math.max( 0, Math.min( nanos, MAXIMO ) );
+        cuentas.incrementAndGet( indice( valor ) );
+        suma.add( valor );
+    }
+    
+    /**
+     * Copia las cuentas actuales. Los registros concurrentes pueden quedar o
+     * no en la copia, pero cada uno queda completo.
+     * @return La copia.
+     */
+    public Instantanea instantanea( ) {
+        long[] copia = new long[ CUBETAS ];
+        long total = 0;
+        for ( int i = 0; i < CUBETAS; i++ ) {
+            copia[ i ] = cuentas.get( i );
+            total += copia[ i ];
+        }
+        return new Instantanea( copia, total, suma.sum() );
+    }
+    
+    /**
+     * Cubeta de un valor: los menores que SUBCUBETAS tienen una cubeta cada
+     * uno; los demás, según su exponente y los BITS_SUBCUBETA bits que siguen
+     * al bit más alto.
+     * @param valor Valor entre 0 y MAXIMO.
+     * @return Índice de la cubeta.
+     */
+    static int indice( long valor ) {
+        if ( valor < SUBCUBETAS ) {
+            return ( int ) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros( valor );
+        int desplazamiento = exponente - BITS_SUBCUBETA;
+        int mantisa = ( int ) ( valor >>> desplazamiento ) & ( SUBCUBETAS - 1 );
+        return ( desplazamiento + 1 ) * SUBCUBETAS + mantisa;
+    }
+    
+    /**
+     * Mayor valor que cae en una cubeta.
+     * @param indice Índice de la cubeta.
+     * @return El valor, en nanosegundos.
+     */
+    static long limiteSuperior( int indice ) {
+        if ( indice < SUBCUBETAS ) {
+            return indice;
+        }
+        int desplazamiento = indice / SUBCUBETAS - 1;
+        long inferior = ( long ) ( SUBCUBETAS + indice % SUBCUBETAS ) << desplazamiento;
+        return inferior + ( 1L << desplazamiento ) - 1;
+    }
+    
+    /**
+     * Copia de las cuentas de un histograma en un instante.
+     */
+    public static final class Instantanea {
+        
+        private final long[] cuentas;
+        private final long total;
+        private final long suma;
+        
+        Instantanea( long[] cuentas, long total, long suma ) {
+            this.cuentas = cuentas;
+            this.total = total;
+            this.suma = suma;
+        }
+        
+        /**
+         * Retorna el valor bajo el cual queda la fracción dada de los
+         * registros, con el límite superior de su cubeta.
+         * @param fraccion Fracción entre 0 y 1, por ejemplo 0.99.
+         * @return El valor en nanosegundos, o 0 si no hay registros.
+         */
+        public long percentil( double fraccion ) {
+            if ( total == 0 ) {
+                return 0;
+            }
+            long rango = Math.max( 1, ( long ) Math.ceil( fraccion * total ) );
+            long acumulado = 0;
+            for ( int i = 0; i < cuentas.length; i++ ) {
+                acumulado += cuentas[ i ];
+                if ( acumulado >= rango ) {
+                    return limiteSuperior( i );
+                }
+            }
+            return limiteSuperior( cuentas.length - 1 );
+        }
+        
+        public long getTotal( ) {
+            return total;
+        }
+        
+        public long getSuma( ) {
+            return suma;
+        }
+    }
+}
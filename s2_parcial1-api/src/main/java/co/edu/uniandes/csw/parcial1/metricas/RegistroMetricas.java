@@ -0,0 +1,192 @@
+package co.edu.uniandes.csw.parcial1.metricas;
+
+import co.edu.uniandes.csw.parcial1.persistence.EstadisticasSql;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.HttpMethod;
+
+/**
+ * Métricas de las peticiones HTTP: un {@link HistogramaLatencia} por ruta
+ * (método Java del recurso) y código de respuesta, y la cantidad de peticiones
+ * en curso. Se exportan en el formato de texto de Prometheus:
+ * <pre>
+ * parcial1_http_request_duration_seconds{route="MedicoResource.getMedico",method="GET",status="200",quantile="0.99"} 0.000853
+ * parcial1_http_request_duration_seconds_sum{...} 1.52
+ * parcial1_http_request_duration_seconds_count{...} 2048
+ * parcial1_http_sql_statements_total{route="MedicoResource.getMedico",method="GET"} 12
+ * parcial1_http_requests_in_flight 3
+ * </pre>
+ * Los contadores SQL por ruta (sentencias, filas y segundos) vienen de
+ * {@link EstadisticasSql}.
+ * Los percentiles son acumulados desde el despliegue; el throughput se
+ * obtiene en Prometheus con rate() sobre el contador _count.
+ * @author j.ramirez28
+ */
+@ApplicationScoped
+public class RegistroMetricas {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Tipo de contenido del formato de texto de Prometheus.
+     */
+    public static final String TIPO_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private static final String LATENCIA = "parcial1_http_request_duration_seconds";
+    private static final String EN_CURSO = "parcial1_http_requests_in_flight";
+    private static final String SENTENCIAS = "parcial1_http_sql_statements_total";
+    private static final String FILAS = "parcial1_http_sql_rows_total";
+    private static final String SEGUNDOS_SQL = "parcial1_http_sql_seconds_total";
+    
+    private static final double[] CUANTILES = { 0.5, 0.99, 0.999 };
+    private static final String[] ETIQUETAS_CUANTILES = { "0.5", "0.99", "0.999" };
+    
+    private static final double NANOS_POR_SEGUNDO = 1e9;
+    
+    private static final int ESTADO_MINIMO = 100;
+    private static final int ESTADO_MAXIMO = 599;
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    private final Map< Method, Ruta > rutas = new ConcurrentHashMap<>( );
+    
+    /**
+     * Peticiones que no correspondieron a ningún método de recurso.
+     */
+    private final Ruta sinRuta = new Ruta( "ninguna", "*" );
+    
+    private final LongAdder enCurso = new LongAdder( );
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Cuenta una petición que empieza.
+     */
+    public void iniciar( ) {
+        enCurso.increment();
+    }
+    
+    /**
+     * Registra una petición que termina.
+     * @param metodo Método del recurso que la atendió, o null si ninguno.
+     * @param estado Código de la respuesta.
+     * @param nanos Latencia, en nanosegundos.
+     * @param sql Sentencias SQL de la petición, o null si no se contaron.
+     */
+    public void terminar( Method metodo, int estado, long nanos, EstadisticasSql.Solicitud sql ) {
+        enCurso.decrement();
+        Ruta ruta = metodo == null ? sinRuta : rutas.computeIfAbsent( metodo, RegistroMetricas::crearRuta );
+        ruta.histograma( estado ).registrar( nanos );
+        if ( sql != null ) {
+            ruta.sentencias.add( sql.getSentencias() );
+            ruta.filas.add( sql.getFilas() );
+            ruta.nanosSql.add( sql.getNanos() );
+        }
+    }
+    
+    /**
+     * Escribe las métricas en el formato de texto de Prometheus.
+     * @param salida Destino de la escritura.
+     * @throws IOException si falla la escritura.
+     */
+    public void escribirPrometheus( Writer salida ) throws IOException {
+        salida.write( "# HELP " + LATENCIA + " Latencia de las peticiones HTTP por ruta y estado.\n" );
+        salida.write( "# TYPE " + LATENCIA + " summary\n" );
+        escribirRuta( salida, sinRuta );
+        for ( Ruta ruta : rutas.values() ) {
+            escribirRuta( salida, ruta );
+        }
+        escribirContador( salida, SENTENCIAS, "Sentencias SQL ejecutadas por ruta.", ruta -> ruta.sentencias.sum() );
+        escribirContador( salida, FILAS, "Filas SQL leídas o afectadas por ruta.", ruta -> ruta.filas.sum() );
+        escribirContador( salida, SEGUNDOS_SQL, "Tiempo de las sentencias SQL por ruta.",
+                ruta -> ruta.nanosSql.sum() / NANOS_POR_SEGUNDO );
+        salida.write( "# HELP " + EN_CURSO + " Peticiones HTTP en curso.\n" );
+        salida.write( "# TYPE " + EN_CURSO + " gauge\n" );
+        salida.write( EN_CURSO + " " + enCurso.sum() + "\n" );
+    }
+    
+    private static void escribirRuta( Writer salida, Ruta ruta ) throws IOException {
+        for ( int estado = ESTADO_MINIMO; estado <= ESTADO_MAXIMO; estado++ ) {
+            HistogramaLatencia histograma = ruta.porEstado.get( estado - ESTADO_MINIMO );
+            if ( histograma == null ) {
+                continue;
+            }
+            HistogramaLatencia.Instantanea instantanea = histograma.instantanea();
+            String etiquetas = "route=\"" + ruta.nombre + "\",method=\"" + ruta.verbo + "\",status=\"" + estado + "\"";
+            for ( int i = 0; i < CUANTILES.length; i++ ) {
+                salida.write( LATENCIA + "{" + etiquetas + ",quantile=\"" + ETIQUETAS_CUANTILES[ i ] + "\"} "
+                        + instantanea.percentil( CUANTILES[ i ] ) / NANOS_POR_SEGUNDO + "\n" );
+            }
+            salida.write( LATENCIA + "_sum{" + etiquetas + "} " + instantanea.getSuma() / NANOS_POR_SEGUNDO + "\n" );
+            salida.write( LATENCIA + "_count{" + etiquetas + "} " + instantanea.getTotal() + "\n" );
+        }
+    }
+    
+    private void escribirContador( Writer salida, String metrica, String ayuda, Function< Ruta, Number > valor ) throws IOException {
+        salida.write( "# HELP " + metrica + " " + ayuda + "\n" );
+        salida.write( "# TYPE " + metrica + " counter\n" );
+        for ( Ruta ruta : rutas.values() ) {
+            salida.write( metrica + "{route=\"" + ruta.nombre + "\",method=\"" + ruta.verbo + "\"} " + valor.apply( ruta ) + "\n" );
+        }
+    }
+    
+    /**
+     * Crea la ruta de un método de recurso, con el nombre de su clase y su
+     * verbo HTTP.
+     * @param metodo Método del recurso.
+     * @return La ruta.
+     */
+    private static Ruta crearRuta( Method metodo ) {
+        String verbo = "*";
+        for ( Annotation anotacion : metodo.getAnnotations() ) {
+            HttpMethod http = anotacion.annotationType().getAnnotation( HttpMethod.class );
+            if ( http != null ) {
+                verbo = http.value();
+            }
+        }
+        return new Ruta( metodo.getDeclaringClass().getSimpleName() + "." + metodo.getName(), verbo );
+    }
+    
+    /**
+     * Histogramas de una ruta, uno por código de respuesta, creados la
+     * primera vez que se ve cada código, y contadores SQL de la ruta.
+     */
+    private static final class Ruta {
+        
+        private final String nombre;
+        private final String verbo;
+        private final AtomicReferenceArray< HistogramaLatencia > porEstado = new AtomicReferenceArray<>( ESTADO_MAXIMO - ESTADO_MINIMO + 1 );
+        private final LongAdder sentencias = new LongAdder( );
+        private final LongAdder filas = new LongAdder( );
+        private final LongAdder nanosSql = new LongAdder( );
+        
+        Ruta( String nombre, String verbo ) {
+            this.nombre = nombre;
+            this.verbo = verbo;
+        }
+        
+        HistogramaLatencia histograma( int estado ) {
+            int i = Math.max( ESTADO_MINIMO, Math.min( estado, ESTADO_MAXIMO ) ) - ESTADO_MINIMO;
+            HistogramaLatencia histograma = porEstado.get( i );
+            if ( histograma == null ) {
+                porEstado.compareAndSet( i, null, new HistogramaLatencia( ) );
+                histograma = porEstado.get( i );
+            }
+            return histograma;
+        }
+    }
+}
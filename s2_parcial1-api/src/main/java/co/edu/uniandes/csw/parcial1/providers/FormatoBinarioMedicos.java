@@ -0,0 +1,351 @@
+package co.edu.uniandes.csw.parcial1.providers;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Representación binaria compacta de los médicos, para las llamadas entre
+ * servicios en las que el costo de JSON domina.
+ * Los enteros se escriben como varint (7 bits por byte, el bit alto indica
+ * que sigue otro byte); los que pueden ser negativos, en zigzag. Las cadenas
+ * se escriben con su longitud en bytes seguida de su UTF-8. Cada médico
+ * empieza con un byte cuyos bits indican qué atributos no son nulos, y sólo
+ * esos se escriben.
+ * <pre>
+ * documento := versión(1) tipo(1: 'M' médico | 'L' lista) cuerpo
+ * lista     := cantidad(varint) médico*
+ * médico    := presentes(1) [id(zigzag varlong)] [nombre(cadena)]
+ *              [apellido(cadena)] [registro(zigzag varint)] [especialidad(cadena)]
+ * cadena    := longitud(varint) bytes UTF-8
+ * </pre>
+ * Por ejemplo el médico {"id": 3, "nombre": "Ana", "registro": 10} ocupa 9
+ * bytes: 01 4D 0B 06 03 41 6E 61 14.
+ * Como en FormatoJsonMedicos, los buffers de bytes se reutilizan entre
+ * peticiones del mismo hilo.
+ * @author j.ramirez28
+ */
+public final class FormatoBinarioMedicos {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Versión del formato.
+     */
+    public static final int VERSION = 1;
+    
+    /**
+     * Longitud máxima de una cadena, en bytes.
+     */
+    public static final int LONGITUD_MAXIMA = 16 * 1024;
+    
+    /**
+     * Cantidad máxima de médicos de una lista.
+     */
+    public static final int CANTIDAD_MAXIMA = 1000000;
+    
+    private static final int TIPO_MEDICO = 'M';
+    private static final int TIPO_LISTA = 'L';
+    
+    private static final int ID = 1;
+    private static final int NOMBRE = 1 << 1;
+    private static final int APELLIDO = 1 << 2;
+    private static final int REGISTRO = 1 << 3;
+    private static final int ESPECIALIDAD = 1 << 4;
+    
+    private static final int TAMANO_BUFFER = 8 * 1024;
+    
+    private static final ThreadLocal< byte[] > BUFFER_ESCRITURA = ThreadLocal.withInitial( ( ) -> new byte[ TAMANO_BUFFER ] );
+    private static final ThreadLocal< byte[] > BUFFER_LECTURA = ThreadLocal.withInitial( ( ) -> new byte[ TAMANO_BUFFER ] );
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //------------------------------------------------------------------------
+    
+    private FormatoBinarioMedicos( ) {
+        // Clase de utilidad
+    }
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Escribe un médico.
+     * @param salida Destino de la escritura; no se cierra.
+     * @param medico Médico a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    public static void escribirMedico( OutputStream salida, MedicoDTO medico ) throws IOException {
+        Escritor escritor = new Escritor( salida );
+        escritor.escribirByte( VERSION );
+        escritor.escribirByte( TIPO_MEDICO );
+        escritor.escribirMedico( medico );
+        escritor.vaciar();
+    }
+    
+    /**
+     * Escribe una lista de médicos.
+     * @param salida Destino de la escritura; no se cierra.
+     * @param medicos Médicos a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    public static void escribirLista( OutputStream salida, Collection< ? extends MedicoDTO > medicos ) throws IOException {
+        Escritor escritor = new Escritor( salida );
+        escritor.escribirByte( VERSION );
+        escritor.escribirByte( TIPO_LISTA );
+        escritor.escribirVarint( medicos.size() );
+        for ( MedicoDTO medico : medicos ) {
+            escritor.escribirMedico( medico );
+        }
+        escritor.vaciar();
+    }
+    
+    /**
+     * Lee un médico.
+     * @param entrada Origen de la lectura; no se cierra.
+     * @return El médico leído.
+     * @throws IOException si falla la lectura, el contenido no es un médico
+     * en este formato o hay bytes después del documento.
+     */
+    public static MedicoDTO leerMedico( InputStream entrada ) throws IOException {
+        Lector lector = new Lector( entrada );
+        lector.leerEncabezado( TIPO_MEDICO );
+        MedicoDTO medico = lector.leerMedico();
+        lector.esperarFin();
+        return medico;
+    }
+    
+    /**
+     * Lee una lista de médicos.
+     * @param entrada Origen de la lectura; no se cierra.
+     * @return Los médicos leídos.
+     * @throws IOException si falla la lectura, el contenido no es una lista
+     * de médicos en este formato o hay bytes después del documento.
+     */
+    public static List< MedicoDTO > leerLista( InputStream entrada ) throws IOException {
+        Lector lector = new Lector( entrada );
+        lector.leerEncabezado( TIPO_LISTA );
+        long cantidad = lector.leerVarlong();
+        if ( cantidad < 0 || cantidad > CANTIDAD_MAXIMA ) {
+            throw new IOException( "La lista tiene más de " + CANTIDAD_MAXIMA + " médicos" );
+        }
+        // No se confía en la cantidad declarada para reservar memoria
+        List< MedicoDTO > medicos = new ArrayList<>( ( int ) Math.min( cantidad, 1024 ) );
+        for ( long i = 0; i < cantidad; i++ ) {
+            medicos.add( lector.leerMedico() );
+        }
+        lector.esperarFin();
+        return medicos;
+    }
+    
+    /**
+     * Escritura con buffer propio sobre un flujo de salida.
+     */
+    private static final class Escritor {
+        
+        private final OutputStream salida;
+        private final byte[] buffer = BUFFER_ESCRITURA.get();
+        private int posicion;
+        
+        Escritor( OutputStream salida ) {
+            this.salida = salida;
+        }
+        
+        void escribirMedico( MedicoDTO medico ) throws IOException {
+            byte[] nombre = bytes( medico.getNombre() );
+            byte[] apellido = bytes( medico.getApellido() );
+            byte[] especialidad = bytes( medico.getEspecialidad() );
+            int presentes = ( medico.getId() != null ? ID : 0 )
+                    | ( nombre != null ? NOMBRE : 0 )
+                    | ( apellido != null ? APELLIDO : 0 )
+                    | ( medico.getRegistro() != null ? REGISTRO : 0 )
+                    | ( especialidad != null ? ESPECIALIDAD : 0 );
+            escribirByte( presentes );
+            if ( medico.getId() != null ) {
+                escribirVarint( zigzag( medico.getId() ) );
+            }
+            escribirCadena( nombre );
+            escribirCadena( apellido );
+            if ( medico.getRegistro() != null ) {
+                escribirVarint( zigzag( medico.getRegistro() ) );
+            }
+            escribirCadena( especialidad );
+        }
+        
+        void escribirByte( int valor ) throws IOException {
+            if ( posicion == buffer.length ) {
+                vaciar();
+            }
+            buffer[ posicion++ ] = ( byte ) valor;
+        }
+        
+        void escribirVarint( long valor ) throws IOException {
+            // Un varlong ocupa a lo sumo 10 bytes
+            if ( buffer.length - posicion < 10 ) {
+                vaciar();
+            }
+            while ( ( valor & ~0x7FL ) != 0 ) {
+                buffer[ posicion++ ] = ( byte ) ( ( valor & 0x7F ) | 0x80 );
+                valor >>>= 7;
+            }
+            buffer[ posicion++ ] = ( byte ) valor;
+        }
+        
+        void escribirCadena( byte[] cadena ) throws IOException {
+            if ( cadena == null ) {
+                return;
+            }
+            escribirVarint( cadena.length );
+            if ( cadena.length > buffer.length - posicion ) {
+                vaciar();
+                if ( cadena.length > buffer.length ) {
+                    salida.write( cadena );
+                    return;
+                }
+            }
+            System.arraycopy( cadena, 0, buffer, posicion, cadena.length );
+            posicion += cadena.length;
+        }
+        
+        void vaciar( ) throws IOException {
+            salida.write( buffer, 0, posicion );
+            posicion = 0;
+        }
+        
+        private static byte[] bytes( String valor ) {
+            return valor == null ? null : valor.getBytes( StandardCharsets.UTF_8 );
+        }
+        
+        private static long zigzag( long valor ) {
+            return ( valor << 1 ) ^ ( valor >> 63 );
+        }
+    }
+    
+    /**
+     * Lectura con buffer propio sobre un flujo de entrada. Lee la entrada
+     * hasta el final, para rechazar bytes sobrantes después del documento.
+     */
+    private static final class Lector {
+        
+        private final InputStream entrada;
+        private final byte[] buffer = BUFFER_LECTURA.get();
+        private int posicion;
+        private int limite;
+        
+        Lector( InputStream entrada ) {
+            this.entrada = entrada;
+        }
+        
+        void leerEncabezado( int tipo ) throws IOException {
+            int version = leerByte();
+            if ( version != VERSION ) {
+                throw new IOException( "Versión de formato no soportada: " + version );
+            }
+            int leido = leerByte();
+            if ( leido != tipo ) {
+                throw new IOException( "Se esperaba el tipo '" + ( char ) tipo + "' y se encontró " + leido );
+            }
+        }
+        
+        MedicoDTO leerMedico( ) throws IOException {
+            int presentes = leerByte();
+            if ( ( presentes & ~( ID | NOMBRE | APELLIDO | REGISTRO | ESPECIALIDAD ) ) != 0 ) {
+                throw new IOException( "Atributos desconocidos en el médico: " + presentes );
+            }
+            MedicoDTO medico = new MedicoDTO( );
+            if ( ( presentes & ID ) != 0 ) {
+                medico.setId( deszigzag( leerVarlong() ) );
+            }
+            if ( ( presentes & NOMBRE ) != 0 ) {
+                medico.setNombre( leerCadena() );
+            }
+            if ( ( presentes & APELLIDO ) != 0 ) {
+                medico.setApellido( leerCadena() );
+            }
+            if ( ( presentes & REGISTRO ) != 0 ) {
+                long registro = deszigzag( leerVarlong() );
+                if ( registro != ( int ) registro ) {
+                    throw new IOException( "Registro fuera de rango: " + registro );
+                }
+                medico.setRegistro( ( int ) registro );
+            }
+            if ( ( presentes & ESPECIALIDAD ) != 0 ) {
+                medico.setEspecialidad( leerCadena() );
+            }
+            return medico;
+        }
+        
+        int leerByte( ) throws IOException {
+            if ( posicion == limite && !llenar() ) {
+                throw new EOFException( "El documento terminó antes de tiempo" );
+            }
+            return buffer[ posicion++ ] & 0xFF;
+        }
+        
+        long leerVarlong( ) throws IOException {
+            long valor = 0;
+            for ( int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7 ) {
+                int b = leerByte();
+                valor |= ( long ) ( b & 0x7F ) << desplazamiento;
+                if ( ( b & 0x80 ) == 0 ) {
+                    return valor;
+                }
+            }
+            throw new IOException( "Varint demasiado largo" );
+        }
+        
+        String leerCadena( ) throws IOException {
+            long longitud = leerVarlong();
+            if ( longitud < 0 || longitud > LONGITUD_MAXIMA ) {
+                throw new IOException( "Longitud de cadena fuera de rango: " + longitud );
+            }
+            int n = ( int ) longitud;
+            if ( limite - posicion >= n ) {
+                String cadena = new String( buffer, posicion, n, StandardCharsets.UTF_8 );
+                posicion += n;
+                return cadena;
+            }
+            byte[] bytes = new byte[ n ];
+            int copiados = 0;
+            while ( copiados < n ) {
+                if ( posicion == limite && !llenar() ) {
+                    throw new EOFException( "El documento terminó antes de tiempo" );
+                }
+                int cantidad = Math.min( n - copiados, limite - posicion );
+                System.arraycopy( buffer, posicion, bytes, copiados, cantidad );
+                posicion += cantidad;
+                copiados += cantidad;
+            }
+            return new String( bytes, StandardCharsets.UTF_8 );
+        }
+        
+        void esperarFin( ) throws IOException {
+            if ( posicion < limite || llenar() ) {
+                throw new IOException( "Hay contenido después del documento" );
+            }
+        }
+        
+        private boolean llenar( ) throws IOException {
+            int leidos = entrada.read( buffer, 0, buffer.length );
+            if ( leidos <= 0 ) {
+                return false;
+            }
+            posicion = 0;
+            limite = leidos;
+            return true;
+        }
+        
+        private static long deszigzag( long valor ) {
+            return ( valor >>> 1 ) ^ -( valor & 1 );
+        }
+    }
+}
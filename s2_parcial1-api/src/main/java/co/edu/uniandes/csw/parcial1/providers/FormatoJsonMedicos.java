@@ -0,0 +1,612 @@
+package co.edu.uniandes.csw.parcial1.providers;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escritura y lectura de MedicoDTO en JSON, directamente sobre bytes UTF-8,
+ * sin reflexión ni árboles intermedios. Sigue el modelo JSON de MedicoDTO:
+ * los atributos nulos no se escriben y, al leer, los atributos desconocidos
+ * se ignoran. Los buffers de bytes se reutilizan entre peticiones del mismo
+ * hilo.
+ * @author j.ramirez28
+ */
+public final class FormatoJsonMedicos {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Longitud máxima de una cadena, en caracteres.
+     */
+    public static final int LONGITUD_MAXIMA = 16 * 1024;
+    
+    /**
+     * Profundidad máxima de los valores anidados que se ignoran.
+     */
+    private static final int PROFUNDIDAD_MAXIMA = 64;
+    
+    private static final int TAMANO_BUFFER = 8 * 1024;
+    
+    private static final byte[] HEXADECIMAL = "0123456789abcdef".getBytes( StandardCharsets.US_ASCII );
+    
+    private static final ThreadLocal< byte[] > BUFFER_ESCRITURA = ThreadLocal.withInitial( ( ) -> new byte[ TAMANO_BUFFER ] );
+    private static final ThreadLocal< byte[] > BUFFER_LECTURA = ThreadLocal.withInitial( ( ) -> new byte[ TAMANO_BUFFER ] );
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //------------------------------------------------------------------------
+    
+    private FormatoJsonMedicos( ) {
+        // Clase de utilidad
+    }
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Escribe un médico como objeto JSON.
+     * @param salida Destino de la escritura; no se cierra.
+     * @param medico Médico a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    public static void escribirMedico( OutputStream salida, MedicoDTO medico ) throws IOException {
+        Escritor escritor = new Escritor( salida );
+        escritor.escribirMedico( medico );
+        escritor.vaciar();
+    }
+    
+    /**
+     * Escribe una lista de médicos como arreglo JSON.
+     * @param salida Destino de la escritura; no se cierra.
+     * @param medicos Médicos a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    public static void escribirLista( OutputStream salida, Collection< ? extends MedicoDTO > medicos ) throws IOException {
+        Escritor escritor = new Escritor( salida );
+        escritor.escribirByte( '[' );
+        boolean primero = true;
+        for ( MedicoDTO medico : medicos ) {
+            if ( !primero ) {
+                escritor.escribirByte( ',' );
+            }
+            primero = false;
+            escritor.escribirMedico( medico );
+        }
+        escritor.escribirByte( ']' );
+        escritor.vaciar();
+    }
+    
+    /**
+     * Lee un médico de un objeto JSON.
+     * @param entrada Origen de la lectura; no se cierra.
+     * @return El médico leído.
+     * @throws IOException si falla la lectura o el contenido no es un objeto
+     * JSON con el modelo de MedicoDTO.
+     */
+    public static MedicoDTO leerMedico( InputStream entrada ) throws IOException {
+        Lector lector = new Lector( entrada );
+        MedicoDTO medico = lector.leerMedico();
+        lector.esperarFin();
+        return medico;
+    }
+    
+    /**
+     * Lee una lista de médicos de un arreglo JSON de objetos.
+     * @param entrada Origen de la lectura; no se cierra.
+     * @return Los médicos leídos.
+     * @throws IOException si falla la lectura o el contenido no es un arreglo
+     * JSON de objetos con el modelo de MedicoDTO.
+     */
+    public static List< MedicoDTO > leerLista( InputStream entrada ) throws IOException {
+        Lector lector = new Lector( entrada );
+        List< MedicoDTO > medicos = new ArrayList<>( );
+        lector.esperar( '[' );
+        if ( lector.siguienteSignificativo() == ']' ) {
+            lector.avanzar();
+        } else {
+            while ( true ) {
+                medicos.add( lector.leerMedico() );
+                int c = lector.siguienteSignificativo();
+                lector.avanzar();
+                if ( c == ']' ) {
+                    break;
+                }
+                if ( c != ',' ) {
+                    throw lector.error( "se esperaba , o ]" );
+                }
+            }
+        }
+        lector.esperarFin();
+        return medicos;
+    }
+    
+    /**
+     * Escritura de JSON en UTF-8 sobre un buffer reutilizado.
+     */
+    private static final class Escritor {
+        
+        private final OutputStream salida;
+        private final byte[] buffer = BUFFER_ESCRITURA.get();
+        private int posicion;
+        
+        Escritor( OutputStream salida ) {
+            this.salida = salida;
+        }
+        
+        void escribirMedico( MedicoDTO medico ) throws IOException {
+            escribirByte( '{' );
+            boolean vacio = true;
+            if ( medico.getId() != null ) {
+                escribirAscii( "\"id\":" );
+                escribirNumero( medico.getId() );
+                vacio = false;
+            }
+            vacio = escribirAtributo( "\"nombre\":", ",\"nombre\":", medico.getNombre(), vacio );
+            vacio = escribirAtributo( "\"apellido\":", ",\"apellido\":", medico.getApellido(), vacio );
+            if ( medico.getRegistro() != null ) {
+                escribirAscii( vacio ? "\"registro\":" : ",\"registro\":" );
+                escribirNumero( medico.getRegistro() );
+                vacio = false;
+            }
+            escribirAtributo( "\"especialidad\":", ",\"especialidad\":", medico.getEspecialidad(), vacio );
+            escribirByte( '}' );
+        }
+        
+        private boolean escribirAtributo( String primero, String siguiente, String valor, boolean vacio ) throws IOException {
+            if ( valor == null ) {
+                return vacio;
+            }
+            escribirAscii( vacio ? primero : siguiente );
+            escribirCadena( valor );
+            return false;
+        }
+        
+        void escribirByte( int b ) throws IOException {
+            if ( posicion == buffer.length ) {
+                vaciar();
+            }
+            buffer[ posicion++ ] = ( byte ) b;
+        }
+        
+        private void escribirAscii( String texto ) throws IOException {
+            for ( int i = 0; i < texto.length(); i++ ) {
+                escribirByte( texto.charAt( i ) );
+            }
+        }
+        
+        private void escribirNumero( long valor ) throws IOException {
+            escribirAscii( Long.toString( valor ) );
+        }
+        
+        /**
+         * Escribe una cadena entre comillas, codificada en UTF-8, escapando
+         * las comillas, la barra invertida y los caracteres de control.
+         */
+        private void escribirCadena( String valor ) throws IOException {
+            escribirByte( '"' );
+            int longitud = valor.length();
+            for ( int i = 0; i < longitud; i++ ) {
+                // Cada carácter ocupa a lo sumo 6 bytes (escape \\u00XX)
+                if ( buffer.length - posicion < 6 ) {
+                    vaciar();
+                }
+                char c = valor.charAt( i );
+                if ( c >= 0x20 && c < 0x80 && c != '"' && c != '\\' ) {
+                    buffer[ posicion++ ] = ( byte ) c;
+                } else if ( c < 0x80 ) {
+                    escribirEscape( c );
+                } else if ( c < 0x800 ) {
+                    buffer[ posicion++ ] = ( byte ) ( 0xC0 | ( c >> 6 ) );
+                    buffer[ posicion++ ] = ( byte ) ( 0x80 | ( c & 0x3F ) );
+                } else if ( Character.isHighSurrogate( c ) && i + 1 < longitud && Character.isLowSurrogate( valor.charAt( i + 1 ) ) ) {
+                    int punto = Character.toCodePoint( c, valor.charAt( ++i ) );
+                    buffer[ posicion++ ] = ( byte ) ( 0xF0 | ( punto >> 18 ) );
+                    buffer[ posicion++ ] = ( byte ) ( 0x80 | ( ( punto >> 12 ) & 0x3F ) );
+                    buffer[ posicion++ ] = ( byte ) ( 0x80 | ( ( punto >> 6 ) & 0x3F ) );
+                    buffer[ posicion++ ] = ( byte ) ( 0x80 | ( punto & 0x3F ) );
+                } else if ( Character.isSurrogate( c ) ) {
+                    // Sustituto sin pareja: no es representable en UTF-8
+                    buffer[ posicion++ ] = '?';
+                } else {
+                    buffer[ posicion++ ] = ( byte ) ( 0xE0 | ( c >> 12 ) );
+                    buffer[ posicion++ ] = ( byte ) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+                    buffer[ posicion++ ] = ( byte ) ( 0x80 | ( c & 0x3F ) );
+                }
+            }
+            escribirByte( '"' );
+        }
+        
+        private void escribirEscape( char c ) {
+            buffer[ posicion++ ] = '\\';
+            switch ( c ) {
+                case '"':
+                case '\\':
+                    buffer[ posicion++ ] = ( byte ) c;
+                    break;
+                case '\n':
+                    buffer[ posicion++ ] = 'n';
+                    break;
+                case '\r':
+                    buffer[ posicion++ ] = 'r';
+                    break;
+                case '\t':
+                    buffer[ posicion++ ] = 't';
+                    break;
+                case '\b':
+                    buffer[ posicion++ ] = 'b';
+                    break;
+                case '\f':
+                    buffer[ posicion++ ] = 'f';
+                    break;
+                default:
+                    buffer[ posicion++ ] = 'u';
+                    buffer[ posicion++ ] = '0';
+                    buffer[ posicion++ ] = '0';
+                    buffer[ posicion++ ] = HEXADECIMAL[ c >> 4 ];
+                    buffer[ posicion++ ] = HEXADECIMAL[ c & 0xF ];
+            }
+        }
+        
+        void vaciar( ) throws IOException {
+            salida.write( buffer, 0, posicion );
+            posicion = 0;
+        }
+    }
+    
+    /**
+     * Lectura de JSON en UTF-8 sobre un buffer reutilizado.
+     */
+    private static final class Lector {
+        
+        private final InputStream entrada;
+        private final byte[] buffer = BUFFER_LECTURA.get();
+        private final StringBuilder texto = new StringBuilder( );
+        private int posicion;
+        private int limite;
+        private long consumidos;
+        
+        Lector( InputStream entrada ) {
+            this.entrada = entrada;
+        }
+        
+        MedicoDTO leerMedico( ) throws IOException {
+            MedicoDTO medico = new MedicoDTO( );
+            esperar( '{' );
+            if ( siguienteSignificativo() == '}' ) {
+                avanzar();
+                return medico;
+            }
+            while ( true ) {
+                esperar( '"' );
+                String atributo = leerCadena();
+                esperar( ':' );
+                asignar( medico, atributo );
+                int c = siguienteSignificativo();
+                avanzar();
+                if ( c == '}' ) {
+                    return medico;
+                }
+                if ( c != ',' ) {
+                    throw error( "se esperaba , o }" );
+                }
+            }
+        }
+        
+        private void asignar( MedicoDTO medico, String atributo ) throws IOException {
+            switch ( atributo ) {
+                case "id":
+                    medico.setId( leerEntero( Long.MIN_VALUE, Long.MAX_VALUE ) );
+                    break;
+                case "nombre":
+                    medico.setNombre( leerCadenaONulo() );
+                    break;
+                case "apellido":
+                    medico.setApellido( leerCadenaONulo() );
+                    break;
+                case "registro":
+                    Long registro = leerEntero( Integer.MIN_VALUE, Integer.MAX_VALUE );
+                    medico.setRegistro( registro == null ? null : registro.intValue() );
+                    break;
+                case "especialidad":
+                    medico.setEspecialidad( leerCadenaONulo() );
+                    break;
+                default:
+                    saltarValor( 0 );
+            }
+        }
+        
+        /**
+         * Lee un entero, que también puede venir entre comillas, o null.
+         */
+        private Long leerEntero( long minimo, long maximo ) throws IOException {
+            int c = siguienteSignificativo();
+            if ( c == 'n' ) {
+                esperarLiteral( "null" );
+                return null;
+            }
+            boolean comillas = c == '"';
+            if ( comillas ) {
+                avanzar();
+            }
+            boolean negativo = actual() == '-';
+            if ( negativo ) {
+                avanzar();
+            }
+            long valor = 0;
+            int digitos = 0;
+            while ( posicion < limite || llenar() ) {
+                int d = buffer[ posicion ] - '0';
+                if ( d < 0 || d > 9 ) {
+                    break;
+                }
+                // Se acumula en negativo para poder representar Long.MIN_VALUE
+                if ( valor < ( Long.MIN_VALUE + d ) / 10 ) {
+                    throw error( "número fuera de rango" );
+                }
+                valor = valor * 10 - d;
+                posicion++;
+                digitos++;
+            }
+            if ( digitos == 0 ) {
+                throw error( "se esperaba un número entero" );
+            }
+            if ( !negativo ) {
+                if ( valor == Long.MIN_VALUE ) {
+                    throw error( "número fuera de rango" );
+                }
+                valor = -valor;
+            }
+            if ( valor < minimo || valor > maximo ) {
+                throw error( "número fuera de rango" );
+            }
+            if ( comillas ) {
+                esperarSinEspacios( '"' );
+            }
+            return valor;
+        }
+        
+        private String leerCadenaONulo( ) throws IOException {
+            if ( siguienteSignificativo() == 'n' ) {
+                esperarLiteral( "null" );
+                return null;
+            }
+            esperar( '"' );
+            return leerCadena();
+        }
+        
+        /**
+         * Lee el contenido de una cadena cuya comilla inicial ya se consumió,
+         * decodificando UTF-8 y los escapes.
+         */
+        private String leerCadena( ) throws IOException {
+            texto.setLength( 0 );
+            while ( true ) {
+                if ( texto.length() > LONGITUD_MAXIMA ) {
+                    throw error( "cadena de más de " + LONGITUD_MAXIMA + " caracteres" );
+                }
+                int b = leerByte();
+                if ( b == '"' ) {
+                    return texto.toString();
+                }
+                if ( b == '\\' ) {
+                    leerEscape();
+                } else if ( b < 0x20 ) {
+                    throw error( "carácter de control en una cadena" );
+                } else if ( b < 0x80 ) {
+                    texto.append( ( char ) b );
+                } else {
+                    leerUtf8( b );
+                }
+            }
+        }
+        
+        private void leerEscape( ) throws IOException {
+            int escape = leerByte();
+            switch ( escape ) {
+                case '"':
+                case '\\':
+                case '/':
+                    texto.append( ( char ) escape );
+                    break;
+                case 'b':
+                    texto.append( '\b' );
+                    break;
+                case 'f':
+                    texto.append( '\f' );
+                    break;
+                case 'n':
+                    texto.append( '\n' );
+                    break;
+                case 'r':
+                    texto.append( '\r' );
+                    break;
+                case 't':
+                    texto.append( '\t' );
+                    break;
+                case 'u':
+                    int valor = 0;
+                    for ( int i = 0; i < 4; i++ ) {
+                        int d = Character.digit( leerByte(), 16 );
+                        if ( d < 0 ) {
+                            throw error( "escape unicode inválido" );
+                        }
+                        valor = ( valor << 4 ) | d;
+                    }
+                    texto.append( ( char ) valor );
+                    break;
+                default:
+                    throw error( "escape inválido" );
+            }
+        }
+        
+        /**
+         * Decodifica una secuencia UTF-8 de 2 a 4 bytes.
+         */
+        private void leerUtf8( int primero ) throws IOException {
+            int faltantes;
+            int punto;
+            if ( ( primero & 0xE0 ) == 0xC0 ) {
+                faltantes = 1;
+                punto = primero & 0x1F;
+            } else if ( ( primero & 0xF0 ) == 0xE0 ) {
+                faltantes = 2;
+                punto = primero & 0x0F;
+            } else if ( ( primero & 0xF8 ) == 0xF0 ) {
+                faltantes = 3;
+                punto = primero & 0x07;
+            } else {
+                throw error( "UTF-8 inválido" );
+            }
+            for ( int i = 0; i < faltantes; i++ ) {
+                int b = leerByte();
+                if ( ( b & 0xC0 ) != 0x80 ) {
+                    throw error( "UTF-8 inválido" );
+                }
+                punto = ( punto << 6 ) | ( b & 0x3F );
+            }
+            if ( punto < ( faltantes == 1 ? 0x80 : faltantes == 2 ? 0x800 : 0x10000 )
+                    || punto > Character.MAX_CODE_POINT || ( punto >= 0xD800 && punto <= 0xDFFF ) ) {
+                throw error( "UTF-8 inválido" );
+            }
+            texto.appendCodePoint( punto );
+        }
+        
+        /**
+         * Salta un valor JSON cualquiera de un atributo desconocido.
+         */
+        private void saltarValor( int profundidad ) throws IOException {
+            if ( profundidad > PROFUNDIDAD_MAXIMA ) {
+                throw error( "valores anidados demasiado profundos" );
+            }
+            int c = siguienteSignificativo();
+            if ( c == '"' ) {
+                avanzar();
+                leerCadena();
+            } else if ( c == '{' || c == '[' ) {
+                int cierre = c == '{' ? '}' : ']';
+                avanzar();
+                if ( siguienteSignificativo() == cierre ) {
+                    avanzar();
+                    return;
+                }
+                while ( true ) {
+                    if ( cierre == '}' ) {
+                        esperar( '"' );
+                        leerCadena();
+                        esperar( ':' );
+                    }
+                    saltarValor( profundidad + 1 );
+                    int siguiente = siguienteSignificativo();
+                    avanzar();
+                    if ( siguiente == cierre ) {
+                        return;
+                    }
+                    if ( siguiente != ',' ) {
+                        throw error( "se esperaba , o " + ( char ) cierre );
+                    }
+                }
+            } else {
+                int leidos = 0;
+                while ( ( posicion < limite || llenar() ) && "-+.eE0123456789truefalsn".indexOf( buffer[ posicion ] ) >= 0 ) {
+                    posicion++;
+                    leidos++;
+                }
+                if ( leidos == 0 ) {
+                    throw error( "se esperaba un valor" );
+                }
+            }
+        }
+        
+        void esperar( char esperado ) throws IOException {
+            if ( siguienteSignificativo() != esperado ) {
+                throw error( "se esperaba " + esperado );
+            }
+            avanzar();
+        }
+        
+        private void esperarSinEspacios( char esperado ) throws IOException {
+            if ( actual() != esperado ) {
+                throw error( "se esperaba " + esperado );
+            }
+            avanzar();
+        }
+        
+        private void esperarLiteral( String literal ) throws IOException {
+            for ( int i = 0; i < literal.length(); i++ ) {
+                esperarSinEspacios( literal.charAt( i ) );
+            }
+        }
+        
+        /**
+         * Verifica que después del valor sólo haya espacios.
+         */
+        void esperarFin( ) throws IOException {
+            while ( posicion < limite || llenar() ) {
+                if ( !esEspacio( buffer[ posicion ] ) ) {
+                    throw error( "hay contenido después del valor" );
+                }
+                posicion++;
+            }
+        }
+        
+        /**
+         * Salta los espacios y retorna el siguiente byte sin consumirlo.
+         */
+        int siguienteSignificativo( ) throws IOException {
+            while ( true ) {
+                int c = actual();
+                if ( !esEspacio( c ) ) {
+                    return c;
+                }
+                posicion++;
+            }
+        }
+        
+        void avanzar( ) {
+            posicion++;
+        }
+        
+        private int actual( ) throws IOException {
+            if ( posicion == limite && !llenar() ) {
+                throw new EOFException( "El JSON termina antes de tiempo" );
+            }
+            return buffer[ posicion ] & 0xFF;
+        }
+        
+        private int leerByte( ) throws IOException {
+            int b = actual();
+            posicion++;
+            return b;
+        }
+        
+        private boolean llenar( ) throws IOException {
+            consumidos += limite;
+            posicion = 0;
+            limite = 0;
+            int leidos = entrada.read( buffer, 0, buffer.length );
+            if ( leidos <= 0 ) {
+                return false;
+            }
+            limite = leidos;
+            return true;
+        }
+        
+        private static boolean esEspacio( int c ) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+        }
+        
+        IOException error( String detalle ) {
+            return new IOException( "JSON inválido en el byte " + ( consumidos + posicion + 1 ) + ": " + detalle );
+        }
+    }
+}
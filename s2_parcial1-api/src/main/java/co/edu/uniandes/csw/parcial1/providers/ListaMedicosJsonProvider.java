@@ -0,0 +1,75 @@
+package co.edu.uniandes.csw.parcial1.providers;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Lector y escritor JSON de listas de MedicoDTO con
+ * {@link FormatoJsonMedicos}: escribe cada médico directamente en la salida,
+ * sin construir la lista completa en memoria como texto.
+ * @author j.ramirez28
+ */
+@Provider
+@Consumes( MediaType.APPLICATION_JSON )
+@Produces( MediaType.APPLICATION_JSON )
+public class ListaMedicosJsonProvider implements MessageBodyReader< List< MedicoDTO > >, MessageBodyWriter< List< MedicoDTO > > {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( ListaMedicosJsonProvider.class.getName() );
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public boolean isReadable( Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        return tipo.isAssignableFrom( List.class ) && TiposMedicos.esListaDeMedicos( tipoGenerico );
+    }
+    
+    @Override
+    public List< MedicoDTO > readFrom( Class< List< MedicoDTO > > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media,
+            MultivaluedMap< String, String > encabezados, InputStream entrada ) throws IOException {
+        try {
+            return FormatoJsonMedicos.leerLista( entrada );
+        } catch ( IOException e ) {
+            LOGGER.log( Level.FINE, "Cuerpo JSON inválido", e );
+            throw new WebApplicationException( "El cuerpo no es válido: " + e.getMessage(), Response.Status.BAD_REQUEST );
+        }
+    }
+    
+    @Override
+    public boolean isWriteable( Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        return List.class.isAssignableFrom( tipo ) && TiposMedicos.esListaDeMedicos( tipoGenerico );
+    }
+    
+    @Override
+    public long getSize( List< MedicoDTO > medicos, Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        // La longitud la calcula el contenedor
+        return -1;
+    }
+    
+    @Override
+    public void writeTo( List< MedicoDTO > medicos, Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media,
+            MultivaluedMap< String, Object > encabezados, OutputStream salida ) throws IOException {
+        FormatoJsonMedicos.escribirLista( salida, medicos );
+    }
+}
@@ -0,0 +1,86 @@
+package co.edu.uniandes.csw.parcial1.providers;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Lector y escritor de MedicoDTO, y de listas de MedicoDTO, en la
+ * representación binaria de {@link FormatoBinarioMedicos}. Se usa cuando la
+ * petición o la respuesta tienen el tipo de contenido TIPO.
+ * @author j.ramirez28
+ */
+@Provider
+@Consumes( MedicoBinarioProvider.TIPO )
+@Produces( MedicoBinarioProvider.TIPO )
+public class MedicoBinarioProvider implements MessageBodyReader< Object >, MessageBodyWriter< Object > {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( MedicoBinarioProvider.class.getName() );
+    
+    /**
+     * Tipo de contenido de la representación binaria de los médicos.
+     */
+    public static final String TIPO = "application/vnd.parcial1.medico";
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public boolean isReadable( Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        return tipo == MedicoDTO.class || ( tipo.isAssignableFrom( List.class ) && TiposMedicos.esListaDeMedicos( tipoGenerico ) );
+    }
+    
+    @Override
+    public Object readFrom( Class< Object > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media,
+            MultivaluedMap< String, String > encabezados, InputStream entrada ) throws IOException {
+        try {
+            return MedicoDTO.class.equals( tipo ) ? FormatoBinarioMedicos.leerMedico( entrada ) : FormatoBinarioMedicos.leerLista( entrada );
+        } catch ( IOException e ) {
+            LOGGER.log( Level.FINE, "Cuerpo binario inválido", e );
+            throw new WebApplicationException( "El cuerpo no es válido: " + e.getMessage(), Response.Status.BAD_REQUEST );
+        }
+    }
+    
+    @Override
+    public boolean isWriteable( Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        return tipo == MedicoDTO.class || ( Collection.class.isAssignableFrom( tipo ) && TiposMedicos.esListaDeMedicos( tipoGenerico ) );
+    }
+    
+    @Override
+    public long getSize( Object objeto, Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        // La longitud la calcula el contenedor
+        return -1;
+    }
+    
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public void writeTo( Object objeto, Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media,
+            MultivaluedMap< String, Object > encabezados, OutputStream salida ) throws IOException {
+        if ( objeto instanceof MedicoDTO ) {
+            FormatoBinarioMedicos.escribirMedico( salida, ( MedicoDTO ) objeto );
+        } else {
+            FormatoBinarioMedicos.escribirLista( salida, ( Collection< ? extends MedicoDTO > ) objeto );
+        }
+    }
+}
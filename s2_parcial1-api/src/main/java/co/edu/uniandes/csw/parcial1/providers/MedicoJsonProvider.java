@@ -0,0 +1,74 @@
+package co.edu.uniandes.csw.parcial1.providers;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Lector y escritor JSON de MedicoDTO con {@link FormatoJsonMedicos}, sin
+ * reflexión. Al declararse para MedicoDTO, y no para Object, Jersey lo
+ * prefiere al proveedor JSON genérico.
+ * @author j.ramirez28
+ */
+@Provider
+@Consumes( MediaType.APPLICATION_JSON )
+@Produces( MediaType.APPLICATION_JSON )
+public class MedicoJsonProvider implements MessageBodyReader< MedicoDTO >, MessageBodyWriter< MedicoDTO > {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( MedicoJsonProvider.class.getName() );
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    @Override
+    public boolean isReadable( Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        return tipo == MedicoDTO.class;
+    }
+    
+    @Override
+    public MedicoDTO readFrom( Class< MedicoDTO > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media,
+            MultivaluedMap< String, String > encabezados, InputStream entrada ) throws IOException {
+        try {
+            return FormatoJsonMedicos.leerMedico( entrada );
+        } catch ( IOException e ) {
+            LOGGER.log( Level.FINE, "Cuerpo JSON inválido", e );
+            throw new WebApplicationException( "El cuerpo no es válido: " + e.getMessage(), Response.Status.BAD_REQUEST );
+        }
+    }
+    
+    @Override
+    public boolean isWriteable( Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        return tipo == MedicoDTO.class;
+    }
+    
+    @Override
+    public long getSize( MedicoDTO medico, Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media ) {
+        // La longitud la calcula el contenedor
+        return -1;
+    }
+    
+    @Override
+    public void writeTo( MedicoDTO medico, Class< ? > tipo, Type tipoGenerico, Annotation[] anotaciones, MediaType media,
+            MultivaluedMap< String, Object > encabezados, OutputStream salida ) throws IOException {
+        FormatoJsonMedicos.escribirMedico( salida, medico );
+    }
+}
@@ -0,0 +1,48 @@
+package co.edu.uniandes.csw.parcial1.providers;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+
+/**
+ * Reconocimiento de los tipos de entidad que manejan los proveedores de
+ * médicos.
+ * @author j.ramirez28
+ */
+final class TiposMedicos {
+    
+    //------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //------------------------------------------------------------------------
+    
+    private TiposMedicos( ) {
+        // Clase de utilidad
+    }
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Indica si un tipo genérico es una colección de MedicoDTO.
+     * @param tipoGenerico Tipo genérico de la entidad.
+     * @return true si su único argumento es MedicoDTO o un comodín acotado
+     * por MedicoDTO.
+     */
+    static boolean esListaDeMedicos( Type tipoGenerico ) {
+        if ( !( tipoGenerico instanceof ParameterizedType ) ) {
+            return false;
+        }
+        Type[] argumentos = ( ( ParameterizedType ) tipoGenerico ).getActualTypeArguments();
+        if ( argumentos.length != 1 ) {
+            return false;
+        }
+        Type argumento = argumentos[ 0 ];
+        if ( argumento instanceof WildcardType ) {
+            Type[] cotas = ( ( WildcardType ) argumento ).getUpperBounds();
+            argumento = cotas.length == 1 ? cotas[ 0 ] : null;
+        }
+        return argumento == MedicoDTO.class;
+    }
+}
@@ -0,0 +1,94 @@
+package co.edu.uniandes.csw.parcial1.resources;
+
+import co.edu.uniandes.csw.parcial1.dtos.EstadisticasLogsDTO;
+import co.edu.uniandes.csw.parcial1.dtos.NivelLogDTO;
+import co.edu.uniandes.csw.parcial1.logging.ConfiguracionLogs;
+import co.edu.uniandes.csw.parcial1.logging.NivelesLog;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Recurso para consultar los logs asíncronos y cambiar en caliente el nivel
+ * de los loggers de la aplicación, sin redesplegarla.
+ * @author j.ramirez28
+ */
+@Path("/logs")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@RequestScoped
+public class LogsResource {
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Niveles de los loggers de la aplicación.
+     */
+    @Inject
+    private NivelesLog niveles;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Retorna el estado de los logs: nivel de la aplicación, muestreo, ocupación
+     * de la cola y registros entregados, muestreados y descartados.
+     *
+     * @return JSON {@link EstadisticasLogsDTO} con el estado de los logs.
+     */
+    @GET
+    public EstadisticasLogsDTO getEstadisticasLogs( ) {
+        return new EstadisticasLogsDTO( niveles.getNivel( ConfiguracionLogs.ESPACIO ), ConfiguracionLogs.getManejador() );
+    }
+    
+    /**
+     * Retorna el nivel efectivo de un logger de la aplicación.
+     *
+     * @param logger Nombre del logger, por ejemplo
+     * co.edu.uniandes.csw.parcial1.resources.MedicoResource.
+     * @return JSON {@link NivelLogDTO} con el nivel.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 400
+     * si el logger no es de la aplicación.
+     */
+    @GET
+    @Path("{logger}")
+    public NivelLogDTO getNivel( @PathParam("logger") String logger ) {
+        try {
+            return new NivelLogDTO( logger, niveles.getNivel( logger ) );
+        } catch ( IllegalArgumentException e ) {
+            throw new WebApplicationException( e.getMessage(), Response.Status.BAD_REQUEST );
+        }
+    }
+    
+    /**
+     * Cambia el nivel de un logger de la aplicación y de sus descendientes
+     * que no tengan nivel propio. Un nivel nulo hace que herede el de su
+     * ancestro.
+     *
+     * @param logger Nombre del logger.
+     * @param nivel {@link NivelLogDTO} con el nivel nuevo.
+     * @return JSON {@link NivelLogDTO} con el nivel efectivo luego del cambio.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 400
+     * si el logger no es de la aplicación o el nivel no existe.
+     */
+    @PUT
+    @Path("{logger}")
+    public NivelLogDTO setNivel( @PathParam("logger") String logger, NivelLogDTO nivel ) {
+        try {
+            return new NivelLogDTO( logger, niveles.setNivel( logger, nivel == null ? null : nivel.getNivel() ) );
+        } catch ( IllegalArgumentException e ) {
+            throw new WebApplicationException( e.getMessage(), Response.Status.BAD_REQUEST );
+        }
+    }
+}
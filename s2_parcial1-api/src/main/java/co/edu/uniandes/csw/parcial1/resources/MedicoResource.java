@@ -1,20 +1,70 @@
 package co.edu.uniandes.csw.parcial1.resources;
 
+import co.edu.uniandes.csw.parcial1.dtos.EstadisticasCacheDTO;
+import co.edu.uniandes.csw.parcial1.dtos.EstadisticasEspecialidadesDTO;
+import co.edu.uniandes.csw.parcial1.dtos.EstadisticasFiltroDTO;
 import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import co.edu.uniandes.csw.parcial1.dtos.PaginaMedicosDTO;
+import co.edu.uniandes.csw.parcial1.dtos.ResultadoCargaDTO;
+import co.edu.uniandes.csw.parcial1.dtos.ResultadoImportacionDTO;
 import co.edu.uniandes.csw.parcial1.ejb.MedicoLogic;
+import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
 import co.edu.uniandes.csw.parcial1.exceptions.BusinessLogicException;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import co.edu.uniandes.csw.parcial1.providers.MedicoBinarioProvider;
+import co.edu.uniandes.csw.parcial1.serialization.FormatoMedicos;
+import co.edu.uniandes.csw.parcial1.serialization.LectorMedicos;
+import co.edu.uniandes.csw.parcial1.serialization.RegistroInvalidoException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 /**
  * Clase que implementa el recurso médico.
+ * Los servicios que reciben o retornan médicos aceptan, además de JSON, la
+ * representación binaria de {@link MedicoBinarioProvider} según los
+ * encabezados Content-Type y Accept.
  * @author j.ramirez28
  */
 @Path("/medicos")
@@ -32,6 +82,28 @@ public class MedicoResource {
      */
     private static final Logger LOGGER = Logger.getLogger( MedicoResource.class.getName() );
     
+    /**
+     * Prefijo del contenido de los cursores de paginación. Permite cambiar el
+     * formato del cursor más adelante sin aceptar cursores viejos por error.
+     */
+    private static final String PREFIJO_CURSOR = "m1:";
+    
+    /**
+     * Tamaño del buffer de escritura de las exportaciones, en caracteres.
+     */
+    private static final int TAMANO_BUFFER_EXPORTACION = 64 * 1024;
+    
+    /**
+     * Tiempo máximo de espera de una creación asíncrona, en segundos.
+     */
+    private static final long TIEMPO_LIMITE_ASINCRONO = 30;
+    
+    /**
+     * Tiempo durante el que un cliente o un cache intermedio puede reutilizar
+     * un médico sin revalidarlo, en segundos.
+     */
+    private static final int MAXIMO_CACHE_MEDICO = 60;
+    
     //------------------------------------------------------------------------
     // ATRIBUTOS
     //------------------------------------------------------------------------
@@ -42,22 +114,521 @@ public class MedicoResource {
     @Inject
     private MedicoLogic medicoLogica;
     
+    /**
+     * Respuestas guardadas de las peticiones con llave de idempotencia.
+     */
+    @Inject
+    private RespuestasIdempotentes respuestasIdempotentes;
+    
     /**
      * Crea un nuevo médico con la información que se recibe en el cuerpo
      * de la petición y se retorna un objeto idéntico con un id auto-generado
-     * por la base de datos.
+     * por la base de datos. Si el escritor agrupado está activo, el médico se
+     * persiste en su próximo grupo.
+     * Si la petición trae el encabezado Idempotency-Key, la respuesta se
+     * guarda con esa llave y los reintentos con la misma llave y el mismo
+     * médico reciben la respuesta original, marcada con el encabezado
+     * Idempotent-Replayed, sin crear el médico otra vez.
      * 
      * @param medico {@link MedicoDTO} El médico que se desea guardar.
+     * @param llave Llave de idempotencia de la petición; opcional.
      * @return JSON {@link MedicoDTO} El médico guardado con el atributo id
      * auto-generado.
      * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} por error
      * de lógica que se genera por incumplir reglas de negocio.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 422
+     * si la llave ya se usó con otro médico.
+     */
+    @POST
+    @Consumes({ MediaType.APPLICATION_JSON, MedicoBinarioProvider.TIPO })
+    @Produces({ MediaType.APPLICATION_JSON, MedicoBinarioProvider.TIPO })
+    public Response createMedico( MedicoDTO medico,
+            @HeaderParam( RespuestasIdempotentes.ENCABEZADO_LLAVE ) String llave ) throws BusinessLogicException {
+        LOGGER.log( Level.FINE, "MedicoResource createMedico: input:{0}", medico );
+        if ( llave == null ) {
+            MedicoDTO nuevoMedicoDTO = new MedicoDTO( medicoLogica.createMedicoAgrupado( medico.toEntity() ) );
+            LOGGER.log( Level.FINE, "MedicoResource createMedico: output:{0}", nuevoMedicoDTO );
+            return Response.ok( nuevoMedicoDTO ).build();
+        }
+        return respuestasIdempotentes.ejecutar( llave, serializar( medico ), ( ) -> {
+            try {
+                MedicoDTO nuevoMedicoDTO = new MedicoDTO( medicoLogica.createMedicoAgrupado( medico.toEntity() ) );
+                LOGGER.log( Level.FINE, "MedicoResource createMedico: output:{0}", nuevoMedicoDTO );
+                return new RespuestasIdempotentes.RespuestaGuardada( Response.Status.OK.getStatusCode(),
+                        MediaType.APPLICATION_JSON, serializar( nuevoMedicoDTO ) );
+            } catch ( BusinessLogicException e ) {
+                // Se guarda igual que la respuesta de BusinessLogicExceptionMapper
+                return new RespuestasIdempotentes.RespuestaGuardada( Response.Status.PRECONDITION_FAILED.getStatusCode(),
+                        MediaType.TEXT_PLAIN, e.getLocalizedMessage() );
+            }
+        } );
+    }
+    
+    /**
+     * Crea un nuevo médico como createMedico, pero de forma asíncrona: el
+     * hilo de la petición se libera mientras la lógica valida y persiste el
+     * médico en su propio ejecutor, y la respuesta se envía al terminar.
+     * 
+     * @param medico {@link MedicoDTO} El médico que se desea guardar.
+     * @param respuesta Respuesta suspendida que se completa con el JSON
+     * {@link MedicoDTO} del médico guardado.
+     * Responde con {@link BusinessLogicExceptionMapper} si se incumplen las
+     * reglas de negocio, y con 503 si el ejecutor está saturado o la
+     * creación supera TIEMPO_LIMITE_ASINCRONO segundos.
+     */
+    @POST
+    @Path("async")
+    @Consumes({ MediaType.APPLICATION_JSON, MedicoBinarioProvider.TIPO })
+    @Produces({ MediaType.APPLICATION_JSON, MedicoBinarioProvider.TIPO })
+    public void createMedicoAsync( MedicoDTO medico, @Suspended AsyncResponse respuesta ) {
+        LOGGER.log( Level.FINE, "MedicoResource createMedicoAsync: input:{0}", medico );
+        respuesta.setTimeout( TIEMPO_LIMITE_ASINCRONO, TimeUnit.SECONDS );
+        respuesta.setTimeoutHandler( suspendida -> suspendida.resume(
+                new WebApplicationException( "La creación del médico tardó demasiado.", Response.Status.SERVICE_UNAVAILABLE ) ) );
+        medicoLogica.createMedicoAsync( medico.toEntity() ).whenComplete( ( entidad, error ) -> {
+            if ( error == null ) {
+                respuesta.resume( new MedicoDTO( entidad ) );
+                return;
+            }
+            Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if ( causa instanceof RejectedExecutionException ) {
+                causa = new WebApplicationException( "El servidor está saturado, intente más tarde.", Response.Status.SERVICE_UNAVAILABLE );
+            }
+            respuesta.resume( causa );
+        } );
+    }
+    
+    /**
+     * Crea los médicos que se reciben en el cuerpo de la petición,
+     * confirmándolos en la base de datos por lotes de tamanoLote médicos.
+     * Los médicos que no cumplen las reglas de negocio se reportan en la
+     * respuesta sin impedir la creación de los demás.
+     * 
+     * @param medicos Lista de {@link MedicoDTO} que se desean guardar.
+     * @param tamanoLote Cantidad de médicos por transacción. Por defecto 500.
+     * @return JSON {@link ResultadoCargaDTO} con la cantidad de médicos
+     * creados y la posición y motivo de cada médico rechazado.
+     * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} si
+     * el tamaño de lote no es válido.
+     */
+    @POST
+    @Path("bulk")
+    @Consumes({ MediaType.APPLICATION_JSON, MedicoBinarioProvider.TIPO })
+    public ResultadoCargaDTO createMedicos( List< MedicoDTO > medicos,
+            @QueryParam("tamanoLote") @DefaultValue("500") int tamanoLote ) throws BusinessLogicException {
+        if ( LOGGER.isLoggable( Level.FINE ) ) {
+            LOGGER.log( Level.FINE, "MedicoResource createMedicos: input: {0} médicos, tamanoLote:{1}", new Object[]{ medicos.size(), tamanoLote } );
+        }
+        List< MedicoEntity > entidades = new ArrayList<>( medicos.size() );
+        for ( MedicoDTO medico : medicos ) {
+            entidades.add( medico.toEntity() );
+        }
+        Map< Integer, String > rechazados = medicoLogica.createMedicos( entidades, tamanoLote );
+        ResultadoCargaDTO resultado = new ResultadoCargaDTO( entidades.size(), rechazados );
+        if ( LOGGER.isLoggable( Level.FINE ) ) {
+            LOGGER.log( Level.FINE, "MedicoResource createMedicos: output: {0} creados, {1} rechazados", new Object[]{ resultado.getCreados(), rechazados.size() } );
+        }
+        return resultado;
+    }
+    
+    /**
+     * Importa los médicos de un archivo NDJSON o CSV (según el tipo de
+     * contenido), con el mismo modelo que la exportación. El archivo se lee
+     * de a un registro mientras llega, y los médicos se crean con las mismas
+     * reglas de createMedico, confirmando una transacción por cada lote de
+     * tamanoLote médicos; nunca se tiene el archivo completo en memoria.
+     * 
+     * @param entrada Cuerpo de la petición con el archivo.
+     * @param tipoContenido Tipo de contenido de la petición.
+     * @param tamanoLote Cantidad de médicos por transacción. Por defecto 500.
+     * @return JSON {@link ResultadoImportacionDTO} con las cantidades de
+     * médicos leídos, creados y rechazados, y la línea y el motivo de cada
+     * rechazo.
+     * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} si
+     * el tamaño de lote no es válido.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 400
+     * si el encabezado del archivo CSV no es válido.
+     * @throws IOException si falla la lectura de la petición.
+     */
+    @POST
+    @Path("import")
+    @Consumes({ "application/x-ndjson", "text/csv" })
+    public ResultadoImportacionDTO importarMedicos( InputStream entrada,
+            @HeaderParam(HttpHeaders.CONTENT_TYPE) MediaType tipoContenido,
+            @QueryParam("tamanoLote") @DefaultValue("500") int tamanoLote ) throws BusinessLogicException, IOException {
+        if ( LOGGER.isLoggable( Level.FINE ) ) {
+            LOGGER.log( Level.FINE, "MedicoResource importarMedicos: input: {0}, tamanoLote:{1}", new Object[]{ tipoContenido, tamanoLote } );
+        }
+        // Se valida antes de leer: con un tamaño inválido los lotes nunca se
+        // llenarían y el archivo completo quedaría en memoria
+        MedicoLogic.validarTamanoLote( tamanoLote );
+        FormatoMedicos formato = FormatoMedicos.porTipoContenido( tipoContenido.getType() + "/" + tipoContenido.getSubtype() );
+        String charset = tipoContenido.getParameters().get( MediaType.CHARSET_PARAMETER );
+        Reader lectura = new InputStreamReader( entrada, charset == null ? StandardCharsets.UTF_8 : Charset.forName( charset ) );
+        LectorMedicos lector;
+        try {
+            lector = formato.crearLector( lectura );
+        } catch ( RegistroInvalidoException e ) {
+            throw new WebApplicationException( e.getMessage(), Response.Status.BAD_REQUEST );
+        }
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO( );
+        List< MedicoEntity > lote = new ArrayList<>( );
+        List< Integer > lineas = new ArrayList<>( );
+        while ( true ) {
+            MedicoDTO medico;
+            try {
+                medico = lector.leer( );
+            } catch ( RegistroInvalidoException e ) {
+                resultado.registrarError( lector.getLineaRegistro(), e.getMessage() );
+                continue;
+            }
+            if ( medico == null ) {
+                break;
+            }
+            lote.add( medico.toEntity() );
+            lineas.add( lector.getLineaRegistro() );
+            if ( lote.size() >= tamanoLote ) {
+                importarLote( lote, lineas, tamanoLote, resultado );
+            }
+        }
+        importarLote( lote, lineas, tamanoLote, resultado );
+        if ( LOGGER.isLoggable( Level.FINE ) ) {
+            LOGGER.log( Level.FINE, "MedicoResource importarMedicos: output: {0} creados, {1} rechazados", new Object[]{ resultado.getCreados(), resultado.getRechazados() } );
+        }
+        return resultado;
+    }
+    
+    /**
+     * Busca y devuelve una página de los médicos, ordenados por id.
+     * Para pedir la página siguiente se envía en cursor el valor del atributo
+     * siguiente de la respuesta anterior; todas las páginas cuestan lo mismo
+     * porque la consulta busca por llave en vez de saltar filas.
+     * 
+     * @param cursor Cursor opaco de la página a consultar; vacío para la primera.
+     * @param limite Cantidad máxima de médicos de la página. Por defecto 20.
+     * @param nombre Filtro opcional por nombre exacto.
+     * @param apellido Filtro opcional por apellido exacto.
+     * @param registro Filtro opcional por registro.
+     * @param especialidad Filtro opcional por especialidad exacta.
+     * @return JSON {@link PaginaMedicosDTO} con los médicos de la página y el
+     * cursor de la siguiente, nulo si no hay más médicos.
+     * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} si
+     * el límite no es válido.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 400
+     * si el cursor no es válido.
+     */
+    @GET
+    public PaginaMedicosDTO getMedicos( @QueryParam("cursor") String cursor,
+            @QueryParam("limite") @DefaultValue("20") int limite,
+            @QueryParam("nombre") String nombre,
+            @QueryParam("apellido") String apellido,
+            @QueryParam("registro") Integer registro,
+            @QueryParam("especialidad") String especialidad ) throws BusinessLogicException {
+        if ( LOGGER.isLoggable( Level.FINE ) ) {
+            LOGGER.log( Level.FINE, "MedicoResource getMedicos: input: cursor:{0}, limite:{1}", new Object[]{ cursor, limite } );
+        }
+        Map< String, Object > filtros = new HashMap<>();
+        if ( nombre != null ) {
+            filtros.put( "nombre", nombre );
+        }
+        if ( apellido != null ) {
+            filtros.put( "apellido", apellido );
+        }
+        if ( registro != null ) {
+            filtros.put( "registro", registro );
+        }
+        if ( especialidad != null ) {
+            filtros.put( "especialidad", especialidad );
+        }
+        List< MedicoProyeccion > proyecciones = medicoLogica.getProyeccionesMedicos( decodificarCursor( cursor ), limite, filtros );
+        List< MedicoDTO > medicos = new ArrayList<>( proyecciones.size() );
+        for ( MedicoProyeccion proyeccion : proyecciones ) {
+            medicos.add( new MedicoDTO( proyeccion ) );
+        }
+        // Una página llena indica que puede haber más médicos después
+        String siguiente = proyecciones.size() == limite ? codificarCursor( proyecciones.get( proyecciones.size() - 1 ).getId() ) : null;
+        PaginaMedicosDTO pagina = new PaginaMedicosDTO( medicos, siguiente );
+        LOGGER.log( Level.FINE, "MedicoResource getMedicos: output: {0} médicos", medicos.size() );
+        return pagina;
+    }
+    
+    /**
+     * Exporta todos los médicos, ordenados por id, en el formato pedido.
+     * La respuesta se escribe a medida que se leen los médicos de la base de
+     * datos con un cursor, de modo que la memoria usada no depende de la
+     * cantidad de médicos.
+     * 
+     * @param formato Formato del archivo: ndjson (por defecto) o csv.
+     * @return Respuesta con el archivo de médicos como adjunto.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 400
+     * si el formato no es válido.
+     */
+    @GET
+    @Path("export")
+    @Produces({ "application/x-ndjson", "text/csv" })
+    public Response exportarMedicos( @QueryParam("formato") @DefaultValue("ndjson") String formato ) {
+        LOGGER.log( Level.FINE, "MedicoResource exportarMedicos: input: {0}", formato );
+        FormatoMedicos formatoMedicos = FormatoMedicos.porNombre( formato );
+        if ( formatoMedicos == null ) {
+            throw new WebApplicationException( "El formato " + formato + " no es válido, debe ser ndjson o csv.", Response.Status.BAD_REQUEST );
+        }
+        StreamingOutput archivo = salida -> {
+            Writer escritor = new BufferedWriter( new OutputStreamWriter( salida, StandardCharsets.UTF_8 ), TAMANO_BUFFER_EXPORTACION );
+            formatoMedicos.escribirEncabezado( escritor );
+            try {
+                medicoLogica.exportarMedicos( medico -> {
+                    try {
+                        formatoMedicos.escribir( escritor, medico );
+                    } catch ( IOException e ) {
+                        throw new UncheckedIOException( e );
+                    }
+                } );
+            } catch ( RuntimeException e ) {
+                // El contenedor de EJB puede envolver el error de escritura
+                for ( Throwable causa = e; causa != null; causa = causa.getCause() ) {
+                    if ( causa instanceof UncheckedIOException ) {
+                        throw ( ( UncheckedIOException ) causa ).getCause();
+                    }
+                }
+                throw e;
+            }
+            escritor.flush();
+        };
+        return Response.ok( archivo, formatoMedicos.getTipoContenido() )
+                .header( "Content-Disposition", "attachment; filename=\"medicos." + formatoMedicos.getExtension() + "\"" )
+                .build();
+    }
+    
+    /**
+     * Busca los médicos cuyo nombre, apellido o especialidad contienen todas
+     * las palabras de la consulta, sin importar tildes ni mayúsculas. Los
+     * resultados vienen ordenados por relevancia.
+     * 
+     * @param consulta Texto a buscar.
+     * @param limite Cantidad máxima de resultados. Por defecto 10.
+     * @return JSONArray {@link MedicoDTO} con los médicos encontrados.
+     * @throws BusinessLogicException {@link BusinessLogicExceptionMapper} si
+     * la consulta no tiene ninguna palabra de al menos tres caracteres o el
+     * límite no es válido.
+     */
+    @GET
+    @Path("search")
+    @Produces({ MediaType.APPLICATION_JSON, MedicoBinarioProvider.TIPO })
+    public List< MedicoDTO > buscarMedicos( @QueryParam("q") String consulta,
+            @QueryParam("limite") @DefaultValue("10") int limite ) throws BusinessLogicException {
+        if ( LOGGER.isLoggable( Level.FINE ) ) {
+            LOGGER.log( Level.FINE, "MedicoResource buscarMedicos: input: q:{0}, limite:{1}", new Object[]{ consulta, limite } );
+        }
+        List< MedicoProyeccion > encontrados = medicoLogica.buscarMedicos( consulta, limite );
+        List< MedicoDTO > medicos = new ArrayList<>( encontrados.size() );
+        for ( MedicoProyeccion encontrado : encontrados ) {
+            medicos.add( new MedicoDTO( encontrado ) );
+        }
+        LOGGER.log( Level.FINE, "MedicoResource buscarMedicos: output: {0} médicos", medicos.size() );
+        return medicos;
+    }
+    
+    /**
+     * Busca el médico con el id dado.
+     * La respuesta lleva una ETag fuerte con el id y la versión del médico, y
+     * permite que los caches la reutilicen por MAXIMO_CACHE_MEDICO segundos y
+     * luego la revaliden. Si el encabezado If-None-Match de la petición
+     * coincide con la ETag se responde 304 sin cuerpo, antes de construir el
+     * DTO.
+     * 
+     * @param id Id del médico que se está buscando.
+     * @param peticion Petición, para evaluar sus precondiciones.
+     * @return JSON {@link MedicoDTO} El médico buscado, o 304 si el cliente
+     * ya tiene la versión actual.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 404
+     * si no existe un médico con ese id.
+     */
+    @GET
+    @Path("{id: \\d+}")
+    @Produces({ MediaType.APPLICATION_JSON, MedicoBinarioProvider.TIPO })
+    public Response getMedico( @PathParam("id") Long id, @Context Request peticion ) {
+        LOGGER.log( Level.FINE, "MedicoResource getMedico: input: {0}", id );
+        MedicoEntity entidad = medicoLogica.getMedico( id );
+        if ( entidad == null ) {
+            throw new WebApplicationException( "El recurso /medicos/" + id + " no existe.", Response.Status.NOT_FOUND );
+        }
+        EntityTag etiqueta = new EntityTag( entidad.getId() + "-" + entidad.getVersion() );
+        CacheControl cache = new CacheControl( );
+        cache.setMaxAge( MAXIMO_CACHE_MEDICO );
+        cache.setMustRevalidate( true );
+        Response.ResponseBuilder noModificado = peticion.evaluatePreconditions( etiqueta );
+        if ( noModificado != null ) {
+            return noModificado.tag( etiqueta ).cacheControl( cache ).build();
+        }
+        MedicoDTO medicoDTO = new MedicoDTO( entidad );
+        LOGGER.log( Level.FINE, "MedicoResource getMedico: output: {0}", medicoDTO );
+        return Response.ok( medicoDTO ).tag( etiqueta ).cacheControl( cache ).build();
+    }
+    
+    /**
+     * Busca el médico con el registro dado.
+     * 
+     * @param registro Registro del médico que se está buscando.
+     * @return JSON {@link MedicoDTO} El médico buscado.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 404
+     * si no existe un médico con ese registro.
+     */
+    @GET
+    @Path("registro/{registro: \\d+}")
+    @Produces({ MediaType.APPLICATION_JSON, MedicoBinarioProvider.TIPO })
+    public MedicoDTO getMedicoByRegistro( @PathParam("registro") Integer registro ) {
+        LOGGER.log( Level.FINE, "MedicoResource getMedicoByRegistro: input: {0}", registro );
+        MedicoEntity entidad = medicoLogica.getMedicoByRegistro( registro );
+        if ( entidad == null ) {
+            throw new WebApplicationException( "El médico con registro " + registro + " no existe.", Response.Status.NOT_FOUND );
+        }
+        MedicoDTO medicoDTO = new MedicoDTO( entidad );
+        LOGGER.log( Level.FINE, "MedicoResource getMedicoByRegistro: output: {0}", medicoDTO );
+        return medicoDTO;
+    }
+    
+    /**
+     * Indica si existe un médico con el registro dado, sin retornarlo.
+     * 
+     * @param registro Registro que se está verificando.
+     * @return Respuesta vacía con estado 200 si el registro existe.
+     * @throws WebApplicationException {@link WebApplicationExceptionMapper} 404
+     * si no existe un médico con ese registro.
+     */
+    @HEAD
+    @Path("registro/{registro: \\d+}")
+    public Response existeRegistro( @PathParam("registro") Integer registro ) {
+        if ( !medicoLogica.existeRegistro( registro ) ) {
+            throw new WebApplicationException( Response.Status.NOT_FOUND );
+        }
+        return Response.ok().build();
+    }
+    
+    /**
+     * Retorna el total de médicos y la cantidad por especialidad. Se responde
+     * desde un conteo en memoria que se actualiza con cada creación, sin
+     * consultar la base de datos.
+     * 
+     * @return JSON {@link EstadisticasEspecialidadesDTO} con el conteo.
+     */
+    @GET
+    @Path("stats")
+    public EstadisticasEspecialidadesDTO getEstadisticasEspecialidades( ) {
+        return new EstadisticasEspecialidadesDTO( medicoLogica.getConteoEspecialidades() );
+    }
+    
+    /**
+     * Recuenta los médicos por especialidad en la base de datos y corrige el
+     * conteo en memoria.
+     * 
+     * @return JSON {@link EstadisticasEspecialidadesDTO} con el conteo
+     * reconciliado y los ajustes que se aplicaron.
      */
     @POST
-    public MedicoDTO createMedico( MedicoDTO medico ) throws BusinessLogicException {
-        LOGGER.log( Level.INFO, "MedicoResource createMedico: input:{0}", medico );
-        MedicoDTO nuevoMedicoDTO = new MedicoDTO( medicoLogica.createMedico( medico.toEntity() ) );
-        LOGGER.log( Level.INFO, "MedicoResource createMedico: output:{0}", nuevoMedicoDTO );
-        return nuevoMedicoDTO;
+    @Path("stats/reconciliacion")
+    public EstadisticasEspecialidadesDTO reconciliarEstadisticasEspecialidades( ) {
+        LOGGER.log( Level.INFO, "MedicoResource reconciliarEstadisticasEspecialidades" );
+        return new EstadisticasEspecialidadesDTO( medicoLogica.reconciliarConteoEspecialidades() );
+    }
+    
+    /**
+     * Retorna las estadísticas del cache de registros (aciertos, fallos y
+     * ocupación), para dimensionarlo con el tráfico real.
+     * 
+     * @return JSON {@link EstadisticasCacheDTO} con las estadísticas del cache.
+     */
+    @GET
+    @Path("cache")
+    public EstadisticasCacheDTO getEstadisticasCache( ) {
+        return new EstadisticasCacheDTO( medicoLogica.getEstadisticasCache() );
+    }
+    
+    /**
+     * Retorna las estadísticas del filtro de registros: memoria ocupada, tasa
+     * estimada de falsos positivos y consultas que se evitaron.
+     * 
+     * @return JSON {@link EstadisticasFiltroDTO} con las estadísticas del filtro.
+     */
+    @GET
+    @Path("filtro")
+    public EstadisticasFiltroDTO getEstadisticasFiltro( ) {
+        return new EstadisticasFiltroDTO( medicoLogica.getEstadisticasFiltro() );
+    }
+    
+    /**
+     * Crea los médicos de un lote de la importación y registra el resultado
+     * de cada uno con su línea. Al terminar deja el lote vacío.
+     * @param lote Médicos leídos del archivo.
+     * @param lineas Línea de cada médico del lote.
+     * @param tamanoLote Cantidad de médicos por transacción.
+     * @param resultado Resultado de la importación.
+     * @throws BusinessLogicException si el tamaño de lote no es válido.
+     */
+    private void importarLote( List< MedicoEntity > lote, List< Integer > lineas, int tamanoLote,
+            ResultadoImportacionDTO resultado ) throws BusinessLogicException {
+        if ( lote.isEmpty() ) {
+            return;
+        }
+        Map< Integer, String > rechazados = medicoLogica.createMedicos( lote, tamanoLote );
+        for ( int i = 0; i < lote.size(); i++ ) {
+            String mensaje = rechazados.get( i );
+            if ( mensaje == null ) {
+                resultado.registrarCreado( );
+            } else {
+                resultado.registrarError( lineas.get( i ), mensaje );
+            }
+        }
+        lote.clear();
+        lineas.clear();
+    }
+    
+    /**
+     * Codifica el id del último médico de una página como cursor opaco.
+     * @param id Id del último médico de la página.
+     * @return El cursor codificado en Base64 para URL.
+     */
+    private static String codificarCursor( Long id ) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString( ( PREFIJO_CURSOR + id ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+    
+    /**
+     * Decodifica un cursor de paginación.
+     * @param cursor El cursor recibido, puede ser nulo o vacío.
+     * @return El id después del cual empieza la página, o null para la primera.
+     * @throws WebApplicationException 400 si el cursor no es válido.
+     */
+    private static Long decodificarCursor( String cursor ) {
+        if ( cursor == null || cursor.isEmpty() ) {
+            return null;
+        }
+        try {
+            String contenido = new String( Base64.getUrlDecoder().decode( cursor ), StandardCharsets.UTF_8 );
+            if ( contenido.startsWith( PREFIJO_CURSOR ) ) {
+                return Long.valueOf( contenido.substring( PREFIJO_CURSOR.length() ) );
+            }
+        } catch ( IllegalArgumentException e ) {
+            LOGGER.log( Level.FINE, "Cursor inválido", e );
+        }
+        throw new WebApplicationException( "El cursor \"" + cursor + "\" no es válido", Response.Status.BAD_REQUEST );
+    }
+    
+    /**
+     * Serializa un médico en JSON con el mismo modelo de la exportación.
+     * Sirve como huella de una petición y como cuerpo guardado de su respuesta.
+     * @param medico El médico a serializar.
+     * @return El JSON del médico.
+     */
+    private static String serializar( MedicoDTO medico ) {
+        StringWriter salida = new StringWriter( );
+        try {
+            FormatoMedicos.NDJSON.escribir( salida, new MedicoProyeccion( medico.getId(), medico.getNombre(),
+                    medico.getApellido(), medico.getRegistro(), medico.getEspecialidad() ) );
+        } catch ( IOException e ) {
+            // StringWriter no falla al escribir
+            throw new UncheckedIOException( e );
+        }
+        // Quita el fin de línea del formato NDJSON
+        return salida.getBuffer().substring( 0, salida.getBuffer().length() - 1 );
     }
 }
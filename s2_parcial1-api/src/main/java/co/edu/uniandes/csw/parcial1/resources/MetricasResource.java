@@ -0,0 +1,77 @@
+package co.edu.uniandes.csw.parcial1.resources;
+
+import co.edu.uniandes.csw.parcial1.dtos.ConsultaSqlDTO;
+import co.edu.uniandes.csw.parcial1.metricas.RegistroMetricas;
+import co.edu.uniandes.csw.parcial1.persistence.EstadisticasSql;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Recurso que expone las métricas de la aplicación en el formato de texto de
+ * Prometheus, para que un servidor Prometheus las recoja periódicamente.
+ * @author j.ramirez28
+ */
+@Path("/metrics")
+@RequestScoped
+public class MetricasResource {
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Métricas de las peticiones HTTP.
+     */
+    @Inject
+    private RegistroMetricas registro;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Retorna las métricas: percentiles 50, 99 y 99.9 de la latencia, suma y
+     * cantidad de peticiones por ruta y código, sentencias SQL, filas y tiempo
+     * de base de datos por ruta, y peticiones en curso.
+     *
+     * @return Las métricas en el formato de texto de Prometheus.
+     */
+    @GET
+    @Produces(RegistroMetricas.TIPO_PROMETHEUS)
+    public StreamingOutput getMetricas( ) {
+        return salida -> {
+            Writer escritor = new BufferedWriter( new OutputStreamWriter( salida, StandardCharsets.UTF_8 ) );
+            registro.escribirPrometheus( escritor );
+            escritor.flush();
+        };
+    }
+    
+    /**
+     * Retorna los agregados de las sentencias SQL enviadas por la
+     * persistencia desde el despliegue, de la de mayor a la de menor tiempo
+     * total.
+     *
+     * @return JSONArray {@link ConsultaSqlDTO} con los agregados.
+     */
+    @GET
+    @Path("sql")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List< ConsultaSqlDTO > getConsultasSql( ) {
+        List< ConsultaSqlDTO > consultas = new ArrayList<>( );
+        for ( EstadisticasSql.Agregado agregado : EstadisticasSql.getAgregados() ) {
+            consultas.add( new ConsultaSqlDTO( agregado ) );
+        }
+        return consultas;
+    }
+}
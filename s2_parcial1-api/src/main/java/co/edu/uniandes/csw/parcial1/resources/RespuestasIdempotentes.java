@@ -0,0 +1,249 @@
+package co.edu.uniandes.csw.parcial1.resources;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Almacén de las respuestas de las peticiones con encabezado Idempotency-Key.
+ * Guarda, por cada llave, una huella de la petición y la respuesta ya
+ * serializada, de modo que un reintento con la misma llave recibe la respuesta
+ * original sin volver a ejecutar la lógica. Si el reintento llega mientras la
+ * petición original se está ejecutando, espera su resultado en lugar de
+ * ejecutarse otra vez.
+ * El almacén está acotado: conserva a lo sumo parcial1.idempotencia.capacidad
+ * llaves (10000 por defecto) durante parcial1.idempotencia.ttl segundos
+ * (un día por defecto), descartando primero las más antiguas ya respondidas.
+ * Una llave en curso no se descarta, porque su reintento ejecutaría la
+ * operación otra vez: si todas las llaves están en curso, la petición nueva
+ * se rechaza con 503.
+ * @author j.ramirez28
+ */
+@ApplicationScoped
+public class RespuestasIdempotentes {
+
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+
+    private static final Logger LOGGER = Logger.getLogger( RespuestasIdempotentes.class.getName() );
+
+    /**
+     * Nombre del encabezado con la llave de idempotencia.
+     */
+    public static final String ENCABEZADO_LLAVE = "Idempotency-Key";
+
+    /**
+     * Nombre del encabezado que marca una respuesta repetida.
+     */
+    public static final String ENCABEZADO_REPETIDA = "Idempotent-Replayed";
+
+    /**
+     * Longitud máxima de una llave.
+     */
+    public static final int LONGITUD_MAXIMA_LLAVE = 255;
+
+    /**
+     * Código HTTP para una llave reutilizada con otra petición.
+     */
+    private static final int ENTIDAD_NO_PROCESABLE = 422;
+
+    /**
+     * Tiempo máximo que un reintento espera a la petición original, en segundos.
+     */
+    private static final long ESPERA_MAXIMA = 30;
+
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+
+    /**
+     * Cantidad máxima de llaves guardadas (parcial1.idempotencia.capacidad).
+     */
+    private final int capacidad = Math.max( 1, Integer.getInteger( "parcial1.idempotencia.capacidad", 10000 ) );
+
+    /**
+     * Vigencia de cada respuesta guardada, en nanosegundos
+     * (parcial1.idempotencia.ttl, en segundos).
+     */
+    private final long ttlNanos = TimeUnit.SECONDS.toNanos( Math.max( 1, Long.getLong( "parcial1.idempotencia.ttl", 86400L ) ) );
+
+    /**
+     * Entradas en orden de creación, que con un ttl fijo es también el orden
+     * de vencimiento.
+     */
+    private final LinkedHashMap< String, Entrada > entradas = new LinkedHashMap<>( );
+
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+
+    /**
+     * Retorna la respuesta guardada para la llave, o ejecuta la operación y
+     * guarda su respuesta si la llave es nueva. Si la operación falla con una
+     * excepción, la llave se libera para que un reintento la ejecute de nuevo.
+     *
+     * @param llave Llave de idempotencia de la petición.
+     * @param huella Representación del contenido de la petición; un reintento
+     * debe tener la misma.
+     * @param operacion Operación que genera la respuesta.
+     * @return La respuesta, marcada con ENCABEZADO_REPETIDA si es repetida.
+     * @throws WebApplicationException 400 si la llave no es válida, 422 si la
+     * llave ya se usó con otra huella, 409 si la petición original sigue en
+     * curso luego de ESPERA_MAXIMA segundos, o 503 si el almacén está lleno de
+     * peticiones en curso.
+     */
+    public Response ejecutar( String llave, String huella, Supplier< RespuestaGuardada > operacion ) {
+        if ( llave.isEmpty() || llave.length() > LONGITUD_MAXIMA_LLAVE ) {
+            throw new WebApplicationException( "La llave de idempotencia debe tener entre 1 y " + LONGITUD_MAXIMA_LLAVE + " caracteres.", Response.Status.BAD_REQUEST );
+        }
+        Entrada entrada;
+        boolean propia = false;
+        synchronized ( entradas ) {
+            long ahora = System.nanoTime();
+            purgar( ahora );
+            entrada = entradas.get( llave );
+            if ( entrada == null ) {
+                if ( !hacerEspacio() ) {
+                    throw new WebApplicationException( "Hay demasiadas peticiones en curso con llave de idempotencia.", Response.Status.SERVICE_UNAVAILABLE );
+                }
+                entrada = new Entrada( huella, ahora + ttlNanos );
+                entradas.put( llave, entrada );
+                propia = true;
+            }
+        }
+        if ( !entrada.huella.equals( huella ) ) {
+            throw new WebApplicationException( "La llave de idempotencia \"" + llave + "\" ya se usó con otra petición.", ENTIDAD_NO_PROCESABLE );
+        }
+        if ( propia ) {
+            try {
+                RespuestaGuardada respuesta = operacion.get();
+                entrada.respuesta.complete( respuesta );
+                return respuesta.toResponse( false );
+            } catch ( RuntimeException e ) {
+                synchronized ( entradas ) {
+                    entradas.remove( llave, entrada );
+                }
+                entrada.respuesta.completeExceptionally( e );
+                throw e;
+            }
+        }
+        LOGGER.log( Level.FINE, "Respuesta repetida para la llave de idempotencia {0}", llave );
+        return esperar( entrada ).toResponse( true );
+    }
+
+    /**
+     * Espera la respuesta de una petición en curso.
+     * @param entrada Entrada de la petición.
+     * @return La respuesta guardada.
+     */
+    private static RespuestaGuardada esperar( Entrada entrada ) {
+        try {
+            return entrada.respuesta.get( ESPERA_MAXIMA, TimeUnit.SECONDS );
+        } catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw ( RuntimeException ) e.getCause();
+            }
+            throw new IllegalStateException( e.getCause() );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new WebApplicationException( e, Response.Status.SERVICE_UNAVAILABLE );
+        } catch ( TimeoutException e ) {
+            throw new WebApplicationException( "La petición original con la misma llave de idempotencia sigue en curso.", Response.Status.CONFLICT );
+        }
+    }
+
+    /**
+     * Descarta las entradas vencidas. Debe llamarse con el candado de entradas.
+     * @param ahora Instante actual, de System.nanoTime.
+     */
+    private void purgar( long ahora ) {
+        Iterator< Entrada > iterador = entradas.values().iterator();
+        while ( iterador.hasNext() ) {
+            Entrada entrada = iterador.next();
+            if ( entrada.vence - ahora > 0 ) {
+                return;
+            }
+            iterador.remove();
+        }
+    }
+
+    /**
+     * Si el almacén está lleno, descarta la entrada ya respondida más antigua.
+     * Debe llamarse con el candado de entradas.
+     * @return Si hay espacio para una entrada nueva.
+     */
+    private boolean hacerEspacio( ) {
+        if ( entradas.size() < capacidad ) {
+            return true;
+        }
+        Iterator< Entrada > iterador = entradas.values().iterator();
+        while ( iterador.hasNext() ) {
+            if ( iterador.next().respuesta.isDone() ) {
+                iterador.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Llave en uso: su huella y la respuesta, que se completa al terminar la
+     * petición original.
+     */
+    private static final class Entrada {
+
+        private final String huella;
+        private final long vence;
+        private final CompletableFuture< RespuestaGuardada > respuesta = new CompletableFuture<>( );
+
+        Entrada( String huella, long vence ) {
+            this.huella = huella;
+            this.vence = vence;
+        }
+    }
+
+    /**
+     * Respuesta serializada de una petición: código, tipo de contenido y cuerpo.
+     */
+    public static final class RespuestaGuardada {
+
+        private final int estado;
+        private final String tipo;
+        private final String cuerpo;
+
+        /**
+         * Constructor de la respuesta.
+         * @param estado Código HTTP.
+         * @param tipo Tipo de contenido del cuerpo.
+         * @param cuerpo Cuerpo ya serializado.
+         */
+        public RespuestaGuardada( int estado, String tipo, String cuerpo ) {
+            this.estado = estado;
+            this.tipo = tipo;
+            this.cuerpo = cuerpo;
+        }
+
+        /**
+         * Construye la respuesta HTTP.
+         * @param repetida Si es la respuesta a un reintento.
+         * @return La respuesta.
+         */
+        Response toResponse( boolean repetida ) {
+            Response.ResponseBuilder respuesta = Response.status( estado ).type( tipo ).entity( cuerpo );
+            if ( repetida ) {
+                respuesta.header( ENCABEZADO_REPETIDA, "true" );
+            }
+            return respuesta.build();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package co.edu.uniandes.csw.parcial1.serialization;
+
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Formato de valores separados por comas según la RFC 4180: una línea de
+ * encabezado con los nombres de las columnas, líneas terminadas en CRLF y
+ * campos entre comillas sólo cuando contienen comas, comillas o saltos de
+ * línea. Un valor nulo se escribe como un campo vacío.
+ * @author j.ramirez28
+ */
+public final class FormatoCsv extends FormatoMedicos {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Fin de línea de la RFC 4180.
+     */
+    private static final String FIN_LINEA = "\r\n";
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor usado por FormatoMedicos.CSV.
+     */
+    FormatoCsv( ) {
+        // Se usa la instancia compartida de FormatoMedicos
+    }
+    
+    @Override
+    public String getTipoContenido( ) {
+        return "text/csv; charset=UTF-8";
+    }
+    
+    @Override
+    public LectorMedicos crearLector( Reader entrada ) throws IOException, RegistroInvalidoException {
+        return new LectorCsv( entrada );
+    }
+    
+    @Override
+    public String getExtension( ) {
+        return "csv";
+    }
+    
+    @Override
+    public void escribirEncabezado( Writer salida ) throws IOException {
+        salida.write( String.join( ",", COLUMNAS ) );
+        salida.write( FIN_LINEA );
+    }
+    
+    @Override
+    public void escribir( Writer salida, MedicoProyeccion medico ) throws IOException {
+        if ( medico.getId() != null ) {
+            salida.write( String.valueOf( medico.getId() ) );
+        }
+        salida.write( ',' );
+        escribirCampo( salida, medico.getNombre() );
+        salida.write( ',' );
+        escribirCampo( salida, medico.getApellido() );
+        salida.write( ',' );
+        if ( medico.getRegistro() != null ) {
+            salida.write( String.valueOf( medico.getRegistro() ) );
+        }
+        salida.write( ',' );
+        escribirCampo( salida, medico.getEspecialidad() );
+        salida.write( FIN_LINEA );
+    }
+    
+    /**
+     * Escribe un campo de texto, entre comillas si es necesario.
+     * @param salida Destino de la escritura.
+     * @param valor Valor del campo.
+     * @throws IOException si falla la escritura.
+     */
+    private static void escribirCampo( Writer salida, String valor ) throws IOException {
+        if ( valor == null ) {
+            return;
+        }
+        if ( !requiereComillas( valor ) ) {
+            salida.write( valor );
+            return;
+        }
+        salida.write( '"' );
+        int inicio = 0;
+        for ( int i = valor.indexOf( '"' ); i >= 0; i = valor.indexOf( '"', inicio ) ) {
+            // Las comillas internas se duplican
+            salida.write( valor, inicio, i + 1 - inicio );
+            salida.write( '"' );
+            inicio = i + 1;
+        }
+        salida.write( valor, inicio, valor.length() - inicio );
+        salida.write( '"' );
+    }
+    
+    /**
+     * Indica si un valor debe ir entre comillas.
+     * @param valor Valor del campo.
+     * @return true si contiene comas, comillas o saltos de línea.
+     */
+    private static boolean requiereComillas( String valor ) {
+        for ( int i = 0; i < valor.length(); i++ ) {
+            char c = valor.charAt( i );
+            if ( c == ',' || c == '"' || c == '\n' || c == '\r' ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,106 @@
+package co.edu.uniandes.csw.parcial1.serialization;
+
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Formato de archivo de médicos con un médico por línea. Las
+ * implementaciones escriben directamente sobre un Writer y leen de a un
+ * registro, sin construir representaciones intermedias, para que una
+ * exportación o una importación use memoria constante sin importar la
+ * cantidad de médicos.
+ * @author j.ramirez28
+ */
+public abstract class FormatoMedicos {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Formato JSON delimitado por líneas (un objeto JSON por línea).
+     */
+    public static final FormatoMedicos NDJSON = new FormatoNdjson( );
+    
+    /**
+     * Formato de valores separados por comas (RFC 4180), con encabezado.
+     */
+    public static final FormatoMedicos CSV = new FormatoCsv( );
+    
+    /**
+     * Columnas de los archivos, en el orden en que se escriben.
+     */
+    protected static final String[] COLUMNAS = { "id", "nombre", "apellido", "registro", "especialidad" };
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Busca un formato por su nombre.
+     * @param nombre Nombre del formato: ndjson o csv, sin importar mayúsculas.
+     * @return El formato, o null si el nombre no corresponde a ninguno.
+     */
+    public static FormatoMedicos porNombre( String nombre ) {
+        if ( "ndjson".equalsIgnoreCase( nombre ) ) {
+            return NDJSON;
+        }
+        if ( "csv".equalsIgnoreCase( nombre ) ) {
+            return CSV;
+        }
+        return null;
+    }
+    
+    /**
+     * Busca un formato por el tipo de contenido de una petición.
+     * @param tipoContenido Tipo y subtipo del contenido, sin parámetros.
+     * @return El formato, o null si el tipo no corresponde a ninguno.
+     */
+    public static FormatoMedicos porTipoContenido( String tipoContenido ) {
+        if ( "application/x-ndjson".equalsIgnoreCase( tipoContenido ) ) {
+            return NDJSON;
+        }
+        if ( "text/csv".equalsIgnoreCase( tipoContenido ) ) {
+            return CSV;
+        }
+        return null;
+    }
+    
+    /**
+     * @return Tipo de contenido HTTP del formato.
+     */
+    public abstract String getTipoContenido( );
+    
+    /**
+     * @return Extensión de los archivos del formato, sin el punto.
+     */
+    public abstract String getExtension( );
+    
+    /**
+     * Escribe el encabezado del archivo, si el formato tiene uno.
+     * @param salida Destino de la escritura.
+     * @throws IOException si falla la escritura.
+     */
+    public void escribirEncabezado( Writer salida ) throws IOException {
+        // Por defecto los formatos no tienen encabezado
+    }
+    
+    /**
+     * Escribe un médico como una línea del archivo, incluido el fin de línea.
+     * @param salida Destino de la escritura.
+     * @param medico Médico a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    public abstract void escribir( Writer salida, MedicoProyeccion medico ) throws IOException;
+    
+    /**
+     * Crea un lector incremental de un archivo en este formato.
+     * @param entrada Entrada de caracteres del archivo.
+     * @return El lector, ubicado en el primer médico.
+     * @throws IOException si falla la lectura del encabezado.
+     * @throws RegistroInvalidoException si el encabezado no es válido.
+     */
+    public abstract LectorMedicos crearLector( Reader entrada ) throws IOException, RegistroInvalidoException;
+}
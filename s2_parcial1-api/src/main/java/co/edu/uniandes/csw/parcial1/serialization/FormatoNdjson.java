@@ -0,0 +1,112 @@
+package co.edu.uniandes.csw.parcial1.serialization;
+
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Formato JSON delimitado por líneas: cada médico es un objeto JSON con el
+ * mismo modelo de MedicoDTO, seguido de un salto de línea.
+ * @author j.ramirez28
+ */
+public final class FormatoNdjson extends FormatoMedicos {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Dígitos hexadecimales para los escapes unicode.
+     */
+    private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor usado por FormatoMedicos.NDJSON.
+     */
+    FormatoNdjson( ) {
+        // Se usa la instancia compartida de FormatoMedicos
+    }
+    
+    @Override
+    public String getTipoContenido( ) {
+        return "application/x-ndjson";
+    }
+    
+    @Override
+    public LectorMedicos crearLector( Reader entrada ) {
+        return new LectorNdjson( entrada );
+    }
+    
+    @Override
+    public String getExtension( ) {
+        return "ndjson";
+    }
+    
+    @Override
+    public void escribir( Writer salida, MedicoProyeccion medico ) throws IOException {
+        salida.write( "{\"id\":" );
+        salida.write( String.valueOf( medico.getId() ) );
+        salida.write( ",\"nombre\":" );
+        escribirCadena( salida, medico.getNombre() );
+        salida.write( ",\"apellido\":" );
+        escribirCadena( salida, medico.getApellido() );
+        salida.write( ",\"registro\":" );
+        salida.write( String.valueOf( medico.getRegistro() ) );
+        salida.write( ",\"especialidad\":" );
+        escribirCadena( salida, medico.getEspecialidad() );
+        salida.write( "}\n" );
+    }
+    
+    /**
+     * Escribe una cadena JSON entre comillas, escapando los caracteres que
+     * lo requieren, o null.
+     * @param salida Destino de la escritura.
+     * @param valor Cadena a escribir.
+     * @throws IOException si falla la escritura.
+     */
+    private static void escribirCadena( Writer salida, String valor ) throws IOException {
+        if ( valor == null ) {
+            salida.write( "null" );
+            return;
+        }
+        salida.write( '"' );
+        int inicio = 0;
+        for ( int i = 0; i < valor.length(); i++ ) {
+            char c = valor.charAt( i );
+            if ( c >= 0x20 && c != '"' && c != '\\' ) {
+                continue;
+            }
+            // Copia de una vez el tramo que no requiere escape
+            salida.write( valor, inicio, i - inicio );
+            inicio = i + 1;
+            switch ( c ) {
+                case '"':
+                    salida.write( "\\\"" );
+                    break;
+                case '\\':
+                    salida.write( "\\\\" );
+                    break;
+                case '\n':
+                    salida.write( "\\n" );
+                    break;
+                case '\r':
+                    salida.write( "\\r" );
+                    break;
+                case '\t':
+                    salida.write( "\\t" );
+                    break;
+                default:
+                    salida.write( "\\u00" );
+                    salida.write( HEXADECIMAL[ c >> 4 ] );
+                    salida.write( HEXADECIMAL[ c & 0xF ] );
+            }
+        }
+        salida.write( valor, inicio, valor.length() - inicio );
+        salida.write( '"' );
+    }
+}
@@ -0,0 +1,168 @@
+package co.edu.uniandes.csw.parcial1.serialization;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lector de archivos de valores separados por comas según la RFC 4180. La
+ * primera línea es el encabezado con los nombres de las columnas, en
+ * cualquier orden; deben estar nombre, apellido, registro y especialidad, y
+ * las demás columnas (como id) se ignoran. Los campos entre comillas pueden
+ * contener comas, comillas duplicadas y saltos de línea. Un campo vacío se
+ * interpreta como nulo.
+ * @author j.ramirez28
+ */
+public class LectorCsv extends LectorMedicos {
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    private final int columnas;
+    private final int columnaNombre;
+    private final int columnaApellido;
+    private final int columnaRegistro;
+    private final int columnaEspecialidad;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor a partir de la entrada del archivo. Lee el encabezado.
+     * @param entrada Entrada de caracteres del archivo.
+     * @throws IOException si falla la lectura de la entrada.
+     * @throws RegistroInvalidoException si el encabezado no existe o le
+     * falta alguna de las columnas requeridas.
+     */
+    public LectorCsv( Reader entrada ) throws IOException, RegistroInvalidoException {
+        super( entrada );
+        List< String > encabezado = leerCampos( );
+        if ( encabezado == null ) {
+            throw new RegistroInvalidoException( "El archivo CSV no tiene encabezado" );
+        }
+        List< String > nombres = new ArrayList<>( encabezado.size() );
+        for ( String nombre : encabezado ) {
+            nombres.add( nombre == null ? "" : nombre.trim().toLowerCase( Locale.ROOT ) );
+        }
+        columnas = nombres.size();
+        columnaNombre = buscarColumna( nombres, "nombre" );
+        columnaApellido = buscarColumna( nombres, "apellido" );
+        columnaRegistro = buscarColumna( nombres, "registro" );
+        columnaEspecialidad = buscarColumna( nombres, "especialidad" );
+    }
+    
+    @Override
+    public MedicoDTO leer( ) throws IOException, RegistroInvalidoException {
+        List< String > campos;
+        do {
+            campos = leerCampos( );
+            if ( campos == null ) {
+                return null;
+            }
+        } while ( campos.size() == 1 && campos.get( 0 ) == null );
+        if ( campos.size() != columnas ) {
+            throw new RegistroInvalidoException( "Se esperaban " + columnas + " campos y hay " + campos.size() );
+        }
+        MedicoDTO medico = new MedicoDTO( );
+        medico.setNombre( campos.get( columnaNombre ) );
+        medico.setApellido( campos.get( columnaApellido ) );
+        medico.setRegistro( convertirRegistro( campos.get( columnaRegistro ) ) );
+        medico.setEspecialidad( campos.get( columnaEspecialidad ) );
+        return medico;
+    }
+    
+    /**
+     * Lee los campos del siguiente registro, que puede ocupar varias líneas
+     * si tiene campos entre comillas.
+     * @return Lista de campos, con null para los vacíos, o null al final de
+     * la entrada.
+     * @throws IOException si falla la lectura.
+     * @throws RegistroInvalidoException si el registro supera LONGITUD_MAXIMA
+     * o tiene comillas sin cerrar.
+     */
+    private List< String > leerCampos( ) throws IOException, RegistroInvalidoException {
+        lineaRegistro = getLineaActual( );
+        int c = siguiente( );
+        if ( c == -1 ) {
+            return null;
+        }
+        List< String > campos = new ArrayList<>( );
+        StringBuilder campo = new StringBuilder( );
+        boolean entreComillas = false;
+        boolean conComillas = false;
+        int longitud = 0;
+        while ( true ) {
+            if ( entreComillas ) {
+                if ( c == -1 ) {
+                    throw new RegistroInvalidoException( "Hay comillas sin cerrar" );
+                }
+                if ( c == '"' ) {
+                    int despues = siguiente( );
+                    if ( despues == '"' ) {
+                        campo.append( '"' );
+                    } else {
+                        entreComillas = false;
+                        devolver( despues );
+                    }
+                } else {
+                    campo.append( ( char ) c );
+                }
+            } else if ( c == ',' || c == '\n' || c == -1 ) {
+                campos.add( campo.length() == 0 && !conComillas ? null : campo.toString() );
+                campo.setLength( 0 );
+                conComillas = false;
+                if ( c != ',' ) {
+                    break;
+                }
+            } else if ( c == '"' && campo.length() == 0 && !conComillas ) {
+                entreComillas = true;
+                conComillas = true;
+            } else if ( c != '\r' ) {
+                campo.append( ( char ) c );
+            }
+            if ( ++longitud > LONGITUD_MAXIMA ) {
+                descartarRegistro( entreComillas );
+                throw new RegistroInvalidoException( "El registro supera " + LONGITUD_MAXIMA + " caracteres" );
+            }
+            c = siguiente( );
+        }
+        return campos;
+    }
+    
+    /**
+     * Descarta el resto de un registro demasiado largo, hasta el siguiente
+     * salto de línea que no esté entre comillas.
+     * @param entreComillas Si la lectura quedó dentro de un campo entre comillas.
+     * @throws IOException si falla la lectura.
+     */
+    private void descartarRegistro( boolean entreComillas ) throws IOException {
+        boolean comillas = entreComillas;
+        for ( int c = siguiente( ); c != -1; c = siguiente( ) ) {
+            if ( c == '"' ) {
+                comillas = !comillas;
+            } else if ( c == '\n' && !comillas ) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Busca la posición de una columna requerida en el encabezado.
+     * @param nombres Nombres de las columnas, en minúsculas.
+     * @param columna Nombre de la columna buscada.
+     * @return Posición de la columna.
+     * @throws RegistroInvalidoException si la columna no está.
+     */
+    private static int buscarColumna( List< String > nombres, String columna ) throws RegistroInvalidoException {
+        int posicion = nombres.indexOf( columna );
+        if ( posicion < 0 ) {
+            throw new RegistroInvalidoException( "El encabezado del archivo CSV no tiene la columna " + columna );
+        }
+        return posicion;
+    }
+}
@@ -0,0 +1,145 @@
+package co.edu.uniandes.csw.parcial1.serialization;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lector incremental de un archivo de médicos. Lee la entrada por bloques
+ * de caracteres y entrega un médico a la vez, de modo que nunca tiene en
+ * memoria más que un registro, sin importar el tamaño del archivo.
+ * @author j.ramirez28
+ */
+public abstract class LectorMedicos {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    /**
+     * Longitud máxima de un registro, en caracteres. Un registro más largo
+     * se descarta como inválido sin guardarlo en memoria.
+     */
+    public static final int LONGITUD_MAXIMA = 16 * 1024;
+    
+    /**
+     * Tamaño del buffer de lectura, en caracteres.
+     */
+    private static final int TAMANO_BUFFER = 8 * 1024;
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    private final Reader entrada;
+    private final char[] buffer = new char[ TAMANO_BUFFER ];
+    private int posicion;
+    private int limite;
+    
+    /**
+     * Carácter devuelto a la entrada con devolver(), o -2 si no hay.
+     */
+    private int devuelto = -2;
+    
+    /**
+     * Cantidad de saltos de línea leídos hasta ahora.
+     */
+    private int saltosLeidos;
+    
+    /**
+     * Línea en la que empieza el último registro leído.
+     */
+    protected int lineaRegistro;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor a partir de la entrada del archivo.
+     * @param entrada Entrada de caracteres del archivo.
+     */
+    protected LectorMedicos( Reader entrada ) {
+        this.entrada = entrada;
+    }
+    
+    /**
+     * Lee el siguiente médico del archivo.
+     * @return El médico leído, o null si se llegó al final del archivo.
+     * @throws IOException si falla la lectura de la entrada.
+     * @throws RegistroInvalidoException si el registro no se puede
+     * interpretar; la siguiente llamada continúa con el registro siguiente.
+     */
+    public abstract MedicoDTO leer( ) throws IOException, RegistroInvalidoException;
+    
+    /**
+     * @return Número de la línea (desde 1) en la que empieza el último
+     * registro leído, válido o no.
+     */
+    public int getLineaRegistro( ) {
+        return lineaRegistro;
+    }
+    
+    /**
+     * @return Número de la línea (desde 1) del siguiente carácter.
+     */
+    protected int getLineaActual( ) {
+        return saltosLeidos + 1;
+    }
+    
+    /**
+     * Lee el siguiente carácter de la entrada.
+     * @return El carácter, o -1 al final de la entrada.
+     * @throws IOException si falla la lectura.
+     */
+    protected int siguiente( ) throws IOException {
+        int c;
+        if ( devuelto != -2 ) {
+            c = devuelto;
+            devuelto = -2;
+        } else {
+            if ( posicion == limite ) {
+                limite = entrada.read( buffer, 0, buffer.length );
+                posicion = 0;
+                if ( limite <= 0 ) {
+                    limite = 0;
+                    return -1;
+                }
+            }
+            c = buffer[ posicion++ ];
+        }
+        if ( c == '\n' ) {
+            saltosLeidos++;
+        }
+        return c;
+    }
+    
+    /**
+     * Devuelve a la entrada el último carácter leído, para que lo retorne la
+     * siguiente llamada a siguiente().
+     * @param c Carácter que se devuelve.
+     */
+    protected void devolver( int c ) {
+        if ( c == '\n' ) {
+            saltosLeidos--;
+        }
+        devuelto = c;
+    }
+    
+    /**
+     * Convierte el valor de un registro médico.
+     * @param valor Texto del registro; null o vacío si no viene.
+     * @return El registro, o null si no viene.
+     * @throws RegistroInvalidoException si el valor no es un entero.
+     */
+    protected static Integer convertirRegistro( String valor ) throws RegistroInvalidoException {
+        if ( valor == null || valor.isEmpty() ) {
+            return null;
+        }
+        try {
+            return Integer.valueOf( valor.trim() );
+        } catch ( NumberFormatException e ) {
+            throw new RegistroInvalidoException( "El registro \"" + valor + "\" no es un número entero" );
+        }
+    }
+}
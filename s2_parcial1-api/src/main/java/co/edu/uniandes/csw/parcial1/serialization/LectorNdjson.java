@@ -0,0 +1,274 @@
+package co.edu.uniandes.csw.parcial1.serialization;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lector de archivos JSON delimitados por líneas. Cada línea no vacía debe
+ * ser un objeto JSON plano con el modelo de MedicoDTO; los atributos
+ * desconocidos y el id se ignoran.
+ * @author j.ramirez28
+ */
+public class LectorNdjson extends LectorMedicos {
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Línea que se está interpretando.
+     */
+    private String linea;
+    
+    /**
+     * Posición del siguiente carácter de la línea.
+     */
+    private int posicion;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Constructor a partir de la entrada del archivo.
+     * @param entrada Entrada de caracteres del archivo.
+     */
+    public LectorNdjson( Reader entrada ) {
+        super( entrada );
+    }
+    
+    @Override
+    public MedicoDTO leer( ) throws IOException, RegistroInvalidoException {
+        do {
+            lineaRegistro = getLineaActual( );
+            linea = leerLinea( );
+            if ( linea == null ) {
+                return null;
+            }
+        } while ( linea.trim().isEmpty() );
+        posicion = 0;
+        return interpretarObjeto( );
+    }
+    
+    /**
+     * Lee una línea completa de la entrada, sin el fin de línea.
+     * @return La línea, o null al final de la entrada.
+     * @throws IOException si falla la lectura.
+     * @throws RegistroInvalidoException si la línea supera LONGITUD_MAXIMA;
+     * en ese caso el resto de la línea se descarta.
+     */
+    private String leerLinea( ) throws IOException, RegistroInvalidoException {
+        int c = siguiente( );
+        if ( c == -1 ) {
+            return null;
+        }
+        StringBuilder texto = new StringBuilder( );
+        boolean demasiadoLarga = false;
+        while ( c != -1 && c != '\n' ) {
+            if ( texto.length() < LONGITUD_MAXIMA ) {
+                texto.append( ( char ) c );
+            } else {
+                demasiadoLarga = true;
+            }
+            c = siguiente( );
+        }
+        if ( demasiadoLarga ) {
+            throw new RegistroInvalidoException( "La línea supera " + LONGITUD_MAXIMA + " caracteres" );
+        }
+        int fin = texto.length();
+        if ( fin > 0 && texto.charAt( fin - 1 ) == '\r' ) {
+            texto.setLength( fin - 1 );
+        }
+        return texto.toString();
+    }
+    
+    /**
+     * Interpreta la línea actual como un objeto JSON plano.
+     * @return El médico con los atributos del objeto.
+     * @throws RegistroInvalidoException si la línea no es un objeto JSON
+     * plano válido.
+     */
+    private MedicoDTO interpretarObjeto( ) throws RegistroInvalidoException {
+        MedicoDTO medico = new MedicoDTO( );
+        esperar( '{' );
+        saltarEspacios( );
+        if ( actual() == '}' ) {
+            posicion++;
+        } else {
+            boolean continuar = true;
+            while ( continuar ) {
+                saltarEspacios( );
+                String atributo = interpretarCadena( );
+                esperar( ':' );
+                saltarEspacios( );
+                String valor = interpretarValor( );
+                asignar( medico, atributo, valor );
+                saltarEspacios( );
+                char c = actual( );
+                posicion++;
+                if ( c == '}' ) {
+                    continuar = false;
+                } else if ( c != ',' ) {
+                    throw error( "se esperaba , o }" );
+                }
+            }
+        }
+        saltarEspacios( );
+        if ( posicion < linea.length() ) {
+            throw error( "hay contenido después del objeto" );
+        }
+        return medico;
+    }
+    
+    /**
+     * Asigna un atributo del objeto al médico.
+     * @param medico Médico que se está construyendo.
+     * @param atributo Nombre del atributo.
+     * @param valor Valor del atributo como texto, o null.
+     * @throws RegistroInvalidoException si el registro no es un entero.
+     */
+    private static void asignar( MedicoDTO medico, String atributo, String valor ) throws RegistroInvalidoException {
+        switch ( atributo ) {
+            case "nombre":
+                medico.setNombre( valor );
+                break;
+            case "apellido":
+                medico.setApellido( valor );
+                break;
+            case "registro":
+                medico.setRegistro( convertirRegistro( valor ) );
+                break;
+            case "especialidad":
+                medico.setEspecialidad( valor );
+                break;
+            default:
+                // El id y los atributos desconocidos se ignoran
+        }
+    }
+    
+    /**
+     * Interpreta un valor escalar: cadena, número, true, false o null.
+     * @return El valor como texto, o null para null.
+     * @throws RegistroInvalidoException si el valor no es válido o es un
+     * objeto o arreglo.
+     */
+    private String interpretarValor( ) throws RegistroInvalidoException {
+        char c = actual( );
+        if ( c == '"' ) {
+            return interpretarCadena( );
+        }
+        if ( c == '{' || c == '[' ) {
+            throw error( "no se admiten objetos ni arreglos anidados" );
+        }
+        int inicio = posicion;
+        while ( posicion < linea.length() && "-+.eE0123456789truefalsn".indexOf( linea.charAt( posicion ) ) >= 0 ) {
+            posicion++;
+        }
+        String literal = linea.substring( inicio, posicion );
+        if ( literal.isEmpty() ) {
+            throw error( "se esperaba un valor" );
+        }
+        return "null".equals( literal ) ? null : literal;
+    }
+    
+    /**
+     * Interpreta una cadena JSON, incluidos sus escapes.
+     * @return El contenido de la cadena.
+     * @throws RegistroInvalidoException si la cadena no es válida.
+     */
+    private String interpretarCadena( ) throws RegistroInvalidoException {
+        esperar( '"' );
+        StringBuilder texto = new StringBuilder( );
+        while ( true ) {
+            char c = actual( );
+            posicion++;
+            if ( c == '"' ) {
+                return texto.toString();
+            }
+            if ( c != '\\' ) {
+                texto.append( c );
+                continue;
+            }
+            char escape = actual( );
+            posicion++;
+            switch ( escape ) {
+                case '"':
+                case '\\':
+                case '/':
+                    texto.append( escape );
+                    break;
+                case 'b':
+                    texto.append( '\b' );
+                    break;
+                case 'f':
+                    texto.append( '\f' );
+                    break;
+                case 'n':
+                    texto.append( '\n' );
+                    break;
+                case 'r':
+                    texto.append( '\r' );
+                    break;
+                case 't':
+                    texto.append( '\t' );
+                    break;
+                case 'u':
+                    if ( posicion + 4 > linea.length() ) {
+                        throw error( "escape unicode incompleto" );
+                    }
+                    try {
+                        texto.append( ( char ) Integer.parseInt( linea.substring( posicion, posicion + 4 ), 16 ) );
+                    } catch ( NumberFormatException e ) {
+                        throw error( "escape unicode inválido" );
+                    }
+                    posicion += 4;
+                    break;
+                default:
+                    throw error( "escape inválido \\" + escape );
+            }
+        }
+    }
+    
+    /**
+     * Verifica que el siguiente carácter sea el esperado y lo consume.
+     * @param esperado Carácter esperado.
+     * @throws RegistroInvalidoException si el carácter es otro.
+     */
+    private void esperar( char esperado ) throws RegistroInvalidoException {
+        saltarEspacios( );
+        if ( actual() != esperado ) {
+            throw error( "se esperaba " + esperado );
+        }
+        posicion++;
+    }
+    
+    /**
+     * @return El carácter actual de la línea.
+     * @throws RegistroInvalidoException si la línea se terminó.
+     */
+    private char actual( ) throws RegistroInvalidoException {
+        if ( posicion >= linea.length() ) {
+            throw error( "la línea termina antes de tiempo" );
+        }
+        return linea.charAt( posicion );
+    }
+    
+    /**
+     * Avanza sobre los espacios en blanco de la línea.
+     */
+    private void saltarEspacios( ) {
+        while ( posicion < linea.length() && Character.isWhitespace( linea.charAt( posicion ) ) ) {
+            posicion++;
+        }
+    }
+    
+    /**
+     * Construye la excepción para un error de sintaxis en la línea actual.
+     * @param detalle Descripción del error.
+     * @return La excepción con la posición del error.
+     */
+    private RegistroInvalidoException error( String detalle ) {
+        return new RegistroInvalidoException( "JSON inválido en la columna " + ( posicion + 1 ) + ": " + detalle );
+    }
+}
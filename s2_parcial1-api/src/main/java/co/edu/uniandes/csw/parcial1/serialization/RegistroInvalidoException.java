@@ -0,0 +1,20 @@
+package co.edu.uniandes.csw.parcial1.serialization;
+
+/**
+ * Excepción para un registro de un archivo de médicos que no se puede
+ * interpretar. El lector queda ubicado después del registro, de modo que se
+ * puede seguir leyendo el archivo.
+ * @author j.ramirez28
+ */
+public class RegistroInvalidoException extends Exception {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * Constructor con un mensaje.
+     * @param message Mensaje que describe el problema del registro.
+     */
+    public RegistroInvalidoException( String message ) {
+        super( message );
+    }
+}
@@ -0,0 +1,76 @@
+package co.edu.uniandes.csw.parcial1.tests.adapters;
+
+import co.edu.uniandes.csw.parcial1.adapters.FechaIso;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Pruebas de {@link FechaIso} contra java.time en la zona por defecto. El pom
+ * las corre una vez con America/Sao_Paulo, que cambiaba de horario a la
+ * medianoche, y otra con UTC, que usa el desfase fijo.
+ * @author j.ramirez28
+ */
+public class FechaIsoTest {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+    
+    /**
+     * Día en que America/Sao_Paulo pasó de las 00:00 a las 01:00.
+     */
+    private static final LocalDate SIN_MEDIANOCHE = LocalDate.of( 2018, 11, 4 );
+    
+    //-------------------------------------------------------------------------
+    // PRUEBAS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Escribe y lee cada día de 1600 a 9999 y compara con java.time.
+     */
+    @Test
+    public void escribirLeerComoJavaTimeTest( ) {
+        LocalDate fin = LocalDate.of( 9999, 12, 31 );
+        for ( LocalDate dia = LocalDate.of( 1600, 1, 1 ); !dia.isAfter( fin ); dia = dia.plusDays( 1 ) ) {
+            String texto = dia.toString();
+            Date inicio = Date.from( dia.atStartOfDay( ZONA ).toInstant() );
+            Assert.assertEquals( inicio, FechaIso.leer( texto ) );
+            Assert.assertEquals( texto, FechaIso.escribir( inicio ) );
+            Assert.assertEquals( texto, FechaIso.escribir( Date.from( dia.atTime( 23, 59, 59 ).atZone( ZONA ).toInstant() ) ) );
+        }
+    }
+    
+    /**
+     * Rechaza fechas que no existen o que no tienen exactamente el formato.
+     */
+    @Test
+    public void leerInvalidaTest( ) {
+        for ( String texto : new String[]{ "2019-02-29", "2019-1-01", "2019-13-01" } ) {
+            try {
+                FechaIso.leer( texto );
+                Assert.fail( "Debió rechazar " + texto );
+            } catch ( DateTimeParseException e ) {
+                Assert.assertEquals( texto, e.getParsedString() );
+            }
+        }
+    }
+    
+    /**
+     * Un día sin medianoche en la zona se lee como su primer instante.
+     */
+    @Test
+    public void leerSinMedianocheTest( ) {
+        Assume.assumeTrue( ZONA.getRules().getValidOffsets( SIN_MEDIANOCHE.atStartOfDay() ).isEmpty() );
+        Date fecha = FechaIso.leer( SIN_MEDIANOCHE.toString() );
+        Assert.assertEquals( SIN_MEDIANOCHE.atTime( 1, 0 ), LocalDateTime.ofInstant( fecha.toInstant(), ZONA ) );
+        Assert.assertEquals( SIN_MEDIANOCHE.toString(), FechaIso.escribir( fecha ) );
+    }
+}
@@ -1,9 +1,14 @@
 package co.edu.uniandes.csw.parcial1.tests.postman;
 
 import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import co.edu.uniandes.csw.parcial1.filters.CompresionInterceptor;
+import co.edu.uniandes.csw.parcial1.logging.ConfiguracionLogs;
 import co.edu.uniandes.csw.parcial1.mappers.BusinessLogicExceptionMapper;
+import co.edu.uniandes.csw.parcial1.metricas.RegistroMetricas;
+import co.edu.uniandes.csw.parcial1.providers.MedicoBinarioProvider;
 import co.edu.uniandes.csw.parcial1.resources.MedicoResource;
 import co.edu.uniandes.csw.parcial1.resources.RestConfig;
+import co.edu.uniandes.csw.parcial1.serialization.FormatoMedicos;
 import co.edu.uniandes.csw.postman.tests.PostmanTestBuilder;
 import java.io.File;
 import java.io.IOException;
@@ -37,6 +42,11 @@ public class MedicoResourceTestIT {
                 .addPackage(MedicoResource.class.getPackage()) //No importa cual recurso usar, lo importante es agregar el paquet
                 .addPackage(MedicoDTO.class.getPackage()) //No importa cual dto usar, lo importante es agregar el paquete.
                 .addPackage(BusinessLogicExceptionMapper.class.getPackage())
+                .addPackage(FormatoMedicos.class.getPackage())
+                .addPackage(CompresionInterceptor.class.getPackage())
+                .addPackage(MedicoBinarioProvider.class.getPackage())
+                .addPackage(ConfiguracionLogs.class.getPackage())
+                .addPackage(RegistroMetricas.class.getPackage())
                 // El archivo que contiene la configuracion a la base de datos.
                 .addAsResource("META-INF/persistence.xml", "META-INF/persistence.xml")
                 // El archivo beans.xml es necesario para injeccion de dependencias.
@@ -0,0 +1,84 @@
+package co.edu.uniandes.csw.parcial1.tests.providers;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import co.edu.uniandes.csw.parcial1.providers.FormatoBinarioMedicos;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Pruebas de la lectura de {@link FormatoBinarioMedicos} con documentos
+ * válidos y mal formados.
+ * @author j.ramirez28
+ */
+public class FormatoBinarioMedicosTest {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * El médico {"id": 3, "nombre": "Ana", "registro": 10}.
+     */
+    private static final byte[] MEDICO = { 0x01, 0x4D, 0x0B, 0x06, 0x03, 0x41, 0x6E, 0x61, 0x14 };
+    
+    //-------------------------------------------------------------------------
+    // PRUEBAS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Lee el médico del ejemplo del formato y una lista escrita y leída de
+     * nuevo.
+     */
+    @Test
+    public void leerTest( ) throws IOException {
+        MedicoDTO medico = FormatoBinarioMedicos.leerMedico( new ByteArrayInputStream( MEDICO ) );
+        Assert.assertEquals( Long.valueOf( 3 ), medico.getId() );
+        Assert.assertEquals( "Ana", medico.getNombre() );
+        Assert.assertNull( medico.getApellido() );
+        Assert.assertEquals( Integer.valueOf( 10 ), medico.getRegistro() );
+        Assert.assertNull( medico.getEspecialidad() );
+        
+        ByteArrayOutputStream salida = new ByteArrayOutputStream( );
+        FormatoBinarioMedicos.escribirLista( salida, Arrays.asList( medico, medico ) );
+        List< MedicoDTO > medicos = FormatoBinarioMedicos.leerLista( new ByteArrayInputStream( salida.toByteArray() ) );
+        Assert.assertEquals( 2, medicos.size() );
+        Assert.assertEquals( "Ana", medicos.get( 1 ).getNombre() );
+    }
+    
+    /**
+     * Rechaza una cadena cuya longitud es un varint negativo.
+     */
+    @Test( expected = IOException.class )
+    public void longitudNegativaTest( ) throws IOException {
+        byte[] documento = { 0x01, 0x4D, 0x02,
+            ( byte ) 0xFF, ( byte ) 0xFF, ( byte ) 0xFF, ( byte ) 0xFF, ( byte ) 0xFF,
+            ( byte ) 0xFF, ( byte ) 0xFF, ( byte ) 0xFF, ( byte ) 0xFF, 0x01 };
+        FormatoBinarioMedicos.leerMedico( new ByteArrayInputStream( documento ) );
+    }
+    
+    /**
+     * Rechaza bytes después de un médico y después de una lista.
+     */
+    @Test
+    public void contenidoSobranteTest( ) throws IOException {
+        byte[] medico = Arrays.copyOf( MEDICO, MEDICO.length + 1 );
+        try {
+            FormatoBinarioMedicos.leerMedico( new ByteArrayInputStream( medico ) );
+            Assert.fail( "Debió rechazar el byte sobrante del médico" );
+        } catch ( IOException e ) {
+            // Debería generarse
+        }
+        byte[] lista = { 0x01, 0x4C, 0x00, 0x00 };
+        try {
+            FormatoBinarioMedicos.leerLista( new ByteArrayInputStream( lista ) );
+            Assert.fail( "Debió rechazar el byte sobrante de la lista" );
+        } catch ( IOException e ) {
+            // Debería generarse
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package co.edu.uniandes.csw.parcial1.ejb;
+
+import co.edu.uniandes.csw.parcial1.persistence.MedicoPersistence;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+
+/**
+ * Conteo en memoria de los médicos por especialidad y en total.
+ * Se calcula con una sola consulta agrupada al desplegar la aplicación y
+ * luego MedicoLogic lo incrementa con cada médico creado cuando se confirma
+ * su transacción, de modo que consultarlo no requiere la base de datos. Se
+ * puede reconciliar contra un conteo completo en cualquier momento.
+ * Los médicos sin especialidad se cuentan bajo SIN_ESPECIALIDAD.
+ * @author j.ramirez28
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement( ConcurrencyManagementType.BEAN )
+public class ConteoEspecialidades {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( ConteoEspecialidades.class.getName() );
+    
+    /**
+     * Llave bajo la que se cuentan los médicos sin especialidad.
+     */
+    public static final String SIN_ESPECIALIDAD = "";
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    @Inject
+    private MedicoPersistence persistence;
+    
+    private final ConcurrentHashMap< String, LongAdder > conteos = new ConcurrentHashMap<>( );
+    private final LongAdder total = new LongAdder( );
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Calcula el conteo inicial.
+     */
+    @PostConstruct
+    public void inicializar( ) {
+        reconciliar( );
+    }
+    
+    /**
+     * Cuenta un médico nuevo. Debe llamarse sólo después de confirmar la
+     * transacción que lo creó.
+     * @param especialidad Especialidad del médico; puede ser null.
+     */
+    public void agregar( String especialidad ) {
+        conteos.computeIfAbsent( llave( especialidad ), e -> new LongAdder( ) ).increment();
+        total.increment();
+    }
+    
+    /**
+     * Retorna una foto del conteo actual.
+     * @return El total y el conteo por especialidad, sin ajustes.
+     */
+    public Resumen getResumen( ) {
+        Map< String, Long > porEspecialidad = new TreeMap<>( );
+        for ( Map.Entry< String, LongAdder > conteo : conteos.entrySet() ) {
+            porEspecialidad.put( conteo.getKey(), conteo.getValue().sum() );
+        }
+        return new Resumen( total.sum(), porEspecialidad, Collections.< String, Long >emptyMap() );
+    }
+    
+    /**
+     * Recuenta los médicos en la base de datos y corrige el conteo en
+     * memoria con la diferencia. Las creaciones que se confirman mientras se
+     * recuenta pueden quedar contadas dos veces o ninguna; la siguiente
+     * reconciliación las corrige.
+     * @return El conteo reconciliado, con los ajustes que se aplicaron.
+     */
+    public synchronized Resumen reconciliar( ) {
+        Map< String, Long > recuento = new HashMap<>( );
+        long totalRecuento = 0;
+        for ( Object[] fila : persistence.countByEspecialidad() ) {
+            long cantidad = ( Long ) fila[ 1 ];
+            recuento.merge( llave( ( String ) fila[ 0 ] ), cantidad, Long::sum );
+            totalRecuento += cantidad;
+        }
+        Map< String, Long > ajustes = new TreeMap<>( );
+        Set< String > especialidades = new HashSet<>( recuento.keySet() );
+        especialidades.addAll( conteos.keySet() );
+        for ( String especialidad : especialidades ) {
+            LongAdder conteo = conteos.computeIfAbsent( especialidad, e -> new LongAdder( ) );
+            long ajuste = recuento.getOrDefault( especialidad, 0L ) - conteo.sum();
+            if ( ajuste != 0 ) {
+                conteo.add( ajuste );
+                ajustes.put( especialidad, ajuste );
+            }
+            if ( !recuento.containsKey( especialidad ) ) {
+                conteos.remove( especialidad, conteo );
+            }
+        }
+        total.add( totalRecuento - total.sum() );
+        if ( !ajustes.isEmpty() ) {
+            LOGGER.log( Level.WARNING, "Conteo por especialidad reconciliado con {0} ajustes", ajustes.size() );
+        }
+        Resumen resumen = getResumen( );
+        return new Resumen( resumen.getTotal(), resumen.getPorEspecialidad(), ajustes );
+    }
+    
+    /**
+     * @param especialidad Especialidad de un médico; puede ser null.
+     * @return La llave del conteo para la especialidad.
+     */
+    private static String llave( String especialidad ) {
+        return especialidad == null ? SIN_ESPECIALIDAD : especialidad;
+    }
+    
+    /**
+     * Foto inmutable del conteo de médicos.
+     */
+    public static class Resumen {
+        
+        private final long total;
+        private final Map< String, Long > porEspecialidad;
+        private final Map< String, Long > ajustes;
+        
+        /**
+         * Constructor con todos los valores.
+         * @param total Cantidad total de médicos.
+         * @param porEspecialidad Cantidad de médicos por especialidad.
+         * @param ajustes Correcciones aplicadas por una reconciliación.
+         */
+        public Resumen( long total, Map< String, Long > porEspecialidad, Map< String, Long > ajustes ) {
+            this.total = total;
+            this.porEspecialidad = Collections.unmodifiableMap( porEspecialidad );
+            this.ajustes = Collections.unmodifiableMap( ajustes );
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public Map< String, Long > getPorEspecialidad() {
+            return porEspecialidad;
+        }
+
+        public Map< String, Long > getAjustes() {
+            return ajustes;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package co.edu.uniandes.csw.parcial1.ejb;
+
+import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
+import co.edu.uniandes.csw.parcial1.exceptions.BusinessLogicException;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoPersistence;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+
+/**
+ * Escritor de médicos con confirmación agrupada.
+ * Los médicos ya validados se encolan en una cola acotada que un único hilo
+ * vacía: toma el primero, espera a lo sumo unos milisegundos a que lleguen
+ * más y persiste el grupo en una sola transacción, de modo que una ráfaga de
+ * creaciones paga una confirmación por grupo y no una por médico. El
+ * resultado de cada médico se completa cuando su grupo se confirma.
+ * Está desactivado por defecto; se activa con la propiedad del sistema
+ * parcial1.escritura.agrupada=true o con iniciar.
+ * @author j.ramirez28
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement( ConcurrencyManagementType.BEAN )
+public class EscritorAgrupado {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( EscritorAgrupado.class.getName() );
+    
+    /**
+     * Tiempo que el hilo escritor espera un médico antes de revisar si debe
+     * detenerse, en milisegundos.
+     */
+    private static final long ESPERA_INACTIVO = 100;
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    @Inject
+    private MedicoPersistence persistence;
+    
+    /**
+     * Fábrica del hilo escritor, que así corre con el contexto del contenedor
+     * y puede invocar la persistencia en transacciones.
+     */
+    @Resource( lookup = "java:comp/DefaultManagedThreadFactory" )
+    private ManagedThreadFactory fabrica;
+    
+    private volatile boolean activo;
+    private volatile BlockingQueue< Pendiente > cola;
+    private Thread hilo;
+    private int tamanoGrupo;
+    private long esperaNanos;
+    
+    private final LongAdder grupos = new LongAdder( );
+    private final LongAdder confirmados = new LongAdder( );
+    
+    /**
+     * Médicos confirmados en su propia transacción porque su grupo se
+     * rechazó.
+     */
+    private final LongAdder individuales = new LongAdder( );
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Inicia el escritor si la propiedad del sistema lo pide.
+     */
+    @PostConstruct
+    public void inicializar( ) {
+        if ( Boolean.getBoolean( "parcial1.escritura.agrupada" ) ) {
+            iniciar( Integer.getInteger( "parcial1.escritura.agrupada.tamano", 100 ),
+                    Long.getLong( "parcial1.escritura.agrupada.espera", 5L ),
+                    Integer.getInteger( "parcial1.escritura.agrupada.capacidad", 10000 ) );
+        }
+    }
+    
+    /**
+     * Inicia el hilo escritor. No hace nada si ya está activo.
+     * @param tamanoGrupo Cantidad máxima de médicos por transacción.
+     * @param esperaMilis Tiempo máximo que el primer médico de un grupo
+     * espera a que lleguen otros, en milisegundos.
+     * @param capacidad Cantidad máxima de médicos en espera.
+     */
+    public synchronized void iniciar( int tamanoGrupo, long esperaMilis, int capacidad ) {
+        if ( activo ) {
+            return;
+        }
+        this.tamanoGrupo = Math.max( 1, Math.min( tamanoGrupo, MedicoLogic.TAMANO_LOTE_MAXIMO ) );
+        this.esperaNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 0, esperaMilis ) );
+        cola = new ArrayBlockingQueue<>( Math.max( 1, capacidad ) );
+        activo = true;
+        hilo = fabrica.newThread( this::escribir );
+        hilo.setName( "parcial1-escritor-medicos" );
+        hilo.start();
+        LOGGER.log( Level.INFO, "Escritor agrupado iniciado: grupos de hasta {0} médicos, {1} ms de espera",
+                new Object[]{ this.tamanoGrupo, esperaMilis } );
+    }
+    
+    /**
+     * Detiene el hilo escritor luego de persistir el grupo en curso. Los
+     * médicos que aún estén en la cola se completan con
+     * RejectedExecutionException.
+     */
+    @PreDestroy
+    public synchronized void detener( ) {
+        if ( !activo ) {
+            return;
+        }
+        activo = false;
+        try {
+            hilo.join( TimeUnit.SECONDS.toMillis( 30 ) );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        rechazarPendientes( );
+        hilo = null;
+        LOGGER.log( Level.INFO, "Escritor agrupado detenido" );
+    }
+    
+    /**
+     * Indica si el escritor está recibiendo médicos.
+     * @return true si está activo.
+     */
+    public boolean estaActivo( ) {
+        return activo;
+    }
+    
+    /**
+     * Encola un médico ya validado para persistirlo en el próximo grupo.
+     * @param medico El médico a persistir.
+     * @return Etapa que se completa con el médico cuando su grupo se
+     * confirma, con BusinessLogicException si su registro ya existe, o con
+     * RejectedExecutionException si la cola está llena o el escritor se
+     * detuvo.
+     */
+    public CompletionStage< MedicoEntity > encolar( MedicoEntity medico ) {
+        Pendiente pendiente = new Pendiente( medico );
+        BlockingQueue< Pendiente > actual = cola;
+        if ( !activo || actual == null ) {
+            pendiente.resultado.completeExceptionally( new RejectedExecutionException( "El escritor agrupado no está activo" ) );
+        } else if ( !actual.offer( pendiente ) ) {
+            pendiente.resultado.completeExceptionally( new RejectedExecutionException( "La cola de escritura está llena" ) );
+        } else if ( !activo && actual.remove( pendiente ) ) {
+            // Se detuvo mientras se encolaba y el hilo escritor ya no lo tomará
+            pendiente.resultado.completeExceptionally( new RejectedExecutionException( "El escritor agrupado no está activo" ) );
+        }
+        return pendiente.resultado;
+    }
+    
+    /**
+     * Retorna la cantidad de grupos confirmados desde el despliegue, sin
+     * contar las transacciones de los médicos que se reintentan uno por uno.
+     * @return Cantidad de grupos.
+     */
+    public long getGrupos( ) {
+        return grupos.sum();
+    }
+    
+    /**
+     * Retorna la cantidad de médicos confirmados desde el despliegue.
+     * @return Cantidad de médicos.
+     */
+    public long getConfirmados( ) {
+        return confirmados.sum();
+    }
+    
+    /**
+     * Retorna la cantidad de médicos confirmados uno por uno, luego de que se
+     * rechazara su grupo, desde el despliegue.
+     * @return Cantidad de médicos.
+     */
+    public long getIndividuales( ) {
+        return individuales.sum();
+    }
+    
+    /**
+     * Ciclo del hilo escritor: arma grupos con los médicos de la cola y los
+     * persiste hasta que el escritor se detenga.
+     */
+    private void escribir( ) {
+        BlockingQueue< Pendiente > actual = cola;
+        List< Pendiente > grupo = new ArrayList<>( tamanoGrupo );
+        while ( activo ) {
+            try {
+                Pendiente primero = actual.poll( ESPERA_INACTIVO, TimeUnit.MILLISECONDS );
+                if ( primero == null ) {
+                    continue;
+                }
+                grupo.add( primero );
+                // Toma sin esperar lo que ya está en la cola y luego espera
+                // a lo sumo esperaNanos desde el primero
+                actual.drainTo( grupo, tamanoGrupo - grupo.size() );
+                long limite = System.nanoTime() + esperaNanos;
+                while ( grupo.size() < tamanoGrupo ) {
+                    long restante = limite - System.nanoTime();
+                    Pendiente siguiente = restante > 0 ? actual.poll( restante, TimeUnit.NANOSECONDS ) : null;
+                    if ( siguiente == null ) {
+                        break;
+                    }
+                    grupo.add( siguiente );
+                    actual.drainTo( grupo, tamanoGrupo - grupo.size() );
+                }
+                confirmar( grupo );
+            } catch ( InterruptedException e ) {
+                // Persiste el grupo ya tomado y deja de aceptar médicos: nadie
+                // más vaciará la cola
+                Thread.currentThread().interrupt();
+                activo = false;
+                confirmar( grupo );
+                rechazarPendientes( );
+                break;
+            } catch ( RuntimeException e ) {
+                LOGGER.log( Level.SEVERE, "Error en el escritor agrupado", e );
+                for ( Pendiente pendiente : grupo ) {
+                    pendiente.resultado.completeExceptionally( e );
+                }
+            }
+            grupo.clear();
+        }
+    }
+    
+    /**
+     * Persiste un grupo en una sola transacción y completa el resultado de
+     * cada médico. Si el grupo se rechaza por un registro repetido, se
+     * reintenta uno por uno para aislar los repetidos, como en la creación
+     * masiva.
+     * @param grupo Médicos del grupo.
+     */
+    private void confirmar( List< Pendiente > grupo ) {
+        if ( grupo.isEmpty() ) {
+            return;
+        }
+        List< MedicoEntity > medicos = new ArrayList<>( grupo.size() );
+        for ( Pendiente pendiente : grupo ) {
+            medicos.add( pendiente.medico );
+        }
+        try {
+            persistence.createAll( medicos );
+            grupos.increment();
+            confirmados.add( grupo.size() );
+            for ( Pendiente pendiente : grupo ) {
+                pendiente.resultado.complete( pendiente.medico );
+            }
+        } catch ( BusinessLogicException e ) {
+            LOGGER.log( Level.FINE, "Grupo rechazado, se crean los médicos uno por uno" );
+            for ( Pendiente pendiente : grupo ) {
+                pendiente.medico.setId( null );
+                try {
+                    persistence.create( pendiente.medico );
+                    confirmados.increment();
+                    individuales.increment();
+                    pendiente.resultado.complete( pendiente.medico );
+                } catch ( BusinessLogicException | RuntimeException e1 ) {
+                    pendiente.resultado.completeExceptionally( e1 );
+                }
+            }
+        } catch ( RuntimeException e ) {
+            for ( Pendiente pendiente : grupo ) {
+                pendiente.resultado.completeExceptionally( e );
+            }
+        }
+    }
+    
+    /**
+     * Completa con RejectedExecutionException los médicos que quedaron en la
+     * cola.
+     */
+    private void rechazarPendientes( ) {
+        List< Pendiente > restantes = new ArrayList<>( );
+        cola.drainTo( restantes );
+        for ( Pendiente pendiente : restantes ) {
+            pendiente.resultado.completeExceptionally( new RejectedExecutionException( "El escritor agrupado se detuvo" ) );
+        }
+    }
+    
+    /**
+     * Médico en espera de ser persistido, con el resultado que recibe quien
+     * lo encoló.
+     */
+    private static final class Pendiente {
+        
+        private final MedicoEntity medico;
+        private final CompletableFuture< MedicoEntity > resultado = new CompletableFuture<>( );
+        
+        Pendiente( MedicoEntity medico ) {
+            this.medico = medico;
+        }
+    }
+}
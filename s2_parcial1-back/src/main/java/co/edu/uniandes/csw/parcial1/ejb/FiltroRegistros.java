@@ -0,0 +1,292 @@
+package co.edu.uniandes.csw.parcial1.ejb;
+
+import co.edu.uniandes.csw.parcial1.persistence.MedicoPersistence;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+
+/**
+ * Filtro de Bloom sobre los registros de los médicos.
+ * Responde si un registro puede existir: un "no" es definitivo y permite
+ * omitir la consulta a la base de datos, un "sí" puede ser un falso positivo
+ * y obliga a consultar. Se llena al desplegar la aplicación y se actualiza
+ * con cada médico que crea MedicoLogic; los médicos insertados por fuera de
+ * la lógica (u otro nodo) sólo se incluyen al reconstruirlo. Por eso el "no"
+ * sólo se usa donde un falso negativo es inofensivo: la verificación previa
+ * de registros repetidos de createMedicos, que igual respalda la restricción
+ * de unicidad. Las lecturas por registro no lo consultan.
+ * La capacidad esperada y la tasa de falsos positivos se configuran con las
+ * propiedades del sistema parcial1.filtro.registros.capacidad y
+ * parcial1.filtro.registros.fpp.
+ * @author j.ramirez28
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement( ConcurrencyManagementType.BEAN )
+public class FiltroRegistros {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( FiltroRegistros.class.getName() );
+    
+    /**
+     * Cantidad de registros que se leen por consulta al reconstruir el filtro.
+     */
+    private static final int TAMANO_LECTURA = 10000;
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    @Inject
+    private MedicoPersistence persistence;
+    
+    /**
+     * Arreglo de bits del filtro, en palabras de 64 bits.
+     */
+    private volatile AtomicLongArray bits;
+    
+    /**
+     * Arreglo que se está llenando durante una reconstrucción, o null.
+     */
+    private AtomicLongArray enConstruccion;
+    
+    /**
+     * Cantidad de bits del filtro.
+     */
+    private long cantidadBits;
+    
+    /**
+     * Cantidad de funciones de hash.
+     */
+    private int cantidadHashes;
+    
+    private final AtomicLong registros = new AtomicLong( );
+    private final AtomicLong consultas = new AtomicLong( );
+    private final AtomicLong descartes = new AtomicLong( );
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Dimensiona el filtro según la configuración y lo llena con los
+     * registros existentes.
+     */
+    @PostConstruct
+    public void inicializar( ) {
+        long capacidad = Math.max( 1, Long.getLong( "parcial1.filtro.registros.capacidad", 1000000L ) );
+        double fpp = Double.parseDouble( System.getProperty( "parcial1.filtro.registros.fpp", "0.01" ) );
+        // m = -n ln(p) / ln(2)^2 y k = m/n ln(2), redondeando m a palabras completas
+        long m = ( long ) Math.ceil( -capacidad * Math.log( fpp ) / ( Math.log( 2 ) * Math.log( 2 ) ) );
+        cantidadBits = Math.max( 64, ( m + 63 ) / 64 * 64 );
+        cantidadHashes = Math.max( 1, ( int ) Math.round( ( double ) cantidadBits / capacidad * Math.log( 2 ) ) );
+        bits = new AtomicLongArray( ( int ) ( cantidadBits / 64 ) );
+        LOGGER.log( Level.INFO, "Filtro de registros con {0} bits y {1} hashes", new Object[]{ cantidadBits, cantidadHashes } );
+        reconstruir( );
+    }
+    
+    /**
+     * Vuelve a llenar el filtro con los registros de la base de datos. Los
+     * registros agregados durante la reconstrucción no se pierden.
+     */
+    public void reconstruir( ) {
+        AtomicLongArray nuevo = new AtomicLongArray( bits.length() );
+        synchronized ( this ) {
+            enConstruccion = nuevo;
+        }
+        long cantidad = 0;
+        Long despuesDeId = null;
+        List< Object[] > pagina;
+        do {
+            pagina = persistence.findRegistros( despuesDeId, TAMANO_LECTURA );
+            for ( Object[] fila : pagina ) {
+                despuesDeId = ( Long ) fila[ 0 ];
+                if ( fila[ 1 ] != null ) {
+                    marcar( nuevo, ( Integer ) fila[ 1 ] );
+                    cantidad++;
+                }
+            }
+        } while ( pagina.size() == TAMANO_LECTURA );
+        synchronized ( this ) {
+            bits = nuevo;
+            enConstruccion = null;
+            registros.set( cantidad );
+        }
+        LOGGER.log( Level.INFO, "Filtro de registros reconstruido con {0} registros", cantidad );
+    }
+    
+    /**
+     * Agrega un registro al filtro. Debe llamarse en cuanto el médico se
+     * persiste, antes de confirmar: un registro de una transacción revertida
+     * sólo genera un falso positivo.
+     * @param registro Registro del médico creado.
+     */
+    public void agregar( Integer registro ) {
+        if ( registro == null ) {
+            return;
+        }
+        synchronized ( this ) {
+            marcar( bits, registro );
+            if ( enConstruccion != null ) {
+                marcar( enConstruccion, registro );
+            }
+        }
+        registros.incrementAndGet( );
+    }
+    
+    /**
+     * Indica si un registro puede pertenecer a algún médico.
+     * @param registro Registro a consultar.
+     * @return false si es seguro que ningún médico tiene el registro; true si
+     * puede tenerlo y hay que consultar la base de datos.
+     */
+    public boolean puedeContener( Integer registro ) {
+        consultas.incrementAndGet( );
+        if ( registro == null ) {
+            return true;
+        }
+        AtomicLongArray actual = bits;
+        long hash = mezclar( registro );
+        int h1 = ( int ) hash;
+        int h2 = ( int ) ( hash >>> 32 );
+        for ( int i = 0; i < cantidadHashes; i++ ) {
+            long bit = posicion( h1, h2, i );
+            if ( ( actual.get( ( int ) ( bit >>> 6 ) ) & ( 1L << bit ) ) == 0 ) {
+                descartes.incrementAndGet( );
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Retorna una foto de las estadísticas del filtro.
+     * @return Las estadísticas actuales.
+     */
+    public Estadisticas getEstadisticas( ) {
+        long n = registros.get( );
+        // Tasa teórica de falsos positivos con n registros: (1 - e^(-kn/m))^k
+        double fpp = Math.pow( 1 - Math.exp( -( double ) cantidadHashes * n / cantidadBits ), cantidadHashes );
+        return new Estadisticas( cantidadBits, cantidadHashes, n, fpp, consultas.get( ), descartes.get( ) );
+    }
+    
+    /**
+     * Enciende en el arreglo los bits de un registro.
+     * @param arreglo Arreglo de bits.
+     * @param registro Registro a marcar.
+     */
+    private void marcar( AtomicLongArray arreglo, int registro ) {
+        long hash = mezclar( registro );
+        int h1 = ( int ) hash;
+        int h2 = ( int ) ( hash >>> 32 );
+        for ( int i = 0; i < cantidadHashes; i++ ) {
+            long bit = posicion( h1, h2, i );
+            int palabra = ( int ) ( bit >>> 6 );
+            long mascara = 1L << bit;
+            long anterior;
+            do {
+                anterior = arreglo.get( palabra );
+            } while ( ( anterior & mascara ) == 0 && !arreglo.compareAndSet( palabra, anterior, anterior | mascara ) );
+        }
+    }
+    
+    /**
+     * Calcula la posición del i-ésimo bit con doble hashing (h1 + i*h2).
+     * @param h1 Primera mitad del hash.
+     * @param h2 Segunda mitad del hash.
+     * @param i Número de la función de hash.
+     * @return Posición del bit entre 0 y cantidadBits - 1.
+     */
+    private long posicion( int h1, int h2, int i ) {
+        long combinado = ( h1 + ( long ) i * h2 ) & Long.MAX_VALUE;
+        return combinado % cantidadBits;
+    }
+    
+    /**
+     * Dispersa los bits de un registro (finalizador de MurmurHash3).
+     * @param registro Registro a dispersar.
+     * @return Hash de 64 bits del registro.
+     */
+    private static long mezclar( int registro ) {
+        long h = registro;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    /**
+     * Estadísticas del filtro de registros.
+     */
+    public static class Estadisticas {
+        
+        private final long bits;
+        private final int hashes;
+        private final long registros;
+        private final double tasaFalsosPositivos;
+        private final long consultas;
+        private final long descartes;
+        
+        /**
+         * Constructor con todos los valores.
+         * @param bits Cantidad de bits del filtro.
+         * @param hashes Cantidad de funciones de hash.
+         * @param registros Cantidad de registros agregados.
+         * @param tasaFalsosPositivos Tasa estimada de falsos positivos.
+         * @param consultas Consultas realizadas al filtro.
+         * @param descartes Consultas respondidas con un "no" definitivo.
+         */
+        public Estadisticas( long bits, int hashes, long registros, double tasaFalsosPositivos, long consultas, long descartes ) {
+            this.bits = bits;
+            this.hashes = hashes;
+            this.registros = registros;
+            this.tasaFalsosPositivos = tasaFalsosPositivos;
+            this.consultas = consultas;
+            this.descartes = descartes;
+        }
+
+        public long getBits() {
+            return bits;
+        }
+
+        /**
+         * @return Memoria ocupada por el arreglo de bits, en bytes.
+         */
+        public long getBytes() {
+            return bits / 8;
+        }
+
+        public int getHashes() {
+            return hashes;
+        }
+
+        public long getRegistros() {
+            return registros;
+        }
+
+        public double getTasaFalsosPositivos() {
+            return tasaFalsosPositivos;
+        }
+
+        public long getConsultas() {
+            return consultas;
+        }
+
+        public long getDescartes() {
+            return descartes;
+        }
+    }
+}
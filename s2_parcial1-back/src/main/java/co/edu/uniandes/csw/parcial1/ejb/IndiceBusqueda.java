@@ -0,0 +1,911 @@
+package co.edu.uniandes.csw.parcial1.ejb;
+
+import co.edu.uniandes.csw.parcial1.persistence.MedicoPersistence;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+
+/**
+ * Índice invertido en memoria para buscar médicos por fragmentos de su
+ * nombre, apellido o especialidad.
+ * Cada palabra de esos atributos, sin tildes y en minúsculas, se divide en
+ * trigramas (secuencias de tres caracteres) y para cada trigrama se guarda
+ * la lista ordenada de médicos que lo contienen, con la clase de posición
+ * del trigrama en cada atributo (comienzo del atributo, de una palabra o
+ * dentro de ella). Una búsqueda recorre la lista más corta de los trigramas
+ * de la consulta avanzando cursores sobre las demás, y con las clases acota
+ * el puntaje de cada candidato: sólo busca las palabras completas en el
+ * texto de los que pueden entrar entre los mejores. Recorre primero los
+ * médicos en los que una palabra de la consulta comienza un atributo o una
+ * palabra, con listas aparte para esos comienzos, y se detiene cuando
+ * ninguno de los demás puede superar los resultados que ya tiene. Así no
+ * recorre todos los médicos ni consulta la base de datos, y con la mayoría
+ * de los candidatos no toca su texto.
+ * Se llena al desplegar la aplicación y MedicoLogic le agrega cada médico
+ * creado cuando se confirma su transacción.
+ * @author j.ramirez28
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement( ConcurrencyManagementType.BEAN )
+public class IndiceBusqueda {
+    
+    //------------------------------------------------------------------------
+    // CONSTANTES
+    //------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( IndiceBusqueda.class.getName() );
+    
+    /**
+     * Longitud mínima de una palabra de la consulta para usar sus trigramas.
+     */
+    public static final int LONGITUD_MINIMA = 3;
+    
+    /**
+     * Separador entre los atributos en el texto normalizado de un médico.
+     */
+    private static final char SEPARADOR = '\u0001';
+    
+    /**
+     * Peso de coincidir en nombre, apellido y especialidad, en ese orden.
+     */
+    private static final int[] PESOS = { 2, 2, 1 };
+    
+    /**
+     * Clases de posición de un trigrama en un atributo, de menor a mayor
+     * puntaje posible: dentro de una palabra, al comienzo de una palabra y al
+     * comienzo del atributo. 0 indica que el trigrama no está en el atributo.
+     */
+    private static final int DENTRO = 1;
+    private static final int INICIO_PALABRA = 2;
+    private static final int INICIO_ATRIBUTO = 3;
+    
+    /**
+     * Longitud máxima de un atributo que se guarda exacta para acotar.
+     */
+    private static final int LONGITUD_MAXIMA = 255;
+    
+    /**
+     * Bits de una marca que indican que el trigrama comienza una palabra o
+     * un atributo, en alguno de los atributos.
+     */
+    private static final int COMIENZOS = 0b101010;
+    
+    /**
+     * Puntaje máximo de una palabra de la consulta: en nombre o apellido, y
+     * todo el atributo.
+     */
+    private static final int PUNTAJE_MAXIMO_PALABRA = 8;
+    
+    /**
+     * Puntaje máximo de una palabra que sólo aparece dentro de otras.
+     */
+    private static final int PUNTAJE_MAXIMO_DENTRO = 2;
+    
+    //------------------------------------------------------------------------
+    // ATRIBUTOS
+    //------------------------------------------------------------------------
+    
+    @Inject
+    private MedicoPersistence persistence;
+    
+    /**
+     * Candado que protege el índice: las búsquedas leen en paralelo y las
+     * inserciones escriben de a una.
+     */
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock( );
+    
+    /**
+     * Índice que atiende las búsquedas.
+     */
+    private Indice indice = new Indice( );
+    
+    /**
+     * Médicos creados mientras se reconstruye el índice, o null si no se
+     * está reconstruyendo.
+     */
+    private List< MedicoProyeccion > pendientes;
+    
+    //------------------------------------------------------------------------
+    // MÉTODOS
+    //------------------------------------------------------------------------
+    
+    /**
+     * Llena el índice con los médicos existentes. No usa una transacción
+     * para que la lectura de una tabla grande no quede sujeta a su tiempo
+     * límite.
+     */
+    @PostConstruct
+    @TransactionAttribute( TransactionAttributeType.NOT_SUPPORTED )
+    public void inicializar( ) {
+        reconstruir( );
+    }
+    
+    /**
+     * Vuelve a llenar el índice con los médicos de la base de datos, que se
+     * leen con un cursor. Las búsquedas siguen usando el índice anterior
+     * hasta que el nuevo está completo, y los médicos creados mientras tanto
+     * se agregan al final.
+     */
+    public void reconstruir( ) {
+        Indice nuevo = new Indice( );
+        candado.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>( );
+        } finally {
+            candado.writeLock().unlock();
+        }
+        persistence.recorrerProyecciones( nuevo::agregar );
+        candado.writeLock().lock();
+        try {
+            // El cursor los recorre ordenados por id: los ya leídos se omiten
+            int leidos = nuevo.cantidad;
+            for ( MedicoProyeccion medico : pendientes ) {
+                if ( Arrays.binarySearch( nuevo.ids, 0, leidos, medico.getId() ) < 0 ) {
+                    nuevo.agregar( medico );
+                }
+            }
+            pendientes = null;
+            indice = nuevo;
+        } finally {
+            candado.writeLock().unlock();
+        }
+        LOGGER.log( Level.INFO, "Índice de búsqueda reconstruido con {0} médicos", nuevo.cantidad );
+    }
+    
+    /**
+     * Agrega un médico al índice. Debe llamarse sólo después de confirmar la
+     * transacción que lo creó.
+     * @param medico Médico creado.
+     */
+    public void agregar( MedicoProyeccion medico ) {
+        candado.writeLock().lock();
+        try {
+            if ( pendientes != null ) {
+                pendientes.add( medico );
+            }
+            indice.agregar( medico );
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Busca los médicos que contienen todas las palabras de la consulta en
+     * su nombre, apellido o especialidad, sin importar tildes ni mayúsculas.
+     * Los resultados se ordenan por relevancia: pesan más las coincidencias
+     * en nombre y apellido, y las que son la palabra completa o su comienzo.
+     * @param consulta Texto de la consulta; debe ser válida según esConsultaValida.
+     * @param limite Cantidad máxima de resultados.
+     * @return Lista con los médicos más relevantes, de mayor a menor.
+     */
+    public List< MedicoProyeccion > buscar( String consulta, int limite ) {
+        List< String > palabras = palabras( consulta );
+        candado.readLock().lock();
+        try {
+            return indice.buscar( palabras, limite );
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+    
+    /**
+     * @return Cantidad de médicos en el índice.
+     */
+    public int getTamano( ) {
+        candado.readLock().lock();
+        try {
+            return indice.cantidad;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Indica si una consulta se puede responder con el índice.
+     * @param consulta Texto de la consulta.
+     * @return true si tiene al menos una palabra de LONGITUD_MINIMA caracteres.
+     */
+    public static boolean esConsultaValida( String consulta ) {
+        for ( String palabra : palabras( consulta ) ) {
+            if ( palabra.length() >= LONGITUD_MINIMA ) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Normaliza un texto para indexarlo o buscarlo: quita las tildes, lo pasa
+     * a minúsculas y reemplaza por espacios lo que no es letra ni dígito.
+     * @param texto Texto a normalizar; puede ser null.
+     * @return El texto normalizado, de la misma longitud que sin tildes.
+     */
+    static String normalizar( String texto ) {
+        if ( texto == null ) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize( texto, Normalizer.Form.NFD );
+        StringBuilder normalizado = new StringBuilder( descompuesto.length() );
+        for ( int i = 0; i < descompuesto.length(); i++ ) {
+            char c = descompuesto.charAt( i );
+            if ( Character.getType( c ) == Character.NON_SPACING_MARK ) {
+                continue;
+            }
+            normalizado.append( Character.isLetterOrDigit( c ) ? Character.toLowerCase( c ) : ' ' );
+        }
+        return normalizado.toString();
+    }
+    
+    /**
+     * Separa las palabras distintas de una consulta normalizada.
+     * @param consulta Texto de la consulta; puede ser null.
+     * @return Lista de palabras, sin repetidas.
+     */
+    private static List< String > palabras( String consulta ) {
+        Set< String > palabras = new LinkedHashSet<>( );
+        for ( String palabra : normalizar( consulta ).split( " " ) ) {
+            if ( !palabra.isEmpty() ) {
+                palabras.add( palabra );
+            }
+        }
+        return new ArrayList<>( palabras );
+    }
+    
+    /**
+     * Codifica el trigrama que empieza en una posición de un texto.
+     * @param texto Texto normalizado.
+     * @param i Posición del primer carácter.
+     * @return Los tres caracteres empacados en un long.
+     */
+    private static long trigrama( String texto, int i ) {
+        return ( ( long ) texto.charAt( i ) << 32 ) | ( ( long ) texto.charAt( i + 1 ) << 16 ) | texto.charAt( i + 2 );
+    }
+    
+    /**
+     * Lista creciente y ordenada de los médicos (por su posición en el
+     * índice) que contienen un trigrama, con las clases de posición del
+     * trigrama en cada atributo del médico: dos bits por atributo, en el
+     * orden de PESOS.
+     */
+    private static final class Postings {
+        
+        /**
+         * Lista vacía, para los trigramas que nunca comienzan una palabra.
+         */
+        private static final Postings VACIA = new Postings( );
+        
+        private int[] medicos = new int[ 4 ];
+        private byte[] marcas = new byte[ 4 ];
+        private int cantidad;
+        
+        /**
+         * Agrega una aparición del trigrama en un médico, que debe ser el
+         * último agregado al índice. Si el médico ya está, se conserva la
+         * mejor clase de cada atributo.
+         * @param medico Posición del médico en el índice.
+         * @param marca Clase de la aparición, desplazada a su atributo.
+         */
+        void agregar( int medico, int marca ) {
+            if ( cantidad > 0 && medicos[ cantidad - 1 ] == medico ) {
+                int actual = marcas[ cantidad - 1 ];
+                for ( int campo = 0; campo < PESOS.length; campo++ ) {
+                    if ( clase( marca, campo ) > clase( actual, campo ) ) {
+                        actual = actual & ~( 3 << ( 2 * campo ) ) | marca & ( 3 << ( 2 * campo ) );
+                    }
+                }
+                marcas[ cantidad - 1 ] = ( byte ) actual;
+                return;
+            }
+            if ( cantidad == medicos.length ) {
+                medicos = Arrays.copyOf( medicos, cantidad * 2 );
+                marcas = Arrays.copyOf( marcas, cantidad * 2 );
+            }
+            medicos[ cantidad ] = medico;
+            marcas[ cantidad++ ] = ( byte ) marca;
+        }
+        
+        /**
+         * Busca, desde una posición de la lista, la primera con un médico
+         * mayor o igual al dado, avanzando en saltos que se duplican y luego
+         * con búsqueda binaria.
+         * @param desde Posición desde la que se busca.
+         * @param medico Posición del médico en el índice.
+         * @return La posición encontrada, o cantidad si no hay ninguna.
+         */
+        int avanzar( int desde, int medico ) {
+            if ( desde >= cantidad || medicos[ desde ] >= medico ) {
+                return desde;
+            }
+            int bajo = desde;
+            int paso = 1;
+            while ( bajo + paso < cantidad && medicos[ bajo + paso ] < medico ) {
+                bajo += paso;
+                paso <<= 1;
+            }
+            int posicion = Arrays.binarySearch( medicos, bajo + 1, Math.min( bajo + paso, cantidad - 1 ) + 1, medico );
+            return posicion >= 0 ? posicion : -posicion - 1;
+        }
+    }
+    
+    /**
+     * @param marca Clases de posición de un trigrama en un médico.
+     * @param campo Número del atributo.
+     * @return La clase en el atributo, o 0 si no aparece en él.
+     */
+    private static int clase( int marca, int campo ) {
+        return marca >> ( 2 * campo ) & 3;
+    }
+    
+    /**
+     * Los mejores resultados de una búsqueda, en un montículo con el peor en
+     * la cima: menor puntaje y, a igual puntaje, mayor id.
+     */
+    private static final class Mejores {
+        
+        /**
+         * Ids de los médicos, o null si están en orden creciente en el índice
+         * y se comparan sus posiciones.
+         */
+        private final long[] ids;
+        private final int[] medicos;
+        private final int[] puntajes;
+        private int cantidad;
+        
+        Mejores( long[] ids, int limite ) {
+            this.ids = ids;
+            this.medicos = new int[ limite ];
+            this.puntajes = new int[ limite ];
+        }
+        
+        /**
+         * @param puntaje Puntaje, o cota del puntaje, de un médico.
+         * @param medico Posición del médico en el índice.
+         * @return true si un médico con ese puntaje entraría.
+         */
+        boolean entraria( int puntaje, int medico ) {
+            return cantidad < medicos.length || peor( medicos[ 0 ], puntajes[ 0 ], medico, puntaje );
+        }
+        
+        /**
+         * @param cota Cota del puntaje de los médicos desde uno dado.
+         * @param medico Posición del médico; los demás tienen posiciones
+         * mayores.
+         * @return true si ninguno de esos médicos entraría.
+         */
+        boolean completos( int cota, int medico ) {
+            return cantidad == medicos.length && ( puntajes[ 0 ] > cota
+                    || puntajes[ 0 ] == cota && ids == null && medicos[ 0 ] < medico );
+        }
+        
+        /**
+         * Agrega un médico si entra, desplazando al peor.
+         * @param medico Posición del médico en el índice.
+         * @param puntaje Puntaje del médico.
+         */
+        void agregar( int medico, int puntaje ) {
+            if ( cantidad < medicos.length ) {
+                int i = cantidad++;
+                // Sube el nuevo mientras sea peor que su padre
+                while ( i > 0 && peor( medico, puntaje, medicos[ ( i - 1 ) / 2 ], puntajes[ ( i - 1 ) / 2 ] ) ) {
+                    medicos[ i ] = medicos[ ( i - 1 ) / 2 ];
+                    puntajes[ i ] = puntajes[ ( i - 1 ) / 2 ];
+                    i = ( i - 1 ) / 2;
+                }
+                medicos[ i ] = medico;
+                puntajes[ i ] = puntaje;
+            } else if ( entraria( puntaje, medico ) ) {
+                bajar( medico, puntaje );
+            }
+        }
+        
+        /**
+         * Reemplaza la cima y la baja mientras sea mejor que algún hijo.
+         */
+        private void bajar( int medico, int puntaje ) {
+            int i = 0;
+            while ( 2 * i + 1 < cantidad ) {
+                int hijo = 2 * i + 1;
+                if ( hijo + 1 < cantidad && peor( medicos[ hijo + 1 ], puntajes[ hijo + 1 ], medicos[ hijo ], puntajes[ hijo ] ) ) {
+                    hijo++;
+                }
+                if ( !peor( medicos[ hijo ], puntajes[ hijo ], medico, puntaje ) ) {
+                    break;
+                }
+                medicos[ i ] = medicos[ hijo ];
+                puntajes[ i ] = puntajes[ hijo ];
+                i = hijo;
+            }
+            medicos[ i ] = medico;
+            puntajes[ i ] = puntaje;
+        }
+        
+        /**
+         * @return true si el médico a es peor resultado que el b.
+         */
+        private boolean peor( int a, int puntajeA, int b, int puntajeB ) {
+            if ( puntajeA != puntajeB ) {
+                return puntajeA < puntajeB;
+            }
+            return ids == null ? a > b : ids[ a ] > ids[ b ];
+        }
+        
+        /**
+         * @return Las posiciones de los médicos, del mejor al peor.
+         */
+        int[] ordenados( ) {
+            int[] ordenados = new int[ cantidad ];
+            for ( int i = ordenados.length - 1; i >= 0; i-- ) {
+                ordenados[ i ] = medicos[ 0 ];
+                int ultimo = --cantidad;
+                if ( ultimo > 0 ) {
+                    bajar( medicos[ ultimo ], puntajes[ ultimo ] );
+                }
+            }
+            return ordenados;
+        }
+    }
+    
+    /**
+     * Fases de una búsqueda, según cómo aparece el primer trigrama de la
+     * palabra elegida en los médicos que recorre.
+     */
+    private enum Fase {
+        
+        /**
+         * Comienza un atributo de la longitud de la palabra.
+         */
+        EXACTOS,
+        
+        /**
+         * Comienza una palabra o el atributo en un atributo dado, sin estar
+         * en EXACTOS ni comenzar en los atributos anteriores.
+         */
+        COMIENZOS,
+        
+        /**
+         * Sólo aparece dentro de palabras.
+         */
+        RESTO
+    }
+    
+    /**
+     * Datos de una búsqueda en curso.
+     */
+    private static final class Consulta {
+        
+        private final List< String > palabras;
+        
+        /**
+         * Por palabra, las posiciones de las listas de sus trigramas.
+         */
+        private final int[][] trigramas;
+        
+        /**
+         * Palabra cuyo primer trigrama separa las fases.
+         */
+        private final int elegida;
+        
+        private final Mejores mejores;
+        
+        Consulta( List< String > palabras, int[][] trigramas, int elegida, Mejores mejores ) {
+            this.palabras = palabras;
+            this.trigramas = trigramas;
+            this.elegida = elegida;
+            this.mejores = mejores;
+        }
+    }
+    
+    /**
+     * Datos del índice. No es seguro para hilos: IndiceBusqueda controla el
+     * acceso con su candado.
+     */
+    private static final class Indice {
+        
+        private long[] ids = new long[ 1024 ];
+        private MedicoProyeccion[] medicos = new MedicoProyeccion[ 1024 ];
+        private String[] textos = new String[ 1024 ];
+        
+        /**
+         * Longitud de cada atributo normalizado, ocho bits por atributo y
+         * LONGITUD_MAXIMA como máximo.
+         */
+        private int[] longitudes = new int[ 1024 ];
+        private int cantidad;
+        private final Map< Long, Postings > postings = new HashMap<>( );
+        
+        /**
+         * Para cada trigrama y atributo, los médicos en los que el trigrama
+         * comienza una palabra o el atributo, con la misma marca que en
+         * postings. La clave es el trigrama seguido del número del atributo.
+         */
+        private final Map< Long, Postings > comienzos = new HashMap<>( );
+        
+        /**
+         * Para cada trigrama y longitud, los médicos con un atributo de esa
+         * longitud que comienza con el trigrama: los únicos en los que una
+         * palabra de la consulta puede ser todo el atributo. La clave es el
+         * trigrama seguido de la longitud, hasta LONGITUD_MAXIMA.
+         */
+        private final Map< Long, Postings > exactos = new HashMap<>( );
+        
+        /**
+         * Indica si los ids crecen con la posición, como cuando se agregan en
+         * el orden en que se crean.
+         */
+        private boolean ordenado = true;
+        
+        /**
+         * Agrega un médico al final del índice.
+         * @param medico Médico a agregar.
+         */
+        void agregar( MedicoProyeccion medico ) {
+            if ( cantidad == ids.length ) {
+                int capacidad = cantidad * 2;
+                ids = Arrays.copyOf( ids, capacidad );
+                medicos = Arrays.copyOf( medicos, capacidad );
+                textos = Arrays.copyOf( textos, capacidad );
+                longitudes = Arrays.copyOf( longitudes, capacidad );
+            }
+            int posicion = cantidad++;
+            String[] atributos = { normalizar( medico.getNombre() ), normalizar( medico.getApellido() ),
+                normalizar( medico.getEspecialidad() ) };
+            String texto = atributos[ 0 ] + SEPARADOR + atributos[ 1 ] + SEPARADOR + atributos[ 2 ];
+            if ( posicion > 0 && medico.getId() <= ids[ posicion - 1 ] ) {
+                ordenado = false;
+            }
+            ids[ posicion ] = medico.getId();
+            medicos[ posicion ] = medico;
+            textos[ posicion ] = texto;
+            for ( int campo = 0; campo < atributos.length; campo++ ) {
+                longitudes[ posicion ] |= Math.min( atributos[ campo ].length(), LONGITUD_MAXIMA ) << ( 8 * campo );
+            }
+            int campo = 0;
+            int inicioCampo = 0;
+            for ( int i = 0; i + LONGITUD_MINIMA <= texto.length(); i++ ) {
+                if ( texto.charAt( i ) == SEPARADOR ) {
+                    campo++;
+                    inicioCampo = i + 1;
+                } else if ( esPalabra( texto, i, i + LONGITUD_MINIMA ) ) {
+                    int clase = i == inicioCampo ? INICIO_ATRIBUTO : texto.charAt( i - 1 ) == ' ' ? INICIO_PALABRA : DENTRO;
+                    postings.computeIfAbsent( trigrama( texto, i ), t -> new Postings( ) ).agregar( posicion, clase << ( 2 * campo ) );
+                }
+            }
+            // Con las marcas ya completas, se copian las de los comienzos
+            campo = 0;
+            inicioCampo = 0;
+            for ( int i = 0; i + LONGITUD_MINIMA <= texto.length(); i++ ) {
+                if ( texto.charAt( i ) == SEPARADOR ) {
+                    campo++;
+                    inicioCampo = i + 1;
+                } else if ( esPalabra( texto, i, i + LONGITUD_MINIMA ) ) {
+                    long clave = trigrama( texto, i );
+                    Postings lista = postings.get( clave );
+                    int marca = lista.marcas[ lista.cantidad - 1 ];
+                    if ( clase( marca, campo ) >= INICIO_PALABRA ) {
+                        comienzos.computeIfAbsent( clave << 2 | campo, t -> new Postings( ) ).agregar( posicion, marca );
+                    }
+                    if ( i == inicioCampo ) {
+                        exactos.computeIfAbsent( clave << 8 | Math.min( atributos[ campo ].length(), LONGITUD_MAXIMA ),
+                                t -> new Postings( ) ).agregar( posicion, marca );
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Busca los médicos que contienen todas las palabras.
+         * @param palabras Palabras normalizadas de la consulta.
+         * @param limite Cantidad máxima de resultados.
+         * @return Los médicos más relevantes, de mayor a menor.
+         */
+        List< MedicoProyeccion > buscar( List< String > palabras, int limite ) {
+            // Listas distintas de los trigramas y, por palabra, cuáles son las suyas
+            List< Postings > listas = new ArrayList<>( );
+            int[][] trigramas = new int[ palabras.size() ][];
+            for ( int p = 0; p < palabras.size(); p++ ) {
+                String palabra = palabras.get( p );
+                trigramas[ p ] = new int[ Math.max( 0, palabra.length() - LONGITUD_MINIMA + 1 ) ];
+                for ( int i = 0; i < trigramas[ p ].length; i++ ) {
+                    Postings lista = postings.get( trigrama( palabra, i ) );
+                    if ( lista == null ) {
+                        return Collections.emptyList();
+                    }
+                    int j = indiceDe( listas, lista );
+                    if ( j < 0 ) {
+                        j = listas.size();
+                        listas.add( lista );
+                    }
+                    trigramas[ p ][ i ] = j;
+                }
+            }
+            if ( listas.isEmpty() ) {
+                return Collections.emptyList();
+            }
+            Postings[] fuentes = listas.toArray( new Postings[ listas.size() ] );
+            // Se elige la palabra cuyo primer trigrama tiene menos comienzos
+            int elegida = -1;
+            Postings[] conComienzo = null;
+            int menosComienzos = Integer.MAX_VALUE;
+            for ( int p = 0; p < palabras.size(); p++ ) {
+                if ( trigramas[ p ].length > 0 ) {
+                    Postings[] listasCampos = new Postings[ PESOS.length ];
+                    int total = 0;
+                    for ( int campo = 0; campo < PESOS.length; campo++ ) {
+                        listasCampos[ campo ] = comienzos.getOrDefault( trigrama( palabras.get( p ), 0 ) << 2 | campo, Postings.VACIA );
+                        total += listasCampos[ campo ].cantidad;
+                    }
+                    if ( total < menosComienzos ) {
+                        elegida = p;
+                        conComienzo = listasCampos;
+                        menosComienzos = total;
+                    }
+                }
+            }
+            Consulta consulta = new Consulta( palabras, trigramas, elegida, new Mejores( ordenado ? null : ids, limite ) );
+            String palabra = palabras.get( elegida );
+            int j = trigramas[ elegida ][ 0 ];
+            Postings completa = fuentes[ j ];
+            // Primero los médicos en los que la palabra puede ser todo un
+            // atributo, luego en los que puede comenzar una palabra de cada
+            // atributo, que suelen llenar los resultados, y por último los demás
+            fuentes[ j ] = exactos.getOrDefault( trigrama( palabra, 0 ) << 8 | Math.min( palabra.length(), LONGITUD_MAXIMA ),
+                    Postings.VACIA );
+            recorrer( fuentes, Fase.EXACTOS, 0, consulta );
+            for ( int campo = 0; campo < PESOS.length; campo++ ) {
+                fuentes[ j ] = conComienzo[ campo ];
+                recorrer( fuentes, Fase.COMIENZOS, campo, consulta );
+            }
+            fuentes[ j ] = completa;
+            recorrer( fuentes, Fase.RESTO, 0, consulta );
+            int[] ordenados = consulta.mejores.ordenados();
+            MedicoProyeccion[] resultado = new MedicoProyeccion[ ordenados.length ];
+            for ( int i = 0; i < ordenados.length; i++ ) {
+                resultado[ i ] = medicos[ ordenados[ i ] ];
+            }
+            return Arrays.asList( resultado );
+        }
+        
+        /**
+         * Recorre los médicos de una fase que están en todas las listas, de
+         * la más corta, y agrega a los mejores los que pueden entrar. Termina
+         * antes si ningún médico de la fase puede entrar.
+         * @param fuentes Listas de los trigramas de la consulta, con la del
+         * primer trigrama de la palabra elegida reemplazada según la fase.
+         * @param fase Fase de la búsqueda.
+         * @param campo Atributo de la fase COMIENZOS.
+         * @param consulta Consulta y mejores resultados encontrados.
+         */
+        private void recorrer( Postings[] fuentes, Fase fase, int campo, Consulta consulta ) {
+            int[] orden = new int[ fuentes.length ];
+            for ( int k = 0; k < orden.length; k++ ) {
+                int j = k;
+                while ( j > 0 && fuentes[ orden[ j - 1 ] ].cantidad > fuentes[ k ].cantidad ) {
+                    orden[ j ] = orden[ j - 1 ];
+                    j--;
+                }
+                orden[ j ] = k;
+            }
+            int cotaFase = cotaPalabra( fase, campo ) + PUNTAJE_MAXIMO_PALABRA * ( consulta.palabras.size() - 1 );
+            // Los comienzos en los atributos anteriores ya se recorrieron
+            int recorridos = fase == Fase.RESTO ? COMIENZOS : COMIENZOS & ( ( 1 << ( 2 * campo ) ) - 1 );
+            int listaElegida = consulta.trigramas[ consulta.elegida ][ 0 ];
+            int longitud = Math.min( consulta.palabras.get( consulta.elegida ).length(), LONGITUD_MAXIMA );
+            Mejores mejores = consulta.mejores;
+            Postings menor = fuentes[ orden[ 0 ] ];
+            int[] cursores = new int[ orden.length ];
+            int[] marcas = new int[ orden.length ];
+            candidatos:
+            for ( int i = 0; i < menor.cantidad; i++ ) {
+                int medico = menor.medicos[ i ];
+                if ( mejores.completos( cotaFase, medico ) ) {
+                    return;
+                }
+                marcas[ orden[ 0 ] ] = menor.marcas[ i ];
+                for ( int k = 1; k < orden.length; k++ ) {
+                    Postings lista = fuentes[ orden[ k ] ];
+                    int cursor = lista.avanzar( cursores[ k ], medico );
+                    cursores[ k ] = cursor;
+                    if ( cursor == lista.cantidad ) {
+                        return;
+                    }
+                    if ( lista.medicos[ cursor ] != medico ) {
+                        continue candidatos;
+                    }
+                    marcas[ orden[ k ] ] = lista.marcas[ cursor ];
+                }
+                if ( fase != Fase.EXACTOS && ( marcas[ listaElegida ] & recorridos ) != 0 ) {
+                    continue;
+                }
+                // Sólo se busca en el texto si la cota alcanza para entrar
+                int cota = acotar( consulta, fase != Fase.EXACTOS, marcas, medico );
+                if ( cota == 0 || !mejores.entraria( cota, medico ) ) {
+                    continue;
+                }
+                // Los médicos con un atributo exacto ya se recorrieron
+                if ( fase == Fase.COMIENZOS && esExacto( marcas[ listaElegida ], longitudes[ medico ], longitud ) ) {
+                    continue;
+                }
+                int puntaje = puntuar( textos[ medico ], consulta.palabras );
+                if ( puntaje > 0 ) {
+                    mejores.agregar( medico, puntaje );
+                }
+            }
+        }
+        
+        /**
+         * Calcula una cota superior del puntaje que puntuar le daría a un
+         * médico, con las clases de los trigramas de la consulta en él. Cada
+         * palabra sólo puede estar en los atributos que tienen todos sus
+         * trigramas, y en cada uno la clase de su primer trigrama limita la
+         * coincidencia: la palabra completa del atributo sólo si éste tiene
+         * su misma longitud.
+         * @param consulta Consulta.
+         * @param sinExacto true si la palabra elegida no puede ser todo un
+         * atributo del médico.
+         * @param marcas Clases de cada lista en el médico.
+         * @param medico Posición del médico en el índice.
+         * @return La cota, o 0 si alguna palabra no puede estar.
+         */
+        private int acotar( Consulta consulta, boolean sinExacto, int[] marcas, int medico ) {
+            int cota = 0;
+            for ( int p = 0; p < consulta.trigramas.length; p++ ) {
+                int[] propios = consulta.trigramas[ p ];
+                int mejor = 0;
+                for ( int campo = 0; campo < PESOS.length; campo++ ) {
+                    int clase = propios.length == 0 ? INICIO_ATRIBUTO : clase( marcas[ propios[ 0 ] ], campo );
+                    for ( int i = 1; i < propios.length && clase > 0; i++ ) {
+                        if ( clase( marcas[ propios[ i ] ], campo ) == 0 ) {
+                            clase = 0;
+                        }
+                    }
+                    int maximo;
+                    if ( clase == INICIO_ATRIBUTO && !( sinExacto && p == consulta.elegida ) ) {
+                        int longitud = consulta.palabras.get( p ).length();
+                        int longitudCampo = longitudes[ medico ] >>> ( 8 * campo ) & 0xff;
+                        maximo = longitudCampo == longitud || longitud >= LONGITUD_MAXIMA ? 4 : 3;
+                    } else {
+                        maximo = clase >= INICIO_PALABRA ? 3 : clase;
+                    }
+                    mejor = Math.max( mejor, PESOS[ campo ] * maximo );
+                }
+                if ( mejor == 0 ) {
+                    return 0;
+                }
+                cota += mejor;
+            }
+            return cota;
+        }
+        
+        /**
+         * @param fase Fase de la búsqueda.
+         * @param campo Atributo de la fase COMIENZOS.
+         * @return Cota del puntaje de la palabra elegida en los médicos que
+         * recorre la fase: en COMIENZOS, no es todo un atributo, y en los
+         * atributos anteriores sólo puede estar dentro de otra palabra.
+         */
+        private static int cotaPalabra( Fase fase, int campo ) {
+            if ( fase == Fase.EXACTOS ) {
+                return PUNTAJE_MAXIMO_PALABRA;
+            }
+            int cota = PUNTAJE_MAXIMO_DENTRO;
+            if ( fase == Fase.COMIENZOS ) {
+                for ( int siguiente = campo; siguiente < PESOS.length; siguiente++ ) {
+                    cota = Math.max( cota, PESOS[ siguiente ] * 3 );
+                }
+            }
+            return cota;
+        }
+        
+        /**
+         * @param marca Clases del primer trigrama de una palabra en un médico.
+         * @param longitudes Longitudes de los atributos del médico.
+         * @param longitud Longitud de la palabra, hasta LONGITUD_MAXIMA.
+         * @return true si el trigrama comienza un atributo de la longitud de
+         * la palabra, es decir, si el médico está en la lista de exactos.
+         */
+        private static boolean esExacto( int marca, int longitudes, int longitud ) {
+            for ( int campo = 0; campo < PESOS.length; campo++ ) {
+                if ( clase( marca, campo ) == INICIO_ATRIBUTO && ( longitudes >>> ( 8 * campo ) & 0xff ) == longitud ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * @return La posición de una lista en listas, comparando por
+         * identidad, o -1 si no está.
+         */
+        private static int indiceDe( List< Postings > listas, Postings lista ) {
+            for ( int j = 0; j < listas.size(); j++ ) {
+                if ( listas.get( j ) == lista ) {
+                    return j;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Calcula la relevancia de un médico para la consulta.
+         * @param texto Texto normalizado del médico.
+         * @param palabras Palabras de la consulta.
+         * @return El puntaje, o 0 si alguna palabra no aparece.
+         */
+        private static int puntuar( String texto, List< String > palabras ) {
+            int puntaje = 0;
+            for ( String palabra : palabras ) {
+                int mejor = 0;
+                int inicio = 0;
+                for ( int campo = 0; campo < PESOS.length; campo++ ) {
+                    int fin = texto.indexOf( SEPARADOR, inicio );
+                    if ( fin < 0 ) {
+                        fin = texto.length();
+                    }
+                    mejor = Math.max( mejor, PESOS[ campo ] * coincidencia( texto, inicio, fin, palabra ) );
+                    inicio = fin + 1;
+                }
+                if ( mejor == 0 ) {
+                    return 0;
+                }
+                puntaje += mejor;
+            }
+            return puntaje;
+        }
+        
+        /**
+         * Califica la mejor aparición de una palabra en un atributo.
+         * @param texto Texto normalizado del médico.
+         * @param inicio Inicio del atributo en el texto.
+         * @param fin Fin del atributo en el texto.
+         * @param palabra Palabra buscada.
+         * @return 4 si es todo el atributo, 3 si empieza una palabra, 1 si está
+         * dentro de una palabra, 0 si no aparece.
+         */
+        private static int coincidencia( String texto, int inicio, int fin, String palabra ) {
+            int mejor = 0;
+            for ( int i = texto.indexOf( palabra, inicio ); i >= 0 && i + palabra.length() <= fin; i = texto.indexOf( palabra, i + 1 ) ) {
+                if ( i == inicio && i + palabra.length() == fin ) {
+                    return 4;
+                }
+                mejor = Math.max( mejor, i == inicio || texto.charAt( i - 1 ) == ' ' ? 3 : 1 );
+            }
+            return mejor;
+        }
+        
+        /**
+         * @param texto Texto normalizado.
+         * @param inicio Posición inicial (inclusive).
+         * @param fin Posición final (exclusive).
+         * @return true si todos los caracteres del tramo son letras o dígitos.
+         */
+        private static boolean esPalabra( String texto, int inicio, int fin ) {
+            for ( int i = inicio; i < fin; i++ ) {
+                char c = texto.charAt( i );
+                if ( c == ' ' || c == SEPARADOR ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -2,11 +2,39 @@ package co.edu.uniandes.csw.parcial1.ejb;
 
 import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
 import co.edu.uniandes.csw.parcial1.exceptions.BusinessLogicException;
+import co.edu.uniandes.csw.parcial1.exceptions.ReglasIncumplidasException;
+import co.edu.uniandes.csw.parcial1.persistence.EstadisticasSql;
 import co.edu.uniandes.csw.parcial1.persistence.MedicoPersistence;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import co.edu.uniandes.csw.parcial1.persistence.RegistroCache;
+import co.edu.uniandes.csw.parcial1.validacion.ReglasMedico;
+import co.edu.uniandes.csw.parcial1.validacion.Violacion;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Resource;
+import javax.ejb.EJBException;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 /**
  * Clase que implementa la conexión con la persistencia para la entidad de
@@ -25,6 +53,22 @@ public class MedicoLogic {
      */
     private static final Logger LOGGER = Logger.getLogger( MedicoLogic.class.getName() );
     
+    /**
+     * Tamaño máximo de lote permitido en la creación masiva de médicos.
+     */
+    public static final int TAMANO_LOTE_MAXIMO = 1000;
+    
+    /**
+     * Tamaño máximo de una página en el listado de médicos.
+     */
+    public static final int TAMANO_PAGINA_MAXIMO = 100;
+    
+    /**
+     * Tiempo máximo que createMedicoAgrupado espera la confirmación del escritor
+     * agrupado, en segundos.
+     */
+    private static final long ESPERA_ESCRITURA_AGRUPADA = 30;
+    
     //------------------------------------------------------------------------
     // ATRIBUTOS
     //------------------------------------------------------------------------
@@ -35,6 +79,50 @@ public class MedicoLogic {
     @Inject
     private MedicoPersistence persistence;
     
+    /**
+     * Filtro de los registros existentes, para evitar consultas por registros
+     * que con seguridad no existen.
+     */
+    @Inject
+    private FiltroRegistros filtro;
+    
+    /**
+     * Índice de búsqueda por nombre, apellido y especialidad.
+     */
+    @Inject
+    private IndiceBusqueda indice;
+    
+    /**
+     * Conteo de médicos por especialidad.
+     */
+    @Inject
+    private ConteoEspecialidades conteo;
+    
+    /**
+     * Escritor que persiste los médicos nuevos en grupos, cuando está activo.
+     */
+    @Inject
+    private EscritorAgrupado escritor;
+    
+    /**
+     * Registro de la transacción en curso, para actuar cuando se confirma.
+     */
+    @Resource
+    private TransactionSynchronizationRegistry transacciones;
+    
+    /**
+     * Ejecutor de las operaciones asíncronas. Por defecto es el del servidor;
+     * un resource-env-ref de concurrent/medicos en el descriptor del módulo
+     * web puede redirigirlo a un ejecutor creado en el servidor.
+     */
+    @Resource( name = "concurrent/medicos", lookup = "java:comp/DefaultManagedExecutorService" )
+    private ManagedExecutorService ejecutor;
+    
+    /**
+     * Contexto del EJB, para invocar sus métodos a través del contenedor.
+     */
+    @Resource
+    private SessionContext contexto;
     
     //------------------------------------------------------------------------
     // MÉTODOS
@@ -42,6 +130,12 @@ public class MedicoLogic {
     
     /**
      * Crea un médico en la persistencia.
+     * Primero se validan las reglas que no requieren la base de datos; la
+     * unicidad del registro la garantiza la restricción de la tabla, de modo
+     * que la creación cuesta un único viaje a la base de datos y dos
+     * peticiones concurrentes con el mismo registro no pueden pasar ambas.
+     * El médico siempre se persiste en la transacción de quien llama, aunque
+     * el escritor agrupado esté activo: para usarlo está createMedicoAgrupado.
      * 
      * @param medicoEntity La entidad que representa el médico
      * a persistir.
@@ -50,25 +144,484 @@ public class MedicoLogic {
      * los nombres y apellidos son nulos o vacíos, o la especialidad tiene menos de o igual a 4 caracteres.
      */
     public MedicoEntity createMedico( MedicoEntity medicoEntity ) throws BusinessLogicException {
-        LOGGER.log( Level.INFO, "Inicia proceso de creación del médico" );
-        // Verifica que no haya un médico con mismo registro
-        if ( persistence.findByRegistro( medicoEntity.getRegistro( )) != null ) {
-            throw new BusinessLogicException( "Ya existe un Medico con el registro \"" + medicoEntity.getRegistro() + "\"" );
+        LOGGER.log( Level.FINE, "Inicia proceso de creación del médico" );
+        validarMedico( medicoEntity );
+        // Invoca la persistencia para crear el médico; si ya existe un médico
+        // con el mismo registro la persistencia lanza la excepción correspondiente
+        persistence.create( medicoEntity );
+        registrarCreado( medicoEntity );
+        LOGGER.log( Level.FINE, "Termina el proceso de creación del médico" );
+        return medicoEntity;
+    }
+    
+    /**
+     * Crea un médico con las mismas reglas de createMedico, pero fuera de la
+     * transacción de quien llama. Si el escritor agrupado está activo, el
+     * médico se encola en él y este método espera, sin transacción, a que su
+     * grupo se confirme en la transacción del escritor; si no, se crea con
+     * createMedico en una transacción propia. En ambos casos el médico queda
+     * confirmado al retornar: que quien llama revierta luego su transacción
+     * no lo deshace.
+     * 
+     * @param medicoEntity La entidad que representa el médico a persistir.
+     * @return La entidad del médico luego de persistirla.
+     * @throws BusinessLogicException en los mismos casos de createMedico.
+     */
+    @TransactionAttribute( TransactionAttributeType.NOT_SUPPORTED )
+    public MedicoEntity createMedicoAgrupado( MedicoEntity medicoEntity ) throws BusinessLogicException {
+        if ( !escritor.estaActivo() ) {
+            // Se invoca a través del contenedor para que aplique la transacción
+            return contexto.getBusinessObject( MedicoLogic.class ).createMedico( medicoEntity );
+        }
+        LOGGER.log( Level.FINE, "Inicia proceso de creación agrupada del médico" );
+        validarMedico( medicoEntity );
+        MedicoEntity creado = esperarEscritura( crearAgrupado( medicoEntity ) );
+        LOGGER.log( Level.FINE, "Termina el proceso de creación agrupada del médico" );
+        return creado;
+    }
+    
+    /**
+     * Crea un médico de forma asíncrona en el ejecutor de la lógica. El hilo
+     * que llama queda libre de inmediato; la creación corre en su propia
+     * transacción con las mismas reglas de createMedico. Si el escritor
+     * agrupado está activo, el médico se encola directamente en él sin ocupar
+     * un hilo del ejecutor. Las sentencias SQL del ejecutor se cuentan en la
+     * solicitud de {@link EstadisticasSql} del hilo que llama; las del
+     * escritor agrupado no se cuentan en ninguna solicitud.
+     * 
+     * @param medicoEntity La entidad que representa el médico a persistir.
+     * @return Etapa que se completa con el médico persistido, o con la
+     * BusinessLogicException de createMedico. Si el ejecutor está saturado
+     * se completa con RejectedExecutionException.
+     */
+    @TransactionAttribute( TransactionAttributeType.NOT_SUPPORTED )
+    public CompletionStage< MedicoEntity > createMedicoAsync( MedicoEntity medicoEntity ) {
+        if ( escritor.estaActivo() ) {
+            try {
+                validarMedico( medicoEntity );
+            } catch ( BusinessLogicException e ) {
+                CompletableFuture< MedicoEntity > rechazado = new CompletableFuture<>( );
+                rechazado.completeExceptionally( e );
+                return rechazado;
+            }
+            return crearAgrupado( medicoEntity );
+        }
+        CompletableFuture< MedicoEntity > resultado = new CompletableFuture<>( );
+        // Se invoca a través del contenedor para que aplique la transacción
+        MedicoLogic logica = contexto.getBusinessObject( MedicoLogic.class );
+        EstadisticasSql.Solicitud sql = EstadisticasSql.getSolicitud();
+        try {
+            ejecutor.execute( ( ) -> {
+                EstadisticasSql.Solicitud anterior = EstadisticasSql.vincularSolicitud( sql );
+                try {
+                    resultado.complete( logica.createMedico( medicoEntity ) );
+                } catch ( BusinessLogicException | RuntimeException e ) {
+                    resultado.completeExceptionally( e );
+                } finally {
+                    EstadisticasSql.vincularSolicitud( anterior );
+                }
+            } );
+        } catch ( RejectedExecutionException e ) {
+            LOGGER.log( Level.WARNING, "Ejecutor de médicos saturado" );
+            resultado.completeExceptionally( e );
+        }
+        return resultado;
+    }
+    
+    /**
+     * Crea un grupo de médicos en la persistencia, confirmando una transacción
+     * por cada lote de tamanoLote médicos.
+     * Cada médico se valida con las mismas reglas de createMedico. Los
+     * médicos rechazados no impiden la creación de los demás: se reportan en
+     * el mapa de respuesta con su posición en la lista.
+     * 
+     * @param medicos Los médicos a persistir.
+     * @param tamanoLote Cantidad de médicos que se confirman en cada transacción.
+     * @return Mapa ordenado con la posición de cada médico rechazado y el motivo.
+     * @throws BusinessLogicException si el tamaño de lote no está entre 1 y
+     * TAMANO_LOTE_MAXIMO.
+     */
+    @TransactionAttribute( TransactionAttributeType.NOT_SUPPORTED )
+    public Map< Integer, String > createMedicos( List< MedicoEntity > medicos, int tamanoLote ) throws BusinessLogicException {
+        LOGGER.log( Level.FINE, "Inicia proceso de creación de {0} médicos", medicos.size() );
+        validarTamanoLote( tamanoLote );
+        Map< Integer, String > rechazados = new TreeMap<>();
+        // Las reglas se evalúan de una vez para toda la lista, en paralelo si
+        // es grande, sin crear una excepción por cada médico rechazado
+        Map< Integer, List< Violacion > > invalidos = ReglasMedico.VALIDADOR.validarLote( medicos );
+        Set< Integer > registrosVistos = new HashSet<>();
+        for ( int inicio = 0; inicio < medicos.size(); inicio += tamanoLote ) {
+            int fin = Math.min( inicio + tamanoLote, medicos.size() );
+            crearLote( medicos, inicio, fin, invalidos, registrosVistos, rechazados );
         }
-        // Verifica la regla de negocio que el nombre y apellido no sean nulos ni vacíos
-        if ( medicoEntity.getNombre() == null || medicoEntity.getNombre().trim().isEmpty() ) {
-            throw new BusinessLogicException( "El médico creado debería tener un nombre" );
+        LOGGER.log( Level.FINE, "Termina el proceso de creación de médicos, {0} rechazados", rechazados.size() );
+        return rechazados;
+    }
+    
+    /**
+     * Valida y persiste los médicos de la lista entre las posiciones inicio
+     * (inclusive) y fin (exclusive). Cada llamada a la persistencia se ejecuta
+     * en su propia transacción, porque createMedicos no tiene una.
+     * @param medicos Lista completa de médicos.
+     * @param inicio Posición del primer médico del lote.
+     * @param fin Posición siguiente al último médico del lote.
+     * @param invalidos Violaciones de las reglas, por posición en la lista.
+     * @param registrosVistos Registros ya usados por médicos anteriores de la lista.
+     * @param rechazados Mapa donde se agregan los médicos rechazados.
+     */
+    private void crearLote( List< MedicoEntity > medicos, int inicio, int fin, Map< Integer, List< Violacion > > invalidos,
+            Set< Integer > registrosVistos, Map< Integer, String > rechazados ) {
+        List< Integer > posiciones = new ArrayList<>();
+        Set< Integer > registros = new HashSet<>();
+        for ( int i = inicio; i < fin; i++ ) {
+            MedicoEntity medico = medicos.get( i );
+            List< Violacion > violaciones = invalidos.get( i );
+            if ( violaciones != null ) {
+                rechazados.put( i, Violacion.mensajes( violaciones ) );
+            } else if ( medico.getRegistro() != null && !registrosVistos.add( medico.getRegistro() ) ) {
+                rechazados.put( i, mensajeRegistroRepetido( medico ) );
+            } else {
+                posiciones.add( i );
+                // Sólo se consultan los registros que el filtro no descarta
+                if ( medico.getRegistro() != null && filtro.puedeContener( medico.getRegistro() ) ) {
+                    registros.add( medico.getRegistro() );
+                }
+            }
         }
-        if ( medicoEntity.getApellido() == null || medicoEntity.getApellido().trim().isEmpty() ) {
-            throw new BusinessLogicException( "El médico creado debería tener un apellido" );
+        // Descarta en una sola consulta los registros que ya existen
+        if ( !registros.isEmpty() ) {
+            Set< Integer > existentes = new HashSet<>( persistence.findRegistrosExistentes( registros ) );
+            if ( !existentes.isEmpty() ) {
+                List< Integer > disponibles = new ArrayList<>();
+                for ( Integer posicion : posiciones ) {
+                    MedicoEntity medico = medicos.get( posicion );
+                    if ( existentes.contains( medico.getRegistro() ) ) {
+                        rechazados.put( posicion, mensajeRegistroRepetido( medico ) );
+                    } else {
+                        disponibles.add( posicion );
+                    }
+                }
+                posiciones = disponibles;
+            }
         }
-        // Verifica la regla de negocio de que la espacialidad debe tener más de 4 caracteres
-        if ( medicoEntity.getEspecialidad().length() <= 4 ) {
-            throw new BusinessLogicException( "El médico debe tener una especialidad con más de 4 caracteres" );
+        if ( posiciones.isEmpty() ) {
+            return;
         }
-        // Invoca la persistencia para crear el médico
-        persistence.create( medicoEntity );
-        LOGGER.log( Level.INFO, "Termina el proceso de creación del médico" );
-        return medicoEntity;
+        List< MedicoEntity > lote = new ArrayList<>( posiciones.size() );
+        for ( Integer posicion : posiciones ) {
+            lote.add( medicos.get( posicion ) );
+        }
+        try {
+            persistence.createAll( lote );
+            for ( MedicoEntity medico : lote ) {
+                registrarCreado( medico );
+            }
+        } catch ( BusinessLogicException e ) {
+            // Otro proceso creó alguno de los registros entre la consulta y la
+            // inserción: se reintenta uno por uno para aislar los repetidos.
+            LOGGER.log( Level.FINE, "Lote rechazado, se crean los médicos uno por uno" );
+            for ( Integer posicion : posiciones ) {
+                MedicoEntity medico = medicos.get( posicion );
+                medico.setId( null );
+                try {
+                    persistence.create( medico );
+                    registrarCreado( medico );
+                } catch ( BusinessLogicException e1 ) {
+                    rechazados.put( posicion, e1.getMessage() );
+                }
+            }
+        }
+    }
+    
+    /**
+     * Obtiene una página del listado de médicos ordenado por id.
+     * 
+     * @param despuesDeId Último id de la página anterior, o null para la primera página.
+     * @param limite Cantidad máxima de médicos de la página.
+     * @param filtros Igualdades sobre los atributos nombre, apellido,
+     * registro o especialidad.
+     * @return Lista con los médicos de la página.
+     * @throws BusinessLogicException si el límite no está entre 1 y
+     * TAMANO_PAGINA_MAXIMO o se filtra por un atributo no permitido.
+     */
+    public List< MedicoEntity > getMedicos( Long despuesDeId, int limite, Map< String, ? > filtros ) throws BusinessLogicException {
+        LOGGER.log( Level.FINE, "Inicia proceso de consultar la página de médicos" );
+        validarPagina( limite, filtros );
+        List< MedicoEntity > pagina = persistence.findPage( despuesDeId, limite, filtros );
+        LOGGER.log( Level.FINE, "Termina proceso de consultar la página de médicos" );
+        return pagina;
+    }
+    
+    /**
+     * Obtiene una página del listado de médicos ordenado por id, como
+     * modelos de lectura construidos directamente por la consulta. Es la
+     * variante para los servicios que sólo leen los datos del médico.
+     * 
+     * @param despuesDeId Último id de la página anterior, o null para la primera página.
+     * @param limite Cantidad máxima de médicos de la página.
+     * @param filtros Igualdades sobre los atributos nombre, apellido,
+     * registro o especialidad.
+     * @return Lista con las proyecciones de los médicos de la página.
+     * @throws BusinessLogicException si el límite no está entre 1 y
+     * TAMANO_PAGINA_MAXIMO o se filtra por un atributo no permitido.
+     */
+    public List< MedicoProyeccion > getProyeccionesMedicos( Long despuesDeId, int limite, Map< String, ? > filtros ) throws BusinessLogicException {
+        LOGGER.log( Level.FINE, "Inicia proceso de consultar la página de proyecciones de médicos" );
+        validarPagina( limite, filtros );
+        List< MedicoProyeccion > pagina = persistence.findPageProyecciones( despuesDeId, limite, filtros );
+        LOGGER.log( Level.FINE, "Termina proceso de consultar la página de proyecciones de médicos" );
+        return pagina;
+    }
+    
+    /**
+     * Entrega todos los médicos, ordenados por id, al consumidor dado, uno por
+     * uno y sin cargarlos todos en memoria. Se ejecuta sin transacción porque
+     * una exportación completa puede tardar más que el tiempo límite de una.
+     * 
+     * @param consumidor Función que recibe cada médico.
+     * @return Cantidad de médicos entregados.
+     */
+    @TransactionAttribute( TransactionAttributeType.NOT_SUPPORTED )
+    public long exportarMedicos( Consumer< MedicoProyeccion > consumidor ) {
+        LOGGER.log( Level.FINE, "Inicia proceso de exportar los médicos" );
+        long cantidad = persistence.recorrerProyecciones( consumidor );
+        LOGGER.log( Level.FINE, "Termina proceso de exportar {0} médicos", cantidad );
+        return cantidad;
+    }
+    
+    /**
+     * Busca los médicos cuyo nombre, apellido o especialidad contienen todas
+     * las palabras de la consulta, sin importar tildes ni mayúsculas, usando
+     * el índice en memoria.
+     * 
+     * @param consulta Texto a buscar.
+     * @param limite Cantidad máxima de resultados.
+     * @return Lista con los médicos más relevantes, de mayor a menor.
+     * @throws BusinessLogicException si el límite no está entre 1 y
+     * TAMANO_PAGINA_MAXIMO o la consulta no tiene ninguna palabra de al menos
+     * IndiceBusqueda.LONGITUD_MINIMA caracteres.
+     */
+    public List< MedicoProyeccion > buscarMedicos( String consulta, int limite ) throws BusinessLogicException {
+        if ( limite < 1 || limite > TAMANO_PAGINA_MAXIMO ) {
+            throw new BusinessLogicException( "El límite de la búsqueda debe estar entre 1 y " + TAMANO_PAGINA_MAXIMO );
+        }
+        if ( !IndiceBusqueda.esConsultaValida( consulta ) ) {
+            throw new BusinessLogicException( "La búsqueda debe tener al menos una palabra de " + IndiceBusqueda.LONGITUD_MINIMA + " o más caracteres" );
+        }
+        return indice.buscar( consulta, limite );
+    }
+    
+    /**
+     * Retorna el total de médicos y la cantidad por especialidad, desde el
+     * conteo en memoria.
+     * 
+     * @return El conteo actual.
+     */
+    public ConteoEspecialidades.Resumen getConteoEspecialidades( ) {
+        return conteo.getResumen( );
+    }
+    
+    /**
+     * Recuenta los médicos por especialidad en la base de datos y corrige el
+     * conteo en memoria.
+     * 
+     * @return El conteo reconciliado, con los ajustes aplicados.
+     */
+    public ConteoEspecialidades.Resumen reconciliarConteoEspecialidades( ) {
+        LOGGER.log( Level.INFO, "Inicia proceso de reconciliar el conteo por especialidad" );
+        return conteo.reconciliar( );
+    }
+    
+    /**
+     * Busca el médico con el id dado.
+     * 
+     * @param id Id del médico.
+     * @return El médico, de sólo lectura, o null si no existe.
+     */
+    public MedicoEntity getMedico( Long id ) {
+        return persistence.find( id );
+    }
+    
+    /**
+     * Busca el médico con el registro dado. No usa el filtro de registros:
+     * su "no" sólo es seguro para los registros que vio esta instancia, y
+     * aquí un falso negativo sería un 404 equivocado.
+     * 
+     * @param registro Registro del médico.
+     * @return El médico, o null si no hay un médico con ese registro.
+     */
+    public MedicoEntity getMedicoByRegistro( Integer registro ) {
+        return persistence.findByRegistro( registro );
+    }
+    
+    /**
+     * Indica si existe un médico con el registro dado. Al igual que
+     * getMedicoByRegistro, siempre consulta la persistencia.
+     * 
+     * @param registro Registro a verificar.
+     * @return true si existe un médico con ese registro.
+     */
+    public boolean existeRegistro( Integer registro ) {
+        return persistence.existsByRegistro( registro );
+    }
+    
+    /**
+     * Retorna las estadísticas del cache de registros, para dimensionarlo.
+     * 
+     * @return Las estadísticas actuales del cache.
+     */
+    public RegistroCache.Estadisticas getEstadisticasCache( ) {
+        return persistence.getEstadisticasCache( );
+    }
+    
+    /**
+     * Retorna las estadísticas del filtro de registros: memoria ocupada y
+     * tasa estimada de falsos positivos.
+     * 
+     * @return Las estadísticas actuales del filtro.
+     */
+    public FiltroRegistros.Estadisticas getEstadisticasFiltro( ) {
+        return filtro.getEstadisticas( );
+    }
+    
+    /**
+     * Verifica las reglas de negocio de un médico que no requieren consultar
+     * la base de datos, todas en una pasada.
+     * Es visible en el paquete para medirla aislada en los benchmarks.
+     * @param medicoEntity El médico a validar.
+     * @throws BusinessLogicException {@link ReglasIncumplidasException}, sin
+     * traza, con todas las reglas de {@link ReglasMedico} que no cumple.
+     */
+    static void validarMedico( MedicoEntity medicoEntity ) throws BusinessLogicException {
+        List< Violacion > violaciones = ReglasMedico.VALIDADOR.validar( medicoEntity );
+        if ( !violaciones.isEmpty() ) {
+            throw new ReglasIncumplidasException( violaciones );
+        }
+    }
+    
+    /**
+     * Actualiza las estructuras en memoria con un médico recién persistido.
+     * El filtro de registros se actualiza de inmediato, porque sólo puede
+     * equivocarse hacia el "tal vez"; el índice de búsqueda y el conteo por
+     * especialidad, cuando se confirma la transacción, para no incluir
+     * médicos que se revierten.
+     * @param medicoEntity El médico persistido.
+     */
+    private void registrarCreado( MedicoEntity medicoEntity ) {
+        filtro.agregar( medicoEntity.getRegistro() );
+        MedicoProyeccion proyeccion = new MedicoProyeccion( medicoEntity.getId(), medicoEntity.getNombre(),
+                medicoEntity.getApellido(), medicoEntity.getRegistro(), medicoEntity.getEspecialidad() );
+        alConfirmar( () -> {
+            indice.agregar( proyeccion );
+            conteo.agregar( proyeccion.getEspecialidad() );
+        } );
+    }
+    
+    /**
+     * Encola un médico ya validado en el escritor agrupado. Las estructuras
+     * en memoria se actualizan cuando su grupo se confirma.
+     * @param medicoEntity El médico a persistir.
+     * @return Etapa que se completa con el médico persistido.
+     */
+    private CompletionStage< MedicoEntity > crearAgrupado( MedicoEntity medicoEntity ) {
+        return escritor.encolar( medicoEntity ).thenApply( creado -> {
+            filtro.agregar( creado.getRegistro() );
+            indice.agregar( new MedicoProyeccion( creado.getId(), creado.getNombre(),
+                    creado.getApellido(), creado.getRegistro(), creado.getEspecialidad() ) );
+            conteo.agregar( creado.getEspecialidad() );
+            return creado;
+        } );
+    }
+    
+    /**
+     * Espera la confirmación de un médico encolado en el escritor agrupado.
+     * @param escritura Etapa retornada por crearAgrupado.
+     * @return El médico persistido.
+     * @throws BusinessLogicException si ya existe un médico con su registro.
+     */
+    private static MedicoEntity esperarEscritura( CompletionStage< MedicoEntity > escritura ) throws BusinessLogicException {
+        try {
+            return escritura.toCompletableFuture().get( ESPERA_ESCRITURA_AGRUPADA, TimeUnit.SECONDS );
+        } catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof BusinessLogicException ) {
+                throw ( BusinessLogicException ) e.getCause();
+            }
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw ( RuntimeException ) e.getCause();
+            }
+            throw new EJBException( e );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new EJBException( e );
+        } catch ( TimeoutException e ) {
+            throw new EJBException( "El escritor agrupado no confirmó el médico a tiempo", e );
+        }
+    }
+    
+    /**
+     * Ejecuta una acción cuando se confirme la transacción en curso, o de
+     * inmediato si no hay una (como en createMedicos, cuyas llamadas a la
+     * persistencia ya se confirmaron al retornar).
+     * @param accion Acción a ejecutar.
+     */
+    private void alConfirmar( Runnable accion ) {
+        if ( transacciones.getTransactionStatus( ) == Status.STATUS_NO_TRANSACTION ) {
+            accion.run();
+            return;
+        }
+        transacciones.registerInterposedSynchronization( new Synchronization( ) {
+            @Override
+            public void beforeCompletion( ) {
+                // Nada que hacer antes de confirmar
+            }
+            
+            @Override
+            public void afterCompletion( int estado ) {
+                if ( estado == Status.STATUS_COMMITTED ) {
+                    accion.run();
+                }
+            }
+        } );
+    }
+    
+    /**
+     * Verifica el tamaño de lote de una creación masiva. Es pública para que
+     * quien arma los lotes mientras lee (como la importación de archivos)
+     * lo rechace antes de leer.
+     * @param tamanoLote Cantidad de médicos por transacción.
+     * @throws BusinessLogicException si el tamaño de lote no está entre 1 y
+     * TAMANO_LOTE_MAXIMO.
+     */
+    public static void validarTamanoLote( int tamanoLote ) throws BusinessLogicException {
+        if ( tamanoLote < 1 || tamanoLote > TAMANO_LOTE_MAXIMO ) {
+            throw new BusinessLogicException( "El tamaño de lote debe estar entre 1 y " + TAMANO_LOTE_MAXIMO );
+        }
+    }
+    
+    /**
+     * Verifica los parámetros de una página del listado de médicos.
+     * @param limite Cantidad máxima de médicos de la página.
+     * @param filtros Filtros de la página.
+     * @throws BusinessLogicException si el límite no está entre 1 y
+     * TAMANO_PAGINA_MAXIMO o se filtra por un atributo no permitido.
+     */
+    private void validarPagina( int limite, Map< String, ? > filtros ) throws BusinessLogicException {
+        if ( limite < 1 || limite > TAMANO_PAGINA_MAXIMO ) {
+            throw new BusinessLogicException( "El límite de la página debe estar entre 1 y " + TAMANO_PAGINA_MAXIMO );
+        }
+        for ( String atributo : filtros.keySet() ) {
+            if ( !MedicoPersistence.FILTROS.contains( atributo ) ) {
+                throw new BusinessLogicException( "No se puede filtrar los médicos por \"" + atributo + "\"" );
+            }
+        }
+    }
+    
+    /**
+     * Construye el mensaje de error para un registro que ya está en uso.
+     * @param medicoEntity El médico con el registro repetido.
+     * @return El mensaje de error.
+     */
+    private static String mensajeRegistroRepetido( MedicoEntity medicoEntity ) {
+        return "Ya existe un Medico con el registro \"" + medicoEntity.getRegistro() + "\"";
     }
 }
@@ -1,23 +1,121 @@
 package co.edu.uniandes.csw.parcial1.entities;
 
 import java.io.Serializable;
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 
 /**
  * Entidad que representa un médico.
+ * El registro médico está respaldado por una restricción de unicidad (y su
+ * índice) en la base de datos, que es la que garantiza que no existan dos
+ * médicos con el mismo registro. Los índices por especialidad y apellido
+ * (seguidos del id) permiten paginar por llave los listados filtrados.
+ * Las consultas fijas sobre médicos se declaran como consultas con nombre,
+ * que se analizan una sola vez al desplegar la unidad de persistencia.
+ * La versión la incrementa la unidad de persistencia en cada actualización;
+ * junto con el id identifica el estado del médico ante los clientes.
  * @author j.ramirez28
  */
 @Entity
+@Table( uniqueConstraints = @UniqueConstraint( name = MedicoEntity.UK_REGISTRO, columnNames = "REGISTRO" ),
+        indexes = {
+            @Index( name = "IX_MEDICO_ESPECIALIDAD", columnList = "ESPECIALIDAD, ID" ),
+            @Index( name = "IX_MEDICO_APELLIDO", columnList = "APELLIDO, ID" )
+        } )
+@NamedQueries( {
+    @NamedQuery( name = MedicoEntity.FIND_BY_REGISTRO,
+            query = "Select e From MedicoEntity e where e.registro = :registro",
+            hints = @QueryHint( name = QueryHints.READ_ONLY, value = HintValues.TRUE ) ),
+    @NamedQuery( name = MedicoEntity.FIND_ID_BY_REGISTRO,
+            query = "Select e.id From MedicoEntity e where e.registro = :registro" ),
+    @NamedQuery( name = MedicoEntity.FIND_REGISTROS_EXISTENTES,
+            query = "Select e.registro From MedicoEntity e where e.registro in :registros" ),
+    @NamedQuery( name = MedicoEntity.FIND_REGISTROS,
+            query = "Select e.id, e.registro From MedicoEntity e where e.id > :despuesDeId order by e.id" ),
+    @NamedQuery( name = MedicoEntity.FIND_PAGE,
+            query = "Select e From MedicoEntity e where e.id > :despuesDeId order by e.id",
+            hints = @QueryHint( name = QueryHints.READ_ONLY, value = HintValues.TRUE ) ),
+    @NamedQuery( name = MedicoEntity.FIND_PAGE_PROYECCION,
+            query = "Select new co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion( e.id, e.nombre, e.apellido, e.registro, e.especialidad )"
+                    + " From MedicoEntity e where e.id > :despuesDeId order by e.id" ),
+    @NamedQuery( name = MedicoEntity.FIND_ALL_PROYECCION,
+            query = "Select new co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion( e.id, e.nombre, e.apellido, e.registro, e.especialidad )"
+                    + " From MedicoEntity e order by e.id" ),
+    @NamedQuery( name = MedicoEntity.COUNT_BY_ESPECIALIDAD,
+            query = "Select e.especialidad, count( e ) From MedicoEntity e group by e.especialidad" )
+} )
 public class MedicoEntity extends BaseEntity implements Serializable {
     
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Nombre de la restricción de unicidad sobre el registro médico.
+     */
+    public static final String UK_REGISTRO = "UK_MEDICO_REGISTRO";
+    
+    /**
+     * Consulta del médico con un registro (parámetro registro).
+     */
+    public static final String FIND_BY_REGISTRO = "MedicoEntity.findByRegistro";
+    
+    /**
+     * Consulta del id del médico con un registro (parámetro registro).
+     */
+    public static final String FIND_ID_BY_REGISTRO = "MedicoEntity.findIdByRegistro";
+    
+    /**
+     * Consulta de los registros existentes entre los dados (parámetro registros).
+     */
+    public static final String FIND_REGISTROS_EXISTENTES = "MedicoEntity.findRegistrosExistentes";
+    
+    /**
+     * Consulta de los pares (id, registro) ordenados por id (parámetro despuesDeId).
+     */
+    public static final String FIND_REGISTROS = "MedicoEntity.findRegistros";
+    
+    /**
+     * Consulta de los médicos ordenados por id, sin filtros (parámetro despuesDeId).
+     */
+    public static final String FIND_PAGE = "MedicoEntity.findPage";
+    
+    /**
+     * Consulta de las proyecciones de los médicos ordenados por id, sin
+     * filtros (parámetro despuesDeId).
+     */
+    public static final String FIND_PAGE_PROYECCION = "MedicoEntity.findPageProyeccion";
+    
+    /**
+     * Consulta de las proyecciones de todos los médicos ordenados por id.
+     */
+    public static final String FIND_ALL_PROYECCION = "MedicoEntity.findAllProyeccion";
+    
+    /**
+     * Consulta de la cantidad de médicos por especialidad.
+     */
+    public static final String COUNT_BY_ESPECIALIDAD = "MedicoEntity.countByEspecialidad";
+    
     //-------------------------------------------------------------------------
     // ATRIBUTOS
     //-------------------------------------------------------------------------
 
     private String nombre;
     private String apellido;
+    @Column( name = "REGISTRO" )
     private Integer registro;
     private String especialidad;
+    @Version
+    private Long version;
     
     //-------------------------------------------------------------------------
     // CONSTRUCTOR
@@ -62,6 +160,10 @@ public class MedicoEntity extends BaseEntity implements Serializable {
     public void setEspecialidad(String especialidad) {
         this.especialidad = especialidad;
     }
+
+    public Long getVersion() {
+        return version;
+    }
     
     
 }
@@ -65,4 +65,15 @@ public class BusinessLogicException extends Exception {
     public BusinessLogicException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    /**
+     * Constructor con un mensaje, que puede omitir la traza.
+     *
+     * @param message mensaje de la excepción
+     * @param writableStackTrace si se guarda la traza. Sin ella la excepción
+     * se crea mucho más rápido.
+     */
+    protected BusinessLogicException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
@@ -0,0 +1,32 @@
+package co.edu.uniandes.csw.parcial1.exceptions;
+
+import co.edu.uniandes.csw.parcial1.validacion.Violacion;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Excepción con las reglas de negocio que un objeto no cumple. No guarda la
+ * traza: las reglas se evalúan con un {@link co.edu.uniandes.csw.parcial1.validacion.Validador}
+ * sin lanzar excepciones, y ésta sólo se crea para reportar el rechazo a
+ * quien llamó la lógica, donde la traza no aporta.
+ * @author j.ramirez28
+ */
+public class ReglasIncumplidasException extends BusinessLogicException {
+    
+    private final List< Violacion > violaciones;
+    
+    /**
+     * Constructor con las violaciones.
+     *
+     * @param violaciones Violaciones del objeto, al menos una.
+     */
+    public ReglasIncumplidasException( List< Violacion > violaciones ) {
+        super( Violacion.mensajes( violaciones ), false );
+        this.violaciones = Collections.unmodifiableList( new ArrayList<>( violaciones ) );
+    }
+    
+    public List< Violacion > getViolaciones( ) {
+        return violaciones;
+    }
+}
@@ -0,0 +1,255 @@
+package co.edu.uniandes.csw.parcial1.persistence;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contabilidad de las sentencias SQL que envía EclipseLink, alimentada por
+ * {@link PerfiladorSql}:
+ * <ul>
+ * <li>Por solicitud: sentencias, lecturas, filas y tiempo de las sentencias
+ * ejecutadas en el hilo de la solicitud, entre {@link #iniciarSolicitud()} y
+ * {@link #terminarSolicitud(Solicitud)}, y en los hilos a los que se pase
+ * con {@link #vincularSolicitud(Solicitud)}.</li>
+ * <li>Por sentencia: ejecuciones, filas, tiempo total y máximo de cada texto
+ * SQL, hasta MAXIMO_SENTENCIAS textos distintos; las demás se acumulan en
+ * OTRAS.</li>
+ * </ul>
+ * Las sentencias que tardan más de parcial1.sql.umbral milisegundos (100 por
+ * defecto) se registran en el log con la forma de sus parámetros (nombre y
+ * tipo, sin los valores).
+ * @author j.ramirez28
+ */
+public final class EstadisticasSql {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Cantidad máxima de textos SQL distintos con agregados propios.
+     */
+    public static final int MAXIMO_SENTENCIAS = 500;
+    
+    /**
+     * Texto con el que se agrupan las sentencias que superan el máximo.
+     */
+    public static final String OTRAS = "(otras)";
+    
+    /**
+     * Duración a partir de la cual una sentencia es lenta, en nanosegundos.
+     */
+    static final long UMBRAL_LENTA = TimeUnit.MILLISECONDS.toNanos( Long.getLong( "parcial1.sql.umbral", 100L ) );
+    
+    private static final Map< String, Acumulado > ACUMULADOS = new ConcurrentHashMap<>( );
+    
+    private static final ThreadLocal< Solicitud > SOLICITUD = new ThreadLocal<>( );
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    private EstadisticasSql( ) {
+        // Clase de utilidad
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Empieza a contar las sentencias del hilo actual, reemplazando la cuenta
+     * anterior si la había.
+     * @return La cuenta de la solicitud.
+     */
+    public static Solicitud iniciarSolicitud( ) {
+        Solicitud solicitud = new Solicitud( );
+        SOLICITUD.set( solicitud );
+        return solicitud;
+    }
+    
+    /**
+     * Deja de contar las sentencias de una solicitud en el hilo actual.
+     * @param solicitud Cuenta retornada por iniciarSolicitud.
+     */
+    public static void terminarSolicitud( Solicitud solicitud ) {
+        if ( SOLICITUD.get() == solicitud ) {
+            SOLICITUD.remove();
+        }
+    }
+    
+    /**
+     * Retorna la cuenta de la solicitud del hilo actual.
+     * @return La cuenta, o null si el hilo no cuenta sentencias.
+     */
+    public static Solicitud getSolicitud( ) {
+        return SOLICITUD.get();
+    }
+    
+    /**
+     * Cuenta las sentencias del hilo actual en la solicitud dada, por ejemplo
+     * en una tarea que la solicitud dejó en un ejecutor.
+     * @param solicitud Cuenta a usar, o null para dejar de contar.
+     * @return La cuenta que usaba el hilo, para restaurarla al terminar.
+     */
+    public static Solicitud vincularSolicitud( Solicitud solicitud ) {
+        Solicitud anterior = SOLICITUD.get();
+        if ( solicitud == null ) {
+            SOLICITUD.remove();
+        } else {
+            SOLICITUD.set( solicitud );
+        }
+        return anterior;
+    }
+    
+    /**
+     * Retorna los agregados por texto SQL, del mayor al menor tiempo total.
+     * @return Copia de los agregados.
+     */
+    public static List< Agregado > getAgregados( ) {
+        List< Agregado > agregados = new ArrayList<>( ACUMULADOS.size() );
+        for ( Map.Entry< String, Acumulado > entrada : ACUMULADOS.entrySet() ) {
+            Acumulado acumulado = entrada.getValue();
+            agregados.add( new Agregado( entrada.getKey(), acumulado.ejecuciones.sum(), acumulado.filas.sum(),
+                    acumulado.nanos.sum(), acumulado.maximo.get() ) );
+        }
+        agregados.sort( Comparator.comparingLong( Agregado::getNanos ).reversed() );
+        return agregados;
+    }
+    
+    /**
+     * Descarta los agregados por texto SQL.
+     */
+    public static void reiniciar( ) {
+        ACUMULADOS.clear();
+    }
+    
+    /**
+     * Registra una sentencia ejecutada en el hilo actual.
+     * @param sql Texto de la sentencia.
+     * @param lectura Si es una consulta (SELECT).
+     * @param nanos Duración, en nanosegundos.
+     */
+    static void registrarSentencia( String sql, boolean lectura, long nanos ) {
+        Solicitud solicitud = SOLICITUD.get();
+        if ( solicitud != null ) {
+            solicitud.sentencias.incrementAndGet();
+            if ( lectura ) {
+                solicitud.lecturas.incrementAndGet();
+            }
+            solicitud.nanos.addAndGet( nanos );
+        }
+        Acumulado acumulado = acumulado( sql );
+        acumulado.ejecuciones.increment();
+        acumulado.nanos.add( nanos );
+        acumulado.maximo.accumulateAndGet( nanos, Math::max );
+    }
+    
+    /**
+     * Registra las filas leídas o afectadas por una consulta del hilo actual.
+     * @param sql Texto de la sentencia de la consulta.
+     * @param filas Cantidad de filas.
+     */
+    static void registrarFilas( String sql, long filas ) {
+        Solicitud solicitud = SOLICITUD.get();
+        if ( solicitud != null ) {
+            solicitud.filas.addAndGet( filas );
+        }
+        acumulado( sql ).filas.add( filas );
+    }
+    
+    private static Acumulado acumulado( String sql ) {
+        Acumulado acumulado = ACUMULADOS.get( sql );
+        if ( acumulado != null ) {
+            return acumulado;
+        }
+        // El tamaño es aproximado con escrituras concurrentes; basta para acotar
+        String llave = ACUMULADOS.size() < MAXIMO_SENTENCIAS ? sql : OTRAS;
+        return ACUMULADOS.computeIfAbsent( llave, k -> new Acumulado( ) );
+    }
+    
+    /**
+     * Contadores de una solicitud. Se actualizan desde el hilo de la
+     * solicitud y pueden leerse desde otro.
+     */
+    public static final class Solicitud {
+        
+        private final AtomicLong sentencias = new AtomicLong( );
+        private final AtomicLong lecturas = new AtomicLong( );
+        private final AtomicLong filas = new AtomicLong( );
+        private final AtomicLong nanos = new AtomicLong( );
+        
+        public long getSentencias( ) {
+            return sentencias.get();
+        }
+        
+        public long getLecturas( ) {
+            return lecturas.get();
+        }
+        
+        public long getFilas( ) {
+            return filas.get();
+        }
+        
+        public long getNanos( ) {
+            return nanos.get();
+        }
+    }
+    
+    /**
+     * Agregados de un texto SQL en un instante.
+     */
+    public static final class Agregado {
+        
+        private final String sql;
+        private final long ejecuciones;
+        private final long filas;
+        private final long nanos;
+        private final long maximo;
+        
+        Agregado( String sql, long ejecuciones, long filas, long nanos, long maximo ) {
+            this.sql = sql;
+            this.ejecuciones = ejecuciones;
+            this.filas = filas;
+            this.nanos = nanos;
+            this.maximo = maximo;
+        }
+        
+        public String getSql( ) {
+            return sql;
+        }
+        
+        public long getEjecuciones( ) {
+            return ejecuciones;
+        }
+        
+        public long getFilas( ) {
+            return filas;
+        }
+        
+        public long getNanos( ) {
+            return nanos;
+        }
+        
+        public long getMaximo( ) {
+            return maximo;
+        }
+    }
+    
+    /**
+     * Contadores de un texto SQL.
+     */
+    private static final class Acumulado {
+        
+        private final LongAdder ejecuciones = new LongAdder( );
+        private final LongAdder filas = new LongAdder( );
+        private final LongAdder nanos = new LongAdder( );
+        private final AtomicLong maximo = new AtomicLong( );
+    }
+}
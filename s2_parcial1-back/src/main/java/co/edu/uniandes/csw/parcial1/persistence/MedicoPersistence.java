@@ -1,13 +1,30 @@
 package co.edu.uniandes.csw.parcial1.persistence;
 
 import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
+import co.edu.uniandes.csw.parcial1.exceptions.BusinessLogicException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.queries.ScrollableCursor;
 
 /**
  * Clase que maneja la persistencia para MedicoEntity.
@@ -21,6 +38,28 @@ public class MedicoPersistence {
     //-------------------------------------------------------------------------
     private static final Logger LOGGER = Logger.getLogger(MedicoPersistence.class.getName());
     
+    /**
+     * Cantidad de filas que el driver trae en cada viaje al recorrer un cursor.
+     */
+    private static final int TAMANO_FETCH = 500;
+    
+    /**
+     * SQLState estándar de una violación de unicidad (llave o índice único).
+     */
+    private static final String SQLSTATE_UNICIDAD = "23505";
+    
+    /**
+     * Atributos de MedicoEntity por los que se puede filtrar un listado.
+     */
+    public static final Set< String > FILTROS = Collections.unmodifiableSet(
+            new HashSet<>( Arrays.asList( "nombre", "apellido", "registro", "especialidad" ) ) );
+    
+    /**
+     * Propiedades de las búsquedas por id de entidades de sólo lectura.
+     */
+    private static final Map< String, Object > SOLO_LECTURA =
+            Collections.singletonMap( QueryHints.READ_ONLY, ( Object ) HintValues.TRUE );
+    
     //-------------------------------------------------------------------------
     // ATRIBUTOS
     //-------------------------------------------------------------------------
@@ -31,43 +70,299 @@ public class MedicoPersistence {
     @PersistenceContext(unitName = "parcial1PU")
     protected EntityManager em;
     
+    /**
+     * Cache de la asociación registro-id de los médicos.
+     */
+    @Inject
+    private RegistroCache registroCache;
+    
     //-------------------------------------------------------------------------
     // MÉTODOS
     //-------------------------------------------------------------------------
     
     /**
      * Persiste un objeto médico en la base de datos.
+     * El INSERT se envía de inmediato (flush) para que una violación de la
+     * restricción de unicidad del registro se detecte en este mismo viaje a
+     * la base de datos, sin consultar antes si el registro ya existe.
      * @param medico Objeto que se va a persistir. 
      * @return objeto persistido.
+     * @throws BusinessLogicException si ya existe un médico con el mismo registro.
      */
-    public MedicoEntity create( MedicoEntity medico ) {
-        LOGGER.log( Level.INFO, "Creando un médico nuevo" );
-        em.persist( medico );
-        LOGGER.log( Level.INFO, "Médico creado" );
+    public MedicoEntity create( MedicoEntity medico ) throws BusinessLogicException {
+        LOGGER.log( Level.FINE, "Creando un médico nuevo" );
+        registroCache.invalidarAlTerminar( medico.getRegistro() );
+        try {
+            em.persist( medico );
+            em.flush( );
+        }
+        catch ( PersistenceException e ) {
+            if ( esViolacionDeUnicidad( e ) ) {
+                LOGGER.log( Level.FINE, "Registro duplicado", e );
+                throw new BusinessLogicException( "Ya existe un Medico con el registro \"" + medico.getRegistro() + "\"" );
+            }
+            throw e;
+        }
+        LOGGER.log( Level.FINE, "Médico creado" );
         return medico;
     }
     
     /**
-     * Busca si hay algún médico con el registro que se envía de argumento
+     * Persiste un grupo de médicos en una sola transacción.
+     * Con la escritura por lotes de EclipseLink los INSERT se agrupan en
+     * lotes JDBC al hacer flush, y los ids salen del generador por bloques,
+     * de modo que no hay un viaje a la base de datos por cada médico.
+     * @param medicos Médicos que se van a persistir.
+     * @return la misma lista, con los ids asignados.
+     * @throws BusinessLogicException si alguno de los registros ya existe; en
+     * ese caso la transacción se revierte y no se persiste ninguno.
+     */
+    public List< MedicoEntity > createAll( List< MedicoEntity > medicos ) throws BusinessLogicException {
+        LOGGER.log( Level.FINE, "Creando un lote de {0} médicos", medicos.size() );
+        try {
+            for ( MedicoEntity medico : medicos ) {
+                registroCache.invalidarAlTerminar( medico.getRegistro() );
+                em.persist( medico );
+            }
+            em.flush( );
+        }
+        catch ( PersistenceException e ) {
+            if ( esViolacionDeUnicidad( e ) ) {
+                LOGGER.log( Level.FINE, "Registro duplicado en el lote", e );
+                throw new BusinessLogicException( "Ya existe un Medico con alguno de los registros del lote" );
+            }
+            throw e;
+        }
+        LOGGER.log( Level.FINE, "Lote de médicos creado" );
+        return medicos;
+    }
+    
+    /**
+     * Busca cuáles de los registros dados ya pertenecen a algún médico.
+     * @param registros Registros a verificar.
+     * @return Lista con los registros que ya existen en la base de datos.
+     */
+    public List< Integer > findRegistrosExistentes( Collection< Integer > registros ) {
+        LOGGER.log( Level.FINE, "Consultando {0} registros existentes", registros.size() );
+        TypedQuery< Integer > query = em.createNamedQuery( MedicoEntity.FIND_REGISTROS_EXISTENTES, Integer.class );
+        return query.setParameter( "registros", registros ).getResultList();
+    }
+    
+    /**
+     * Retorna los pares (id, registro) de los médicos en bloques ordenados
+     * por id, sin cargar las entidades completas.
+     * @param despuesDeId Último id del bloque anterior, o null para el primero.
+     * @param limite Cantidad máxima de pares del bloque.
+     * @return Lista de arreglos con el id y el registro de cada médico.
+     */
+    public List< Object[] > findRegistros( Long despuesDeId, int limite ) {
+        TypedQuery< Object[] > query = em.createNamedQuery( MedicoEntity.FIND_REGISTROS, Object[].class );
+        query.setParameter( "despuesDeId", despuesDeId == null ? Long.MIN_VALUE : despuesDeId );
+        return query.setMaxResults( limite ).getResultList();
+    }
+
+    /**
+     * Retorna una página de médicos ordenados por id, usando paginación por
+     * llave: la página empieza después del último id de la página anterior,
+     * de modo que la base de datos busca directamente en el índice y el costo
+     * no crece con el número de página (no hay OFFSET). Sin filtros se usa la
+     * consulta con nombre; con filtros la consulta se arma según los atributos.
+     * @param despuesDeId Último id de la página anterior, o null para la primera página.
+     * @param limite Cantidad máxima de médicos de la página.
+     * @param filtros Igualdades sobre atributos del médico; las llaves deben
+     * estar en {@link #FILTROS}.
+     * @return Lista con los médicos de la página.
+     */
+    public List< MedicoEntity > findPage( Long despuesDeId, int limite, Map< String, ? > filtros ) {
+        LOGGER.log( Level.FINE, "Consultando página de médicos después del id {0}", despuesDeId );
+        return consultarPagina( MedicoEntity.FIND_PAGE, "Select e", MedicoEntity.class, despuesDeId, limite, filtros );
+    }
+    
+    /**
+     * Retorna una página de médicos como en {@link #findPage}, pero construye
+     * directamente los modelos de lectura en vez de materializar entidades.
+     * @param despuesDeId Último id de la página anterior, o null para la primera página.
+     * @param limite Cantidad máxima de médicos de la página.
+     * @param filtros Igualdades sobre atributos del médico; las llaves deben
+     * estar en {@link #FILTROS}.
+     * @return Lista con las proyecciones de los médicos de la página.
+     */
+    public List< MedicoProyeccion > findPageProyecciones( Long despuesDeId, int limite, Map< String, ? > filtros ) {
+        LOGGER.log( Level.FINE, "Consultando proyecciones de médicos después del id {0}", despuesDeId );
+        return consultarPagina( MedicoEntity.FIND_PAGE_PROYECCION, MedicoProyeccion.SELECCION, MedicoProyeccion.class, despuesDeId, limite, filtros );
+    }
+    
+    /**
+     * Recorre las proyecciones de todos los médicos, ordenados por id, con un
+     * cursor del lado del servidor: las filas se leen de a TAMANO_FETCH y se
+     * entregan una por una al consumidor sin acumularse, de modo que la
+     * memoria usada no depende del tamaño de la tabla.
+     * No requiere una transacción, para que un recorrido largo no quede
+     * sujeto a su tiempo límite.
+     * @param consumidor Función que recibe cada médico.
+     * @return Cantidad de médicos recorridos.
+     */
+    @TransactionAttribute( TransactionAttributeType.SUPPORTS )
+    public long recorrerProyecciones( Consumer< MedicoProyeccion > consumidor ) {
+        LOGGER.log( Level.FINE, "Recorriendo las proyecciones de los médicos" );
+        Query query = em.createNamedQuery( MedicoEntity.FIND_ALL_PROYECCION );
+        query.setHint( QueryHints.SCROLLABLE_CURSOR, HintValues.TRUE );
+        query.setHint( QueryHints.JDBC_FETCH_SIZE, TAMANO_FETCH );
+        ScrollableCursor cursor = ( ScrollableCursor ) query.getSingleResult();
+        long cantidad = 0;
+        try {
+            while ( cursor.hasNext() ) {
+                consumidor.accept( ( MedicoProyeccion ) cursor.next() );
+                cantidad++;
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        LOGGER.log( Level.FINE, "Se recorrieron {0} médicos", cantidad );
+        return cantidad;
+    }
+    
+    /**
+     * Cuenta los médicos de cada especialidad con una consulta agrupada.
+     * @return Lista de arreglos con la especialidad y la cantidad de médicos.
+     */
+    public List< Object[] > countByEspecialidad( ) {
+        LOGGER.log( Level.FINE, "Contando los médicos por especialidad" );
+        return em.createNamedQuery( MedicoEntity.COUNT_BY_ESPECIALIDAD, Object[].class ).getResultList();
+    }
+    
+    /**
+     * Busca el médico con el id dado. Se resuelve desde el cache de segundo
+     * nivel cuando el médico está en él, y se retorna de sólo lectura: no
+     * debe modificarse.
+     * @param id Id del médico.
+     * @return El médico, o null si no existe.
+     */
+    public MedicoEntity find( Long id ) {
+        return em.find( MedicoEntity.class, id, SOLO_LECTURA );
+    }
+    
+    /**
+     * Busca si hay algún médico con el registro que se envía de argumento.
+     * Primero consulta el cache de registros: si el registro es conocido el
+     * médico se obtiene por id (del cache de segundo nivel) o se sabe que no
+     * existía hace poco, sin consultar la base de datos. Los médicos
+     * retornados son de sólo lectura: no deben modificarse.
      *
      * @param registro Registro del médico que se está buscando
      * @return null si no existe ningún médico con el registro del argumento.
      * Si existe alguna devuelve la primera.
      */
     public MedicoEntity findByRegistro(Integer registro) {
-        LOGGER.log(Level.INFO, "Consultando médico por registro ", registro);
-        TypedQuery query = em.createQuery("Select e From MedicoEntity e where e.registro = :registro", MedicoEntity.class);
-        query = query.setParameter( "registro", registro );
-        List< MedicoEntity > encontradas = query.getResultList();
-        MedicoEntity resultado;
-        if (encontradas == null) {
-            resultado = null;
-        } else if (encontradas.isEmpty()) {
-            resultado = null;
-        } else {
-            resultado = encontradas.get(0);
+        LOGGER.log(Level.FINE, "Consultando médico por registro {0}", registro);
+        Long id = registroCache.buscar( registro );
+        if ( id != null ) {
+            if ( id == RegistroCache.NO_EXISTE ) {
+                return null;
+            }
+            MedicoEntity enCache = em.find( MedicoEntity.class, id );
+            if ( enCache != null && registro.equals( enCache.getRegistro() ) ) {
+                return enCache;
+            }
+            registroCache.invalidar( registro );
         }
-        LOGGER.log(Level.INFO, "Saliendo de consultar médico por registro ", registro);
+        long version = registroCache.version( registro );
+        TypedQuery< MedicoEntity > query = em.createNamedQuery( MedicoEntity.FIND_BY_REGISTRO, MedicoEntity.class );
+        query = query.setParameter( "registro", registro ).setMaxResults( 1 );
+        List< MedicoEntity > encontradas = query.getResultList();
+        MedicoEntity resultado = encontradas.isEmpty() ? null : encontradas.get( 0 );
+        registroCache.guardar( registro, resultado == null ? RegistroCache.NO_EXISTE : resultado.getId(), version );
+        LOGGER.log(Level.FINE, "Saliendo de consultar médico por registro {0}", registro);
         return resultado;
     }
+    
+    /**
+     * Indica si algún médico tiene el registro dado. Sólo trae el id de la
+     * primera fila, sin construir la entidad.
+     * @param registro Registro a verificar.
+     * @return true si existe un médico con ese registro.
+     */
+    public boolean existsByRegistro( Integer registro ) {
+        Long id = registroCache.buscar( registro );
+        if ( id != null ) {
+            return id != RegistroCache.NO_EXISTE;
+        }
+        long version = registroCache.version( registro );
+        TypedQuery< Long > query = em.createNamedQuery( MedicoEntity.FIND_ID_BY_REGISTRO, Long.class );
+        List< Long > ids = query.setParameter( "registro", registro ).setMaxResults( 1 ).getResultList();
+        registroCache.guardar( registro, ids.isEmpty() ? RegistroCache.NO_EXISTE : ids.get( 0 ), version );
+        return !ids.isEmpty();
+    }
+    
+    /**
+     * Retorna las estadísticas de uso del cache de registros.
+     * @return Las estadísticas actuales del cache.
+     */
+    public RegistroCache.Estadisticas getEstadisticasCache( ) {
+        return registroCache.getEstadisticas( );
+    }
+    
+    /**
+     * Ejecuta la consulta de una página ordenada por id. Sin filtros usa la
+     * consulta con nombre; con filtros arma la consulta según los atributos,
+     * con la selección dada.
+     * @param <T> Tipo de las filas de la página.
+     * @param consultaSinFiltros Nombre de la consulta sin filtros.
+     * @param seleccion Cláusula Select de la consulta sobre MedicoEntity e.
+     * @param tipo Clase de las filas de la página.
+     * @param despuesDeId Último id de la página anterior, o null para la primera página.
+     * @param limite Cantidad máxima de filas de la página.
+     * @param filtros Igualdades sobre atributos del médico.
+     * @return Lista con las filas de la página.
+     */
+    private < T > List< T > consultarPagina( String consultaSinFiltros, String seleccion, Class< T > tipo,
+            Long despuesDeId, int limite, Map< String, ? > filtros ) {
+        if ( filtros.isEmpty() ) {
+            TypedQuery< T > query = em.createNamedQuery( consultaSinFiltros, tipo );
+            query.setParameter( "despuesDeId", despuesDeId == null ? Long.MIN_VALUE : despuesDeId );
+            return query.setMaxResults( limite ).getResultList();
+        }
+        StringBuilder jpql = new StringBuilder( seleccion ).append( " From MedicoEntity e where 1 = 1" );
+        if ( despuesDeId != null ) {
+            jpql.append( " and e.id > :despuesDeId" );
+        }
+        for ( String atributo : filtros.keySet() ) {
+            if ( !FILTROS.contains( atributo ) ) {
+                throw new IllegalArgumentException( "No se puede filtrar por " + atributo );
+            }
+            jpql.append( " and e." ).append( atributo ).append( " = :" ).append( atributo );
+        }
+        jpql.append( " order by e.id" );
+        TypedQuery< T > query = em.createQuery( jpql.toString(), tipo );
+        if ( despuesDeId != null ) {
+            query.setParameter( "despuesDeId", despuesDeId );
+        }
+        for ( Map.Entry< String, ? > filtro : filtros.entrySet() ) {
+            query.setParameter( filtro.getKey(), filtro.getValue() );
+        }
+        return query.setMaxResults( limite ).getResultList();
+    }
+    
+    /**
+     * Indica si la excepción fue causada por una violación de unicidad en la
+     * base de datos, recorriendo la cadena de causas hasta la SQLException.
+     * @param e Excepción lanzada por el proveedor de persistencia.
+     * @return true si alguna causa es una violación de unicidad.
+     */
+    private static boolean esViolacionDeUnicidad( Throwable e ) {
+        Throwable actual = e;
+        while ( actual != null ) {
+            if ( actual instanceof SQLException ) {
+                // En escritura por lotes la causa real puede venir encadenada
+                for ( SQLException sql = ( SQLException ) actual; sql != null; sql = sql.getNextException() ) {
+                    if ( SQLSTATE_UNICIDAD.equals( sql.getSQLState() ) ) {
+                        return true;
+                    }
+                }
+            }
+            actual = actual.getCause();
+        }
+        return false;
+    }
 }
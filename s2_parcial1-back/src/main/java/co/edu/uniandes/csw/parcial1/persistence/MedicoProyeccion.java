@@ -0,0 +1,76 @@
+package co.edu.uniandes.csw.parcial1.persistence;
+
+import java.io.Serializable;
+
+/**
+ * Modelo de lectura de un médico con sólo los atributos que se exponen.
+ * Se construye directamente en las consultas con expresiones de constructor
+ * (Select new), de modo que las filas no se registran en el contexto de
+ * persistencia ni pasan por el seguimiento de cambios de una entidad.
+ * @author j.ramirez28
+ */
+public class MedicoProyeccion implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Expresión de constructor para las consultas JPQL sobre MedicoEntity e.
+     */
+    public static final String SELECCION = "Select new co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion( e.id, e.nombre, e.apellido, e.registro, e.especialidad )";
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+
+    private final Long id;
+    private final String nombre;
+    private final String apellido;
+    private final Integer registro;
+    private final String especialidad;
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Constructor con todos los atributos, en el orden de SELECCION.
+     * @param id Id del médico.
+     * @param nombre Nombre del médico.
+     * @param apellido Apellido del médico.
+     * @param registro Registro del médico.
+     * @param especialidad Especialidad del médico.
+     */
+    public MedicoProyeccion( Long id, String nombre, String apellido, Integer registro, String especialidad ) {
+        this.id = id;
+        this.nombre = nombre;
+        this.apellido = apellido;
+        this.registro = registro;
+        this.especialidad = especialidad;
+    }
+    
+    //-------------------------------------------------------------------------
+    // GETTERS
+    //-------------------------------------------------------------------------
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getApellido() {
+        return apellido;
+    }
+
+    public Integer getRegistro() {
+        return registro;
+    }
+
+    public String getEspecialidad() {
+        return especialidad;
+    }
+}
@@ -0,0 +1,156 @@
+package co.edu.uniandes.csw.parcial1.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.persistence.internal.helper.DatabaseField;
+import org.eclipse.persistence.internal.sessions.AbstractRecord;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.Cursor;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.queries.ModifyQuery;
+import org.eclipse.persistence.sessions.Record;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.sessions.SessionProfilerAdapter;
+
+/**
+ * Perfilador de EclipseLink que mide cada sentencia SQL (la operación
+ * StatementExecute) y las filas de cada consulta, y lo entrega a
+ * {@link EstadisticasSql}. Se activa con la propiedad eclipselink.profiler
+ * de persistence.xml; EclipseLink crea la instancia, por eso el estado vive
+ * en EstadisticasSql y no en un bean.
+ * EclipseLink también mide con StatementExecute el cierre de cada
+ * sentencia; para no contarla dos veces sólo se cuenta la primera medición
+ * después de cada preparación (SqlPrepare).
+ * Las filas se cuentan sólo para las consultas de primer nivel que
+ * ejecutaron al menos una sentencia, de modo que las resueltas con el cache
+ * no cuentan.
+ * @author j.ramirez28
+ */
+public class PerfiladorSql extends SessionProfilerAdapter {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( PerfiladorSql.class.getName() );
+    
+    private static final String DESCONOCIDA = "(desconocida)";
+    
+    private static final ThreadLocal< Estado > ESTADO = ThreadLocal.withInitial( Estado::new );
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    @Override
+    public void startOperationProfile( String operacion, DatabaseQuery consulta, int peso ) {
+        if ( SessionProfiler.StatementExecute.equals( operacion ) ) {
+            Estado estado = ESTADO.get();
+            if ( estado.preparada ) {
+                estado.inicio = System.nanoTime();
+            }
+        }
+    }
+    
+    @Override
+    public void endOperationProfile( String operacion, DatabaseQuery consulta, int peso ) {
+        if ( SessionProfiler.SqlPrepare.equals( operacion ) ) {
+            ESTADO.get().preparada = true;
+            return;
+        }
+        if ( !SessionProfiler.StatementExecute.equals( operacion ) ) {
+            return;
+        }
+        Estado estado = ESTADO.get();
+        if ( !estado.preparada ) {
+            // Cierre de una sentencia ya contada
+            return;
+        }
+        estado.preparada = false;
+        long nanos = System.nanoTime() - estado.inicio;
+        estado.sentencias++;
+        String sql = texto( consulta );
+        EstadisticasSql.registrarSentencia( sql, consulta != null && consulta.isReadQuery(), nanos );
+        if ( nanos > EstadisticasSql.UMBRAL_LENTA ) {
+            LOGGER.log( Level.WARNING, "Sentencia SQL lenta ({0} ms): {1} parámetros: {2}",
+                    new Object[]{ TimeUnit.NANOSECONDS.toMillis( nanos ), sql, forma( consulta ) } );
+        }
+    }
+    
+    @Override
+    public Object profileExecutionOfQuery( DatabaseQuery consulta, Record fila, AbstractSession sesion ) {
+        Estado estado = ESTADO.get();
+        long antes = estado.sentencias;
+        estado.profundidad++;
+        try {
+            Object resultado = sesion.internalExecuteQuery( consulta, ( AbstractRecord ) fila );
+            if ( estado.profundidad == 1 && estado.sentencias != antes ) {
+                EstadisticasSql.registrarFilas( texto( consulta ), filas( resultado ) );
+            }
+            return resultado;
+        } finally {
+            estado.profundidad--;
+        }
+    }
+    
+    /**
+     * Texto SQL de una consulta, con ? en lugar de los parámetros.
+     */
+    private static String texto( DatabaseQuery consulta ) {
+        String sql = consulta == null ? null : consulta.getSQLString();
+        return sql != null ? sql : DESCONOCIDA;
+    }
+    
+    /**
+     * Forma de los parámetros de una consulta: nombre y tipo de cada uno,
+     * sin sus valores.
+     */
+    private static String forma( DatabaseQuery consulta ) {
+        if ( consulta == null ) {
+            return "[]";
+        }
+        AbstractRecord parametros = consulta.isModifyQuery() ? ( ( ModifyQuery ) consulta ).getModifyRow() : consulta.getTranslationRow();
+        if ( parametros == null ) {
+            return "[]";
+        }
+        List< DatabaseField > campos = parametros.getFields();
+        List< ? > valores = parametros.getValues();
+        StringBuilder forma = new StringBuilder( "[" );
+        for ( int i = 0; i < campos.size(); i++ ) {
+            Object valor = valores.get( i );
+            forma.append( i == 0 ? "" : ", " ).append( campos.get( i ).getName() ).append( ':' )
+                    .append( valor == null ? "null" : valor.getClass().getSimpleName() );
+        }
+        return forma.append( ']' ).toString();
+    }
+    
+    /**
+     * Filas leídas o afectadas según el resultado de una consulta.
+     */
+    private static long filas( Object resultado ) {
+        if ( resultado == null || resultado instanceof Cursor ) {
+            return 0;
+        }
+        if ( resultado instanceof Collection ) {
+            return ( ( Collection< ? > ) resultado ).size();
+        }
+        if ( resultado instanceof Integer ) {
+            return ( Integer ) resultado;
+        }
+        return 1;
+    }
+    
+    /**
+     * Estado del perfilador en un hilo.
+     */
+    private static final class Estado {
+        
+        private long inicio;
+        private boolean preparada;
+        private long sentencias;
+        private int profundidad;
+    }
+}
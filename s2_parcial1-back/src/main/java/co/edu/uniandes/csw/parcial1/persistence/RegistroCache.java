@@ -0,0 +1,294 @@
+package co.edu.uniandes.csw.parcial1.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Cache acotado que asocia el registro de un médico con su id, de modo que
+ * las búsquedas por registro se resuelvan con el cache de segundo nivel de
+ * MedicoEntity en vez de consultar la base de datos.
+ * También recuerda por poco tiempo los registros que no existen; por eso
+ * cada creación de médicos invalida sus registros al persistir y de nuevo al
+ * terminar la transacción, y cada invalidación avanza la versión del
+ * registro: quien guarda un resultado lee la versión antes de consultar la
+ * base de datos y el resultado se descarta si la versión cambió mientras
+ * tanto. Un "no existe" vence a los parcial1.cache.registros.ausentes.ttl
+ * milisegundos, para que los médicos insertados fuera de esta JVM se vean
+ * pronto.
+ * La capacidad se configura con la propiedad del sistema
+ * parcial1.cache.registros.tamano y se descartan primero las entradas usadas
+ * hace más tiempo (LRU).
+ * @author j.ramirez28
+ */
+@Singleton
+@ConcurrencyManagement( ConcurrencyManagementType.BEAN )
+public class RegistroCache {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final Logger LOGGER = Logger.getLogger( RegistroCache.class.getName() );
+    
+    /**
+     * Valor guardado para los registros que no pertenecen a ningún médico.
+     */
+    public static final long NO_EXISTE = Long.MIN_VALUE;
+    
+    /**
+     * Capacidad por defecto del cache.
+     */
+    private static final int CAPACIDAD_POR_DEFECTO = 10000;
+    
+    /**
+     * Vigencia por defecto de un "no existe", en milisegundos.
+     */
+    private static final long TTL_AUSENTES_POR_DEFECTO = 1000;
+    
+    /**
+     * Cantidad de versiones; los registros se reparten entre ellas por hash.
+     */
+    private static final int FRANJAS = 1024;
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Registro de sincronización para invalidar al terminar la transacción.
+     */
+    @Resource
+    private TransactionSynchronizationRegistry transacciones;
+    
+    /**
+     * Entradas del cache en orden de acceso.
+     */
+    private Map< Integer, Entrada > entradas;
+    
+    /**
+     * Cantidad máxima de entradas.
+     */
+    private int capacidad;
+    
+    /**
+     * Vigencia de un "no existe", en nanosegundos.
+     */
+    private long ttlAusentesNanos;
+    
+    /**
+     * Versión de cada franja de registros, que avanza con cada invalidación.
+     */
+    private final AtomicLongArray versiones = new AtomicLongArray( FRANJAS );
+    
+    private final AtomicLong aciertos = new AtomicLong( );
+    private final AtomicLong fallos = new AtomicLong( );
+    private final AtomicLong invalidaciones = new AtomicLong( );
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Inicializa el cache con la capacidad configurada.
+     */
+    @PostConstruct
+    public void inicializar( ) {
+        capacidad = Math.max( 1, Integer.getInteger( "parcial1.cache.registros.tamano", CAPACIDAD_POR_DEFECTO ) );
+        ttlAusentesNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 0,
+                Long.getLong( "parcial1.cache.registros.ausentes.ttl", TTL_AUSENTES_POR_DEFECTO ) ) );
+        entradas = new LinkedHashMap< Integer, Entrada >( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry< Integer, Entrada > mayor ) {
+                return size() > capacidad;
+            }
+        };
+        LOGGER.log( Level.INFO, "Cache de registros con capacidad {0}", capacidad );
+    }
+    
+    /**
+     * Busca el id asociado a un registro.
+     * @param registro Registro del médico.
+     * @return El id del médico, NO_EXISTE si hace poco no había un médico con
+     * ese registro, o null si el registro no está en el cache.
+     */
+    public Long buscar( Integer registro ) {
+        Long id = null;
+        synchronized ( entradas ) {
+            Entrada entrada = entradas.get( registro );
+            if ( entrada != null ) {
+                if ( entrada.id == NO_EXISTE && System.nanoTime() - entrada.creada > ttlAusentesNanos ) {
+                    entradas.remove( registro );
+                } else {
+                    id = entrada.id;
+                }
+            }
+        }
+        if ( id == null ) {
+            fallos.incrementAndGet( );
+        } else {
+            aciertos.incrementAndGet( );
+        }
+        return id;
+    }
+    
+    /**
+     * Retorna la versión actual de un registro. Se lee antes de consultar la
+     * base de datos y se entrega luego a guardar.
+     * @param registro Registro del médico.
+     * @return La versión del registro.
+     */
+    public long version( Integer registro ) {
+        return versiones.get( franja( registro ) );
+    }
+    
+    /**
+     * Guarda el resultado de buscar un registro en la base de datos, salvo
+     * que el registro se haya invalidado desde que se leyó su versión: en ese
+     * caso una creación pudo confirmarse después de la consulta y el
+     * resultado ya no es confiable.
+     * @param registro Registro del médico.
+     * @param id Id del médico, o NO_EXISTE si no hay médico con ese registro.
+     * @param version Versión del registro leída antes de la consulta.
+     */
+    public void guardar( Integer registro, long id, long version ) {
+        synchronized ( entradas ) {
+            if ( versiones.get( franja( registro ) ) == version ) {
+                entradas.put( registro, new Entrada( id, System.nanoTime() ) );
+            }
+        }
+    }
+    
+    /**
+     * Descarta un registro del cache y avanza su versión.
+     * @param registro Registro a descartar.
+     */
+    public void invalidar( Integer registro ) {
+        synchronized ( entradas ) {
+            versiones.incrementAndGet( franja( registro ) );
+            if ( entradas.remove( registro ) != null ) {
+                invalidaciones.incrementAndGet( );
+            }
+        }
+    }
+    
+    /**
+     * Descarta un registro ahora y otra vez cuando termine la transacción
+     * actual, para no conservar un "no existe" que una lectura concurrente
+     * haya guardado antes de la confirmación.
+     * @param registro Registro del médico que se está creando.
+     */
+    public void invalidarAlTerminar( final Integer registro ) {
+        invalidar( registro );
+        if ( transacciones.getTransactionStatus( ) == Status.STATUS_NO_TRANSACTION ) {
+            return;
+        }
+        transacciones.registerInterposedSynchronization( new Synchronization( ) {
+            @Override
+            public void beforeCompletion( ) {
+                // Nada que hacer antes de confirmar
+            }
+            
+            @Override
+            public void afterCompletion( int estado ) {
+                invalidar( registro );
+            }
+        } );
+    }
+    
+    /**
+     * Retorna una foto de las estadísticas del cache.
+     * @return Las estadísticas actuales.
+     */
+    public Estadisticas getEstadisticas( ) {
+        int tamano;
+        synchronized ( entradas ) {
+            tamano = entradas.size( );
+        }
+        return new Estadisticas( capacidad, tamano, aciertos.get( ), fallos.get( ), invalidaciones.get( ) );
+    }
+    
+    /**
+     * Retorna la franja de versiones de un registro.
+     * @param registro Registro del médico.
+     * @return Índice de la franja.
+     */
+    private static int franja( Integer registro ) {
+        int hash = registro.hashCode();
+        return ( hash ^ ( hash >>> 16 ) ) & ( FRANJAS - 1 );
+    }
+    
+    /**
+     * Entrada del cache: el id del médico y el momento en que se guardó.
+     */
+    private static final class Entrada {
+        
+        private final long id;
+        private final long creada;
+        
+        Entrada( long id, long creada ) {
+            this.id = id;
+            this.creada = creada;
+        }
+    }
+    
+    /**
+     * Estadísticas de uso del cache de registros.
+     */
+    public static class Estadisticas {
+        
+        private final int capacidad;
+        private final int tamano;
+        private final long aciertos;
+        private final long fallos;
+        private final long invalidaciones;
+        
+        /**
+         * Constructor con todos los valores.
+         * @param capacidad Cantidad máxima de entradas.
+         * @param tamano Cantidad actual de entradas.
+         * @param aciertos Búsquedas resueltas desde el cache.
+         * @param fallos Búsquedas que no estaban en el cache.
+         * @param invalidaciones Entradas descartadas por creaciones.
+         */
+        public Estadisticas( int capacidad, int tamano, long aciertos, long fallos, long invalidaciones ) {
+            this.capacidad = capacidad;
+            this.tamano = tamano;
+            this.aciertos = aciertos;
+            this.fallos = fallos;
+            this.invalidaciones = invalidaciones;
+        }
+
+        public int getCapacidad() {
+            return capacidad;
+        }
+
+        public int getTamano() {
+            return tamano;
+        }
+
+        public long getAciertos() {
+            return aciertos;
+        }
+
+        public long getFallos() {
+            return fallos;
+        }
+
+        public long getInvalidaciones() {
+            return invalidaciones;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package co.edu.uniandes.csw.parcial1.validacion;
+
+import java.util.function.Predicate;
+
+/**
+ * Regla de negocio declarativa: una condición que los objetos válidos
+ * cumplen y la violación que se reporta cuando no la cumplen. La condición
+ * no debe lanzar excepciones ni tener efectos, porque las reglas se evalúan
+ * en paralelo.
+ * @param <T> Tipo de los objetos que se validan.
+ * @author j.ramirez28
+ */
+public final class Regla< T > {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private final Predicate< ? super T > condicion;
+    
+    /**
+     * Violación que se reporta, la misma instancia para todos los objetos.
+     */
+    private final Violacion violacion;
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    /**
+     * @param codigo Código de la regla, por ejemplo "especialidad.corta".
+     * @param mensaje Mensaje cuando no se cumple.
+     * @param condicion Condición que cumplen los objetos válidos.
+     */
+    public Regla( String codigo, String mensaje, Predicate< ? super T > condicion ) {
+        this.condicion = condicion;
+        this.violacion = new Violacion( codigo, mensaje );
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * @param objeto Objeto a validar.
+     * @return Si el objeto cumple la regla.
+     */
+    public boolean cumple( T objeto ) {
+        return condicion.test( objeto );
+    }
+    
+    //-------------------------------------------------------------------------
+    // GETTERS
+    //-------------------------------------------------------------------------
+    
+    public Violacion getViolacion( ) {
+        return violacion;
+    }
+}
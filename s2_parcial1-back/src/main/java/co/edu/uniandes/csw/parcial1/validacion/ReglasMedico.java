@@ -0,0 +1,73 @@
+package co.edu.uniandes.csw.parcial1.validacion;
+
+import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
+import java.util.Arrays;
+
+/**
+ * Reglas de negocio de un médico que no requieren consultar la base de
+ * datos. La unicidad del registro la verifica la persistencia.
+ * @author j.ramirez28
+ */
+public final class ReglasMedico {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Cantidad de caracteres que la especialidad debe superar.
+     */
+    public static final int LONGITUD_MINIMA_ESPECIALIDAD = 4;
+    
+    /**
+     * El nombre no es nulo ni vacío.
+     */
+    public static final Regla< MedicoEntity > NOMBRE = new Regla<>( "nombre.vacio",
+            "El médico creado debería tener un nombre", medico -> tieneTexto( medico.getNombre() ) );
+    
+    /**
+     * El apellido no es nulo ni vacío.
+     */
+    public static final Regla< MedicoEntity > APELLIDO = new Regla<>( "apellido.vacio",
+            "El médico creado debería tener un apellido", medico -> tieneTexto( medico.getApellido() ) );
+    
+    /**
+     * La especialidad tiene más de LONGITUD_MINIMA_ESPECIALIDAD caracteres.
+     */
+    public static final Regla< MedicoEntity > ESPECIALIDAD = new Regla<>( "especialidad.corta",
+            "El médico debe tener una especialidad con más de " + LONGITUD_MINIMA_ESPECIALIDAD + " caracteres",
+            medico -> medico.getEspecialidad() != null && medico.getEspecialidad().length() > LONGITUD_MINIMA_ESPECIALIDAD );
+    
+    /**
+     * Validador con todas las reglas.
+     */
+    public static final Validador< MedicoEntity > VALIDADOR = new Validador<>( Arrays.asList( NOMBRE, APELLIDO, ESPECIALIDAD ) );
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    private ReglasMedico( ) {
+        // Clase de utilidad
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Si un texto tiene algún carácter distinto de espacios, sin crear la
+     * copia que crearía trim().
+     */
+    private static boolean tieneTexto( String texto ) {
+        if ( texto == null ) {
+            return false;
+        }
+        for ( int i = 0; i < texto.length(); i++ ) {
+            if ( texto.charAt( i ) > ' ' ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
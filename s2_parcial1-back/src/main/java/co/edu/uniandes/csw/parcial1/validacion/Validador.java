@@ -0,0 +1,104 @@
+package co.edu.uniandes.csw.parcial1.validacion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Evalúa un conjunto de reglas sobre un objeto en una sola pasada y retorna
+ * todas las violaciones, sin lanzar excepciones. Un objeto válido no crea
+ * ningún objeto. Es inmutable y puede usarse desde varios hilos.
+ * @param <T> Tipo de los objetos que se validan.
+ * @author j.ramirez28
+ */
+public final class Validador< T > {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Tamaño a partir del cual un lote se valida en paralelo.
+     */
+    public static final int UMBRAL_PARALELO = 1024;
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private final List< Regla< T > > reglas;
+    
+    /**
+     * Las mismas reglas en un arreglo, que validar recorre sin pasar por la
+     * vista no modificable.
+     */
+    private final Regla< T >[] arreglo;
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    /**
+     * @param reglas Reglas, en el orden en que se reportan sus violaciones.
+     */
+    public Validador( List< Regla< T > > reglas ) {
+        this.reglas = Collections.unmodifiableList( new ArrayList<>( reglas ) );
+        @SuppressWarnings( "unchecked" )
+        Regla< T >[] copia = ( Regla< T >[] ) this.reglas.toArray( new Regla< ? >[ this.reglas.size() ] );
+        this.arreglo = copia;
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Valida un objeto con todas las reglas.
+     * @param objeto Objeto a validar.
+     * @return Las violaciones, o una lista vacía si es válido.
+     */
+    public List< Violacion > validar( T objeto ) {
+        List< Violacion > violaciones = null;
+        for ( int i = 0; i < arreglo.length; i++ ) {
+            Regla< T > regla = arreglo[ i ];
+            if ( !regla.cumple( objeto ) ) {
+                if ( violaciones == null ) {
+                    violaciones = new ArrayList<>( arreglo.length - i );
+                }
+                violaciones.add( regla.getViolacion() );
+            }
+        }
+        return violaciones == null ? Collections.emptyList() : violaciones;
+    }
+    
+    /**
+     * Valida un lote de objetos, en paralelo si tiene al menos
+     * UMBRAL_PARALELO objetos.
+     * @param objetos Objetos a validar.
+     * @return Mapa ordenado con la posición de cada objeto inválido y sus
+     * violaciones; vacío si todos son válidos.
+     */
+    public Map< Integer, List< Violacion > > validarLote( List< ? extends T > objetos ) {
+        @SuppressWarnings( "unchecked" )
+        List< Violacion >[] resultados = ( List< Violacion >[] ) new List< ? >[ objetos.size() ];
+        IntStream posiciones = IntStream.range( 0, objetos.size() );
+        if ( objetos.size() >= UMBRAL_PARALELO ) {
+            posiciones = posiciones.parallel();
+        }
+        posiciones.forEach( i -> resultados[ i ] = validar( objetos.get( i ) ) );
+        Map< Integer, List< Violacion > > invalidos = new TreeMap<>( );
+        for ( int i = 0; i < resultados.length; i++ ) {
+            if ( !resultados[ i ].isEmpty() ) {
+                invalidos.put( i, resultados[ i ] );
+            }
+        }
+        return invalidos;
+    }
+    
+    public List< Regla< T > > getReglas( ) {
+        return reglas;
+    }
+}
@@ -0,0 +1,76 @@
+package co.edu.uniandes.csw.parcial1.validacion;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Regla de negocio que un objeto no cumple: el código de la regla, estable
+ * para los clientes, y el mensaje para mostrar.
+ * @author j.ramirez28
+ */
+public final class Violacion implements Serializable {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final String SEPARADOR = "; ";
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private final String codigo;
+    
+    private final String mensaje;
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    /**
+     * @param codigo Código de la regla incumplida.
+     * @param mensaje Mensaje de la regla.
+     */
+    public Violacion( String codigo, String mensaje ) {
+        this.codigo = codigo;
+        this.mensaje = mensaje;
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Une los mensajes de varias violaciones en uno solo.
+     * @param violaciones Violaciones de un objeto.
+     * @return Los mensajes separados por punto y coma.
+     */
+    public static String mensajes( List< Violacion > violaciones ) {
+        if ( violaciones.size() == 1 ) {
+            return violaciones.get( 0 ).mensaje;
+        }
+        StringBuilder mensajes = new StringBuilder( );
+        for ( Violacion violacion : violaciones ) {
+            mensajes.append( mensajes.length() == 0 ? "" : SEPARADOR ).append( violacion.mensaje );
+        }
+        return mensajes.toString();
+    }
+    
+    @Override
+    public String toString( ) {
+        return codigo + ": " + mensaje;
+    }
+    
+    //-------------------------------------------------------------------------
+    // GETTERS
+    //-------------------------------------------------------------------------
+    
+    public String getCodigo( ) {
+        return codigo;
+    }
+    
+    public String getMensaje( ) {
+        return mensaje;
+    }
+}
@@ -1,11 +1,30 @@
 package co.edu.uniandes.csw.parcial1.test.logic;
 
+import co.edu.uniandes.csw.parcial1.ejb.ConteoEspecialidades;
+import co.edu.uniandes.csw.parcial1.ejb.EscritorAgrupado;
+import co.edu.uniandes.csw.parcial1.ejb.FiltroRegistros;
+import co.edu.uniandes.csw.parcial1.ejb.IndiceBusqueda;
 import co.edu.uniandes.csw.parcial1.ejb.MedicoLogic;
 import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
 import co.edu.uniandes.csw.parcial1.exceptions.BusinessLogicException;
+import co.edu.uniandes.csw.parcial1.exceptions.ReglasIncumplidasException;
+import co.edu.uniandes.csw.parcial1.persistence.EstadisticasSql;
 import co.edu.uniandes.csw.parcial1.persistence.MedicoPersistence;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import co.edu.uniandes.csw.parcial1.validacion.ReglasMedico;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -53,6 +72,24 @@ public class MedicoLogicTest {
     @Inject
     private MedicoLogic logica;
     
+    /**
+     * Inyecta el filtro de registros.
+     */
+    @Inject
+    private FiltroRegistros filtro;
+    
+    /**
+     * Inyecta el índice de búsqueda.
+     */
+    @Inject
+    private IndiceBusqueda indice;
+    
+    /**
+     * Inyecta el escritor agrupado.
+     */
+    @Inject
+    private EscritorAgrupado escritor;
+    
     /**
      * Contexto de Persistencia que se utiliza para acceder a la base de datos.
      * EntityManager para el manejo de objetos persistidos.
@@ -89,6 +126,7 @@ public class MedicoLogicTest {
                 .addPackage( MedicoEntity.class.getPackage() )
                 .addPackage( MedicoLogic.class.getPackage() )
                 .addPackage( MedicoPersistence.class.getPackage() )
+                .addPackage( ReglasMedico.class.getPackage() )
                 .addAsManifestResource( "META-INF/persistence.xml",
                         "persistence.xml")
                 .addAsManifestResource( "META-INF/beans.xml","beans.xml" );
@@ -224,4 +262,479 @@ public class MedicoLogicTest {
             // Debería generase
         }
     }
+    
+    /**
+     * Verifica el método createMedico de la clase MedicoLogic bajo concurrencia.
+     * <b> Métodos a probar: </b><br>
+     * createMedico()<br>
+     * <b>Objetivo:</b>
+     * Probar que varias peticiones simultáneas con el mismo registro no
+     * generan médicos duplicados.
+     * <b>Resultados esperados:</b>
+     * 1. Sólo una de las creaciones termina exitosamente.<br>
+     * 2. Las demás fallan con BusinessLogicException.<br>
+     * 3. En la base de datos existe un único médico con el registro.
+     */
+    @Test
+    public void createMedicoConcurrenteTest() throws Exception {
+        final int hilos = 8;
+        final Integer registro = factory.manufacturePojo( MedicoEntity.class ).getRegistro();
+        final CountDownLatch inicio = new CountDownLatch( 1 );
+        ExecutorService ejecutor = Executors.newFixedThreadPool( hilos );
+        List< Future< Boolean > > resultados = new ArrayList<>();
+        try {
+            for ( int i = 0; i < hilos; i++ ) {
+                final MedicoEntity nueva = factory.manufacturePojo( MedicoEntity.class );
+                nueva.setId( null );
+                nueva.setRegistro( registro );
+                nueva.setEspecialidad( "Especialidad " + i );
+                resultados.add( ejecutor.submit( new Callable< Boolean >() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        inicio.await();
+                        try {
+                            logica.createMedico( nueva );
+                            return true;
+                        } catch ( BusinessLogicException e ) {
+                            return false;
+                        }
+                    }
+                } ) );
+            }
+            inicio.countDown();
+            int exitosas = 0;
+            for ( Future< Boolean > resultado : resultados ) {
+                if ( resultado.get( 30, TimeUnit.SECONDS ) ) {
+                    exitosas++;
+                }
+            }
+            Assert.assertEquals( 1, exitosas );
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        Long cantidad = em.createQuery( "SELECT COUNT(e) FROM MedicoEntity e WHERE e.registro = :registro", Long.class )
+                .setParameter( "registro", registro )
+                .getSingleResult();
+        Assert.assertEquals( Long.valueOf( 1 ), cantidad );
+    }
+    
+    /**
+     * Verifica las sentencias SQL del método createMedico de la clase
+     * MedicoLogic.
+     * <b> Métodos a probar: </b><br>
+     * createMedico()<br>
+     * <b>Objetivo:</b>
+     * Probar con el perfilador de EclipseLink que la unicidad del registro
+     * no requiere consultar la tabla antes de insertar.
+     * <b>Resultados esperados:</b>
+     * 1. Crear un médico ejecuta un único INSERT sobre MEDICOENTITY.<br>
+     * 2. Crear un médico no ejecuta ningún SELECT sobre MEDICOENTITY.
+     */
+    @Test
+    public void createMedicoSentenciasTest() throws BusinessLogicException {
+        // La primera creación puede reservar un bloque de ids
+        MedicoEntity previa = factory.manufacturePojo( MedicoEntity.class );
+        previa.setId( null );
+        previa.setEspecialidad( "Especialidad" );
+        logica.createMedico( previa );
+        
+        MedicoEntity nueva = factory.manufacturePojo( MedicoEntity.class );
+        nueva.setId( null );
+        nueva.setEspecialidad( "Especialidad" );
+        long inserts = ejecuciones( "INSERT INTO MEDICOENTITY" );
+        long consultas = ejecuciones( "SELECT" );
+        logica.createMedico( nueva );
+        Assert.assertEquals( 1, ejecuciones( "INSERT INTO MEDICOENTITY" ) - inserts );
+        Assert.assertEquals( 0, ejecuciones( "SELECT" ) - consultas );
+    }
+    
+    /**
+     * Cantidad de ejecuciones registradas por el perfilador de las sentencias
+     * sobre MEDICOENTITY que empiezan con un prefijo.
+     */
+    private static long ejecuciones( String prefijo ) {
+        long ejecuciones = 0;
+        for ( EstadisticasSql.Agregado agregado : EstadisticasSql.getAgregados() ) {
+            if ( agregado.getSql().startsWith( prefijo ) && agregado.getSql().contains( "MEDICOENTITY" ) ) {
+                ejecuciones += agregado.getEjecuciones();
+            }
+        }
+        return ejecuciones;
+    }
+    
+    /**
+     * Verifica el método createMedicoAsync de la clase MedicoLogic.
+     * <b> Métodos a probar: </b><br>
+     * createMedicoAsync()<br>
+     * <b>Objetivo:</b>
+     * Probar que la creación asíncrona persista el médico y reporte las
+     * reglas incumplidas a través de la etapa retornada.
+     * <b>Resultados esperados:</b>
+     * 1. La etapa se completa con el médico persistido.<br>
+     * 2. El INSERT del ejecutor se cuenta en la solicitud del hilo que llama.<br>
+     * 3. Un médico inválido completa la etapa con BusinessLogicException.
+     */
+    @Test
+    public void createMedicoAsyncTest() throws Exception {
+        MedicoEntity nuevo = factory.manufacturePojo( MedicoEntity.class );
+        nuevo.setId( null );
+        nuevo.setEspecialidad( "Especialidad" );
+        EstadisticasSql.Solicitud sql = EstadisticasSql.iniciarSolicitud();
+        MedicoEntity creado;
+        try {
+            creado = logica.createMedicoAsync( nuevo ).toCompletableFuture().get( 30, TimeUnit.SECONDS );
+        } finally {
+            EstadisticasSql.terminarSolicitud( sql );
+        }
+        Assert.assertTrue( sql.getSentencias() > 0 );
+        Assert.assertNotNull( creado.getId() );
+        Assert.assertNotNull( em.find( MedicoEntity.class, creado.getId() ) );
+        
+        MedicoEntity invalido = factory.manufacturePojo( MedicoEntity.class );
+        invalido.setId( null );
+        invalido.setNombre( "" );
+        try {
+            logica.createMedicoAsync( invalido ).toCompletableFuture().get( 30, TimeUnit.SECONDS );
+            Assert.fail( "Debería generar excepción" );
+        } catch ( ExecutionException e ) {
+            Assert.assertTrue( e.getCause() instanceof BusinessLogicException );
+        }
+    }
+    
+    /**
+     * Verifica la creación de médicos con el escritor agrupado activo.
+     * <b> Métodos a probar: </b><br>
+     * createMedicoAsync(), createMedicoAgrupado(), createMedico()<br>
+     * <b>Objetivo:</b>
+     * Probar que los médicos encolados se persistan en grupos y que cada uno
+     * reciba su propio resultado, y que createMedico no use el escritor.
+     * <b>Resultados esperados:</b>
+     * 1. Los médicos válidos se persisten en menos transacciones que médicos.<br>
+     * 2. Un registro repetido rechaza sólo a su médico, y el válido se cuenta
+     * una vez, en un grupo o uno por uno.<br>
+     * 3. Los médicos creados quedan en el índice de búsqueda.<br>
+     * 4. Un médico creado con createMedico en una transacción que se revierte
+     * no se persiste.
+     */
+    @Test
+    public void escritorAgrupadoTest() throws Exception {
+        escritor.iniciar( 50, 200, 100 );
+        try {
+            long gruposIniciales = escritor.getGrupos();
+            int tamanoInicial = indice.getTamano();
+            List< CompletableFuture< MedicoEntity > > escrituras = new ArrayList<>();
+            for ( int i = 0; i < 6; i++ ) {
+                MedicoEntity medico = factory.manufacturePojo( MedicoEntity.class );
+                medico.setId( null );
+                medico.setEspecialidad( "Especialidad" );
+                escrituras.add( logica.createMedicoAsync( medico ).toCompletableFuture() );
+            }
+            for ( CompletableFuture< MedicoEntity > escritura : escrituras ) {
+                MedicoEntity creado = escritura.get( 30, TimeUnit.SECONDS );
+                Assert.assertNotNull( em.find( MedicoEntity.class, creado.getId() ) );
+            }
+            // Cada médico se indexa antes de que se complete su escritura
+            Assert.assertEquals( tamanoInicial + escrituras.size(), indice.getTamano() );
+            Assert.assertTrue( escritor.getGrupos() - gruposIniciales < escrituras.size() );
+            
+            MedicoEntity repetido = factory.manufacturePojo( MedicoEntity.class );
+            repetido.setId( null );
+            repetido.setEspecialidad( "Especialidad" );
+            repetido.setRegistro( data.get( 0 ).getRegistro() );
+            MedicoEntity valido = factory.manufacturePojo( MedicoEntity.class );
+            valido.setId( null );
+            valido.setEspecialidad( "Especialidad" );
+            long grupos = escritor.getGrupos();
+            long individuales = escritor.getIndividuales();
+            CompletableFuture< MedicoEntity > rechazado = logica.createMedicoAsync( repetido ).toCompletableFuture();
+            MedicoEntity creado = logica.createMedicoAgrupado( valido );
+            Assert.assertNotNull( em.find( MedicoEntity.class, creado.getId() ) );
+            try {
+                rechazado.get( 30, TimeUnit.SECONDS );
+                Assert.fail( "Debería generar excepción" );
+            } catch ( ExecutionException e ) {
+                Assert.assertTrue( e.getCause() instanceof BusinessLogicException );
+            }
+            Assert.assertEquals( 1, escritor.getGrupos() - grupos + escritor.getIndividuales() - individuales );
+            
+            MedicoEntity revertido = factory.manufacturePojo( MedicoEntity.class );
+            revertido.setId( null );
+            revertido.setEspecialidad( "Especialidad" );
+            long confirmados = escritor.getConfirmados();
+            utx.begin();
+            try {
+                logica.createMedico( revertido );
+            } finally {
+                utx.rollback();
+            }
+            Assert.assertEquals( confirmados, escritor.getConfirmados() );
+            Assert.assertNull( em.find( MedicoEntity.class, revertido.getId() ) );
+        } finally {
+            escritor.detener();
+        }
+    }
+    
+    /**
+     * Verifica el método createMedicos de la clase MedicoLogic.
+     * <b> Métodos a probar: </b><br>
+     * createMedicos()<br>
+     * <b>Objetivo:</b>
+     * Probar que la creación masiva persista los médicos válidos y reporte
+     * los rechazados por su posición.
+     * <b>Resultados esperados:</b>
+     * 1. Los médicos válidos se persisten, incluso en lotes distintos.<br>
+     * 2. Se rechazan los médicos que incumplen reglas, los que repiten un
+     * registro de la misma carga y los que repiten uno existente.<br>
+     * 3. Un tamaño de lote inválido genera excepción.
+     */
+    @Test
+    public void createMedicosTest() throws BusinessLogicException {
+        List< MedicoEntity > medicos = new ArrayList<>();
+        for ( int i = 0; i < 7; i++ ) {
+            MedicoEntity medico = factory.manufacturePojo( MedicoEntity.class );
+            medico.setId( null );
+            medico.setEspecialidad( "Especialidad" );
+            medicos.add( medico );
+        }
+        medicos.get( 1 ).setNombre( "" );
+        medicos.get( 3 ).setRegistro( medicos.get( 2 ).getRegistro() );
+        medicos.get( 5 ).setRegistro( data.get( 0 ).getRegistro() );
+        
+        Map< Integer, String > rechazados = logica.createMedicos( medicos, 2 );
+        Assert.assertEquals( 3, rechazados.size() );
+        Assert.assertTrue( rechazados.containsKey( 1 ) );
+        Assert.assertTrue( rechazados.containsKey( 3 ) );
+        Assert.assertTrue( rechazados.containsKey( 5 ) );
+        for ( int i : new int[]{ 0, 2, 4, 6 } ) {
+            MedicoEntity entity = em.find( MedicoEntity.class, medicos.get( i ).getId() );
+            Assert.assertNotNull( entity );
+            Assert.assertEquals( medicos.get( i ).getRegistro(), entity.getRegistro() );
+        }
+        
+        try {
+            logica.createMedicos( medicos, 0 );
+            Assert.fail( "Debería generar excepción" );
+        } catch ( BusinessLogicException e ) {
+            // Debería generarse
+        }
+    }
+    
+    /**
+     * Verifica las reglas de MedicoLogic con ReglasMedico.
+     * <b> Métodos a probar: </b><br>
+     * createMedico(), createMedicos()<br>
+     * <b>Objetivo:</b>
+     * Probar que todas las reglas incumplidas se reporten juntas y sin
+     * excepciones costosas.
+     * <b>Resultados esperados:</b>
+     * 1. Un médico que incumple varias reglas genera una
+     * ReglasIncumplidasException con todas ellas y sin traza.<br>
+     * 2. Una especialidad nula se rechaza como corta.<br>
+     * 3. La creación masiva reporta los mensajes de todas las reglas.
+     */
+    @Test
+    public void createMedicoReglasTest() throws BusinessLogicException {
+        MedicoEntity medico = factory.manufacturePojo( MedicoEntity.class );
+        medico.setId( null );
+        medico.setNombre( " " );
+        medico.setEspecialidad( null );
+        try {
+            logica.createMedico( medico );
+            Assert.fail( "Debería generar excepción" );
+        } catch ( ReglasIncumplidasException e ) {
+            Assert.assertEquals( 2, e.getViolaciones().size() );
+            Assert.assertEquals( ReglasMedico.NOMBRE.getViolacion(), e.getViolaciones().get( 0 ) );
+            Assert.assertEquals( ReglasMedico.ESPECIALIDAD.getViolacion(), e.getViolaciones().get( 1 ) );
+            Assert.assertEquals( 0, e.getStackTrace().length );
+        }
+        
+        MedicoEntity valido = factory.manufacturePojo( MedicoEntity.class );
+        valido.setId( null );
+        valido.setEspecialidad( "Especialidad" );
+        Map< Integer, String > rechazados = logica.createMedicos( Arrays.asList( valido, medico ), 10 );
+        Assert.assertEquals( 1, rechazados.size() );
+        Assert.assertEquals( ReglasMedico.NOMBRE.getViolacion().getMensaje() + "; "
+                + ReglasMedico.ESPECIALIDAD.getViolacion().getMensaje(), rechazados.get( 1 ) );
+        Assert.assertNotNull( em.find( MedicoEntity.class, valido.getId() ) );
+    }
+    
+    /**
+     * Verifica el método getMedicos de la clase MedicoLogic.
+     * <b> Métodos a probar: </b><br>
+     * getMedicos()<br>
+     * <b>Objetivo:</b>
+     * Probar que se valide el límite y los filtros de la página.
+     * <b>Resultados esperados:</b>
+     * 1. Una página válida retorna a lo sumo el límite de médicos.<br>
+     * 2. Un límite fuera de rango o un filtro no permitido generan excepción.
+     */
+    @Test
+    public void getMedicosTest() throws BusinessLogicException {
+        List< MedicoEntity > pagina = logica.getMedicos( null, 2, Collections.<String, Object>emptyMap() );
+        Assert.assertEquals( 2, pagina.size() );
+        try {
+            logica.getMedicos( null, MedicoLogic.TAMANO_PAGINA_MAXIMO + 1, Collections.<String, Object>emptyMap() );
+            Assert.fail( "Debería generar excepción" );
+        } catch ( BusinessLogicException e ) {
+            // Debería generarse
+        }
+        try {
+            logica.getMedicos( null, 2, Collections.<String, Object>singletonMap( "id", 1L ) );
+            Assert.fail( "Debería generar excepción" );
+        } catch ( BusinessLogicException e ) {
+            // Debería generarse
+        }
+    }
+    
+    /**
+     * Verifica el filtro de registros usado por la clase MedicoLogic.
+     * <b> Métodos a probar: </b><br>
+     * getMedicoByRegistro(), createMedico()<br>
+     * <b>Objetivo:</b>
+     * Probar que el filtro nunca descarte un registro existente y que las
+     * lecturas por registro no dependan de él.
+     * <b>Resultados esperados:</b>
+     * 1. Tras reconstruir el filtro se encuentran los médicos existentes.<br>
+     * 2. Un médico creado por la lógica queda en el filtro.<br>
+     * 3. Los registros inexistentes se descartan sin consultar.<br>
+     * 4. Un médico insertado por fuera de la lógica se encuentra por su
+     * registro aunque el filtro no lo tenga.
+     */
+    @Test
+    public void filtroRegistrosTest() throws Exception {
+        filtro.reconstruir( );
+        for ( MedicoEntity medico : data ) {
+            Assert.assertTrue( filtro.puedeContener( medico.getRegistro() ) );
+            MedicoEntity encontrado = logica.getMedicoByRegistro( medico.getRegistro() );
+            Assert.assertNotNull( encontrado );
+            Assert.assertEquals( medico.getId(), encontrado.getId() );
+        }
+        
+        MedicoEntity nuevo = factory.manufacturePojo( MedicoEntity.class );
+        nuevo.setId( null );
+        nuevo.setEspecialidad( "Especialidad" );
+        logica.createMedico( nuevo );
+        Assert.assertTrue( filtro.puedeContener( nuevo.getRegistro() ) );
+        Assert.assertNotNull( logica.getMedicoByRegistro( nuevo.getRegistro() ) );
+        
+        long descartesAntes = filtro.getEstadisticas().getDescartes();
+        for ( int i = 0; i < 10; i++ ) {
+            filtro.puedeContener( factory.manufacturePojo( Integer.class ) );
+        }
+        FiltroRegistros.Estadisticas estadisticas = filtro.getEstadisticas();
+        Assert.assertTrue( estadisticas.getDescartes() > descartesAntes );
+        Assert.assertTrue( estadisticas.getRegistros() >= CANTIDAD_DATOS + 1 );
+        Assert.assertTrue( estadisticas.getBytes() > 0 );
+        Assert.assertTrue( estadisticas.getTasaFalsosPositivos() < 0.01 );
+        
+        MedicoEntity externo = factory.manufacturePojo( MedicoEntity.class );
+        utx.begin();
+        em.joinTransaction();
+        em.persist( externo );
+        utx.commit();
+        Assert.assertNotNull( logica.getMedicoByRegistro( externo.getRegistro() ) );
+        Assert.assertTrue( logica.existeRegistro( externo.getRegistro() ) );
+    }
+    
+    /**
+     * Verifica el método buscarMedicos de la clase MedicoLogic.
+     * <b> Métodos a probar: </b><br>
+     * buscarMedicos()<br>
+     * <b>Objetivo:</b>
+     * Probar que la búsqueda encuentre médicos por fragmentos de sus
+     * atributos y que sólo indexe médicos confirmados.
+     * <b>Resultados esperados:</b>
+     * 1. Tras reconstruir el índice se encuentran los médicos existentes.<br>
+     * 2. Un médico creado se encuentra sin importar tildes ni mayúsculas, y
+     * la coincidencia más fuerte queda primero.<br>
+     * 3. Un médico cuya transacción se revierte no se encuentra.<br>
+     * 4. Una consulta sin palabras de tres caracteres genera excepción.
+     */
+    @Test
+    public void buscarMedicosTest() throws Exception {
+        indice.reconstruir( );
+        MedicoEntity existente = data.get( 0 );
+        List< MedicoProyeccion > encontrados = logica.buscarMedicos( existente.getApellido(), MedicoLogic.TAMANO_PAGINA_MAXIMO );
+        Assert.assertTrue( contieneId( encontrados, existente.getId() ) );
+        
+        MedicoEntity primero = factory.manufacturePojo( MedicoEntity.class );
+        primero.setId( null );
+        primero.setNombre( "Águeda" );
+        primero.setApellido( "Zúñiga Prieto" );
+        primero.setEspecialidad( "Cardiología" );
+        logica.createMedico( primero );
+        MedicoEntity segundo = factory.manufacturePojo( MedicoEntity.class );
+        segundo.setId( null );
+        segundo.setNombre( "Tomás" );
+        segundo.setApellido( "Prietozuñiga" );
+        segundo.setEspecialidad( "Dermatología" );
+        logica.createMedico( segundo );
+        
+        encontrados = logica.buscarMedicos( "ZUNIGA", 10 );
+        Assert.assertEquals( 2, encontrados.size() );
+        Assert.assertEquals( primero.getId(), encontrados.get( 0 ).getId() );
+        encontrados = logica.buscarMedicos( "ague card", 10 );
+        Assert.assertEquals( 1, encontrados.size() );
+        Assert.assertEquals( "Zúñiga Prieto", encontrados.get( 0 ).getApellido() );
+        
+        MedicoEntity revertido = factory.manufacturePojo( MedicoEntity.class );
+        revertido.setId( null );
+        revertido.setApellido( "Qwertyuiop" );
+        revertido.setEspecialidad( "Especialidad" );
+        utx.begin();
+        logica.createMedico( revertido );
+        utx.rollback();
+        Assert.assertTrue( logica.buscarMedicos( "wertyu", 10 ).isEmpty() );
+        
+        try {
+            logica.buscarMedicos( "a b", 10 );
+            Assert.fail( "Debería generar excepción" );
+        } catch ( BusinessLogicException e ) {
+            // Debería generarse
+        }
+    }
+    
+    /**
+     * Verifica el conteo por especialidad de la clase MedicoLogic.
+     * <b> Métodos a probar: </b><br>
+     * getConteoEspecialidades(), reconciliarConteoEspecialidades()<br>
+     * <b>Objetivo:</b>
+     * Probar que el conteo se mantenga al crear médicos y coincida con un
+     * recuento de la base de datos.
+     * <b>Resultados esperados:</b>
+     * 1. Tras reconciliar, el total es la cantidad de médicos existentes.<br>
+     * 2. Crear un médico incrementa su especialidad y el total.<br>
+     * 3. Una nueva reconciliación no requiere ajustes.
+     */
+    @Test
+    public void conteoEspecialidadesTest() throws BusinessLogicException {
+        ConteoEspecialidades.Resumen inicial = logica.reconciliarConteoEspecialidades( );
+        Assert.assertEquals( CANTIDAD_DATOS, inicial.getTotal() );
+        Assert.assertEquals( Long.valueOf( 1 ), inicial.getPorEspecialidad().get( data.get( 0 ).getEspecialidad() ) );
+        
+        MedicoEntity nuevo = factory.manufacturePojo( MedicoEntity.class );
+        nuevo.setId( null );
+        nuevo.setEspecialidad( "Neurología" );
+        logica.createMedico( nuevo );
+        ConteoEspecialidades.Resumen resumen = logica.getConteoEspecialidades( );
+        Assert.assertEquals( CANTIDAD_DATOS + 1, resumen.getTotal() );
+        Assert.assertEquals( Long.valueOf( 1 ), resumen.getPorEspecialidad().get( "Neurología" ) );
+        
+        Assert.assertTrue( logica.reconciliarConteoEspecialidades().getAjustes().isEmpty() );
+    }
+    
+    /**
+     * Indica si una lista de proyecciones contiene un médico.
+     * @param proyecciones Lista de proyecciones.
+     * @param id Id del médico.
+     * @return true si algún elemento tiene el id.
+     */
+    private static boolean contieneId( List< MedicoProyeccion > proyecciones, Long id ) {
+        for ( MedicoProyeccion proyeccion : proyecciones ) {
+            if ( proyeccion.getId().equals( id ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -1,9 +1,21 @@
 package co.edu.uniandes.csw.parcial1.test.persistence;
 
 import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
+import co.edu.uniandes.csw.parcial1.exceptions.BusinessLogicException;
+import co.edu.uniandes.csw.parcial1.persistence.EstadisticasSql;
 import co.edu.uniandes.csw.parcial1.persistence.MedicoPersistence;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import co.edu.uniandes.csw.parcial1.persistence.RegistroCache;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -47,6 +59,12 @@ public class MedicoPersistenceTest {
     @Inject
     private MedicoPersistence persistence;
     
+    /**
+     * Cache de registros que usa la persistencia.
+     */
+    @Inject
+    private RegistroCache registroCache;
+    
     /**
      * Contexto de Persistencia que se utiliza para acceder a la base de datos.
      * EntityManager para el manejo de objetos persistidos.
@@ -82,6 +100,7 @@ public class MedicoPersistenceTest {
         return ShrinkWrap.create( JavaArchive.class )
                 .addPackage( MedicoEntity.class.getPackage() )
                 .addPackage( MedicoPersistence.class.getPackage() )
+                .addPackage( BusinessLogicException.class.getPackage() )
                 .addAsManifestResource( "META-INF/persistence.xml",
                         "persistence.xml")
                 .addAsManifestResource( "META-INF/beans.xml","beans.xml" );
@@ -156,7 +175,7 @@ public class MedicoPersistenceTest {
      * 2. El objeto persistido tiene toda la información correcta.
      */
     @Test
-    public void createTest() {
+    public void createTest() throws BusinessLogicException {
         // Crear una fábrica de objetos y un Médico aleatorio
         PodamFactory factory = new PodamFactoryImpl();
         MedicoEntity jardin = factory.manufacturePojo(
@@ -180,6 +199,70 @@ public class MedicoPersistenceTest {
          
     }
     
+    /**
+     * Verifica que el método create de la clase MedicoPersistence rechace un
+     * registro repetido apoyándose en la restricción de unicidad.
+     * <b> Métodos a probar: </b><br>
+     * create()<br>
+     * <b>Objetivo:</b>
+     * Probar que la violación de unicidad se traduce en BusinessLogicException.
+     * <b>Resultados esperados:</b>
+     * 1. Se lanza BusinessLogicException con el mensaje de registro repetido.<br>
+     * 2. No se persiste un segundo médico con el mismo registro.
+     */
+    @Test
+    public void createRegistroRepetidoTest() {
+        PodamFactory factory = new PodamFactoryImpl();
+        MedicoEntity repetido = factory.manufacturePojo( MedicoEntity.class );
+        repetido.setId( null );
+        repetido.setRegistro( data.get( 0 ).getRegistro() );
+        try {
+            persistence.create( repetido );
+            Assert.fail( "Debería generar excepción" );
+        } catch ( BusinessLogicException e ) {
+            Assert.assertEquals( "Ya existe un Medico con el registro \"" + repetido.getRegistro() + "\"", e.getMessage() );
+        }
+        Long cantidad = em.createQuery( "SELECT COUNT(e) FROM MedicoEntity e WHERE e.registro = :registro", Long.class )
+                .setParameter( "registro", repetido.getRegistro() )
+                .getSingleResult();
+        Assert.assertEquals( Long.valueOf( 1 ), cantidad );
+    }
+    
+    /**
+     * Verifica que el método create de la clase MedicoPersistence envíe sólo
+     * el INSERT, sin consultar antes si el registro existe.
+     * <b> Métodos a probar: </b><br>
+     * create()<br>
+     * <b>Objetivo:</b>
+     * Probar con el perfilador de EclipseLink que crear un médico no ejecuta
+     * ningún SELECT.
+     * <b>Resultados esperados:</b>
+     * 1. La solicitud ejecuta una única sentencia y ninguna lectura.<br>
+     * 2. El INSERT aparece en los agregados por sentencia.
+     */
+    @Test
+    public void createSinConsultasTest() throws BusinessLogicException {
+        PodamFactory factory = new PodamFactoryImpl();
+        // La primera creación puede reservar un bloque de ids
+        persistence.create( factory.manufacturePojo( MedicoEntity.class ) );
+        
+        MedicoEntity medico = factory.manufacturePojo( MedicoEntity.class );
+        EstadisticasSql.Solicitud solicitud = EstadisticasSql.iniciarSolicitud();
+        try {
+            persistence.create( medico );
+        } finally {
+            EstadisticasSql.terminarSolicitud( solicitud );
+        }
+        Assert.assertEquals( 0, solicitud.getLecturas() );
+        Assert.assertEquals( 1, solicitud.getSentencias() );
+        
+        boolean insert = false;
+        for ( EstadisticasSql.Agregado agregado : EstadisticasSql.getAgregados() ) {
+            insert |= agregado.getSql().startsWith( "INSERT INTO MEDICOENTITY" ) && agregado.getEjecuciones() > 0;
+        }
+        Assert.assertTrue( insert );
+    }
+    
     /**
      * Verifica el método findByRegistro de la clase MedicoPersistence.
      * <b> Métodos a probar: </b><br>
@@ -216,4 +299,305 @@ public class MedicoPersistenceTest {
             Assert.assertNull( buscado );
         }
     }
+    
+    /**
+     * Verifica el método existsByRegistro de la clase MedicoPersistence.
+     * <b> Métodos a probar: </b><br>
+     * existsByRegistro()<br>
+     * <b>Objetivo:</b>
+     * Probar que el método existsByRegistro indique si un registro está en uso.
+     * <b>Resultados esperados:</b>
+     * 1. Los registros de los médicos existentes se reportan como existentes.<br>
+     * 2. Un registro sin médico se reporta como inexistente.
+     */
+    @Test
+    public void existsByRegistroTest() {
+        for ( MedicoEntity entity : data ) {
+            Assert.assertTrue( persistence.existsByRegistro( entity.getRegistro() ) );
+        }
+        Assert.assertFalse( persistence.existsByRegistro( -545432 ) );
+    }
+    
+    /**
+     * Verifica el método find de la clase MedicoPersistence.
+     * <b> Métodos a probar: </b><br>
+     * find()<br>
+     * <b>Objetivo:</b>
+     * Probar que el método find retorne el médico con su versión.
+     * <b>Resultados esperados:</b>
+     * 1. Los médicos existentes se encuentran con sus datos y una versión.<br>
+     * 2. Un id sin médico retorna null.
+     */
+    @Test
+    public void findTest() {
+        for ( MedicoEntity entity : data ) {
+            MedicoEntity encontrado = persistence.find( entity.getId() );
+            Assert.assertNotNull( encontrado );
+            Assert.assertEquals( entity.getRegistro(), encontrado.getRegistro() );
+            Assert.assertNotNull( encontrado.getVersion() );
+            Assert.assertEquals( entity.getVersion(), encontrado.getVersion() );
+        }
+        Assert.assertNull( persistence.find( -545432L ) );
+    }
+    
+    /**
+     * Verifica el método createAll de la clase MedicoPersistence.
+     * <b> Métodos a probar: </b><br>
+     * createAll()<br>
+     * <b>Objetivo:</b>
+     * Probar que el método createAll persista un grupo de médicos.
+     * <b>Resultados esperados:</b>
+     * 1. Todos los médicos del lote quedan persistidos con un id asignado.<br>
+     * 2. Un lote con un registro repetido se rechaza completo.
+     */
+    @Test
+    public void createAllTest() throws BusinessLogicException {
+        PodamFactory factory = new PodamFactoryImpl();
+        List< MedicoEntity > lote = new ArrayList<>();
+        for ( int i = 0; i < CANTIDAD_DATOS; i++ ) {
+            MedicoEntity medico = factory.manufacturePojo( MedicoEntity.class );
+            medico.setId( null );
+            lote.add( medico );
+        }
+        persistence.createAll( lote );
+        for ( MedicoEntity medico : lote ) {
+            Assert.assertNotNull( medico.getId() );
+            MedicoEntity entity = em.find( MedicoEntity.class, medico.getId() );
+            Assert.assertNotNull( entity );
+            Assert.assertEquals( medico.getRegistro(), entity.getRegistro() );
+        }
+        
+        MedicoEntity nuevo = factory.manufacturePojo( MedicoEntity.class );
+        nuevo.setId( null );
+        MedicoEntity repetido = factory.manufacturePojo( MedicoEntity.class );
+        repetido.setId( null );
+        repetido.setRegistro( data.get( 0 ).getRegistro() );
+        List< MedicoEntity > loteRepetido = new ArrayList<>();
+        loteRepetido.add( nuevo );
+        loteRepetido.add( repetido );
+        try {
+            persistence.createAll( loteRepetido );
+            Assert.fail( "Debería generar excepción" );
+        } catch ( BusinessLogicException e ) {
+            // Debería generarse
+        }
+        Assert.assertNull( persistence.findByRegistro( nuevo.getRegistro() ) );
+    }
+    
+    /**
+     * Verifica el método findRegistrosExistentes de la clase MedicoPersistence.
+     * <b> Métodos a probar: </b><br>
+     * findRegistrosExistentes()<br>
+     * <b>Objetivo:</b>
+     * Probar que se retornen sólo los registros que ya existen.
+     * <b>Resultados esperados:</b>
+     * 1. Se retornan los registros persistidos y no los inexistentes.
+     */
+    @Test
+    public void findRegistrosExistentesTest() {
+        List< Integer > registros = new ArrayList<>();
+        registros.add( data.get( 0 ).getRegistro() );
+        registros.add( data.get( 1 ).getRegistro() );
+        registros.add( -545432 );
+        List< Integer > existentes = persistence.findRegistrosExistentes( registros );
+        Assert.assertEquals( 2, existentes.size() );
+        Assert.assertTrue( existentes.contains( data.get( 0 ).getRegistro() ) );
+        Assert.assertTrue( existentes.contains( data.get( 1 ).getRegistro() ) );
+    }
+    
+    /**
+     * Verifica el método findPage de la clase MedicoPersistence.
+     * <b> Métodos a probar: </b><br>
+     * findPage()<br>
+     * <b>Objetivo:</b>
+     * Probar que recorrer las páginas por llave retorne todos los médicos
+     * una sola vez y en orden de id, y que se apliquen los filtros.
+     * <b>Resultados esperados:</b>
+     * 1. Las páginas juntas contienen todos los médicos ordenados por id.<br>
+     * 2. El filtro por especialidad sólo retorna médicos con esa especialidad.
+     */
+    @Test
+    public void findPageTest() {
+        List< Long > esperados = new ArrayList<>();
+        for ( MedicoEntity entity : data ) {
+            esperados.add( entity.getId() );
+        }
+        Collections.sort( esperados );
+        
+        List< Long > recorridos = new ArrayList<>();
+        Long despuesDeId = null;
+        List< MedicoEntity > pagina;
+        do {
+            pagina = persistence.findPage( despuesDeId, 10, Collections.<String, Object>emptyMap() );
+            Assert.assertTrue( pagina.size() <= 10 );
+            for ( MedicoEntity entity : pagina ) {
+                recorridos.add( entity.getId() );
+                despuesDeId = entity.getId();
+            }
+        } while ( !pagina.isEmpty() );
+        Assert.assertEquals( esperados, recorridos );
+        
+        Map< String, Object > filtros = new HashMap<>();
+        filtros.put( "especialidad", data.get( 0 ).getEspecialidad() );
+        List< MedicoEntity > filtrados = persistence.findPage( null, CANTIDAD_DATOS, filtros );
+        Assert.assertFalse( filtrados.isEmpty() );
+        for ( MedicoEntity entity : filtrados ) {
+            Assert.assertEquals( data.get( 0 ).getEspecialidad(), entity.getEspecialidad() );
+        }
+    }
+    
+    /**
+     * Verifica el método findPageProyecciones de la clase MedicoPersistence.
+     * <b> Métodos a probar: </b><br>
+     * findPageProyecciones()<br>
+     * <b>Objetivo:</b>
+     * Probar que las proyecciones tengan los mismos datos que las entidades.
+     * <b>Resultados esperados:</b>
+     * 1. Cada proyección corresponde a un médico de la base de datos.<br>
+     * 2. Los filtros se aplican igual que en findPage.
+     */
+    @Test
+    public void findPageProyeccionesTest() {
+        Map< Long, MedicoEntity > porId = new HashMap<>();
+        for ( MedicoEntity entity : data ) {
+            porId.put( entity.getId(), entity );
+        }
+        List< MedicoProyeccion > pagina = persistence.findPageProyecciones( null, CANTIDAD_DATOS, Collections.<String, Object>emptyMap() );
+        Assert.assertEquals( CANTIDAD_DATOS, pagina.size() );
+        for ( MedicoProyeccion proyeccion : pagina ) {
+            MedicoEntity entity = porId.get( proyeccion.getId() );
+            Assert.assertNotNull( entity );
+            Assert.assertEquals( entity.getNombre(), proyeccion.getNombre() );
+            Assert.assertEquals( entity.getApellido(), proyeccion.getApellido() );
+            Assert.assertEquals( entity.getRegistro(), proyeccion.getRegistro() );
+            Assert.assertEquals( entity.getEspecialidad(), proyeccion.getEspecialidad() );
+        }
+        
+        Map< String, Object > filtros = new HashMap<>();
+        filtros.put( "registro", data.get( 0 ).getRegistro() );
+        List< MedicoProyeccion > filtrados = persistence.findPageProyecciones( null, CANTIDAD_DATOS, filtros );
+        Assert.assertEquals( 1, filtrados.size() );
+        Assert.assertEquals( data.get( 0 ).getId(), filtrados.get( 0 ).getId() );
+    }
+    
+    /**
+     * Verifica el método recorrerProyecciones de la clase MedicoPersistence.
+     * <b> Métodos a probar: </b><br>
+     * recorrerProyecciones()<br>
+     * <b>Objetivo:</b>
+     * Probar que el cursor entregue todos los médicos ordenados por id.
+     * <b>Resultados esperados:</b>
+     * 1. El consumidor recibe cada médico una vez, en orden de id.<br>
+     * 2. La cantidad retornada coincide con los médicos recibidos.
+     */
+    @Test
+    public void recorrerProyeccionesTest() {
+        List< Long > esperados = new ArrayList<>();
+        for ( MedicoEntity entity : data ) {
+            esperados.add( entity.getId() );
+        }
+        Collections.sort( esperados );
+        
+        List< Long > recorridos = new ArrayList<>();
+        long cantidad = persistence.recorrerProyecciones( proyeccion -> recorridos.add( proyeccion.getId() ) );
+        Assert.assertEquals( esperados, recorridos );
+        Assert.assertEquals( CANTIDAD_DATOS, cantidad );
+    }
+    
+    /**
+     * Verifica el uso del cache de registros en el método findByRegistro.
+     * <b> Métodos a probar: </b><br>
+     * findByRegistro()<br>
+     * getEstadisticasCache()<br>
+     * <b>Objetivo:</b>
+     * Probar que las búsquedas repetidas se resuelvan desde el cache y que
+     * la creación de un médico invalide un "no existe" guardado.
+     * <b>Resultados esperados:</b>
+     * 1. La segunda búsqueda de un registro cuenta como acierto.<br>
+     * 2. Luego de crear un médico con un registro antes inexistente, la
+     * búsqueda lo encuentra.
+     */
+    @Test
+    public void findByRegistroCacheTest() throws BusinessLogicException {
+        MedicoEntity entity = data.get( 0 );
+        persistence.findByRegistro( entity.getRegistro() );
+        RegistroCache.Estadisticas antes = persistence.getEstadisticasCache();
+        MedicoEntity buscado = persistence.findByRegistro( entity.getRegistro() );
+        Assert.assertEquals( entity.getId(), buscado.getId() );
+        Assert.assertEquals( antes.getAciertos() + 1, persistence.getEstadisticasCache().getAciertos() );
+        
+        PodamFactory factory = new PodamFactoryImpl();
+        MedicoEntity nuevo = factory.manufacturePojo( MedicoEntity.class );
+        nuevo.setId( null );
+        Assert.assertNull( persistence.findByRegistro( nuevo.getRegistro() ) );
+        persistence.create( nuevo );
+        MedicoEntity creado = persistence.findByRegistro( nuevo.getRegistro() );
+        Assert.assertNotNull( creado );
+        Assert.assertEquals( nuevo.getId(), creado.getId() );
+    }
+    
+    /**
+     * Verifica que una búsqueda por registro concurrente con la creación del
+     * médico no deje guardado un "no existe".
+     * <b> Métodos a probar: </b><br>
+     * findByRegistro()<br>
+     * existsByRegistro()<br>
+     * <b>Objetivo:</b>
+     * Probar que el resultado de una consulta que empezó antes de que se
+     * confirmara la creación no se guarde en el cache.
+     * <b>Resultados esperados:</b>
+     * 1. Un "no existe" guardado con la versión leída antes de la creación se
+     * descarta.<br>
+     * 2. Con búsquedas y creaciones en paralelo, al terminar todos los médicos
+     * creados se encuentran.
+     */
+    @Test
+    public void registroConcurrenteTest() throws Exception {
+        PodamFactory factory = new PodamFactoryImpl();
+        MedicoEntity nuevo = factory.manufacturePojo( MedicoEntity.class );
+        nuevo.setId( null );
+        // La consulta del lector no encontró el registro, luego se confirma
+        // la creación y sólo después el lector guarda su resultado
+        long version = registroCache.version( nuevo.getRegistro() );
+        persistence.create( nuevo );
+        registroCache.guardar( nuevo.getRegistro(), RegistroCache.NO_EXISTE, version );
+        Assert.assertTrue( persistence.existsByRegistro( nuevo.getRegistro() ) );
+        Assert.assertNotNull( persistence.findByRegistro( nuevo.getRegistro() ) );
+        
+        List< MedicoEntity > medicos = new ArrayList<>();
+        for ( int i = 0; i < CANTIDAD_DATOS; i++ ) {
+            MedicoEntity medico = factory.manufacturePojo( MedicoEntity.class );
+            medico.setId( null );
+            medicos.add( medico );
+        }
+        AtomicBoolean creando = new AtomicBoolean( true );
+        ExecutorService ejecutor = Executors.newFixedThreadPool( 4 );
+        try {
+            List< Future< ? > > lectores = new ArrayList<>();
+            for ( int i = 0; i < 4; i++ ) {
+                lectores.add( ejecutor.submit( ( ) -> {
+                    while ( creando.get() ) {
+                        for ( MedicoEntity medico : medicos ) {
+                            persistence.existsByRegistro( medico.getRegistro() );
+                            persistence.findByRegistro( medico.getRegistro() );
+                        }
+                    }
+                } ) );
+            }
+            for ( MedicoEntity medico : medicos ) {
+                persistence.create( medico );
+            }
+            creando.set( false );
+            for ( Future< ? > lector : lectores ) {
+                lector.get( 30, TimeUnit.SECONDS );
+            }
+        } finally {
+            creando.set( false );
+            ejecutor.shutdownNow();
+        }
+        for ( MedicoEntity medico : medicos ) {
+            Assert.assertTrue( persistence.existsByRegistro( medico.getRegistro() ) );
+            Assert.assertNotNull( persistence.findByRegistro( medico.getRegistro() ) );
+        }
+    }
 }
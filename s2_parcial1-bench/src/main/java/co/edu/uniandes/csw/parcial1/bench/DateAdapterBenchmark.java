@@ -0,0 +1,99 @@
+package co.edu.uniandes.csw.parcial1.bench;
+
+import co.edu.uniandes.csw.parcial1.adapters.DateAdapter;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formateo y lectura de fechas yyyy-MM-dd con DateAdapter. Cada invocación
+ * usa la siguiente de FECHAS fechas distintas, más que las que caben en el
+ * caché de FechaIso, para no medir siempre la misma; marshalReciente repite
+ * RECIENTES fechas, que sí caben. Las variantes Anterior son la
+ * implementación anterior con un SimpleDateFormat por hilo, como referencia.
+ * @author j.ramirez28
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+@State( Scope.Thread )
+public class DateAdapterBenchmark {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final int FECHAS = 1024;
+    
+    private static final int RECIENTES = 64;
+    
+    private static final ThreadLocal< DateFormat > FORMATO_ANTERIOR =
+            ThreadLocal.withInitial( ( ) -> new SimpleDateFormat( "yyyy-MM-dd" ) );
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private final DateAdapter adaptador = new DateAdapter( );
+    
+    private final Date[] fechas = new Date[ FECHAS ];
+    
+    private final String[] textos = new String[ FECHAS ];
+    
+    private int siguiente;
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    @Setup
+    public void preparar( ) throws Exception {
+        Calendar calendario = Calendar.getInstance();
+        calendario.clear();
+        calendario.set( 1950, Calendar.JANUARY, 1 );
+        for ( int i = 0; i < FECHAS; i++ ) {
+            fechas[ i ] = calendario.getTime();
+            textos[ i ] = adaptador.marshal( fechas[ i ] );
+            calendario.add( Calendar.DAY_OF_MONTH, 29 );
+        }
+    }
+    
+    @Benchmark
+    public String marshal( ) throws Exception {
+        return adaptador.marshal( fechas[ siguiente++ & ( FECHAS - 1 ) ] );
+    }
+    
+    @Benchmark
+    public String marshalReciente( ) throws Exception {
+        return adaptador.marshal( fechas[ siguiente++ & ( RECIENTES - 1 ) ] );
+    }
+    
+    @Benchmark
+    public Date unmarshal( ) throws Exception {
+        return adaptador.unmarshal( textos[ siguiente++ & ( FECHAS - 1 ) ] );
+    }
+    
+    @Benchmark
+    public String marshalAnterior( ) {
+        return FORMATO_ANTERIOR.get().format( fechas[ siguiente++ & ( FECHAS - 1 ) ] );
+    }
+    
+    @Benchmark
+    public Date unmarshalAnterior( ) throws Exception {
+        return FORMATO_ANTERIOR.get().parse( textos[ siguiente++ & ( FECHAS - 1 ) ] );
+    }
+}
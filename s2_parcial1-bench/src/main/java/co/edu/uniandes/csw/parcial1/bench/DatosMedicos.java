@@ -0,0 +1,112 @@
+package co.edu.uniandes.csw.parcial1.bench;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Médicos de prueba para los benchmarks, generados con una semilla fija para
+ * que todas las ejecuciones midan los mismos datos. Los nombres incluyen
+ * tildes para ejercitar la codificación UTF-8.
+ * @author j.ramirez28
+ */
+public final class DatosMedicos {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Semilla de los datos generados.
+     */
+    public static final long SEMILLA = 20180212L;
+    
+    private static final String[] NOMBRES = { "Juan", "María José", "Sebastián", "Ana", "Andrés", "Lucía", "Óscar", "Valentina" };
+    private static final String[] APELLIDOS = { "Pelaez", "Gómez", "Rodríguez", "Muñoz", "Castaño", "López", "Ramírez", "Díaz" };
+    private static final String[] ESPECIALIDADES = { "Corazón", "Pediatría", "Dermatología", "Neurología", "Ortopedia", "Oftalmología" };
+    
+    /**
+     * Sílabas con las que proyecciones arma nombres y apellidos, para que un
+     * millón de médicos no repita unas pocas palabras.
+     */
+    private static final String[] SILABAS = { "ma", "ri", "jo", "se", "an", "dre", "lu", "ci", "os", "car", "va", "len",
+        "ti", "na", "go", "mez", "ro", "dri", "guez", "mu", "ñoz", "cas", "ta", "lo", "pez", "ra", "mi", "rez", "dí", "az",
+        "be", "tan", "cur", "vel", "sal", "ga", "do", "qui", "ros", "fe", "li", "pe", "hu", "er", "tas", "mon", "te", "ne" };
+    
+    private static final String[] ESPECIALIDADES_PROYECCION = { "Corazón", "Pediatría", "Dermatología", "Neurología",
+        "Ortopedia", "Oftalmología", "Cardiología", "Ginecología", "Psiquiatría", "Urología", "Oncología", "Nefrología",
+        "Endocrinología", "Neumología", "Reumatología", "Infectología", "Hematología", "Geriatría", "Anestesiología",
+        "Radiología" };
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    private DatosMedicos( ) {
+        // Clase de utilidad
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Genera médicos válidos, con id y registro distintos.
+     * @param cantidad Cantidad de médicos.
+     * @return Los médicos.
+     */
+    public static List< MedicoDTO > medicos( int cantidad ) {
+        Random aleatorio = new Random( SEMILLA );
+        List< MedicoDTO > medicos = new ArrayList<>( cantidad );
+        for ( int i = 0; i < cantidad; i++ ) {
+            MedicoDTO medico = new MedicoDTO( );
+            medico.setId( 1000L + i );
+            medico.setNombre( NOMBRES[ aleatorio.nextInt( NOMBRES.length ) ] );
+            medico.setApellido( APELLIDOS[ aleatorio.nextInt( APELLIDOS.length ) ] );
+            medico.setRegistro( 100000 + aleatorio.nextInt( 900000 ) );
+            medico.setEspecialidad( ESPECIALIDADES[ aleatorio.nextInt( ESPECIALIDADES.length ) ] );
+            medicos.add( medico );
+        }
+        return medicos;
+    }
+    
+    /**
+     * Genera proyecciones de médicos con nombres y apellidos de dos a cuatro
+     * sílabas, como las que lee el índice de búsqueda.
+     * @param cantidad Cantidad de médicos.
+     * @return Las proyecciones, ordenadas por id.
+     */
+    public static MedicoProyeccion[] proyecciones( int cantidad ) {
+        Random aleatorio = new Random( SEMILLA );
+        MedicoProyeccion[] proyecciones = new MedicoProyeccion[ cantidad ];
+        for ( int i = 0; i < cantidad; i++ ) {
+            proyecciones[ i ] = new MedicoProyeccion( 1000L + i, palabra( aleatorio ), palabra( aleatorio ),
+                    100000 + i, ESPECIALIDADES_PROYECCION[ aleatorio.nextInt( ESPECIALIDADES_PROYECCION.length ) ] );
+        }
+        return proyecciones;
+    }
+    
+    /**
+     * Arma una palabra capitalizada de dos a cuatro sílabas.
+     */
+    private static String palabra( Random aleatorio ) {
+        StringBuilder palabra = new StringBuilder( );
+        int silabas = 2 + aleatorio.nextInt( 3 );
+        for ( int i = 0; i < silabas; i++ ) {
+            palabra.append( SILABAS[ aleatorio.nextInt( SILABAS.length ) ] );
+        }
+        palabra.setCharAt( 0, Character.toUpperCase( palabra.charAt( 0 ) ) );
+        return palabra.toString();
+    }
+    
+    /**
+     * Genera un médico válido como entidad.
+     * @return La entidad.
+     */
+    public static MedicoEntity entidad( ) {
+        return medicos( 1 ).get( 0 ).toEntity();
+    }
+}
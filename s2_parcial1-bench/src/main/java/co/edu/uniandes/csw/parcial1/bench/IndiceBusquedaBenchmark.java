@@ -0,0 +1,94 @@
+package co.edu.uniandes.csw.parcial1.bench;
+
+import co.edu.uniandes.csw.parcial1.ejb.IndiceBusqueda;
+import co.edu.uniandes.csw.parcial1.persistence.MedicoProyeccion;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsqueda en {@link IndiceBusqueda} con cantidad médicos, sin base de datos:
+ * el índice se llena con agregar, como lo hace MedicoLogic.
+ * <ul>
+ * <li>buscarNombre: el comienzo, de 3 a 6 caracteres, del nombre o apellido
+ * de un médico al azar, como al escribir en un buscador.</li>
+ * <li>buscarEspecialidad: el comienzo de una especialidad, que comparte uno
+ * de cada veinte médicos; es el peor caso, porque hay decenas de miles de
+ * resultados con el mismo puntaje.</li>
+ * </ul>
+ * Cada invocación usa la siguiente de CONSULTAS consultas. El límite es el
+ * de la API por defecto.
+ * @author j.ramirez28
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 2, jvmArgsAppend = "-Xmx3g" )
+@State( Scope.Benchmark )
+public class IndiceBusquedaBenchmark {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final int CONSULTAS = 256;
+    
+    private static final int LIMITE = 10;
+    
+    private static final String[] ESPECIALIDADES = { "cardio", "pedia", "derma", "neuro", "gineco", "psiqui", "onco", "radio" };
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    @Param( { "1000000" } )
+    private int cantidad;
+    
+    private IndiceBusqueda indice;
+    
+    private final String[] nombres = new String[ CONSULTAS ];
+    
+    private int siguiente;
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    @Setup
+    public void preparar( ) {
+        MedicoProyeccion[] medicos = DatosMedicos.proyecciones( cantidad );
+        indice = new IndiceBusqueda( );
+        for ( MedicoProyeccion medico : medicos ) {
+            indice.agregar( medico );
+        }
+        Random aleatorio = new Random( DatosMedicos.SEMILLA );
+        for ( int i = 0; i < CONSULTAS; i++ ) {
+            MedicoProyeccion medico = medicos[ aleatorio.nextInt( cantidad ) ];
+            String palabra = ( aleatorio.nextBoolean() ? medico.getNombre() : medico.getApellido() ).toLowerCase( Locale.ROOT );
+            nombres[ i ] = palabra.substring( 0, Math.min( palabra.length(), 3 + aleatorio.nextInt( 4 ) ) );
+        }
+    }
+    
+    @Benchmark
+    public List< MedicoProyeccion > buscarNombre( ) {
+        return indice.buscar( nombres[ siguiente++ & ( CONSULTAS - 1 ) ], LIMITE );
+    }
+    
+    @Benchmark
+    public List< MedicoProyeccion > buscarEspecialidad( ) {
+        return indice.buscar( ESPECIALIDADES[ siguiente++ & ( ESPECIALIDADES.length - 1 ) ], LIMITE );
+    }
+}
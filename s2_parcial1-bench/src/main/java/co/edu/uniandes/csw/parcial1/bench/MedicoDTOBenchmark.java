@@ -0,0 +1,69 @@
+package co.edu.uniandes.csw.parcial1.bench;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversiones de MedicoDTO: desde y hacia la entidad, y toString. La
+ * variante toStringReflexion es la implementación anterior con
+ * ToStringBuilder, como referencia.
+ * @author j.ramirez28
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+@State( Scope.Thread )
+public class MedicoDTOBenchmark {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private MedicoEntity entidad;
+    
+    private MedicoDTO medico;
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    @Setup
+    public void preparar( ) {
+        medico = DatosMedicos.medicos( 1 ).get( 0 );
+        entidad = medico.toEntity();
+    }
+    
+    @Benchmark
+    public MedicoDTO desdeEntidad( ) {
+        return new MedicoDTO( entidad );
+    }
+    
+    @Benchmark
+    public MedicoEntity aEntidad( ) {
+        return medico.toEntity();
+    }
+    
+    @Benchmark
+    public String toStringCompacto( ) {
+        return medico.toString();
+    }
+    
+    @Benchmark
+    public String toStringReflexion( ) {
+        return ToStringBuilder.reflectionToString( medico );
+    }
+}
@@ -0,0 +1,156 @@
+package co.edu.uniandes.csw.parcial1.bench;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import co.edu.uniandes.csw.parcial1.providers.FormatoBinarioMedicos;
+import co.edu.uniandes.csw.parcial1.providers.FormatoJsonMedicos;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+import org.eclipse.persistence.jaxb.JAXBContextProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Escritura y lectura de médicos en los formatos de la API:
+ * <ul>
+ * <li>moxy: JSON con MOXy, el proveedor por defecto de Jersey en Payara. Como
+ * MOXyJsonProvider, reutiliza el JAXBContext y crea un Marshaller o
+ * Unmarshaller por mensaje.</li>
+ * <li>json: {@link FormatoJsonMedicos}, el proveedor JSON propio.</li>
+ * <li>binario: {@link FormatoBinarioMedicos}, el tipo
+ * application/vnd.parcial1.medico.</li>
+ * </ul>
+ * Con cantidad 1 se escribe un solo MedicoDTO; con más, una lista. Los bytes
+ * de cada mensaje los imprime {@link TamanoMensajes}.
+ * @author j.ramirez28
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+@State( Scope.Thread )
+public class SerializacionMedicosBenchmark {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Cantidad de médicos por mensaje.
+     */
+    @Param( { "1", "100" } )
+    private int cantidad;
+    
+    private List< MedicoDTO > medicos;
+    
+    private JAXBContext contexto;
+    
+    private byte[] moxy;
+    
+    private byte[] json;
+    
+    private byte[] binario;
+    
+    private final ByteArrayOutputStream salida = new ByteArrayOutputStream( 16 * 1024 );
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    @Setup
+    public void preparar( ) throws IOException, JAXBException {
+        medicos = DatosMedicos.medicos( cantidad );
+        contexto = crearContextoMoxy( );
+        escribirMoxy( );
+        moxy = salida.toByteArray();
+        escribirJson( );
+        json = salida.toByteArray();
+        escribirBinario( );
+        binario = salida.toByteArray();
+    }
+    
+    @Benchmark
+    public int escribirMoxy( ) throws JAXBException {
+        salida.reset();
+        Marshaller marshaller = contexto.createMarshaller();
+        if ( cantidad == 1 ) {
+            marshaller.marshal( new JAXBElement<>( new QName( "" ), MedicoDTO.class, medicos.get( 0 ) ), salida );
+        } else {
+            marshaller.marshal( medicos, salida );
+        }
+        return salida.size();
+    }
+    
+    @Benchmark
+    public Object leerMoxy( ) throws JAXBException {
+        return contexto.createUnmarshaller().unmarshal( new StreamSource( new ByteArrayInputStream( moxy ) ), MedicoDTO.class ).getValue();
+    }
+    
+    @Benchmark
+    public int escribirJson( ) throws IOException {
+        salida.reset();
+        if ( cantidad == 1 ) {
+            FormatoJsonMedicos.escribirMedico( salida, medicos.get( 0 ) );
+        } else {
+            FormatoJsonMedicos.escribirLista( salida, medicos );
+        }
+        return salida.size();
+    }
+    
+    @Benchmark
+    public Object leerJson( ) throws IOException {
+        ByteArrayInputStream entrada = new ByteArrayInputStream( json );
+        return cantidad == 1 ? FormatoJsonMedicos.leerMedico( entrada ) : FormatoJsonMedicos.leerLista( entrada );
+    }
+    
+    @Benchmark
+    public int escribirBinario( ) throws IOException {
+        salida.reset();
+        if ( cantidad == 1 ) {
+            FormatoBinarioMedicos.escribirMedico( salida, medicos.get( 0 ) );
+        } else {
+            FormatoBinarioMedicos.escribirLista( salida, medicos );
+        }
+        return salida.size();
+    }
+    
+    @Benchmark
+    public Object leerBinario( ) throws IOException {
+        ByteArrayInputStream entrada = new ByteArrayInputStream( binario );
+        return cantidad == 1 ? FormatoBinarioMedicos.leerMedico( entrada ) : FormatoBinarioMedicos.leerLista( entrada );
+    }
+    
+    /**
+     * Crea el contexto JSON de MOXy con la configuración de
+     * MOXyJsonProvider: sin elemento raíz.
+     * @return El contexto.
+     * @throws JAXBException si MedicoDTO no puede mapearse.
+     */
+    static JAXBContext crearContextoMoxy( ) throws JAXBException {
+        Map< String, Object > propiedades = new HashMap<>( );
+        propiedades.put( JAXBContextProperties.MEDIA_TYPE, "application/json" );
+        propiedades.put( JAXBContextProperties.JSON_INCLUDE_ROOT, false );
+        return JAXBContextFactory.createContext( new Class< ? >[]{ MedicoDTO.class }, propiedades );
+    }
+}
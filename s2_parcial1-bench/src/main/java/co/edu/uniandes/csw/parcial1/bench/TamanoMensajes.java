@@ -0,0 +1,63 @@
+package co.edu.uniandes.csw.parcial1.bench;
+
+import co.edu.uniandes.csw.parcial1.dtos.MedicoDTO;
+import co.edu.uniandes.csw.parcial1.providers.FormatoBinarioMedicos;
+import co.edu.uniandes.csw.parcial1.providers.FormatoJsonMedicos;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+
+/**
+ * Imprime los bytes que ocupa en la red cada formato de
+ * {@link SerializacionMedicosBenchmark}, para las mismas cantidades de
+ * médicos. Se ejecuta con:
+ * <pre>
+ * java -cp target/benchmarks.jar co.edu.uniandes.csw.parcial1.bench.TamanoMensajes
+ * </pre>
+ * @author j.ramirez28
+ */
+public final class TamanoMensajes {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final int[] CANTIDADES = { 1, 100 };
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    private TamanoMensajes( ) {
+        // Clase de utilidad
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    public static void main( String[] args ) throws Exception {
+        JAXBContext contexto = SerializacionMedicosBenchmark.crearContextoMoxy( );
+        System.out.println( "cantidad\tmoxy\tjson\tbinario" );
+        for ( int cantidad : CANTIDADES ) {
+            List< MedicoDTO > medicos = DatosMedicos.medicos( cantidad );
+            ByteArrayOutputStream moxy = new ByteArrayOutputStream( );
+            ByteArrayOutputStream json = new ByteArrayOutputStream( );
+            ByteArrayOutputStream binario = new ByteArrayOutputStream( );
+            Marshaller marshaller = contexto.createMarshaller();
+            if ( cantidad == 1 ) {
+                marshaller.marshal( new JAXBElement<>( new QName( "" ), MedicoDTO.class, medicos.get( 0 ) ), moxy );
+                FormatoJsonMedicos.escribirMedico( json, medicos.get( 0 ) );
+                FormatoBinarioMedicos.escribirMedico( binario, medicos.get( 0 ) );
+            } else {
+                marshaller.marshal( medicos, moxy );
+                FormatoJsonMedicos.escribirLista( json, medicos );
+                FormatoBinarioMedicos.escribirLista( binario, medicos );
+            }
+            System.out.println( cantidad + "\t" + moxy.size() + "\t" + json.size() + "\t" + binario.size() );
+        }
+    }
+}
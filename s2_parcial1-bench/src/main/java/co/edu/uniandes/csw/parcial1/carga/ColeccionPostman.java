@@ -0,0 +1,193 @@
+package co.edu.uniandes.csw.parcial1.carga;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ * Lectura de una colección de Postman (formato v2.1) y de su entorno. Las
+ * carpetas de la colección se recorren en orden. Los scripts de las
+ * peticiones no se ejecutan, así que las variables que un script asigna
+ * (por ejemplo idIdempotente) deben darse en el entorno o con
+ * {@link #leer(Path, Path, Map, Pattern)}; las peticiones con variables sin
+ * valor se omiten.
+ * @author j.ramirez28
+ */
+public final class ColeccionPostman {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final String CONTENT_TYPE = "Content-Type";
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private final List< PeticionPostman > peticiones = new ArrayList<>( );
+    
+    private final List< String > omitidas = new ArrayList<>( );
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    private ColeccionPostman( ) {
+        // Se crea con leer
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Lee una colección.
+     * @param coleccion Archivo de la colección.
+     * @param entorno Archivo del entorno de Postman, o null.
+     * @param variables Variables adicionales; reemplazan a las del entorno.
+     * @param incluir Expresión que deben cumplir los nombres de las
+     * peticiones, o null para incluirlas todas.
+     * @return La colección leída.
+     * @throws IOException si no se pueden leer los archivos.
+     */
+    public static ColeccionPostman leer( Path coleccion, Path entorno, Map< String, String > variables, Pattern incluir ) throws IOException {
+        Map< String, String > valores = new HashMap<>( );
+        if ( entorno != null ) {
+            for ( JsonValue valor : leerJson( entorno ).getJsonArray( "values" ) ) {
+                JsonObject variable = ( JsonObject ) valor;
+                if ( variable.getBoolean( "enabled", true ) ) {
+                    valores.put( variable.getString( "key" ), variable.getString( "value", "" ) );
+                }
+            }
+        }
+        valores.putAll( variables );
+        ColeccionPostman leida = new ColeccionPostman( );
+        leida.agregar( leerJson( coleccion ).getJsonArray( "item" ), valores, incluir );
+        return leida;
+    }
+    
+    private static JsonObject leerJson( Path archivo ) throws IOException {
+        try ( Reader lector = Files.newBufferedReader( archivo, StandardCharsets.UTF_8 ) ) {
+            return Json.createReader( lector ).readObject();
+        }
+    }
+    
+    /**
+     * Agrega las peticiones de una lista de elementos de la colección,
+     * entrando en las carpetas.
+     */
+    private void agregar( JsonArray elementos, Map< String, String > valores, Pattern incluir ) {
+        for ( JsonValue valor : elementos ) {
+            JsonObject elemento = ( JsonObject ) valor;
+            if ( elemento.containsKey( "item" ) ) {
+                agregar( elemento.getJsonArray( "item" ), valores, incluir );
+                continue;
+            }
+            String nombre = elemento.getString( "name", "" );
+            if ( incluir != null && !incluir.matcher( nombre ).find() ) {
+                continue;
+            }
+            PeticionPostman peticion = crearPeticion( nombre, elemento.getJsonObject( "request" ), valores );
+            if ( peticion == null ) {
+                omitidas.add( nombre );
+            } else {
+                peticiones.add( peticion );
+            }
+        }
+    }
+    
+    /**
+     * Crea una petición con las variables reemplazadas.
+     * @return La petición, o null si alguna variable no tiene valor.
+     */
+    private static PeticionPostman crearPeticion( String nombre, JsonObject peticion, Map< String, String > valores ) {
+        JsonValue url = peticion.get( "url" );
+        String textoUrl = url.getValueType() == JsonValue.ValueType.STRING
+                ? peticion.getString( "url" ) : ( ( JsonObject ) url ).getString( "raw" );
+        Map< String, String > encabezados = new LinkedHashMap<>( );
+        if ( peticion.containsKey( "header" ) ) {
+            for ( JsonValue valor : peticion.getJsonArray( "header" ) ) {
+                JsonObject encabezado = ( JsonObject ) valor;
+                if ( !encabezado.getBoolean( "disabled", false ) ) {
+                    encabezados.put( encabezado.getString( "key" ), encabezado.getString( "value", "" ) );
+                }
+            }
+        }
+        String cuerpo = null;
+        JsonObject body = peticion.getJsonObject( "body" );
+        if ( body != null && "raw".equals( body.getString( "mode", "" ) ) && !body.getString( "raw", "" ).isEmpty() ) {
+            cuerpo = body.getString( "raw" );
+            // Postman envía JSON por defecto en el modo raw
+            if ( !encabezados.containsKey( CONTENT_TYPE ) && esJson( body ) ) {
+                encabezados.put( CONTENT_TYPE, "application/json" );
+            }
+        }
+        try {
+            for ( Map.Entry< String, String > encabezado : encabezados.entrySet() ) {
+                encabezado.setValue( reemplazar( encabezado.getValue(), valores ) );
+            }
+            return new PeticionPostman( nombre, peticion.getString( "method", "GET" ), reemplazar( textoUrl, valores ),
+                    encabezados, cuerpo == null ? null : reemplazar( cuerpo, valores ) );
+        } catch ( IllegalArgumentException e ) {
+            return null;
+        }
+    }
+    
+    private static boolean esJson( JsonObject body ) {
+        JsonObject opciones = body.getJsonObject( "options" );
+        JsonObject raw = opciones == null ? null : opciones.getJsonObject( "raw" );
+        return raw == null || "json".equals( raw.getString( "language", "json" ) );
+    }
+    
+    /**
+     * Reemplaza las variables del entorno de un texto. Las dinámicas
+     * ({{$...}}) se dejan para cada envío.
+     * @throws IllegalArgumentException si una variable no tiene valor.
+     */
+    private static String reemplazar( String texto, Map< String, String > valores ) {
+        Matcher variable = PeticionPostman.VARIABLE.matcher( texto );
+        StringBuffer resultado = new StringBuffer( texto.length() );
+        while ( variable.find() ) {
+            String nombre = variable.group( 1 );
+            String valor = nombre.startsWith( "$" ) ? variable.group() : valores.get( nombre );
+            if ( valor == null ) {
+                throw new IllegalArgumentException( nombre );
+            }
+            variable.appendReplacement( resultado, Matcher.quoteReplacement( valor ) );
+        }
+        return variable.appendTail( resultado ).toString();
+    }
+    
+    //-------------------------------------------------------------------------
+    // GETTERS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * @return Las peticiones, en el orden de la colección.
+     */
+    public List< PeticionPostman > getPeticiones( ) {
+        return peticiones;
+    }
+    
+    /**
+     * @return Los nombres de las peticiones omitidas por tener variables sin
+     * valor.
+     */
+    public List< String > getOmitidas( ) {
+        return omitidas;
+    }
+}
@@ -0,0 +1,323 @@
+package co.edu.uniandes.csw.parcial1.carga;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Generador de carga en lazo abierto que repite las peticiones de una
+ * colección de Postman contra la API desplegada localmente. Las peticiones
+ * se programan a una tasa fija, en orden circular sobre la colección, sin
+ * esperar las respuestas; un grupo de clientes las envía. Si los clientes
+ * no dan abasto, las peticiones esperan en la cola y esa espera se cuenta en
+ * la latencia corregida (ver {@link ResultadosCarga}). Las peticiones que
+ * no terminan antes de timeout * 2 segundos después del final se cancelan y
+ * se registran como sin terminar, con la latencia hasta ese momento.
+ * <pre>
+ * java -cp s2_parcial1-bench/target/benchmarks.jar co.edu.uniandes.csw.parcial1.carga.GeneradorCarga \
+ *     --coleccion s2_parcial1-api/collections/MedicoResourceTest.postman_collection.json \
+ *     --entorno s2_parcial1-api/collections/Entorno-Colecciones.postman_environment.json \
+ *     --incluir "^(Listar|Buscar|Consultar Médico)" --tasa 500 --duracion 60 --clientes 64
+ * </pre>
+ * Opciones:
+ * <ul>
+ * <li>--coleccion: archivo de la colección (obligatorio).</li>
+ * <li>--entorno: archivo del entorno de Postman.</li>
+ * <li>--var nombre=valor: variable adicional; puede repetirse.</li>
+ * <li>--incluir: expresión regular sobre los nombres de las peticiones.</li>
+ * <li>--tasa: peticiones por segundo (100).</li>
+ * <li>--duracion: segundos de medición (60).</li>
+ * <li>--calentamiento: segundos previos cuyos resultados se descartan
+ * (10).</li>
+ * <li>--clientes: conexiones concurrentes (32).</li>
+ * <li>--timeout: segundos de espera de cada respuesta (10).</li>
+ * </ul>
+ * @author j.ramirez28
+ */
+public final class GeneradorCarga {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    private static final double NANOS_POR_SEGUNDO = 1e9;
+    
+    private static final int TAMANO_BUFFER = 8 * 1024;
+    
+    private static final ThreadLocal< byte[] > BUFFER = ThreadLocal.withInitial( ( ) -> new byte[ TAMANO_BUFFER ] );
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private final List< PeticionPostman > peticiones;
+    
+    private final ResultadosCarga resultados;
+    
+    private final double tasa;
+    
+    private final int timeout;
+    
+    private final ThreadPoolExecutor clientes;
+    
+    private int colaMaxima;
+    
+    /**
+     * Envíos medidos que aún no se registran.
+     */
+    private final Set< Envio > pendientes = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Los clientes registran con el candado de lectura; al cerrar, el hilo
+     * principal toma el de escritura para que nadie registre mientras se
+     * imprime el reporte.
+     */
+    private final ReadWriteLock registro = new ReentrantReadWriteLock( );
+    
+    private boolean cerrado;
+    
+    /**
+     * Respuestas medidas que llegaron antes del final de la medición.
+     */
+    private final LongAdder enVentana = new LongAdder( );
+    
+    /**
+     * Final de la medición, en nanosegundos.
+     */
+    private long fin;
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    private GeneradorCarga( ColeccionPostman coleccion, double tasa, int clientes, int timeout ) {
+        this.peticiones = coleccion.getPeticiones();
+        this.resultados = new ResultadosCarga( coleccion );
+        this.tasa = tasa;
+        this.timeout = timeout;
+        AtomicInteger numero = new AtomicInteger( );
+        this.clientes = new ThreadPoolExecutor( clientes, clientes, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>( ), tarea -> {
+            Thread hilo = new Thread( tarea, "cliente-" + numero.incrementAndGet() );
+            hilo.setDaemon( true );
+            return hilo;
+        } );
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    public static void main( String[] args ) throws Exception {
+        Map< String, String > opciones = new HashMap<>( );
+        Map< String, String > variables = new HashMap<>( );
+        for ( int i = 0; i + 1 < args.length; i += 2 ) {
+            if ( "--var".equals( args[ i ] ) ) {
+                String[] variable = args[ i + 1 ].split( "=", 2 );
+                variables.put( variable[ 0 ], variable.length > 1 ? variable[ 1 ] : "" );
+            } else {
+                opciones.put( args[ i ], args[ i + 1 ] );
+            }
+        }
+        if ( !opciones.containsKey( "--coleccion" ) ) {
+            System.err.println( "Uso: GeneradorCarga --coleccion archivo [--entorno archivo] [--var nombre=valor]..."
+                    + " [--incluir regex] [--tasa 100] [--duracion 60] [--calentamiento 10] [--clientes 32] [--timeout 10]" );
+            System.exit( 2 );
+        }
+        Path entorno = opciones.containsKey( "--entorno" ) ? Paths.get( opciones.get( "--entorno" ) ) : null;
+        Pattern incluir = opciones.containsKey( "--incluir" ) ? Pattern.compile( opciones.get( "--incluir" ) ) : null;
+        ColeccionPostman coleccion = ColeccionPostman.leer( Paths.get( opciones.get( "--coleccion" ) ), entorno, variables, incluir );
+        for ( String omitida : coleccion.getOmitidas() ) {
+            System.err.println( "Se omite \"" + omitida + "\": tiene variables sin valor" );
+        }
+        if ( coleccion.getPeticiones().isEmpty() ) {
+            System.err.println( "La colección no tiene peticiones para enviar" );
+            System.exit( 2 );
+        }
+        
+        double tasa = Double.parseDouble( opciones.getOrDefault( "--tasa", "100" ) );
+        int clientes = Integer.parseInt( opciones.getOrDefault( "--clientes", "32" ) );
+        // Una conexión persistente por cliente
+        System.setProperty( "http.maxConnections", Integer.toString( clientes ) );
+        GeneradorCarga generador = new GeneradorCarga( coleccion, tasa, clientes,
+                Integer.parseInt( opciones.getOrDefault( "--timeout", "10" ) ) );
+        generador.ejecutar( Long.parseLong( opciones.getOrDefault( "--calentamiento", "10" ) ),
+                Long.parseLong( opciones.getOrDefault( "--duracion", "60" ) ), System.out );
+    }
+    
+    /**
+     * Ejecuta la prueba e imprime el reporte.
+     * @param calentamiento Segundos iniciales cuyos resultados se descartan.
+     * @param duracion Segundos de medición.
+     */
+    private void ejecutar( long calentamiento, long duracion, PrintStream salida ) throws InterruptedException {
+        salida.printf( Locale.ROOT, "%d peticiones, %.1f por segundo, %d clientes, %d s de calentamiento y %d s de medición%n",
+                peticiones.size(), tasa, clientes.getMaximumPoolSize(), calentamiento, duracion );
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + TimeUnit.SECONDS.toNanos( calentamiento );
+        fin = inicioMedicion + TimeUnit.SECONDS.toNanos( duracion );
+        long programadas = 0;
+        for ( long i = 0; ; i++ ) {
+            long prevista = inicio + ( long ) ( i * NANOS_POR_SEGUNDO / tasa );
+            if ( prevista >= fin ) {
+                break;
+            }
+            esperarHasta( prevista );
+            Envio envio = new Envio( peticiones.get( ( int ) ( i % peticiones.size() ) ), prevista, prevista >= inicioMedicion );
+            if ( envio.medir ) {
+                pendientes.add( envio );
+            }
+            clientes.execute( envio );
+            if ( envio.medir ) {
+                programadas++;
+                colaMaxima = Math.max( colaMaxima, clientes.getQueue().size() );
+            }
+        }
+        clientes.shutdown();
+        if ( !clientes.awaitTermination( timeout * 2L, TimeUnit.SECONDS ) ) {
+            clientes.shutdownNow();
+        }
+        int sinTerminar = cerrar();
+        if ( sinTerminar > 0 ) {
+            salida.printf( Locale.ROOT, "%d peticiones quedaron sin terminar; se registran con la latencia hasta el cierre%n", sinTerminar );
+        }
+        
+        salida.printf( Locale.ROOT, "Programadas: %d, completadas: %d, cola máxima: %d%n", programadas,
+                resultados.getTotal() - sinTerminar, colaMaxima );
+        salida.printf( Locale.ROOT, "Tasa objetivo: %.1f/s, throughput: %.1f/s%n", tasa, enVentana.sum() / ( double ) duracion );
+        salida.println( "Latencias en ms, corregidas por omisión coordinada:" );
+        resultados.imprimir( salida );
+    }
+    
+    /**
+     * Impide que los clientes sigan registrando y registra los envíos medidos
+     * que no terminaron, en la cola o en curso.
+     * @return Cantidad de envíos sin terminar.
+     */
+    private int cerrar( ) {
+        registro.writeLock().lock();
+        try {
+            cerrado = true;
+        } finally {
+            registro.writeLock().unlock();
+        }
+        long ahora = System.nanoTime();
+        for ( Envio envio : pendientes ) {
+            resultados.registrarSinTerminar( envio.peticion, ahora - envio.prevista );
+        }
+        return pendientes.size();
+    }
+    
+    private static void esperarHasta( long instante ) {
+        long restante;
+        while ( ( restante = instante - System.nanoTime() ) > 0 ) {
+            LockSupport.parkNanos( restante );
+        }
+    }
+    
+    /**
+     * Envía una petición y lee su respuesta completa, para que la conexión
+     * vuelva al pool de conexiones persistentes.
+     * @return El código HTTP de la respuesta.
+     */
+    private int enviar( PeticionPostman peticion ) throws IOException {
+        HttpURLConnection conexion = ( HttpURLConnection ) new URL( peticion.url() ).openConnection();
+        conexion.setRequestMethod( peticion.getMetodo() );
+        conexion.setConnectTimeout( timeout * 1000 );
+        conexion.setReadTimeout( timeout * 1000 );
+        for ( Map.Entry< String, String > encabezado : peticion.getEncabezados().entrySet() ) {
+            conexion.setRequestProperty( encabezado.getKey(), peticion.encabezado( encabezado.getValue() ) );
+        }
+        String cuerpo = peticion.cuerpo();
+        // HttpURLConnection convierte en POST un GET con cuerpo
+        if ( cuerpo != null && !"GET".equals( peticion.getMetodo() ) && !"HEAD".equals( peticion.getMetodo() ) ) {
+            byte[] bytes = cuerpo.getBytes( StandardCharsets.UTF_8 );
+            conexion.setDoOutput( true );
+            conexion.setFixedLengthStreamingMode( bytes.length );
+            try ( OutputStream salida = conexion.getOutputStream() ) {
+                salida.write( bytes );
+            }
+        }
+        int estado = conexion.getResponseCode();
+        try ( InputStream entrada = estado >= HttpURLConnection.HTTP_BAD_REQUEST ? conexion.getErrorStream() : conexion.getInputStream() ) {
+            if ( entrada != null ) {
+                byte[] buffer = BUFFER.get();
+                while ( entrada.read( buffer ) >= 0 ) {
+                    // Se descarta el cuerpo
+                }
+            }
+        }
+        return estado;
+    }
+    
+    /**
+     * Petición programada que un cliente envía y cuya respuesta registra.
+     */
+    private final class Envio implements Runnable {
+        
+        private final PeticionPostman peticion;
+        
+        /**
+         * Instante en que debía enviarse.
+         */
+        private final long prevista;
+        
+        /**
+         * Si la respuesta se registra (fuera del calentamiento).
+         */
+        private final boolean medir;
+        
+        Envio( PeticionPostman peticion, long prevista, boolean medir ) {
+            this.peticion = peticion;
+            this.prevista = prevista;
+            this.medir = medir;
+        }
+        
+        @Override
+        public void run( ) {
+            long envio = System.nanoTime();
+            int estado;
+            try {
+                estado = enviar( peticion );
+            } catch ( IOException e ) {
+                estado = ResultadosCarga.SIN_RESPUESTA;
+            }
+            long respuesta = System.nanoTime();
+            if ( !medir ) {
+                return;
+            }
+            registro.readLock().lock();
+            try {
+                if ( !cerrado ) {
+                    pendientes.remove( this );
+                    resultados.registrar( peticion, estado, respuesta - prevista, respuesta - envio );
+                    if ( respuesta <= fin ) {
+                        enVentana.increment();
+                    }
+                }
+            } finally {
+                registro.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package co.edu.uniandes.csw.parcial1.carga;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Petición de una colección de Postman con las variables del entorno ya
+ * reemplazadas. Las variables dinámicas de Postman ({{$guid}},
+ * {{$timestamp}} y {{$randomInt}}) se reemplazan en cada envío, para que las
+ * peticiones repetidas puedan crear recursos distintos. Además, {{$secuencia}},
+ * que no existe en Postman, da un entero distinto en cada envío, para los
+ * campos únicos como el registro de un médico.
+ * @author j.ramirez28
+ */
+public class PeticionPostman {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Variable de Postman: {{nombre}}.
+     */
+    static final Pattern VARIABLE = Pattern.compile( "\\{\\{([^{}]+)\\}\\}" );
+    
+    /**
+     * Límite (exclusivo) de {{$randomInt}}, como en Postman.
+     */
+    private static final int MAXIMO_ALEATORIO = 1001;
+    
+    /**
+     * Siguiente valor de {{$secuencia}}. Empieza en un valor al azar para que
+     * dos ejecuciones contra la misma base de datos no repitan valores.
+     */
+    private static final AtomicInteger SECUENCIA = new AtomicInteger( ThreadLocalRandom.current().nextInt( Integer.MAX_VALUE / 2 ) );
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private final String nombre;
+    
+    private final String metodo;
+    
+    private final String url;
+    
+    private final Map< String, String > encabezados;
+    
+    private final String cuerpo;
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    /**
+     * @param nombre Nombre de la petición en la colección.
+     * @param metodo Método HTTP.
+     * @param url URL, posiblemente con variables dinámicas.
+     * @param encabezados Encabezados, posiblemente con variables dinámicas.
+     * @param cuerpo Cuerpo, posiblemente con variables dinámicas, o null.
+     */
+    PeticionPostman( String nombre, String metodo, String url, Map< String, String > encabezados, String cuerpo ) {
+        this.nombre = nombre;
+        this.metodo = metodo;
+        this.url = url;
+        this.encabezados = Collections.unmodifiableMap( encabezados );
+        this.cuerpo = cuerpo;
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * @return La URL para un envío, con las variables dinámicas reemplazadas.
+     */
+    public String url( ) {
+        return dinamicas( url );
+    }
+    
+    /**
+     * @return El cuerpo para un envío, con las variables dinámicas
+     * reemplazadas, o null si la petición no tiene cuerpo.
+     */
+    public String cuerpo( ) {
+        return cuerpo == null ? null : dinamicas( cuerpo );
+    }
+    
+    /**
+     * @param valor Valor de un encabezado de la petición.
+     * @return El valor para un envío, con las variables dinámicas
+     * reemplazadas.
+     */
+    public String encabezado( String valor ) {
+        return dinamicas( valor );
+    }
+    
+    /**
+     * Reemplaza las variables dinámicas de Postman en un texto.
+     * @param texto Texto con variables {{$...}}.
+     * @return El texto con valores nuevos para cada variable.
+     */
+    private static String dinamicas( String texto ) {
+        if ( texto.indexOf( "{{$" ) < 0 ) {
+            return texto;
+        }
+        Matcher variable = VARIABLE.matcher( texto );
+        StringBuffer resultado = new StringBuffer( texto.length() + 32 );
+        while ( variable.find() ) {
+            variable.appendReplacement( resultado, Matcher.quoteReplacement( valorDinamico( variable.group( 1 ) ) ) );
+        }
+        return variable.appendTail( resultado ).toString();
+    }
+    
+    private static String valorDinamico( String variable ) {
+        switch ( variable ) {
+            case "$guid":
+                return UUID.randomUUID().toString();
+            case "$timestamp":
+                return Long.toString( System.currentTimeMillis() / 1000 );
+            case "$randomInt":
+                return Integer.toString( ThreadLocalRandom.current().nextInt( MAXIMO_ALEATORIO ) );
+            case "$secuencia":
+                return Integer.toString( SECUENCIA.getAndIncrement() );
+            default:
+                return "{{" + variable + "}}";
+        }
+    }
+    
+    //-------------------------------------------------------------------------
+    // GETTERS
+    //-------------------------------------------------------------------------
+    
+    public String getNombre( ) {
+        return nombre;
+    }
+    
+    public String getMetodo( ) {
+        return metodo;
+    }
+    
+    /**
+     * @return Los encabezados, con las variables dinámicas sin reemplazar;
+     * cada valor se resuelve con {@link #encabezado(String)}.
+     */
+    public Map< String, String > getEncabezados( ) {
+        return encabezados;
+    }
+}
@@ -0,0 +1,169 @@
+package co.edu.uniandes.csw.parcial1.carga;
+
+import co.edu.uniandes.csw.parcial1.metricas.HistogramaLatencia;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resultados de una prueba de carga por petición de la colección y en total.
+ * Cada respuesta se registra con dos latencias:
+ * <ul>
+ * <li>corregida: desde el instante en que la petición debía enviarse según
+ * la tasa, de modo que el tiempo que esperó por un cliente libre cuenta
+ * (corrección de la omisión coordinada).</li>
+ * <li>servicio: desde el envío real, lo que mediría un cliente en lazo
+ * cerrado.</li>
+ * </ul>
+ * Si la p99 de servicio es mucho menor que la corregida, el servidor no
+ * sostuvo la tasa y las peticiones se acumularon.
+ * @author j.ramirez28
+ */
+public class ResultadosCarga {
+    
+    //-------------------------------------------------------------------------
+    // CONSTANTES
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Estado que se registra cuando la petición falla sin respuesta (conexión
+     * rechazada, tiempo agotado).
+     */
+    public static final int SIN_RESPUESTA = 0;
+    
+    /**
+     * Estado que se registra cuando la petición no terminó antes del cierre
+     * de la prueba, en la cola o en curso.
+     */
+    public static final int SIN_TERMINAR = -1;
+    
+    private static final String TOTAL = "TOTAL";
+    
+    private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999, 1.0 };
+    
+    private static final double NANOS_POR_MILISEGUNDO = 1e6;
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private final Map< String, Estadistica > porPeticion = new LinkedHashMap<>( );
+    
+    private final Estadistica total = new Estadistica( );
+    
+    //-------------------------------------------------------------------------
+    // CONSTRUCTOR
+    //-------------------------------------------------------------------------
+    
+    /**
+     * @param coleccion Colección cuyas peticiones se registran; fija el orden
+     * del reporte.
+     */
+    public ResultadosCarga( ColeccionPostman coleccion ) {
+        for ( PeticionPostman peticion : coleccion.getPeticiones() ) {
+            porPeticion.putIfAbsent( peticion.getNombre(), new Estadistica( ) );
+        }
+    }
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    /**
+     * Registra una respuesta. Puede llamarse desde varios hilos.
+     * @param peticion Petición respondida.
+     * @param estado Código HTTP, o SIN_RESPUESTA.
+     * @param corregida Latencia desde el envío previsto, en nanosegundos.
+     * @param servicio Latencia desde el envío real, en nanosegundos.
+     */
+    public void registrar( PeticionPostman peticion, int estado, long corregida, long servicio ) {
+        porPeticion.get( peticion.getNombre() ).registrar( estado, corregida, servicio );
+        total.registrar( estado, corregida, servicio );
+    }
+    
+    /**
+     * Registra una petición que no terminó. Sólo cuenta en la latencia
+     * corregida, no en la de servicio.
+     * @param peticion Petición sin terminar.
+     * @param corregida Latencia desde el envío previsto hasta el cierre, en
+     * nanosegundos.
+     */
+    public void registrarSinTerminar( PeticionPostman peticion, long corregida ) {
+        porPeticion.get( peticion.getNombre() ).registrar( SIN_TERMINAR, corregida );
+        total.registrar( SIN_TERMINAR, corregida );
+    }
+    
+    /**
+     * @return Peticiones registradas, incluidas las sin terminar.
+     */
+    public long getTotal( ) {
+        return total.corregida.instantanea().getTotal();
+    }
+    
+    /**
+     * Imprime una tabla con las respuestas por estado y los percentiles 50,
+     * 90, 99, 99.9 y 100 de la latencia corregida, en milisegundos, y la p99
+     * de servicio.
+     * @param salida Destino del reporte.
+     */
+    public void imprimir( PrintStream salida ) {
+        salida.printf( Locale.ROOT, "%-50s %8s %10s %10s %10s %10s %10s %12s  %s%n",
+                "petición", "total", "p50", "p90", "p99", "p99.9", "máx", "p99 servicio", "estados" );
+        for ( Map.Entry< String, Estadistica > entrada : porPeticion.entrySet() ) {
+            entrada.getValue().imprimir( salida, entrada.getKey() );
+        }
+        total.imprimir( salida, TOTAL );
+    }
+    
+    /**
+     * Latencias y estados de una petición.
+     */
+    private static final class Estadistica {
+        
+        private final HistogramaLatencia corregida = new HistogramaLatencia( );
+        private final HistogramaLatencia servicio = new HistogramaLatencia( );
+        private final Map< Integer, LongAdder > estados = new ConcurrentHashMap<>( );
+        
+        void registrar( int estado, long latenciaCorregida, long latenciaServicio ) {
+            servicio.registrar( latenciaServicio );
+            registrar( estado, latenciaCorregida );
+        }
+        
+        void registrar( int estado, long latenciaCorregida ) {
+            corregida.registrar( latenciaCorregida );
+            estados.computeIfAbsent( estado, e -> new LongAdder( ) ).increment();
+        }
+        
+        void imprimir( PrintStream salida, String nombre ) {
+            HistogramaLatencia.Instantanea instantanea = corregida.instantanea();
+            if ( instantanea.getTotal() == 0 ) {
+                salida.printf( Locale.ROOT, "%-50s %8d%n", nombre, 0 );
+                return;
+            }
+            StringBuilder linea = new StringBuilder( String.format( Locale.ROOT, "%-50s %8d", nombre, instantanea.getTotal() ) );
+            for ( double percentil : PERCENTILES ) {
+                linea.append( String.format( Locale.ROOT, " %10.3f", instantanea.percentil( percentil ) / NANOS_POR_MILISEGUNDO ) );
+            }
+            linea.append( String.format( Locale.ROOT, " %12.3f ", servicio.instantanea().percentil( 0.99 ) / NANOS_POR_MILISEGUNDO ) );
+            for ( Map.Entry< Integer, LongAdder > estado : new TreeMap<>( estados ).entrySet() ) {
+                linea.append( ' ' ).append( nombreEstado( estado.getKey() ) ).append( '=' ).append( estado.getValue().sum() );
+            }
+            salida.println( linea );
+        }
+        
+        private static Object nombreEstado( int estado ) {
+            switch ( estado ) {
+                case SIN_RESPUESTA:
+                    return "error";
+                case SIN_TERMINAR:
+                    return "sin-terminar";
+                default:
+                    return estado;
+            }
+        }
+    }
+}
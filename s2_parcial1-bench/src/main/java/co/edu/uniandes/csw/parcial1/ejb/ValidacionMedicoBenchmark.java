@@ -0,0 +1,76 @@
+package co.edu.uniandes.csw.parcial1.ejb;
+
+import co.edu.uniandes.csw.parcial1.bench.DatosMedicos;
+import co.edu.uniandes.csw.parcial1.entities.MedicoEntity;
+import co.edu.uniandes.csw.parcial1.exceptions.BusinessLogicException;
+import co.edu.uniandes.csw.parcial1.validacion.ReglasMedico;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validación de las reglas de createMedico que no consultan la base de datos,
+ * con un médico válido y con uno rechazado, lanzando la excepción como
+ * createMedico o sólo reportando las violaciones como createMedicos. Está en
+ * el paquete de la lógica porque la validación es visible sólo en el paquete.
+ * @author j.ramirez28
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+@State( Scope.Thread )
+public class ValidacionMedicoBenchmark {
+    
+    //-------------------------------------------------------------------------
+    // ATRIBUTOS
+    //-------------------------------------------------------------------------
+    
+    private MedicoEntity valido;
+    
+    /**
+     * Médico con especialidad corta, la última regla que se verifica.
+     */
+    private MedicoEntity rechazado;
+    
+    //-------------------------------------------------------------------------
+    // MÉTODOS
+    //-------------------------------------------------------------------------
+    
+    @Setup
+    public void preparar( ) {
+        valido = DatosMedicos.entidad( );
+        rechazado = DatosMedicos.entidad( );
+        rechazado.setEspecialidad( "Piel" );
+    }
+    
+    @Benchmark
+    public Object valido( ) throws BusinessLogicException {
+        MedicoLogic.validarMedico( valido );
+        return valido;
+    }
+    
+    @Benchmark
+    public Object rechazado( ) {
+        try {
+            MedicoLogic.validarMedico( rechazado );
+            return rechazado;
+        } catch ( BusinessLogicException e ) {
+            return e;
+        }
+    }
+    
+    @Benchmark
+    public Object rechazadoSinExcepcion( ) {
+        return ReglasMedico.VALIDADOR.validar( rechazado );
+    }
+}